@@ -0,0 +1,132 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.printer;
+
+import com.github.mavogel.ilias.lib.model.GroupUserModelFull;
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.lib.model.IliasUser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares printing the members of a large course with the compiled default templates
+ * and with velocity interpreting them. Run with <code>mvn -P benchmark verify</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DefaultTemplateBenchmark {
+
+    @Param({"HTML", "LATEX"})
+    private VelocityOutputPrinter.OutputType outputType;
+
+    @Param({"2000"})
+    private int members;
+
+    private Map<String, Object> contextMap;
+    private Renderer compiled;
+    private Renderer interpreted;
+
+    @Setup
+    public void setUp() throws Exception {
+        final List<GroupUserModelFull> membersPerGroup = new ArrayList<>();
+        for (int group = 0; group < members / 25; group++) {
+            final List<IliasUser> groupMembers = new ArrayList<>();
+            for (int member = 0; member < 25; member++) {
+                groupMembers.add(new IliasUser("First " + member, "Last " + group, "user" + member + "@example.org"));
+            }
+            membersPerGroup.add(new GroupUserModelFull(new IliasNode(group, IliasNode.Type.GROUP, "Group " + group), groupMembers));
+        }
+        contextMap = new HashMap<>();
+        contextMap.put("title", "Course");
+        contextMap.put("columnsOrder", "| c | p{2.5cm} | p{2.5cm} | p{2.5cm} | p{2.5cm} | p{2.5cm} |");
+        contextMap.put("columnsCount", Arrays.asList("1", "2", "3", "4", "5"));
+        contextMap.put("membersPerGroup", membersPerGroup);
+
+        compiled = DefaultRenderers.of(outputType);
+        interpreted = VelocityOutputPrinter.interpretedDefault(outputType);
+    }
+
+    @Benchmark
+    public long compiled() throws IOException {
+        final CountingWriter writer = new CountingWriter();
+        compiled.render(contextMap, writer);
+        return writer.count;
+    }
+
+    @Benchmark
+    public long interpreted() throws IOException {
+        final CountingWriter writer = new CountingWriter();
+        interpreted.render(contextMap, writer);
+        return writer.count;
+    }
+
+    /**
+     * Counts the written characters instead of writing a file.
+     */
+    private static final class CountingWriter extends Writer {
+        private long count;
+
+        @Override
+        public void write(final char[] buffer, final int offset, final int length) {
+            count += length;
+        }
+
+        @Override
+        public void write(final String value) {
+            count += value.length();
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.utils;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Compares parsing the chosen indexes and ranges of a course with thousands of groups in a single pass
+ * and with the former regex based parser, which expands the ranges into boxed streams.
+ * Run with <code>mvn -P benchmark verify -DskipTests -Dbenchmark=ChoiceParserBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChoiceParserBenchmark {
+
+    @Param({"0-4999", "1, 2, 4-6, 8, 10-15, 100-2999, 2500-4999"})
+    private String line;
+
+    @Param({"5000"})
+    private int choices;
+
+    @Benchmark
+    public List<Integer> singlePass() {
+        return IOUtils.parseChoiceIndexes(line, choices);
+    }
+
+    @Benchmark
+    public List<Integer> regex() {
+        final List<String> tokens = Arrays.stream(line.split(","))
+                .map(StringUtils::deleteWhitespace)
+                .collect(Collectors.toList());
+        if (tokens.stream().anyMatch(s -> !Defaults.DIGIT_PATTERN.matcher(s).matches()
+                && !Defaults.RANGE_PATTERN.matcher(s).matches())) {
+            throw new IllegalArgumentException("Contains invalid indexes and/or ranges or an invalid wildcard!");
+        }
+
+        final List<Integer> digits = tokens.stream()
+                .filter(s -> Defaults.DIGIT_PATTERN.matcher(s).matches())
+                .map(Integer::valueOf)
+                .collect(Collectors.toList());
+        if (!digits.stream().allMatch(index -> index >= 0 && index < choices)) {
+            throw new IllegalArgumentException("Choice is not in range!");
+        }
+
+        final List<String[]> ranges = tokens.stream()
+                .filter(s -> Defaults.RANGE_PATTERN.matcher(s).matches())
+                .map(r -> r.split("-"))
+                .collect(Collectors.toList());
+        if (!ranges.stream().allMatch(r -> Integer.valueOf(r[0]) <= Integer.valueOf(r[1])
+                && Integer.valueOf(r[0]) < choices && Integer.valueOf(r[1]) < choices)) {
+            throw new IllegalArgumentException("Range is not in range!");
+        }
+
+        final Optional<Stream<Integer>> expandedRanges = ranges.stream()
+                .map(r -> IntStream.rangeClosed(Integer.valueOf(r[0]), Integer.valueOf(r[1])))
+                .map(expanded -> expanded.mapToObj(Integer::valueOf))
+                .reduce(Stream::concat);
+        return Stream.concat(digits.stream(), expandedRanges.orElse(Stream.empty()))
+                .sorted()
+                .distinct()
+                .collect(Collectors.toList());
+    }
+}
@@ -25,44 +25,194 @@
  */
 package com.github.mavogel.ilias;
 
-import com.github.mavogel.ilias.lib.model.LoginConfiguration;
+import com.github.mavogel.ilias.journal.ActionJournal;
+import com.github.mavogel.ilias.journal.UnfinishedRun;
 import com.github.mavogel.ilias.lib.model.UserDataIds;
+import com.github.mavogel.ilias.model.BatchJob;
+import com.github.mavogel.ilias.model.Schedule;
+import com.github.mavogel.ilias.model.ToolConfiguration;
+import com.github.mavogel.ilias.scheduler.SchedulerDaemon;
+import com.github.mavogel.ilias.server.ControlServer;
+import com.github.mavogel.ilias.state.BatchRun;
 import com.github.mavogel.ilias.state.ToolStateMachine;
 import com.github.mavogel.ilias.utils.ConfigurationsUtils;
+import com.github.mavogel.ilias.utils.IOUtils;
 import com.github.mavogel.ilias.lib.wrapper.IliasEndpoint;
 import org.apache.commons.lang3.Validate;
 import org.apache.log4j.Logger;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 /**
  * The starting point of the command line application by plumbing all together, registering the shutdown hook
  * and starting the state machine.
  * <p>
+ * If a job file is given as second argument, the job is run without any prompt and the
+ * application exits with the code of {@link BatchRun#getExitCode()}. With <code>--daemon</code> and a schedule
+ * file the jobs of the schedule are run by the {@link SchedulerDaemon} until the process is stopped. With
+ * <code>--server</code> the operations are served by the {@link ControlServer} until the process is stopped.
+ * Without a job the unfinished work found in the journal is offered for resuming.
+ * <p>
  * Created by mavogel on 8/29/16.
  */
 public class Starter {
 
     private static Logger LOG = Logger.getLogger(Starter.class);
 
+    private static final String DAEMON_OPTION = "--daemon";
+    private static final String SERVER_OPTION = "--server";
+
     public static void main(String[] args) {
         Validate.notNull(args, "No arguments given");
-        Validate.isTrue(args.length == 1, "Only one argument is allowed. The 'config.properties'");
-        Validate.isTrue(!args[0].isEmpty(), "The argument is empty");
-        createEndpointAndRun(ConfigurationsUtils.createLoginConfiguration(args[0]));
+        Validate.isTrue(args.length == 1 || args.length == 2 || (args.length == 3 && DAEMON_OPTION.equals(args[1])),
+                "Only the 'config.properties' and optionally a job file, '" + SERVER_OPTION + "' or '"
+                        + DAEMON_OPTION + "' with a schedule file are allowed as arguments");
+        Validate.isTrue(Arrays.stream(args).noneMatch(String::isEmpty), "An argument is empty");
+        if (args.length == 1) {
+            createEndpointAndRun(ConfigurationsUtils.createToolConfiguration(args[0]));
+        } else if (args.length == 2 && SERVER_OPTION.equals(args[1])) {
+            System.exit(runServer(args[0]));
+        } else if (args.length == 2) {
+            System.exit(runJob(args[0], args[1]));
+        } else {
+            System.exit(runDaemon(args[0], args[2]));
+        }
+    }
+
+    /**
+     * Runs the control server until the process is stopped.
+     *
+     * @param propertyFilename the name of the property file of the tool
+     * @return the exit code
+     */
+    private static int runServer(final String propertyFilename) {
+        final ControlServer server;
+        try {
+            server = new ControlServer(ConfigurationsUtils.createToolConfiguration(propertyFilename));
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Could not create the server: " + e.getMessage());
+            return BatchRun.EXIT_ERROR;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+
+        try {
+            server.start();
+            server.awaitStop();
+        } catch (RuntimeException e) {
+            LOG.error("Stopped the server: " + e.getMessage());
+            server.stop();
+            return BatchRun.EXIT_ERROR;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            server.stop();
+        }
+        return BatchRun.EXIT_SUCCESS;
+    }
+
+    /**
+     * Runs the scheduler daemon until the process is stopped.
+     *
+     * @param propertyFilename the name of the property file of the tool
+     * @param scheduleFilename the name of the property file of the schedule
+     * @return the exit code
+     */
+    private static int runDaemon(final String propertyFilename, final String scheduleFilename) {
+        final SchedulerDaemon daemon;
+        try {
+            final Schedule schedule = ConfigurationsUtils.createSchedule(scheduleFilename);
+            daemon = new SchedulerDaemon(ConfigurationsUtils.createToolConfiguration(propertyFilename), schedule);
+        } catch (RuntimeException e) {
+            LOG.error("Invalid schedule: " + e.getMessage());
+            return BatchRun.EXIT_ERROR;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(daemon::stop));
+
+        try {
+            daemon.start();
+            daemon.awaitStop();
+        } catch (RuntimeException e) {
+            LOG.error("Stopped the scheduler: " + e.getMessage());
+            daemon.stop();
+            return BatchRun.EXIT_ERROR;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            daemon.stop();
+        }
+        return BatchRun.EXIT_SUCCESS;
+    }
+
+    /**
+     * Runs the job of the given file without any prompt.
+     *
+     * @param propertyFilename the name of the property file of the tool
+     * @param jobFilename      the name of the property file of the job
+     * @return the exit code
+     */
+    private static int runJob(final String propertyFilename, final String jobFilename) {
+        final ToolStateMachine stateMachine;
+        try {
+            final BatchJob batchJob = ConfigurationsUtils.createBatchJob(jobFilename);
+            stateMachine = new ToolStateMachine(ConfigurationsUtils.createToolConfiguration(propertyFilename), batchJob);
+        } catch (RuntimeException e) {
+            LOG.error("Invalid job: " + e.getMessage());
+            return BatchRun.EXIT_ERROR;
+        }
+        addShutdownHook(stateMachine);
+
+        stateMachine.getJournal()
+                .filter(journal -> !journal.getUnfinishedRuns().isEmpty())
+                .ifPresent(journal -> LOG.warn("The journal contains unfinished work, start without a job to resume it"));
+
+        final BatchRun batchRun = stateMachine.getBatchRun().get();
+        try {
+            stateMachine.start();
+        } catch (RuntimeException e) {
+            batchRun.fail("Aborted the job: " + e.getMessage());
+        }
+        batchRun.logSummary();
+        return batchRun.getExitCode();
     }
 
     /**
-     * Starts the State machine with the given login configuration.
+     * Starts the State machine with the given tool configuration.
      *
-     * @param loginConfiguration the login configuration
+     * @param toolConfiguration the tool configuration
      */
-    private static void createEndpointAndRun(LoginConfiguration loginConfiguration) {
-        final ToolStateMachine stateMachine = new ToolStateMachine(loginConfiguration);
+    private static void createEndpointAndRun(ToolConfiguration toolConfiguration) {
+        final ToolStateMachine stateMachine = new ToolStateMachine(toolConfiguration);
         addShutdownHook(stateMachine);
+        offerResume(stateMachine);
         stateMachine.start();
     }
 
+    /**
+     * Offers to resume the unfinished work of each run in the journal, e.g. after a crash. A run which
+     * is not resumed is discarded.
+     *
+     * @param stateMachine the state machine
+     */
+    private static void offerResume(final ToolStateMachine stateMachine) {
+        stateMachine.getJournal().ifPresent(journal -> {
+            final List<UnfinishedRun> resumed = new ArrayList<>();
+            for (UnfinishedRun run : journal.getUnfinishedRuns()) {
+                run.asDisplayStrings().forEach(LOG::info);
+                LOG.info("Resume the unfinished work after the login?");
+                if (IOUtils.readAndParseUserConfirmation()) {
+                    resumed.add(run);
+                } else {
+                    journal.end(run.getRunId());
+                }
+            }
+            if (!resumed.isEmpty()) {
+                stateMachine.resume(resumed);
+            }
+        });
+    }
+
     /**
      * Adding a shutdown hook to perform a logout if the user quits the program incorrectly or
      * it is shut down by another process of the system.
@@ -79,6 +229,7 @@ public class Starter {
                     if (userDataIds.isPresent() && endPoint != null && !stateMachine.isInEndState()) {
                         endPoint.logout(" before shutting down!");
                     }
+                    stateMachine.getJournal().ifPresent(ActionJournal::close);
                 } else {
                     LOG.info("No connection had to be closed on shutdown hook!");
                 }
@@ -0,0 +1,130 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2017 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.executor;
+
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import org.apache.log4j.Logger;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The aggregated per group results of one action.
+ */
+public class ActionResult {
+
+    private static Logger LOG = Logger.getLogger(ActionResult.class);
+
+    private final String actionName;
+    private final List<GroupResult> groupResults;
+    private final boolean skipped;
+
+    /**
+     * Creates the result of an action which was performed.
+     *
+     * @param actionName   the name of the action
+     * @param groupResults the results of each group
+     */
+    public ActionResult(final String actionName, final List<GroupResult> groupResults) {
+        this(actionName, groupResults, false);
+    }
+
+    private ActionResult(final String actionName, final List<GroupResult> groupResults, final boolean skipped) {
+        this.actionName = actionName;
+        this.groupResults = groupResults == null ? Collections.emptyList() : groupResults;
+        this.skipped = skipped;
+    }
+
+    /**
+     * Creates the result of an action which was not confirmed by the user.
+     *
+     * @param actionName the name of the action
+     * @return the result
+     */
+    public static ActionResult skipped(final String actionName) {
+        return new ActionResult(actionName, null, true);
+    }
+
+    /**
+     * Creates the result of an action which failed as a whole, e.g. before it could start on the groups.
+     *
+     * @param actionName the name of the action
+     * @param groups     the groups of the action
+     * @param error      the cause
+     * @return the result with the failure for each group
+     */
+    public static ActionResult failed(final String actionName, final List<IliasNode> groups, final Exception error) {
+        return new ActionResult(actionName, groups.stream()
+                .map(group -> GroupResult.failure(group, error))
+                .collect(Collectors.toList()));
+    }
+
+    public String getActionName() {
+        return actionName;
+    }
+
+    public List<GroupResult> getGroupResults() {
+        return groupResults;
+    }
+
+    public boolean isSkipped() {
+        return skipped;
+    }
+
+    /**
+     * @return the groups the action failed on
+     */
+    public List<IliasNode> getFailedGroups() {
+        return groupResults.stream()
+                .filter(r -> !r.isSuccess())
+                .map(GroupResult::getGroup)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return <code>true</code> if the action succeeded on every group, <code>false</code> otherwise
+     */
+    public boolean isSuccess() {
+        return groupResults.stream().allMatch(GroupResult::isSuccess);
+    }
+
+    /**
+     * Logs the summary of the action and each failed group.
+     */
+    public void logSummary() {
+        if (skipped) {
+            LOG.info(actionName + ": skipped");
+            return;
+        }
+        final long succeeded = groupResults.stream().filter(GroupResult::isSuccess).count();
+        LOG.info(String.format("%s: %d of %d groups succeeded", actionName, succeeded, groupResults.size()));
+        groupResults.stream()
+                .filter(r -> !r.isSuccess())
+                .map(r -> " - " + r.asDisplayString())
+                .forEach(LOG::error);
+    }
+}
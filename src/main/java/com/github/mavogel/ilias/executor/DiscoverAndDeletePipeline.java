@@ -0,0 +1,234 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.executor;
+
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.wrapper.AsyncIliasEndpoint;
+import org.apache.commons.lang3.Validate;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Discovers the files of groups and deletes them as soon as the files of a group are known, instead of
+ * collecting the files of all groups first. The discovered but not yet deleted groups are bounded by the
+ * queue size: the discovery of further groups waits until a discovered group is finished.
+ * The pipeline has no threads of its own. Its calls are started when a previous one completed and are
+ * performed by the {@link GroupTaskExecutor} of the endpoint, so they count against its parallelism.
+ */
+public class DiscoverAndDeletePipeline {
+
+    private static Logger LOG = Logger.getLogger(DiscoverAndDeletePipeline.class);
+
+    private final int deleters;
+    private final int queueSize;
+
+    /**
+     * Creates the pipeline.
+     *
+     * @param deleters  the maximum amount of concurrent deletions
+     * @param queueSize the maximum amount of groups discovered but not deleted yet
+     */
+    public DiscoverAndDeletePipeline(final int deleters, final int queueSize) {
+        Validate.isTrue(deleters > 0, "deleters has to be greater than 0");
+        Validate.isTrue(queueSize > 0, "queueSize has to be greater than 0");
+        this.deleters = deleters;
+        this.queueSize = queueSize;
+    }
+
+    public int getDeleters() {
+        return deleters;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * Starts the pipeline on the groups without waiting for it.
+     *
+     * @param actionName the name of the action, used for the result
+     * @param groups     the groups to remove the files from
+     * @param endpoint   the endpoint
+     * @return the future of the aggregated result in the order of the given groups, never completed exceptionally
+     */
+    public CompletableFuture<ActionResult> run(final String actionName, final List<IliasNode> groups,
+                                               final AsyncIliasEndpoint endpoint) {
+        return run(actionName, groups, endpoint, result -> {
+        });
+    }
+
+    /**
+     * Starts the pipeline on the groups without waiting for it and reports the result of each group as soon as it is known.
+     *
+     * @param actionName     the name of the action, used for the result
+     * @param groups         the groups to remove the files from
+     * @param endpoint       the endpoint
+     * @param resultListener the listener for the result of each group
+     * @return the future of the aggregated result in the order of the given groups, never completed exceptionally
+     */
+    public CompletableFuture<ActionResult> run(final String actionName, final List<IliasNode> groups,
+                                               final AsyncIliasEndpoint endpoint, final Consumer<GroupResult> resultListener) {
+        LOG.debug(String.format("%s: discovering and deleting on %d groups with %d deleters and a queue of %d",
+                actionName, groups.size(), deleters, queueSize));
+        final Run run = new Run(groups, endpoint, resultListener);
+        run.pump();
+        return run.done.thenApply(ignored -> new ActionResult(actionName, groups.stream()
+                .map(run::resultOf)
+                .collect(Collectors.toList())));
+    }
+
+    /**
+     * The state of one run of the pipeline. The counters are guarded by the run itself.
+     */
+    private final class Run {
+
+        private final List<IliasNode> groups;
+        private final AsyncIliasEndpoint endpoint;
+        private final Consumer<GroupResult> resultListener;
+        private final Map<Integer, GroupResult> results;
+        private final Queue<DiscoveredFiles> discovered;
+        private final CompletableFuture<Void> done;
+
+        private int nextGroup;
+        private int unfinishedDiscovered;
+        private int runningDeletions;
+        private int finished;
+        private boolean pumping;
+
+        private Run(final List<IliasNode> groups, final AsyncIliasEndpoint endpoint, final Consumer<GroupResult> resultListener) {
+            this.groups = groups;
+            this.endpoint = endpoint;
+            this.resultListener = resultListener;
+            this.results = new ConcurrentHashMap<>();
+            this.discovered = new ArrayDeque<>();
+            this.done = new CompletableFuture<>();
+        }
+
+        /**
+         * Starts the discoveries and deletions the bounds allow. A call completing while the calls are started
+         * only updates the counters, the running pump picks it up. So calls failing right away, e.g. because
+         * the executor was shut down, do not recurse.
+         */
+        private void pump() {
+            synchronized (this) {
+                if (pumping) {
+                    return;
+                }
+                pumping = true;
+            }
+            while (true) {
+                final List<Runnable> calls = new ArrayList<>();
+                synchronized (this) {
+                    while (unfinishedDiscovered < queueSize && nextGroup < groups.size()) {
+                        final IliasNode group = groups.get(nextGroup++);
+                        unfinishedDiscovered++;
+                        calls.add(() -> discover(group));
+                    }
+                    while (runningDeletions < deleters && !discovered.isEmpty()) {
+                        final DiscoveredFiles files = discovered.poll();
+                        runningDeletions++;
+                        calls.add(() -> delete(files));
+                    }
+                    if (calls.isEmpty()) {
+                        pumping = false;
+                        if (finished == groups.size()) {
+                            done.complete(null);
+                        }
+                        return;
+                    }
+                }
+                calls.forEach(Runnable::run);
+            }
+        }
+
+        private void discover(final IliasNode group) {
+            endpoint.getFilesFromGroups(Collections.singletonList(group)).whenComplete((files, error) -> {
+                if (error != null) {
+                    finish(group, GroupResult.failure(group, GroupTaskExecutor.causeOf(error)));
+                } else if (files == null || files.isEmpty()) {
+                    finish(group, GroupResult.success(group));
+                } else {
+                    synchronized (this) {
+                        discovered.add(new DiscoveredFiles(group, files));
+                    }
+                    pump();
+                }
+            });
+        }
+
+        private void delete(final DiscoveredFiles files) {
+            endpoint.deleteObjectNodes(files.files).whenComplete((ignored, error) -> {
+                synchronized (this) {
+                    runningDeletions--;
+                }
+                finish(files.group, error == null
+                        ? GroupResult.success(files.group)
+                        : GroupResult.failure(files.group, GroupTaskExecutor.causeOf(error)));
+            });
+        }
+
+        private void finish(final IliasNode group, final GroupResult result) {
+            results.put(group.getRefId(), result);
+            synchronized (this) {
+                unfinishedDiscovered--;
+                finished++;
+            }
+            try {
+                resultListener.accept(result);
+            } finally {
+                pump();
+            }
+        }
+
+        private GroupResult resultOf(final IliasNode group) {
+            return results.get(group.getRefId());
+        }
+    }
+
+    /**
+     * The files of a group handed over from the discovery to the deletion.
+     */
+    private static final class DiscoveredFiles {
+
+        private final IliasNode group;
+        private final List<IliasNode> files;
+
+        private DiscoveredFiles(final IliasNode group, final List<IliasNode> files) {
+            this.group = group;
+            this.files = files;
+        }
+    }
+}
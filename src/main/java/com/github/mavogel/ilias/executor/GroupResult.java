@@ -0,0 +1,90 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2017 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.executor;
+
+import com.github.mavogel.ilias.lib.model.IliasNode;
+
+import java.util.Optional;
+
+/**
+ * The outcome of the work on a single group.
+ */
+public class GroupResult {
+
+    private final IliasNode group;
+    private final Exception error;
+
+    private GroupResult(final IliasNode group, final Exception error) {
+        this.group = group;
+        this.error = error;
+    }
+
+    /**
+     * @param group the group the task succeeded on
+     * @return the successful result
+     */
+    public static GroupResult success(final IliasNode group) {
+        return new GroupResult(group, null);
+    }
+
+    /**
+     * @param group the group the task failed on
+     * @param error the cause
+     * @return the failed result
+     */
+    public static GroupResult failure(final IliasNode group, final Exception error) {
+        return new GroupResult(group, error);
+    }
+
+    public IliasNode getGroup() {
+        return group;
+    }
+
+    public Optional<Exception> getError() {
+        return Optional.ofNullable(error);
+    }
+
+    /**
+     * @return <code>true</code> if the task succeeded, <code>false</code> otherwise
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * Returns a string for displaying the result on the command line.
+     *
+     * @return the string
+     */
+    public String asDisplayString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(group.getTitle()).append(" (refId ").append(group.getRefId()).append(")");
+        if (!isSuccess()) {
+            sb.append(": ").append(error.getMessage());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.executor;
+
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import org.apache.commons.lang3.Validate;
+import org.apache.log4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the calls to the endpoint asynchronously, so the calls for the groups are performed concurrently.
+ * Uses virtual threads if the JDK provides them and a bounded pool of workers otherwise. In both cases at
+ * most <code>parallelism</code> calls run at the same time.
+ */
+public class GroupTaskExecutor {
+
+    private static Logger LOG = Logger.getLogger(GroupTaskExecutor.class);
+
+    private final int parallelism;
+    private final ExecutorService workers;
+    private final Semaphore permits;
+    private final Consumer<GroupResult> resultListener;
+
+    /**
+     * Creates the executor.
+     *
+     * @param parallelism the maximum amount of concurrent calls
+     */
+    public GroupTaskExecutor(final int parallelism) {
+        Validate.isTrue(parallelism > 0, "parallelism has to be greater than 0");
+        this.parallelism = parallelism;
+        this.permits = new Semaphore(parallelism);
+        this.resultListener = result -> {
+        };
+        final ExecutorService virtualThreads = createVirtualThreadExecutor();
+        if (virtualThreads != null) {
+            LOG.debug("Performing calls on virtual threads");
+            this.workers = virtualThreads;
+        } else {
+            final AtomicInteger threadCount = new AtomicInteger();
+            this.workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+                Thread worker = new Thread(runnable, "ilias-worker-" + threadCount.incrementAndGet());
+                worker.setDaemon(true);
+                return worker;
+            });
+        }
+    }
+
+    /**
+     * Creates a view on the executor sharing its workers and permits.
+     */
+    private GroupTaskExecutor(final GroupTaskExecutor executor, final Consumer<GroupResult> resultListener) {
+        this.parallelism = executor.parallelism;
+        this.permits = executor.permits;
+        this.workers = executor.workers;
+        this.resultListener = resultListener;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Creates an executor sharing the workers and permits of this one, which reports the result of each group
+     * as soon as it is known, e.g. for journaling the progress of an action.
+     *
+     * @param resultListener the listener for the results
+     * @return the reporting executor
+     */
+    public GroupTaskExecutor reportingTo(final Consumer<GroupResult> resultListener) {
+        return new GroupTaskExecutor(this, resultListener);
+    }
+
+    /**
+     * @return the listener for the results of the groups, for work reporting them on its own like the
+     * {@link DiscoverAndDeletePipeline}
+     */
+    public Consumer<GroupResult> getResultListener() {
+        return this::report;
+    }
+
+    /**
+     * Performs the call on a worker as soon as one of the <code>parallelism</code> permits is free.
+     *
+     * @param call the call
+     * @param <T>  the type of the result
+     * @return the future of the result, completed exceptionally if the call failed
+     */
+    public <T> CompletableFuture<T> submit(final Callable<T> call) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            workers.execute(() -> run(call, future));
+        } catch (RejectedExecutionException ree) {
+            future.completeExceptionally(ree);
+        }
+        return future;
+    }
+
+    /**
+     * Starts the task on each of the groups without waiting for them.
+     * A failure on one group does not abort the task on the other ones.
+     *
+     * @param actionName the name of the action, used for the result
+     * @param groups     the groups
+     * @param task       starts the work on a group and returns its future
+     * @return the future of the aggregated result in the order of the given groups, never completed exceptionally
+     */
+    public CompletableFuture<ActionResult> executeAsync(final String actionName, final List<IliasNode> groups,
+                                                        final Function<IliasNode, CompletableFuture<?>> task) {
+        LOG.debug(String.format("%s: running on %d groups with %d concurrent calls", actionName, groups.size(), parallelism));
+        final List<CompletableFuture<GroupResult>> futures = groups.stream()
+                .map(group -> start(group, task).handle((ignored, error) -> report(error == null
+                        ? GroupResult.success(group)
+                        : GroupResult.failure(group, causeOf(error)))))
+                .collect(Collectors.toList());
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]))
+                .thenApply(done -> new ActionResult(actionName, futures.stream()
+                        .map(CompletableFuture::join)
+                        .collect(Collectors.toList())));
+    }
+
+    /**
+     * Executes the task on each of the groups and waits until all are finished.
+     * A failure on one group does not abort the task on the other ones.
+     *
+     * @param actionName the name of the action, used for the result
+     * @param groups     the groups
+     * @param task       the task to perform on each group
+     * @return the aggregated result in the order of the given groups
+     */
+    public ActionResult execute(final String actionName, final List<IliasNode> groups, final GroupTask task) {
+        return executeAsync(actionName, groups, group -> submit(() -> {
+            task.execute(group);
+            return null;
+        })).join();
+    }
+
+    /**
+     * Stops all workers.
+     */
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Unwraps the exception a future was completed with.
+     *
+     * @param error the error of the future
+     * @return the original exception
+     */
+    public static Exception causeOf(final Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof Exception ? (Exception) cause : new Exception(cause);
+    }
+
+    /**
+     * Passes the result to the listener. A failing listener does not change the result.
+     */
+    private GroupResult report(final GroupResult result) {
+        try {
+            resultListener.accept(result);
+        } catch (RuntimeException e) {
+            LOG.warn("Could not report the result of group " + result.getGroup().getRefId() + ": " + e.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * Runs the call with a permit. The permit is released before the future is completed, so
+     * the dependent stages do not count as running calls.
+     */
+    private <T> void run(final Callable<T> call, final CompletableFuture<T> future) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(ie);
+            return;
+        }
+
+        T result = null;
+        Exception error = null;
+        try {
+            result = call.call();
+        } catch (Exception e) {
+            error = e;
+        } finally {
+            permits.release();
+        }
+
+        if (error == null) {
+            future.complete(result);
+        } else {
+            future.completeExceptionally(error);
+        }
+    }
+
+    private static CompletableFuture<?> start(final IliasNode group, final Function<IliasNode, CompletableFuture<?>> task) {
+        try {
+            return task.apply(group);
+        } catch (RuntimeException e) {
+            final CompletableFuture<?> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    /**
+     * @return the executor creating a virtual thread per call or <code>null</code> if the JDK does not have them
+     */
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
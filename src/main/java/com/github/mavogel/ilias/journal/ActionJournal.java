@@ -0,0 +1,388 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.journal;
+
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * An append-only journal of the groups the mutating actions of a run are planned on and done with, so the
+ * unfinished work can be resumed after a crash. Each entry is a line:
+ * <ul>
+ * <li><code>BEGIN runId startMillis</code></li>
+ * <li><code>PARAMS runId action key value</code>: a parameter the action was prepared with, e.g. <code>maxMembers</code></li>
+ * <li><code>PLAN runId action courseRefId courseTitle groupRefId groupTitle</code></li>
+ * <li><code>DONE runId action groupRefId</code></li>
+ * <li><code>END runId</code></li>
+ * </ul>
+ * The planned groups and the end of a run are synced to the disk right away, the done groups are synced
+ * in batches every sync interval. A group done shortly before a crash may hence be done again on a resume,
+ * which does no harm as all actions set the same state again.
+ * <p>
+ * On opening the journal only the entries of the runs which were not ended are kept. The journal is locked
+ * while it is open, so another process cannot compact it meanwhile and drop the entries of a running run.
+ */
+public class ActionJournal {
+
+    private static Logger LOG = Logger.getLogger(ActionJournal.class);
+
+    private static final String BEGIN = "BEGIN";
+    private static final String PARAMS = "PARAMS";
+    private static final String PLAN = "PLAN";
+    private static final String DONE = "DONE";
+    private static final String END = "END";
+    private static final String SEPARATOR = "\t";
+
+    private final Path file;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final List<UnfinishedRun> unfinishedRuns;
+    private final FileChannel channel;
+    private final Writer writer;
+    private final ScheduledExecutorService syncer;
+    private boolean dirty;
+    private boolean closed;
+    private boolean failed;
+
+    /**
+     * Opens and locks the journal and removes the entries of the ended runs.
+     *
+     * @param file         the journal file
+     * @param syncInterval the interval between two syncs of the done groups to the disk
+     * @throws IOException if the journal could not be opened or is open in another process
+     */
+    public ActionJournal(final Path file, final Duration syncInterval) throws IOException {
+        this.file = file;
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        // a lock file, as the compaction replaces the journal file and with it a lock on it
+        this.lockChannel = FileChannel.open(file.resolveSibling(file.getFileName() + ".lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.lock = tryLock(lockChannel);
+        try {
+            final List<String> lines = readCompleteLines(file);
+            this.unfinishedRuns = Collections.unmodifiableList(parse(lines));
+            compact(lines);
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException ioe) {
+            lockChannel.close();
+            throw ioe;
+        }
+        this.writer = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8));
+        this.syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ilias-journal-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.syncer.scheduleWithFixedDelay(this::sync, syncInterval.toMillis(), syncInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return the runs found on opening which were not ended and are not done with all of their groups
+     */
+    public List<UnfinishedRun> getUnfinishedRuns() {
+        return unfinishedRuns;
+    }
+
+    /**
+     * Begins a run.
+     *
+     * @return the id of the run
+     */
+    public String begin() {
+        final String runId = UUID.randomUUID().toString();
+        append(BEGIN, runId, String.valueOf(System.currentTimeMillis()));
+        return runId;
+    }
+
+    /**
+     * Journals the parameters an action was prepared with, so it is resumed with them without asking again.
+     * They are synced with the planned groups of the action.
+     *
+     * @param runId      the id of the run
+     * @param action     the name of the action
+     * @param parameters the parameters as properties of a job file
+     */
+    public void parameters(final String runId, final String action, final Map<String, String> parameters) {
+        parameters.forEach((key, value) -> append(PARAMS, runId, action, encode(key), encode(value)));
+    }
+
+    /**
+     * Journals the groups of a course an action is performed on and syncs them before returning,
+     * so they are journaled before any call is made.
+     *
+     * @param runId  the id of the run
+     * @param action the name of the action
+     * @param course the course of the groups
+     * @param groups the groups
+     */
+    public void planned(final String runId, final String action, final IliasNode course, final List<IliasNode> groups) {
+        for (IliasNode group : groups) {
+            append(PLAN, runId, action, String.valueOf(course.getRefId()), encode(course.getTitle()),
+                    String.valueOf(group.getRefId()), encode(group.getTitle()));
+        }
+        sync();
+    }
+
+    /**
+     * Journals that an action is done with a group. It is synced with the next batch.
+     *
+     * @param runId  the id of the run
+     * @param action the name of the action
+     * @param group  the group
+     */
+    public void done(final String runId, final String action, final IliasNode group) {
+        append(DONE, runId, action, String.valueOf(group.getRefId()));
+    }
+
+    /**
+     * Ends a run, so it is not offered for resuming. Ends a resumed or discarded {@link UnfinishedRun} as well.
+     *
+     * @param runId the id of the run
+     */
+    public void end(final String runId) {
+        append(END, runId);
+        sync();
+    }
+
+    /**
+     * Writes the journaled entries to the disk.
+     */
+    public void sync() {
+        try {
+            synchronized (this) {
+                if (!dirty || closed) {
+                    return;
+                }
+                writer.flush();
+                dirty = false;
+            }
+            // outside of the lock, so the entries are appended meanwhile
+            channel.force(false);
+        } catch (IOException ioe) {
+            fail(ioe);
+        }
+    }
+
+    /**
+     * Syncs the journal and closes it. The runs which were not ended stay unfinished.
+     */
+    public void close() {
+        syncer.shutdownNow();
+        sync();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                writer.close();
+            } catch (IOException ioe) {
+                fail(ioe);
+            }
+            try {
+                lock.release();
+                lockChannel.close();
+            } catch (IOException ioe) {
+                LOG.debug("Could not release the lock of the journal '" + file + "': " + ioe.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @param lockChannel the channel of the lock file
+     * @return the lock
+     * @throws IOException if the lock is held by another process or another journal of this process
+     */
+    private static FileLock tryLock(final FileChannel lockChannel) throws IOException {
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException | IOException e) {
+            lockChannel.close();
+            throw new IOException("the journal could not be locked: " + e.getMessage(), e);
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("the journal is open in another process");
+        }
+        return lock;
+    }
+
+    private synchronized void append(final String... fields) {
+        if (closed) {
+            LOG.debug("Journal is closed, dropped the " + fields[0] + " entry");
+            return;
+        }
+        try {
+            writer.write(String.join(SEPARATOR, fields));
+            writer.write('\n');
+            dirty = true;
+        } catch (IOException ioe) {
+            fail(ioe);
+        }
+    }
+
+    /**
+     * A failing journal must not fail the actions, hence the failure is only logged once.
+     */
+    private synchronized void fail(final IOException ioe) {
+        if (!failed) {
+            failed = true;
+            LOG.warn("Could not write the journal '" + file + "', unfinished work may not be resumable: " + ioe.getMessage());
+        }
+    }
+
+    /**
+     * @param file the journal file
+     * @return the lines terminated by a line break, so a last line torn by a crash is left out
+     * @throws IOException if the journal could not be read
+     */
+    private static List<String> readCompleteLines(final Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return Collections.emptyList();
+        }
+        final String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        final List<String> lines = new ArrayList<>(Arrays.asList(content.split("\n", -1)));
+        lines.remove(lines.size() - 1);
+        return lines;
+    }
+
+    /**
+     * Rewrites the journal with the entries of the unfinished runs only.
+     *
+     * @param lines the lines of the journal
+     * @throws IOException if the journal could not be rewritten
+     */
+    private void compact(final List<String> lines) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) == 0) {
+            return;
+        }
+        final Set<String> unfinishedRunIds = unfinishedRuns.stream().map(UnfinishedRun::getRunId).collect(Collectors.toSet());
+        final List<String> kept = lines.stream()
+                .filter(line -> {
+                    final String[] fields = line.split(SEPARATOR);
+                    return fields.length > 1 && unfinishedRunIds.contains(fields[1]);
+                })
+                .collect(Collectors.toList());
+        // rewritten even if nothing is removed, so a line torn by a crash is dropped
+        final Path tempFile = Files.createTempFile(file.toAbsolutePath().getParent(), "journal", ".tmp");
+        try {
+            Files.write(tempFile, kept.stream().map(line -> line + '\n').collect(Collectors.joining())
+                    .getBytes(StandardCharsets.UTF_8));
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Replays the entries. Invalid lines are skipped.
+     *
+     * @param lines the lines of the journal
+     * @return the runs which were not ended and are not done with all groups
+     */
+    static List<UnfinishedRun> parse(final List<String> lines) {
+        final Map<String, UnfinishedRun> runs = new LinkedHashMap<>();
+        final Set<String> endedRunIds = new HashSet<>();
+        for (String line : lines) {
+            final String[] fields = line.split(SEPARATOR, -1);
+            try {
+                if (BEGIN.equals(fields[0]) && fields.length == 3) {
+                    runs.put(fields[1], new UnfinishedRun(fields[1], Instant.ofEpochMilli(Long.parseLong(fields[2]))));
+                } else if (PARAMS.equals(fields[0]) && fields.length == 5 && runs.containsKey(fields[1])) {
+                    runs.get(fields[1]).parameter(fields[2], decode(fields[3]), decode(fields[4]));
+                } else if (PLAN.equals(fields[0]) && fields.length == 7 && runs.containsKey(fields[1])) {
+                    runs.get(fields[1]).planned(fields[2],
+                            new IliasNode(Integer.parseInt(fields[3]), IliasNode.Type.COURSE, decode(fields[4])),
+                            new IliasNode(Integer.parseInt(fields[5]), IliasNode.Type.GROUP, decode(fields[6])));
+                } else if (DONE.equals(fields[0]) && fields.length == 4 && runs.containsKey(fields[1])) {
+                    runs.get(fields[1]).done(fields[2], Integer.parseInt(fields[3]));
+                } else if (END.equals(fields[0]) && fields.length == 2) {
+                    endedRunIds.add(fields[1]);
+                } else {
+                    LOG.debug("Skipping the incomplete journal entry '" + line + "'");
+                }
+            } catch (IllegalArgumentException iae) {
+                LOG.debug("Skipping the invalid journal entry '" + line + "'");
+            }
+        }
+        return runs.values().stream()
+                .filter(run -> !endedRunIds.contains(run.getRunId()) && run.isUnfinished())
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private static String encode(final String title) {
+        try {
+            return URLEncoder.encode(title == null ? "" : title, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException uee) {
+            throw new IllegalStateException(uee);
+        }
+    }
+
+    private static String decode(final String title) {
+        try {
+            return URLDecoder.decode(title, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException uee) {
+            throw new IllegalStateException(uee);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.journal;
+
+import com.github.mavogel.ilias.lib.model.IliasNode;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A run of actions found in the {@link ActionJournal} which was not ended, e.g. because the JVM died.
+ * It contains the groups each mutating action was planned on but not done with and the parameters it was prepared with.
+ */
+public class UnfinishedRun {
+
+    private final String runId;
+    private final Instant started;
+    private final Map<String, Map<Integer, IliasNode>> plannedGroups;
+    private final Map<String, Set<Integer>> doneGroups;
+    private final Map<Integer, IliasNode> courseOfGroup;
+    private final Map<String, Map<String, String>> parameters;
+
+    UnfinishedRun(final String runId, final Instant started) {
+        this.runId = runId;
+        this.started = started;
+        this.plannedGroups = new LinkedHashMap<>();
+        this.doneGroups = new HashMap<>();
+        this.courseOfGroup = new HashMap<>();
+        this.parameters = new HashMap<>();
+    }
+
+    void parameter(final String action, final String key, final String value) {
+        parameters.computeIfAbsent(action, name -> new LinkedHashMap<>()).put(key, value);
+    }
+
+    void planned(final String action, final IliasNode course, final IliasNode group) {
+        plannedGroups.computeIfAbsent(action, name -> new LinkedHashMap<>()).put(group.getRefId(), group);
+        courseOfGroup.put(group.getRefId(), course);
+    }
+
+    void done(final String action, final int groupRefId) {
+        doneGroups.computeIfAbsent(action, name -> new HashSet<>()).add(groupRefId);
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public Instant getStarted() {
+        return started;
+    }
+
+    /**
+     * @return the names of the actions which are not done with all groups, in the order they were planned
+     */
+    public List<String> getActions() {
+        return Collections.unmodifiableList(plannedGroups.keySet().stream()
+                .filter(action -> !getUnfinishedGroups(action).isEmpty())
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * @param action the name of the action
+     * @return the groups the action was planned on but not done with
+     */
+    public List<IliasNode> getUnfinishedGroups(final String action) {
+        final Set<Integer> done = doneGroups.getOrDefault(action, Collections.emptySet());
+        return Collections.unmodifiableList(plannedGroups.getOrDefault(action, Collections.emptyMap()).values().stream()
+                .filter(group -> !done.contains(group.getRefId()))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * @param action the name of the action
+     * @return the parameters the action was prepared with as properties of a job file, empty if it has none
+     */
+    public Map<String, String> getParameters(final String action) {
+        return Collections.unmodifiableMap(parameters.getOrDefault(action, Collections.emptyMap()));
+    }
+
+    /**
+     * @param group the group
+     * @return the course of the group
+     */
+    public IliasNode getCourseOf(final IliasNode group) {
+        return courseOfGroup.get(group.getRefId());
+    }
+
+    /**
+     * @return <code>true</code> if at least one action is not done with all of its groups
+     */
+    public boolean isUnfinished() {
+        return !getActions().isEmpty();
+    }
+
+    /**
+     * Returns the lines for displaying the unfinished work on the command line.
+     *
+     * @return the lines
+     */
+    public List<String> asDisplayStrings() {
+        final List<String> lines = new ArrayList<>();
+        lines.add("Unfinished run started at " + started + ":");
+        for (String action : getActions()) {
+            lines.add(String.format(" - %s: %d of %d groups not done", action, getUnfinishedGroups(action).size(),
+                    plannedGroups.get(action).size()));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.model;
+
+import com.github.mavogel.ilias.printer.VelocityOutputPrinter;
+import com.github.mavogel.ilias.utils.Defaults;
+import org.apache.commons.configuration2.Configuration;
+import org.apache.commons.lang3.Validate;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The parameters of the actions, which are asked from the user otherwise. Used to prepare
+ * the actions without any prompt, e.g. for a batch job. A parameter is only validated
+ * if the action requiring it is prepared.
+ */
+public class ActionParameters {
+
+    public static final String MAX_MEMBERS = "maxMembers";
+    public static final String REGISTRATION_START = "registration.start";
+    public static final String REGISTRATION_END = "registration.end";
+
+    private final Integer maxMembers;
+    private final RegistrationPeriod registrationPeriod;
+    private final Map<VelocityOutputPrinter.OutputType, String> templatePaths;
+
+    /**
+     * Parses the parameters. Not given or empty properties are left out.
+     * <ul>
+     * <li><code>maxMembers</code>: the maximum amount of members of a group</li>
+     * <li><code>registration.start</code> and <code>registration.end</code>: the registration period</li>
+     * <li><code>outputTypes</code>: the comma separated output types of the printed members</li>
+     * <li><code>template.&lt;OUTPUT_TYPE&gt;</code>: the path to the template of an output type, the default if empty</li>
+     * </ul>
+     *
+     * @param config the parsed properties
+     * @throws IllegalArgumentException if a property has an invalid value
+     */
+    public ActionParameters(final Configuration config) {
+        final String rawMaxMembers = ToolConfiguration.getRaw(config, MAX_MEMBERS);
+        this.maxMembers = rawMaxMembers == null ? null : ToolConfiguration.getInt(config, MAX_MEMBERS, 0);
+        Validate.isTrue(this.maxMembers == null || this.maxMembers >= 0, "maxMembers must not be negative");
+
+        final LocalDateTime registrationStart = getDate(config, REGISTRATION_START);
+        final LocalDateTime registrationEnd = getDate(config, REGISTRATION_END);
+        Validate.isTrue((registrationStart == null) == (registrationEnd == null),
+                "registration.start and registration.end have to be given together");
+        if (registrationStart != null) {
+            Validate.isTrue(registrationStart.isBefore(registrationEnd), "registration.end has to be after registration.start");
+            this.registrationPeriod = new RegistrationPeriod(registrationStart, registrationEnd);
+        } else {
+            this.registrationPeriod = null;
+        }
+
+        this.templatePaths = new LinkedHashMap<>();
+        final String rawOutputTypes = ToolConfiguration.getRaw(config, "outputTypes");
+        if (rawOutputTypes != null) {
+            for (String rawOutputType : rawOutputTypes.split(",")) {
+                final VelocityOutputPrinter.OutputType outputType = parseOutputType(rawOutputType.trim());
+                this.templatePaths.put(outputType, outputType.isTemplated()
+                        ? ToolConfiguration.getString(config, "template." + outputType.name(), "")
+                        : "");
+            }
+        }
+    }
+
+    /**
+     * @return the maximum amount of members of a group
+     * @throws IllegalArgumentException if it was not given
+     */
+    public int getMaxMembers() {
+        Validate.isTrue(maxMembers != null, "maxMembers is required");
+        return maxMembers;
+    }
+
+    /**
+     * @return the registration period
+     * @throws IllegalArgumentException if it was not given
+     */
+    public RegistrationPeriod getRegistrationPeriod() {
+        Validate.isTrue(registrationPeriod != null, "registration.start and registration.end are required");
+        return registrationPeriod;
+    }
+
+    /**
+     * @return the template path for each output type in the given order, empty for the default template
+     * @throws IllegalArgumentException if no output type was given
+     */
+    public Map<VelocityOutputPrinter.OutputType, String> getTemplatePaths() {
+        Validate.isTrue(!templatePaths.isEmpty(), "outputTypes is required");
+        return Collections.unmodifiableMap(templatePaths);
+    }
+
+    private static LocalDateTime getDate(final Configuration config, final String key) {
+        final String raw = ToolConfiguration.getRaw(config, key);
+        if (raw == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(raw, Defaults.DATE_FORMAT);
+        } catch (DateTimeParseException dtpe) {
+            throw new IllegalArgumentException(key + " property is not a date of the format 'yyyy-MM-ddTHH:mm'");
+        }
+    }
+
+    private static VelocityOutputPrinter.OutputType parseOutputType(final String raw) {
+        return Arrays.stream(VelocityOutputPrinter.OutputType.values())
+                .filter(outputType -> outputType.name().equalsIgnoreCase(raw))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(String.format("Output type '%s' is unknown. Use one of %s",
+                        raw, Arrays.stream(VelocityOutputPrinter.OutputType.values())
+                                .map(Enum::name).collect(Collectors.joining(", ")))));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.model;
+
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import org.apache.commons.configuration2.Configuration;
+import org.apache.commons.lang3.Validate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+
+/**
+ * A job run without any prompt: the courses, the groups in them and the actions performed on
+ * the groups with their parameters.
+ * <p>
+ * The courses are given by their refId or title, the groups by a regular expression matching
+ * their titles and the actions by their names, e.g. <code>SetMaxMembers</code>.
+ */
+public class BatchJob {
+
+    private final List<String> courses;
+    private final Pattern groupPattern;
+    private final List<String> actions;
+    private final ActionParameters actionParameters;
+    private final boolean dryRun;
+
+    /**
+     * Parses the job.
+     *
+     * @param config the parsed properties of the job file
+     * @throws IllegalArgumentException if a property is missing or has an invalid value
+     */
+    public BatchJob(final Configuration config) {
+        this.courses = splitAndTrim(ToolConfiguration.getString(config, "courses", ""));
+        Validate.isTrue(!this.courses.isEmpty(), "courses are required");
+        final String groups = ToolConfiguration.getString(config, "groups", ".*");
+        try {
+            this.groupPattern = Pattern.compile(groups);
+        } catch (PatternSyntaxException pse) {
+            throw new IllegalArgumentException("groups property is not a valid regular expression: " + pse.getDescription());
+        }
+        this.actions = splitAndTrim(ToolConfiguration.getString(config, "actions", ""));
+        Validate.isTrue(!this.actions.isEmpty(), "actions are required");
+        this.actionParameters = new ActionParameters(config);
+        this.dryRun = ToolConfiguration.getBoolean(config, "dryRun", false);
+    }
+
+    /**
+     * @return the refIds or titles of the courses in the order they are processed
+     */
+    public List<String> getCourses() {
+        return courses;
+    }
+
+    /**
+     * @param course the course
+     * @param selector the refId or title of the course
+     * @return <code>true</code> if the course is the one given by the selector
+     */
+    public static boolean isCourse(final IliasNode course, final String selector) {
+        return String.valueOf(course.getRefId()).equals(selector) || selector.equalsIgnoreCase(course.getTitle());
+    }
+
+    /**
+     * @param group the group
+     * @return <code>true</code> if the title of the group matches the pattern of the job
+     */
+    public boolean isGroupSelected(final IliasNode group) {
+        return group.getTitle() != null && groupPattern.matcher(group.getTitle()).matches();
+    }
+
+    /**
+     * @return the names of the actions in the order they are prepared
+     */
+    public List<String> getActions() {
+        return actions;
+    }
+
+    public ActionParameters getActionParameters() {
+        return actionParameters;
+    }
+
+    /**
+     * @return <code>true</code> if only the plan of the calls is made, without performing the actions
+     */
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    static List<String> splitAndTrim(final String raw) {
+        return Collections.unmodifiableList(Arrays.stream(raw.split(","))
+                .map(String::trim)
+                .filter(token -> !token.isEmpty())
+                .collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.model;
+
+import com.github.mavogel.ilias.scheduler.CronExpression;
+import com.github.mavogel.ilias.utils.Defaults;
+import org.apache.commons.configuration2.Configuration;
+import org.apache.commons.lang3.Validate;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * The jobs run by the scheduler daemon and its settings.
+ * <ul>
+ * <li><code>jobs</code>: the comma separated names of the jobs</li>
+ * <li><code>job.&lt;name&gt;.cron</code>: the cron expression of the job, see {@link CronExpression}</li>
+ * <li><code>job.&lt;name&gt;.maxConcurrentRuns</code>: the maximum amount of runs of the job at the same time</li>
+ * <li><code>job.&lt;name&gt;.*</code>: the properties of the {@link BatchJob}, e.g. <code>job.&lt;name&gt;.courses</code></li>
+ * <li><code>state.file</code>: the file the state of the jobs is kept in across restarts</li>
+ * <li><code>keepAlive.minutes</code>: the interval of the calls keeping the session alive</li>
+ * </ul>
+ */
+public class Schedule {
+
+    private final List<ScheduledJob> jobs;
+    private final Path stateFile;
+    private final Duration keepAliveInterval;
+
+    /**
+     * Parses the schedule.
+     *
+     * @param config the parsed properties of the schedule file
+     * @throws IllegalArgumentException if a property is missing or has an invalid value
+     */
+    public Schedule(final Configuration config) {
+        final List<String> names = BatchJob.splitAndTrim(ToolConfiguration.getString(config, "jobs", ""));
+        Validate.isTrue(!names.isEmpty(), "jobs are required");
+        Validate.isTrue(new HashSet<>(names).size() == names.size(), "The names of the jobs have to be unique");
+
+        final List<ScheduledJob> parsedJobs = new ArrayList<>(names.size());
+        for (String name : names) {
+            final Configuration jobConfig = config.subset("job." + name);
+            try {
+                final String cron = ToolConfiguration.getString(jobConfig, "cron", "");
+                Validate.isTrue(!cron.isEmpty(), "cron is required");
+                parsedJobs.add(new ScheduledJob(name, new CronExpression(cron),
+                        ToolConfiguration.getInt(jobConfig, "maxConcurrentRuns", Defaults.SCHEDULER_MAX_CONCURRENT_RUNS),
+                        new BatchJob(jobConfig)));
+            } catch (IllegalArgumentException iae) {
+                throw new IllegalArgumentException("Job '" + name + "': " + iae.getMessage());
+            }
+        }
+        this.jobs = Collections.unmodifiableList(parsedJobs);
+
+        this.stateFile = Paths.get(ToolConfiguration.getString(config, "state.file", Defaults.SCHEDULER_STATE_FILE));
+        final int keepAliveMinutes = ToolConfiguration.getInt(config, "keepAlive.minutes", Defaults.SESSION_KEEP_ALIVE_MINUTES);
+        Validate.isTrue(keepAliveMinutes > 0, "keepAlive.minutes has to be greater than 0");
+        this.keepAliveInterval = Duration.ofMinutes(keepAliveMinutes);
+    }
+
+    /**
+     * @return the jobs in the order of the <code>jobs</code> property
+     */
+    public List<ScheduledJob> getJobs() {
+        return jobs;
+    }
+
+    public Path getStateFile() {
+        return stateFile;
+    }
+
+    public Duration getKeepAliveInterval() {
+        return keepAliveInterval;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.model;
+
+import com.github.mavogel.ilias.scheduler.CronExpression;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * A {@link BatchJob} run by the scheduler whenever its cron expression matches.
+ */
+public class ScheduledJob {
+
+    private final String name;
+    private final CronExpression cron;
+    private final int maxConcurrentRuns;
+    private final BatchJob batchJob;
+
+    /**
+     * @param name              the name of the job, unique within the schedule
+     * @param cron              the points in time the job is run at
+     * @param maxConcurrentRuns the maximum amount of runs of the job at the same time
+     * @param batchJob          the courses, groups and actions of the job
+     */
+    public ScheduledJob(final String name, final CronExpression cron, final int maxConcurrentRuns, final BatchJob batchJob) {
+        Validate.isTrue(maxConcurrentRuns > 0, "maxConcurrentRuns has to be greater than 0");
+        this.name = name;
+        this.cron = cron;
+        this.maxConcurrentRuns = maxConcurrentRuns;
+        this.batchJob = batchJob;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CronExpression getCron() {
+        return cron;
+    }
+
+    public int getMaxConcurrentRuns() {
+        return maxConcurrentRuns;
+    }
+
+    public BatchJob getBatchJob() {
+        return batchJob;
+    }
+}
@@ -0,0 +1,426 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2017 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.model;
+
+import com.github.mavogel.ilias.lib.model.LoginConfiguration;
+import com.github.mavogel.ilias.utils.Defaults;
+import com.github.mavogel.ilias.wrapper.CachingIliasEndpoint;
+import org.apache.commons.configuration2.Configuration;
+import org.apache.commons.lang3.Validate;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The configuration of the tool. Holds the {@link LoginConfiguration} and the settings
+ * of the client itself, which are not part of the login.
+ */
+public class ToolConfiguration {
+
+    private final LoginConfiguration loginConfiguration;
+    private final int parallelism;
+    private final Map<CachingIliasEndpoint.Operation, Duration> cacheTimesToLive;
+    private final int cacheMaxEntries;
+    private final boolean snapshotEnabled;
+    private final Path snapshotDirectory;
+    private final int pipelineDeleters;
+    private final int pipelineQueueSize;
+    private final int maxConcurrentReads;
+    private final int maxConcurrentWrites;
+    private final int maxRequestsPerSecond;
+    private final int retryMaxAttempts;
+    private final Duration retryBackoff;
+    private final Duration retryMaxBackoff;
+    private final int circuitFailureThreshold;
+    private final Duration circuitOpenDuration;
+    private final int httpMaxConnections;
+    private final Duration httpConnectTimeout;
+    private final Duration httpReadTimeout;
+    private final boolean printStreaming;
+    private final boolean printIncremental;
+    private final boolean printSharded;
+    private final String serverAddress;
+    private final int serverPort;
+    private final int serverThreads;
+    private final int serverQueueSize;
+    private final String serverToken;
+    private final boolean journalEnabled;
+    private final Path journalFile;
+    private final Duration journalSyncInterval;
+
+    /**
+     * Creates the tool configuration. Uses defaults for not given or empty properties.
+     *
+     * @param loginConfiguration the login configuration
+     * @param config             the parsed properties, if <code>null</code> all defaults are used
+     * @throws IllegalArgumentException if a property has an invalid value
+     */
+    public ToolConfiguration(final LoginConfiguration loginConfiguration, final Configuration config) {
+        this.loginConfiguration = loginConfiguration;
+        this.parallelism = getInt(config, "parallelism", Defaults.PARALLELISM);
+        Validate.isTrue(this.parallelism > 0, "parallelism has to be greater than 0");
+
+        this.cacheTimesToLive = new EnumMap<>(CachingIliasEndpoint.Operation.class);
+        for (CachingIliasEndpoint.Operation operation : CachingIliasEndpoint.Operation.values()) {
+            final int defaultSeconds = operation == CachingIliasEndpoint.Operation.COURSES
+                    || operation == CachingIliasEndpoint.Operation.GROUPS
+                    ? Defaults.CACHE_NODES_TTL_SECONDS : Defaults.CACHE_CONTENT_TTL_SECONDS;
+            final String key = "cache." + operation.name().toLowerCase() + ".ttl";
+            this.cacheTimesToLive.put(operation, Duration.ofSeconds(getInt(config, key, defaultSeconds)));
+        }
+        this.cacheMaxEntries = getInt(config, "cache.maxEntries", Defaults.CACHE_MAX_ENTRIES);
+        Validate.isTrue(this.cacheMaxEntries > 0, "cache.maxEntries has to be greater than 0");
+
+        this.snapshotEnabled = getBoolean(config, "snapshot.enabled", Defaults.SNAPSHOT_ENABLED);
+        this.snapshotDirectory = Paths.get(getString(config, "snapshot.dir", Defaults.SNAPSHOT_DIRECTORY));
+
+        this.pipelineDeleters = getInt(config, "pipeline.deleters", Defaults.PIPELINE_DELETERS);
+        Validate.isTrue(this.pipelineDeleters > 0, "pipeline.deleters has to be greater than 0");
+        this.pipelineQueueSize = getInt(config, "pipeline.queueSize", Defaults.PIPELINE_QUEUE_SIZE);
+        Validate.isTrue(this.pipelineQueueSize > 0, "pipeline.queueSize has to be greater than 0");
+
+        this.maxConcurrentReads = getInt(config, "limit.reads", Defaults.LIMIT_MAX_CONCURRENT_READS);
+        Validate.isTrue(this.maxConcurrentReads > 0, "limit.reads has to be greater than 0");
+        this.maxConcurrentWrites = getInt(config, "limit.writes", Defaults.LIMIT_MAX_CONCURRENT_WRITES);
+        Validate.isTrue(this.maxConcurrentWrites > 0, "limit.writes has to be greater than 0");
+        this.maxRequestsPerSecond = getInt(config, "limit.rps", Defaults.LIMIT_MAX_REQUESTS_PER_SECOND);
+
+        this.retryMaxAttempts = getInt(config, "retry.maxAttempts", Defaults.RETRY_MAX_ATTEMPTS);
+        Validate.isTrue(this.retryMaxAttempts > 0, "retry.maxAttempts has to be greater than 0");
+        this.retryBackoff = Duration.ofMillis(getInt(config, "retry.backoffMillis", Defaults.RETRY_BACKOFF_MILLIS));
+        this.retryMaxBackoff = Duration.ofMillis(getInt(config, "retry.maxBackoffMillis", Defaults.RETRY_MAX_BACKOFF_MILLIS));
+        Validate.isTrue(!this.retryBackoff.isNegative() && this.retryMaxBackoff.compareTo(this.retryBackoff) >= 0,
+                "retry.maxBackoffMillis has to be at least retry.backoffMillis");
+        this.circuitFailureThreshold = getInt(config, "circuit.failureThreshold", Defaults.CIRCUIT_FAILURE_THRESHOLD);
+        Validate.isTrue(this.circuitFailureThreshold > 0, "circuit.failureThreshold has to be greater than 0");
+        this.circuitOpenDuration = Duration.ofSeconds(getInt(config, "circuit.openSeconds", Defaults.CIRCUIT_OPEN_SECONDS));
+
+        this.httpMaxConnections = getInt(config, "http.maxConnections", Defaults.HTTP_MAX_CONNECTIONS);
+        Validate.isTrue(this.httpMaxConnections > 0, "http.maxConnections has to be greater than 0");
+        this.httpConnectTimeout = Duration.ofMillis(getInt(config, "http.connectTimeoutMillis", Defaults.HTTP_CONNECT_TIMEOUT_MILLIS));
+        Validate.isTrue(!this.httpConnectTimeout.isNegative(), "http.connectTimeoutMillis must not be negative");
+        this.httpReadTimeout = Duration.ofMillis(getInt(config, "http.readTimeoutMillis", Defaults.HTTP_READ_TIMEOUT_MILLIS));
+        Validate.isTrue(!this.httpReadTimeout.isNegative(), "http.readTimeoutMillis must not be negative");
+
+        this.printStreaming = getBoolean(config, "print.streaming", Defaults.PRINT_STREAMING);
+        this.printIncremental = getBoolean(config, "print.incremental", Defaults.PRINT_INCREMENTAL);
+        this.printSharded = getBoolean(config, "print.sharded", Defaults.PRINT_SHARDED);
+
+        this.serverAddress = getString(config, "server.address", Defaults.SERVER_ADDRESS);
+        this.serverPort = getInt(config, "server.port", Defaults.SERVER_PORT);
+        Validate.isTrue(this.serverPort >= 0 && this.serverPort <= 65535, "server.port has to be between 0 and 65535");
+        this.serverThreads = getInt(config, "server.threads", Defaults.SERVER_THREADS);
+        Validate.isTrue(this.serverThreads > 0, "server.threads has to be greater than 0");
+        this.serverQueueSize = getInt(config, "server.queueSize", Defaults.SERVER_QUEUE_SIZE);
+        Validate.isTrue(this.serverQueueSize > 0, "server.queueSize has to be greater than 0");
+        this.serverToken = getString(config, "server.token", Defaults.SERVER_TOKEN);
+
+        this.journalEnabled = getBoolean(config, "journal.enabled", Defaults.JOURNAL_ENABLED);
+        this.journalFile = Paths.get(getString(config, "journal.file", Defaults.JOURNAL_FILE));
+        this.journalSyncInterval = Duration.ofMillis(getInt(config, "journal.syncMillis", Defaults.JOURNAL_SYNC_MILLIS));
+        Validate.isTrue(!this.journalSyncInterval.isNegative() && !this.journalSyncInterval.isZero(),
+                "journal.syncMillis has to be greater than 0");
+    }
+
+    /**
+     * Creates the tool configuration with the defaults for all settings.
+     *
+     * @param loginConfiguration the login configuration
+     * @return the tool configuration
+     */
+    public static ToolConfiguration withDefaults(final LoginConfiguration loginConfiguration) {
+        return new ToolConfiguration(loginConfiguration, null);
+    }
+
+    public LoginConfiguration getLoginConfiguration() {
+        return loginConfiguration;
+    }
+
+    /**
+     * @return the amount of workers performing calls on groups concurrently
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @param operation the cached operation
+     * @return the time to live of its results, zero if they are not cached
+     */
+    public Duration getCacheTimeToLive(final CachingIliasEndpoint.Operation operation) {
+        return cacheTimesToLive.get(operation);
+    }
+
+    /**
+     * @return the maximum amount of cached results
+     */
+    public int getCacheMaxEntries() {
+        return cacheMaxEntries;
+    }
+
+    /**
+     * @return <code>true</code> if the course tree is persisted for faster starts
+     */
+    public boolean isSnapshotEnabled() {
+        return snapshotEnabled;
+    }
+
+    /**
+     * @return the directory of the course tree snapshots
+     */
+    public Path getSnapshotDirectory() {
+        return snapshotDirectory;
+    }
+
+    /**
+     * @return the amount of deleters removing the discovered files of groups
+     */
+    public int getPipelineDeleters() {
+        return pipelineDeleters;
+    }
+
+    /**
+     * @return the maximum amount of groups whose files are discovered but not deleted yet
+     */
+    public int getPipelineQueueSize() {
+        return pipelineQueueSize;
+    }
+
+    /**
+     * @return the maximum amount of concurrent reading calls to the server
+     */
+    public int getMaxConcurrentReads() {
+        return maxConcurrentReads;
+    }
+
+    /**
+     * @return the maximum amount of concurrent mutating calls to the server
+     */
+    public int getMaxConcurrentWrites() {
+        return maxConcurrentWrites;
+    }
+
+    /**
+     * @return the maximum amount of calls per second to the server, 0 or less for no cap
+     */
+    public int getMaxRequestsPerSecond() {
+        return maxRequestsPerSecond;
+    }
+
+    /**
+     * @return the maximum attempts of a call failing with transport errors
+     */
+    public int getRetryMaxAttempts() {
+        return retryMaxAttempts;
+    }
+
+    /**
+     * @return the backoff before the first repetition of a call
+     */
+    public Duration getRetryBackoff() {
+        return retryBackoff;
+    }
+
+    /**
+     * @return the maximum backoff between two attempts of a call
+     */
+    public Duration getRetryMaxBackoff() {
+        return retryMaxBackoff;
+    }
+
+    /**
+     * @return the consecutive transport errors after which no further calls are made for a while
+     */
+    public int getCircuitFailureThreshold() {
+        return circuitFailureThreshold;
+    }
+
+    /**
+     * @return how long no calls are made after the server failed repeatedly
+     */
+    public Duration getCircuitOpenDuration() {
+        return circuitOpenDuration;
+    }
+
+    /**
+     * @return the maximum amount of idle persistent connections kept to the server
+     */
+    public int getHttpMaxConnections() {
+        return httpMaxConnections;
+    }
+
+    /**
+     * @return the timeout for establishing a connection, zero for none
+     */
+    public Duration getHttpConnectTimeout() {
+        return httpConnectTimeout;
+    }
+
+    /**
+     * @return the timeout for reading a response, zero for none
+     */
+    public Duration getHttpReadTimeout() {
+        return httpReadTimeout;
+    }
+
+    /**
+     * @return <code>true</code> if the members are printed group by group while they are fetched
+     */
+    public boolean isPrintStreaming() {
+        return printStreaming;
+    }
+
+    /**
+     * @return <code>true</code> if the sections of unchanged groups are taken from the previous output
+     */
+    public boolean isPrintIncremental() {
+        return printIncremental;
+    }
+
+    /**
+     * @return <code>true</code> if each group is printed into its own file of a dated directory
+     */
+    public boolean isPrintSharded() {
+        return printSharded;
+    }
+
+    public String getServerAddress() {
+        return serverAddress;
+    }
+
+    public int getServerPort() {
+        return serverPort;
+    }
+
+    /**
+     * @return the maximum amount of requests of the control server handled at the same time
+     */
+    public int getServerThreads() {
+        return serverThreads;
+    }
+
+    /**
+     * @return the maximum amount of accepted requests of the control server waiting for a thread
+     */
+    public int getServerQueueSize() {
+        return serverQueueSize;
+    }
+
+    /**
+     * @return the token the requests to the control server have to send, empty if only reading requests are served
+     */
+    public String getServerToken() {
+        return serverToken;
+    }
+
+    /**
+     * @return <code>true</code> if the groups the mutating actions are planned on and done with are journaled
+     */
+    public boolean isJournalEnabled() {
+        return journalEnabled;
+    }
+
+    public Path getJournalFile() {
+        return journalFile;
+    }
+
+    /**
+     * @return the interval between two syncs of the journal to the disk
+     */
+    public Duration getJournalSyncInterval() {
+        return journalSyncInterval;
+    }
+
+    /**
+     * Reads an integer property and falls back to the default value if it's not given or empty.
+     *
+     * @param config       the config
+     * @param key          the key of the property
+     * @param defaultValue the default value
+     * @return the value of the property
+     * @throws IllegalArgumentException if the value is not an integer
+     */
+    static int getInt(final Configuration config, final String key, final int defaultValue) {
+        final String raw = getRaw(config, key);
+        if (raw == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(raw);
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException(key + " property is not an integer");
+        }
+    }
+
+    /**
+     * Reads a boolean property and falls back to the default value if it's not given or empty.
+     *
+     * @param config       the config
+     * @param key          the key of the property
+     * @param defaultValue the default value
+     * @return the value of the property
+     * @throws IllegalArgumentException if the value is neither 'true' nor 'false'
+     */
+    static boolean getBoolean(final Configuration config, final String key, final boolean defaultValue) {
+        final String raw = getRaw(config, key);
+        if (raw == null) {
+            return defaultValue;
+        }
+        if (!"true".equalsIgnoreCase(raw) && !"false".equalsIgnoreCase(raw)) {
+            throw new IllegalArgumentException(key + " property is not a boolean");
+        }
+        return Boolean.parseBoolean(raw);
+    }
+
+    /**
+     * Reads a string property and falls back to the default value if it's not given or empty.
+     *
+     * @param config       the config
+     * @param key          the key of the property
+     * @param defaultValue the default value
+     * @return the value of the property
+     */
+    static String getString(final Configuration config, final String key, final String defaultValue) {
+        final String raw = getRaw(config, key);
+        return raw == null ? defaultValue : raw;
+    }
+
+    /**
+     * @param config the config
+     * @param key    the key of the property
+     * @return the trimmed value or <code>null</code> if not given or empty
+     */
+    static String getRaw(final Configuration config, final String key) {
+        if (config == null) {
+            return null;
+        }
+        final String raw = config.getString(key);
+        return raw == null || raw.trim().isEmpty() ? null : raw.trim();
+    }
+}
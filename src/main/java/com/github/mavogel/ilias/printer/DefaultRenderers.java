@@ -0,0 +1,260 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.printer;
+
+import com.github.mavogel.ilias.lib.model.GroupUserModelFull;
+import com.github.mavogel.ilias.lib.model.IliasUser;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The bundled default templates <code>group-members.html.vm</code> and <code>group-members.tex.vm</code>
+ * as plain Java renderers, so printing with a default template needs no interpretation by velocity.
+ * They iterate over the context values like <code>#foreach</code> and print a missing value as its reference,
+ * like velocity does, and keep its whitespace around the directives. Any change of the templates has to be
+ * done here as well, which <code>DefaultRenderersTest</code> verifies byte for byte.
+ */
+public final class DefaultRenderers {
+
+    private static final String HTML_HEAD =
+            "<!DOCTYPE html>\n"
+            + "<html lang=\"en\">\n"
+            + "<head>\n"
+            + "    <meta charset=\"UTF-8\">\n"
+            + "    <title>";
+
+    private static final String HTML_BODY =
+            "</title>\n"
+            + "    <!-- Latest compiled and minified CSS -->\n"
+            + "    <link rel=\"stylesheet\" href=\"https://maxcdn.bootstrapcdn.com/bootstrap/3.3.7/css/bootstrap.min.css\"\n"
+            + "          integrity=\"sha384-BVYiiSIFeK1dGmJRAkycuHAHRg32OmUcww7on3RYdg4Va+PmSTsz/K68vbdEjh4u\" crossorigin=\"anonymous\">\n"
+            + "\n"
+            + "    <!-- Optional theme -->\n"
+            + "    <link rel=\"stylesheet\" href=\"https://maxcdn.bootstrapcdn.com/bootstrap/3.3.7/css/bootstrap-theme.min.css\"\n"
+            + "          integrity=\"sha384-rHyoN1iRsVXV4nD0JutlnGaslCJuC7uwjduW9SVrLvRYooPp2bWYgmgJQIXwl/Sp\" crossorigin=\"anonymous\">\n"
+            + "\n"
+            + "    <!-- Latest compiled and minified JavaScript -->\n"
+            + "    <script src=\"https://maxcdn.bootstrapcdn.com/bootstrap/3.3.7/js/bootstrap.min.js\"\n"
+            + "            integrity=\"sha384-Tc5IQib027qvyjSMfHjOMaLkfuWVxZxUPnCJA7l2mCWNIpG9mGCD8wGNIcPD7Txa\"\n"
+            + "            crossorigin=\"anonymous\"></script>\n"
+            + "</head>\n"
+            + "<body>\n"
+            + "    <div class=\"container\">\n"
+            + "        <h1>";
+
+    private static final String HTML_TABLE =
+            "</h1>\n"
+            + "        <div class=\"table-responsive\">\n"
+            + "            <table class=\"table table-striped table-bordered\">\n";
+
+    private static final String HTML_END =
+            "            </table>\n"
+            + "        </div>\n"
+            + "    </div>\n"
+            + "</body>\n"
+            + "</html>";
+
+    private static final String LATEX_HEAD = "\\documentclass[11pt, a4paper, oneside]{proc}\n\\title{";
+
+    private static final String LATEX_TABLE = "}\n"
+            + "\\begin{document}\n"
+            + "\\maketitle\n"
+            + "%\n"
+            + "\\begin{table}[htp]\n"
+            + "\\begin{center}\n"
+            + "\\begin{tabular}{";
+
+    private static final String LATEX_END =
+            "\\end{tabular}\n"
+            + "\\end{center}\n"
+            + "\\end{table}\n"
+            + "%\n"
+            + "\\end{document}";
+
+    private static final String SPACES = "                                ";
+
+    private static final Renderer HTML = DefaultRenderers::renderHtml;
+    private static final Renderer LATEX = DefaultRenderers::renderLatex;
+
+    private DefaultRenderers() {
+        // utility class
+    }
+
+    /**
+     * @param outputType the output type
+     * @return the renderer of the default template of the output type
+     * @throws IllegalArgumentException if the output type has no default template
+     */
+    public static Renderer of(final VelocityOutputPrinter.OutputType outputType) {
+        switch (outputType) {
+            case HTML:
+                return HTML;
+            case LATEX:
+                return LATEX;
+            default:
+                throw new IllegalArgumentException("output type '" + outputType + "' has no default template");
+        }
+    }
+
+    private static void renderHtml(final Map<String, Object> contextMap, final Writer writer) throws IOException {
+        final List<?> columns = columnsOf(contextMap);
+        writer.write(HTML_HEAD);
+        writer.write(valueOf(contextMap.get("title"), "$title"));
+        writer.write(HTML_BODY);
+        writer.write(valueOf(contextMap.get("title"), "$title"));
+        writer.write(HTML_TABLE);
+        indent(writer, 16);
+        final Iterator<?> groups = iterate(contextMap.get("membersPerGroup"));
+        while (groups.hasNext()) {
+            final GroupUserModelFull mpg = (GroupUserModelFull) groups.next();
+            final List<IliasUser> members = mpg.getGroupMembers();
+            indent(writer, 20);
+            if (!members.isEmpty()) {
+                writer.write("                        <thead><tr><th>");
+                writer.write(valueOf(mpg.getGroupNode().getTitle(), "$groupNode.getTitle()"));
+                writer.write("</th>\n");
+                indent(writer, 24);
+                for (Object col : columns) {
+                    writer.write("                            <th>Exercise ");
+                    writer.write(valueOf(col, "${col}"));
+                    writer.write("</th>\n");
+                    indent(writer, 24);
+                }
+                writer.write("                        </tr></thead>\n");
+                writer.write("                        <tbody>\n");
+                indent(writer, 24);
+                for (IliasUser member : members) {
+                    writer.write("                            <tr>\n");
+                    writer.write("                                <td>");
+                    writer.write(valueOf(member.getLastName(), "$member.getLastName()"));
+                    writer.write(' ');
+                    writer.write(valueOf(member.getFirstName(), "$member.getFirstName()"));
+                    writer.write("</td>\n");
+                    indent(writer, 32);
+                    for (int i = 0; i < columns.size(); i++) {
+                        writer.write("                                <td></td>\n");
+                        indent(writer, 32);
+                    }
+                    writer.write("                            </tr>\n");
+                    indent(writer, 24);
+                }
+                writer.write("                        </tbody>\n");
+                indent(writer, 20);
+            }
+            indent(writer, 16);
+        }
+        writer.write(HTML_END);
+    }
+
+    private static void renderLatex(final Map<String, Object> contextMap, final Writer writer) throws IOException {
+        final List<?> columns = columnsOf(contextMap);
+        writer.write(LATEX_HEAD);
+        writer.write(valueOf(contextMap.get("title"), "$title"));
+        writer.write(LATEX_TABLE);
+        writer.write(valueOf(contextMap.get("columnsOrder"), "$columnsOrder"));
+        writer.write("}\n\\hline\n");
+        final Iterator<?> groups = iterate(contextMap.get("membersPerGroup"));
+        while (groups.hasNext()) {
+            final GroupUserModelFull mpg = (GroupUserModelFull) groups.next();
+            final List<IliasUser> members = mpg.getGroupMembers();
+            indent(writer, 4);
+            if (!members.isEmpty()) {
+                writer.write("        \\textbf{");
+                writer.write(valueOf(mpg.getGroupNode().getTitle(), "$groupNode.getTitle()"));
+                writer.write("}\n");
+                indent(writer, 8);
+                for (Object col : columns) {
+                    writer.write("        & Exercise ");
+                    writer.write(valueOf(col, "${col}"));
+                    writer.write('\n');
+                    indent(writer, 8);
+                }
+                writer.write("        \\\\ \\hline\n");
+                indent(writer, 8);
+                for (IliasUser member : members) {
+                    writer.write("            ");
+                    writer.write(valueOf(member.getLastName(), "$member.getLastName()"));
+                    writer.write(' ');
+                    writer.write(valueOf(member.getFirstName(), "$member.getFirstName()"));
+                    writer.write('\n');
+                    indent(writer, 12);
+                    for (int i = 0; i < columns.size(); i++) {
+                        writer.write("            &\n");
+                        indent(writer, 12);
+                    }
+                    writer.write("            \\\\ \\hline\n");
+                    indent(writer, 8);
+                }
+                indent(writer, 4);
+            }
+        }
+        writer.write(LATEX_END);
+    }
+
+    /**
+     * Writes the indentation of a directive line of the template. Velocity drops a <code>#set</code> line
+     * completely, but of the other directives only the line break, so their indentation stays in the output.
+     *
+     * @param writer the writer
+     * @param count  the number of spaces in front of the directive
+     * @throws IOException if the writer failed
+     */
+    private static void indent(final Writer writer, final int count) throws IOException {
+        writer.write(SPACES, 0, count);
+    }
+
+    private static List<?> columnsOf(final Map<String, Object> contextMap) {
+        final Object columns = contextMap.get("columnsCount");
+        return columns instanceof List ? (List<?>) columns : Collections.emptyList();
+    }
+
+    /**
+     * @param value the value of the context
+     * @return an iterator over the value like <code>#foreach</code>, empty if the value is missing
+     */
+    private static Iterator<?> iterate(final Object value) {
+        if (value instanceof Iterator) {
+            return (Iterator<?>) value;
+        } else if (value instanceof Iterable) {
+            return ((Iterable<?>) value).iterator();
+        }
+        return Collections.emptyIterator();
+    }
+
+    /**
+     * @param value     the value
+     * @param reference the reference in the template
+     * @return the value or the reference if it is missing, like velocity renders it
+     */
+    private static String valueOf(final Object value, final String reference) {
+        return value == null ? reference : value.toString();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.printer;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * An iterator for a template, which flushes the output before it checks for the next element.
+ * So the section rendered for an element is written out before the next element is loaded.
+ * {@link VelocityOutputPrinter} binds it to its output if it is part of the context.
+ *
+ * @param <T> the type of the elements
+ */
+public class FlushingIterator<T> implements Iterator<T> {
+
+    private final Iterator<T> delegate;
+    private volatile Flushable output;
+
+    /**
+     * @param delegate the iterator providing the elements
+     */
+    public FlushingIterator(final Iterator<T> delegate) {
+        this.delegate = Objects.requireNonNull(delegate);
+    }
+
+    /**
+     * @param output the output the elements are rendered to
+     */
+    public void bindTo(final Flushable output) {
+        this.output = output;
+    }
+
+    @Override
+    public boolean hasNext() {
+        flush();
+        return delegate.hasNext();
+    }
+
+    @Override
+    public T next() {
+        return delegate.next();
+    }
+
+    private void flush() {
+        final Flushable current = output;
+        if (current != null) {
+            try {
+                current.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.printer;
+
+import com.github.mavogel.ilias.lib.model.GroupUserModelFull;
+import com.github.mavogel.ilias.lib.model.IliasUser;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+
+/**
+ * Writes the members of the groups directly as CSV or JSON, without a template.
+ * The groups are written in a single pass while they are iterated, so they can be fetched lazily.
+ */
+public final class MembersExporter {
+
+    private static Logger LOG = Logger.getLogger(MembersExporter.class);
+
+    private static final String FILE_NAME = "group-members";
+    private static final String CSV_HEADER = "group_ref_id,group_title,last_name,first_name,email";
+
+    private MembersExporter() {
+        // utility class
+    }
+
+    /**
+     * Writes the members into a file in the current directory.
+     *
+     * @param outputType      {@link VelocityOutputPrinter.OutputType#CSV} or {@link VelocityOutputPrinter.OutputType#JSON}
+     * @param title           the title, e.g. of the course
+     * @param membersPerGroup the members of each group
+     * @throws IOException if the file could not be written
+     */
+    public static void export(final VelocityOutputPrinter.OutputType outputType, final String title,
+                              final Iterator<GroupUserModelFull> membersPerGroup) throws IOException {
+        try (Writer writer = new BufferedWriter(VelocityOutputPrinter.createFileWriter(outputType,
+                FILE_NAME + outputType.getTemplateExtension(), title))) {
+            if (membersPerGroup instanceof FlushingIterator) {
+                ((FlushingIterator<?>) membersPerGroup).bindTo(writer);
+            }
+            switch (outputType) {
+                case CSV:
+                    writeCsv(membersPerGroup, writer);
+                    break;
+                case JSON:
+                    writeJson(title, membersPerGroup, writer);
+                    break;
+                default:
+                    throw new IllegalArgumentException("output type '" + outputType + "' is rendered with a template");
+            }
+        } catch (IOException e) {
+            LOG.error("Error: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Writes one row per member as RFC 4180 CSV with a header.
+     *
+     * @param membersPerGroup the members of each group
+     * @param writer          the writer
+     * @throws IOException if writing failed
+     */
+    static void writeCsv(final Iterator<GroupUserModelFull> membersPerGroup, final Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        while (membersPerGroup.hasNext()) {
+            final GroupUserModelFull group = membersPerGroup.next();
+            final String groupRefId = String.valueOf(group.getGroupNode().getRefId());
+            final String groupTitle = escapeCsv(group.getGroupNode().getTitle());
+            for (IliasUser member : group.getGroupMembers()) {
+                writer.write(groupRefId);
+                writer.write(',');
+                writer.write(groupTitle);
+                writer.write(',');
+                writer.write(escapeCsv(member.getLastName()));
+                writer.write(',');
+                writer.write(escapeCsv(member.getFirstName()));
+                writer.write(',');
+                writer.write(escapeCsv(member.getEmail()));
+                writer.write("\r\n");
+            }
+        }
+    }
+
+    /**
+     * Writes an object with the title and the groups with their members.
+     *
+     * @param title           the title
+     * @param membersPerGroup the members of each group
+     * @param writer          the writer
+     * @throws IOException if writing failed
+     */
+    static void writeJson(final String title, final Iterator<GroupUserModelFull> membersPerGroup,
+                          final Writer writer) throws IOException {
+        writer.write("{\"title\":");
+        writeJsonString(title, writer);
+        writer.write(",\"groups\":[");
+        boolean firstGroup = true;
+        while (membersPerGroup.hasNext()) {
+            final GroupUserModelFull group = membersPerGroup.next();
+            if (!firstGroup) {
+                writer.write(',');
+            }
+            firstGroup = false;
+            writer.write("{\"refId\":");
+            writer.write(String.valueOf(group.getGroupNode().getRefId()));
+            writer.write(",\"title\":");
+            writeJsonString(group.getGroupNode().getTitle(), writer);
+            writer.write(",\"members\":[");
+            boolean firstMember = true;
+            for (IliasUser member : group.getGroupMembers()) {
+                if (!firstMember) {
+                    writer.write(',');
+                }
+                firstMember = false;
+                writer.write("{\"lastName\":");
+                writeJsonString(member.getLastName(), writer);
+                writer.write(",\"firstName\":");
+                writeJsonString(member.getFirstName(), writer);
+                writer.write(",\"email\":");
+                writeJsonString(member.getEmail(), writer);
+                writer.write('}');
+            }
+            writer.write("]}");
+        }
+        writer.write("]}");
+    }
+
+    /**
+     * @param value the value, may be <code>null</code>
+     * @return the value, quoted if it contains a separator, quote or line break
+     */
+    static String escapeCsv(final String value) {
+        if (value == null) {
+            return "";
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            final char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        return quote ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+
+    /**
+     * Writes the value as JSON string, or <code>null</code>. Used for other JSON responses as well.
+     *
+     * @param value  the value
+     * @param writer the writer
+     * @throws IOException if writing failed
+     */
+    public static void writeJsonString(final String value, final Writer writer) throws IOException {
+        if (value == null) {
+            writer.write("null");
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    // the line separators are escaped as well, they end a string in javascript
+                    if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+}
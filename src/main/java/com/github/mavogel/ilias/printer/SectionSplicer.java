@@ -0,0 +1,311 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.printer;
+
+import com.github.mavogel.ilias.lib.model.GroupUserModelFull;
+import com.github.mavogel.ilias.lib.model.IliasUser;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Iterates over the groups for a template and splices in the sections of the groups which did not change
+ * since the previous render, instead of rendering them again.
+ * <p>
+ * The section of a group is everything the template writes between taking the group and asking for the next one.
+ * Its position in the output and a hash of the group, computed from the sorted members, are kept in an index next
+ * to the output. If the hash of a group matches the previous render with the same template, the previous section is
+ * copied into the output and the template gets the group without members, whose rendering is discarded.
+ */
+public class SectionSplicer implements Iterator<GroupUserModelFull> {
+
+    private static Logger LOG = Logger.getLogger(SectionSplicer.class);
+
+    private static final String INDEX_SUFFIX = ".sections";
+
+    private final Iterator<GroupUserModelFull> delegate;
+    private final String templateVersion;
+    private final Map<Integer, Section> sections = new LinkedHashMap<>();
+
+    private Path indexFile;
+    private Path outputFile;
+    private Optional<Index> previous = Optional.empty();
+    private SplicingWriter writer;
+    private Integer currentRefId;
+    private String currentHash;
+    private long currentStart;
+    private int reused;
+
+    /**
+     * @param delegate        the groups
+     * @param templateVersion identifies the template and its version, sections of other templates are not reused
+     */
+    public SectionSplicer(final Iterator<GroupUserModelFull> delegate, final String templateVersion) {
+        this.delegate = delegate;
+        this.templateVersion = templateVersion;
+    }
+
+    /**
+     * Attaches the splicer to the output and loads the index of the previous render.
+     *
+     * @param output     the output the template is merged into
+     * @param outputFile the file of the output
+     * @return the writer the template has to be merged into
+     */
+    public Writer attach(final Writer output, final Path outputFile) {
+        final String fileName = outputFile.getFileName().toString();
+        this.outputFile = outputFile;
+        this.indexFile = outputFile.resolveSibling("." + fileName.substring(fileName.indexOf('_') + 1) + INDEX_SUFFIX);
+        this.previous = Index.load(indexFile).filter(index -> templateVersion.equals(index.templateVersion));
+        this.writer = new SplicingWriter(output);
+        if (delegate instanceof FlushingIterator) {
+            ((FlushingIterator<?>) delegate).bindTo(output);
+        }
+        return writer;
+    }
+
+    @Override
+    public boolean hasNext() {
+        endSection();
+        return delegate.hasNext();
+    }
+
+    @Override
+    public GroupUserModelFull next() {
+        endSection();
+        final GroupUserModelFull group = delegate.next();
+        currentRefId = group.getGroupNode().getRefId();
+        currentHash = hashOf(group);
+        currentStart = writer.position;
+        final Optional<String> previousSection = previous.flatMap(index -> index.sectionOf(currentRefId, currentHash));
+        if (!previousSection.isPresent()) {
+            return group;
+        }
+        try {
+            writer.write(previousSection.get());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write the section of group '" + group.getGroupNode().getTitle() + "'", e);
+        }
+        writer.discard = true;
+        reused++;
+        return new GroupUserModelFull(group.getGroupNode(), Collections.<IliasUser>emptyList());
+    }
+
+    /**
+     * Saves the index of the finished render.
+     *
+     * @throws IOException if the index could not be saved
+     */
+    public void complete() throws IOException {
+        endSection();
+        new Index(outputFile.getFileName().toString(), templateVersion, sections).save(indexFile);
+        LOG.info(String.format("Reused %d of %d unchanged group sections", reused, sections.size()));
+    }
+
+    private void endSection() {
+        if (currentRefId != null) {
+            writer.discard = false;
+            sections.put(currentRefId, new Section(currentHash, currentStart, writer.position));
+            currentRefId = null;
+        }
+    }
+
+    /**
+     * @param group the group with its members
+     * @return the hash of the group and its members, independent of their order
+     */
+    static String hashOf(final GroupUserModelFull group) {
+        final List<String> members = new ArrayList<>();
+        for (IliasUser member : group.getGroupMembers()) {
+            members.add(member.getLastName() + '\u0000' + member.getFirstName() + '\u0000' + member.getEmail());
+        }
+        Collections.sort(members);
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((group.getGroupNode().getRefId() + "\u0000" + group.getGroupNode().getTitle())
+                    .getBytes(StandardCharsets.UTF_8));
+            for (String member : members) {
+                digest.update((byte) '\n');
+                digest.update(member.getBytes(StandardCharsets.UTF_8));
+            }
+            final StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest()) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Counts the written characters and discards the writes of a spliced section.
+     */
+    private static final class SplicingWriter extends Writer {
+        private final Writer out;
+        private long position;
+        private boolean discard;
+
+        private SplicingWriter(final Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(final char[] buffer, final int offset, final int length) throws IOException {
+            if (!discard) {
+                out.write(buffer, offset, length);
+                position += length;
+            }
+        }
+
+        @Override
+        public void write(final String value) throws IOException {
+            if (!discard) {
+                out.write(value);
+                position += value.length();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private static final class Section {
+        private final String hash;
+        private final long start;
+        private final long end;
+
+        private Section(final String hash, final long start, final long end) {
+            this.hash = hash;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * The sections of a render. Stored as text: the output file, the template version and a line
+     * with the refId, hash, start and end of each section.
+     */
+    private static final class Index {
+        private final String outputFileName;
+        private final String templateVersion;
+        private final Map<Integer, Section> sections;
+        private Path directory;
+        private String previousOutput;
+
+        private Index(final String outputFileName, final String templateVersion, final Map<Integer, Section> sections) {
+            this.outputFileName = outputFileName;
+            this.templateVersion = templateVersion;
+            this.sections = sections;
+        }
+
+        private static Optional<Index> load(final Path indexFile) {
+            try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+                final String outputFileName = reader.readLine();
+                final String templateVersion = reader.readLine();
+                final Map<Integer, Section> sections = new LinkedHashMap<>();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    final String[] fields = line.split("\t");
+                    sections.put(Integer.parseInt(fields[0]),
+                            new Section(fields[1], Long.parseLong(fields[2]), Long.parseLong(fields[3])));
+                }
+                final Index index = new Index(outputFileName, templateVersion, sections);
+                index.directory = indexFile.toAbsolutePath().getParent();
+                return Optional.of(index);
+            } catch (NoSuchFileException e) {
+                return Optional.empty();
+            } catch (IOException | RuntimeException e) {
+                LOG.warn("Ignoring unreadable section index '" + indexFile + "': " + e.getMessage());
+                return Optional.empty();
+            }
+        }
+
+        private Optional<String> sectionOf(final int refId, final String hash) {
+            final Section section = sections.get(refId);
+            if (section == null || !section.hash.equals(hash)) {
+                return Optional.empty();
+            }
+            if (previousOutput == null) {
+                try {
+                    previousOutput = new String(Files.readAllBytes(directory.resolve(outputFileName)), StandardCharsets.UTF_8);
+                } catch (IOException e) {
+                    LOG.warn("Cannot reuse the sections of '" + outputFileName + "': " + e.getMessage());
+                    sections.clear();
+                    return Optional.empty();
+                }
+            }
+            if (section.end > previousOutput.length()) {
+                return Optional.empty();
+            }
+            return Optional.of(previousOutput.substring((int) section.start, (int) section.end));
+        }
+
+        private void save(final Path indexFile) throws IOException {
+            final Path tempFile = Files.createTempFile(indexFile.toAbsolutePath().getParent(), "sections", ".tmp");
+            try {
+                try (BufferedWriter out = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                    out.write(outputFileName);
+                    out.newLine();
+                    out.write(templateVersion);
+                    out.newLine();
+                    for (Map.Entry<Integer, Section> entry : sections.entrySet()) {
+                        final Section section = entry.getValue();
+                        out.write(entry.getKey() + "\t" + section.hash + "\t" + section.start + "\t" + section.end);
+                        out.newLine();
+                    }
+                }
+                Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.printer;
+
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Writes the output of each group into its own file of a directory, with an <code>index.html</code> linking them.
+ * The groups can be written concurrently. Each file is written to a temporary file first, which is renamed then,
+ * so a file in the directory is always complete.
+ */
+public class ShardedOutput {
+
+    private static Logger LOG = Logger.getLogger(ShardedOutput.class);
+
+    static final String INDEX_FILE = "index.html";
+
+    private final Renderer renderer;
+    private final VelocityOutputPrinter.OutputType outputType;
+    private final Path directory;
+    private final ConcurrentMap<Integer, IndexEntry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param renderer   the renderer of the template
+     * @param outputType the output type
+     * @param directory  the existing directory to write the files to
+     */
+    public ShardedOutput(final Renderer renderer, final VelocityOutputPrinter.OutputType outputType, final Path directory) {
+        this.renderer = renderer;
+        this.outputType = outputType;
+        this.directory = directory;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Renders the output of a group into its file. Can be called concurrently.
+     *
+     * @param group      the group
+     * @param contextMap the context containing only this group
+     * @throws IOException if the file could not be written
+     */
+    public void write(final IliasNode group, final Map<String, Object> contextMap) throws IOException {
+        final String fileName = group.getRefId() + "_" + sanitize(group.getTitle()) + outputType.getFileExtension();
+        atomicWrite(fileName, writer -> renderer.render(contextMap, writer));
+        entries.put(group.getRefId(), new IndexEntry(group.getTitle(), fileName));
+    }
+
+    /**
+     * Writes the index linking the files of all written groups, ordered by their titles.
+     *
+     * @param title the title of the index
+     * @throws IOException if the index could not be written
+     */
+    public void complete(final String title) throws IOException {
+        final List<IndexEntry> sorted = new ArrayList<>(entries.values());
+        sorted.sort(Comparator.comparing((IndexEntry entry) -> String.valueOf(entry.title)).thenComparing(entry -> entry.fileName));
+        atomicWrite(INDEX_FILE, writer -> {
+            writer.write("<!DOCTYPE html>\n<html lang=\"en\">\n<head>\n    <meta charset=\"UTF-8\">\n    <title>");
+            writer.write(escapeHtml(title));
+            writer.write("</title>\n</head>\n<body>\n    <h1>");
+            writer.write(escapeHtml(title));
+            writer.write("</h1>\n    <ul>\n");
+            for (IndexEntry entry : sorted) {
+                writer.write("        <li><a href=\"");
+                writer.write(entry.fileName);
+                writer.write("\">");
+                writer.write(escapeHtml(entry.title));
+                writer.write("</a></li>\n");
+            }
+            writer.write("    </ul>\n</body>\n</html>\n");
+        });
+        LOG.info(String.format("Wrote %d group files and the index to '%s'", sorted.size(), directory));
+    }
+
+    private void atomicWrite(final String fileName, final Content content) throws IOException {
+        final Path tempFile = Files.createTempFile(directory, ".shard", ".tmp");
+        try {
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(tempFile), StandardCharsets.UTF_8))) {
+                content.writeTo(writer);
+            }
+            Files.move(tempFile, directory.resolve(fileName), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * @param title the title of a group or course
+     * @return the title with only letters, digits, dots, dashes and underscores for a file name
+     */
+    static String sanitize(final String title) {
+        final String sanitized = String.valueOf(title).replaceAll("[^A-Za-z0-9._-]+", "-").replaceAll("^[.-]+", "");
+        return sanitized.length() > 64 ? sanitized.substring(0, 64) : sanitized;
+    }
+
+    private static String escapeHtml(final String value) {
+        return String.valueOf(value).replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    @FunctionalInterface
+    private interface Content {
+        void writeTo(Writer writer) throws IOException;
+    }
+
+    private static final class IndexEntry {
+        private final String title;
+        private final String fileName;
+
+        private IndexEntry(final String title, final String fileName) {
+            this.title = title;
+            this.fileName = fileName;
+        }
+    }
+}
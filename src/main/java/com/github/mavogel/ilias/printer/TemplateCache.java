@@ -0,0 +1,104 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.printer;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * A thread-safe cache of parsed templates. A template is parsed again only if its version,
+ * e.g. the modification time of its file, changed since it was parsed.
+ *
+ * @param <T> the type of the parsed templates
+ */
+public class TemplateCache<T> {
+
+    /**
+     * Parses a template.
+     *
+     * @param <T> the type of the parsed template
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+
+        /**
+         * @param templateName the name of the template
+         * @return the parsed template
+         * @throws Exception if the template was not found or could not be parsed
+         */
+        T load(String templateName) throws Exception;
+    }
+
+    private final Loader<T> loader;
+    private final ToLongFunction<String> versionOf;
+    private final ConcurrentMap<String, Entry<T>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the cache.
+     *
+     * @param loader    the loader parsing the templates
+     * @param versionOf the current version of a template by its name
+     */
+    public TemplateCache(final Loader<T> loader, final ToLongFunction<String> versionOf) {
+        this.loader = Objects.requireNonNull(loader);
+        this.versionOf = Objects.requireNonNull(versionOf);
+    }
+
+    /**
+     * @param templateName the name of the template
+     * @return the parsed template, from the cache if its version did not change
+     * @throws Exception if the template was not found or could not be parsed
+     */
+    public T get(final String templateName) throws Exception {
+        final long version = versionOf.applyAsLong(templateName);
+        final Entry<T> cached = entries.get(templateName);
+        if (cached != null && cached.version == version) {
+            return cached.template;
+        }
+        final T template = loader.load(templateName);
+        entries.put(templateName, new Entry<>(template, version));
+        return template;
+    }
+
+    /**
+     * @return the amount of cached templates
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private static final class Entry<T> {
+        private final T template;
+        private final long version;
+
+        private Entry(final T template, final long version) {
+            this.template = template;
+            this.version = version;
+        }
+    }
+}
@@ -29,7 +29,6 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.Logger;
 import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.Velocity;
 import org.apache.velocity.app.VelocityEngine;
 import org.apache.velocity.exception.MethodInvocationException;
 import org.apache.velocity.exception.ParseErrorException;
@@ -39,6 +38,10 @@ import org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader;
 
 import java.io.*;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
@@ -59,7 +62,9 @@ public class VelocityOutputPrinter {
      */
     public enum OutputType {
         HTML(0, ".html.vm", "templates" + System.getProperty("file.separator") + "group-members.html.vm"),
-        LATEX(1, ".tex.vm", "templates" + System.getProperty("file.separator") + "group-members.tex.vm");
+        LATEX(1, ".tex.vm", "templates" + System.getProperty("file.separator") + "group-members.tex.vm"),
+        CSV(2, ".csv", null),
+        JSON(3, ".json", null);
         private final int index;
         private final String templateExtension;
         private final String defaultTemplateLocation;
@@ -82,6 +87,14 @@ public class VelocityOutputPrinter {
             return defaultTemplateLocation;
         }
 
+        /**
+         * @return <code>true</code> if the output is rendered with a velocity template, otherwise it
+         * is written directly by the {@link MembersExporter}
+         */
+        public boolean isTemplated() {
+            return defaultTemplateLocation != null;
+        }
+
         /**
          * Retrieves the {@link OutputType} at the given index.
          *
@@ -111,86 +124,160 @@ public class VelocityOutputPrinter {
         }
     }
 
+    private final VelocityEngine fileEngine;
+    private final TemplateCache<Template> customTemplates;
+
     /**
-     * Prints the header, content and output to the given print stream.
+     * Creates the printer with an initialized engine for the custom templates from the file system.
+     * The parsed templates are cached and parsed again if their file was modified. The default templates
+     * are printed with the {@link DefaultRenderers}, so they are not interpreted by velocity.
+     */
+    public VelocityOutputPrinter() {
+        this.fileEngine = new VelocityEngine();
+        this.fileEngine.init();
+
+        this.customTemplates = new TemplateCache<>(fileEngine::getTemplate, VelocityOutputPrinter::lastModified);
+    }
+
+    /**
+     * @return the printer shared by all prints of the session
+     */
+    public static VelocityOutputPrinter getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Prints the header, content and output to the given print stream with the shared printer.
      *
      * @param outputType   the desired output type. @see {@link OutputType}
      * @param templateName the name of the template, if empty the default template from classpath will be used
      * @param contextMap   the context for velocity
      * @throws Exception in case of a error, so the caller can handle it
+     * @see #render(OutputType, String, Map)
      */
     public static void print(final OutputType outputType, final String templateName, final Map<String, Object> contextMap) throws Exception {
+        getInstance().render(outputType, templateName, contextMap);
+    }
 
+    /**
+     * Prints the header, content and output to the given print stream.
+     *
+     * @param outputType   the desired output type. @see {@link OutputType}
+     * @param templateName the name of the template, if empty the default template from classpath will be used
+     * @param contextMap   the context for velocity
+     * @throws Exception in case of a error, so the caller can handle it
+     */
+    public void render(final OutputType outputType, final String templateName, final Map<String, Object> contextMap) throws Exception {
+        if (!outputType.isTemplated()) {
+            throw new IllegalArgumentException("output type '" + outputType + "' is not rendered with a template");
+        }
         if (templateName.trim().isEmpty()) {
-            printWithDefaultTemplate(outputType, contextMap);
+            merge(name -> DefaultRenderers.of(outputType), outputType, outputType.getDefaultTemplateLocation(), contextMap);
         } else {
             if (!templateName.contains(outputType.getTemplateExtension())) {
                 LOG.error("Extension of output type '" + outputType.getTemplateExtension() + "' does not match with the templateExtension of the template.");
                 throw new Exception();
             }
-            printWithCustomTemplate(outputType, templateName, contextMap);
+            merge(name -> interpreted(customTemplates.get(name)), outputType, templateName, contextMap);
         }
     }
 
     /**
-     * Prints the header, content and output to the given print stream with a custom template.
+     * Loads a custom template with the shared printer, so it is known to be usable before any member is fetched.
      *
      * @param outputType   the desired output type. @see {@link OutputType}
-     * @param templateName the name of the template
-     * @param contextMap   the context for velocity
-     * @throws Exception in case of a error, so the caller can handle it
+     * @param templateName the name of the template, if empty the default template is used, which is always usable
+     * @throws Exception if the template does not match the output type, was not found or could not be parsed
      */
-    private static void printWithCustomTemplate(final OutputType outputType, final String templateName, final Map<String, Object> contextMap) throws Exception {
-        Velocity.init();
-        Writer writer = null;
-        try {
-            final Template template = Velocity.getTemplate(templateName);
+    public static void checkTemplate(final OutputType outputType, final String templateName) throws Exception {
+        if (!outputType.isTemplated() || templateName.trim().isEmpty()) {
+            return;
+        }
+        if (!templateName.contains(outputType.getTemplateExtension())) {
+            throw new Exception("the extension does not match '" + outputType.getTemplateExtension() + "'");
+        }
+        getInstance().customTemplates.get(templateName);
+    }
+
+    /**
+     * Opens a new dated directory to print the output of each group into its own file.
+     *
+     * @param outputType   the desired output type. @see {@link OutputType}
+     * @param templateName the name of the template, if empty the default template will be used
+     * @param title        the title of the output, e.g. of the course, which is part of the directory name
+     * @return the output
+     * @throws Exception if the template was not found or could not be parsed or the directory not created
+     */
+    public ShardedOutput openSharded(final OutputType outputType, final String templateName, final String title) throws Exception {
+        if (!outputType.isTemplated()) {
+            throw new IllegalArgumentException("output type '" + outputType + "' is not rendered with a template");
+        }
+        final Renderer renderer;
+        final String fileName;
+        if (templateName.trim().isEmpty()) {
+            renderer = DefaultRenderers.of(outputType);
+            fileName = outputFileName(outputType, outputType.getDefaultTemplateLocation(), title);
+        } else {
+            renderer = interpreted(customTemplates.get(templateName));
+            fileName = outputFileName(outputType, templateName, title);
+        }
+        final Path directory = Files.createDirectories(Paths.get(fileName.replace('.', '-')));
+        LOG.info("Writing to directory '" + directory + "'");
+        return new ShardedOutput(renderer, outputType, directory);
+    }
+
+    /**
+     * Interprets the default template with velocity, e.g. to compare it with its {@link DefaultRenderers}.
+     * The engine for the classpath is initialized on the first call.
+     *
+     * @param outputType the output type
+     * @return the renderer interpreting the default template of the output type with velocity
+     * @throws Exception if the template could not be parsed
+     */
+    static Renderer interpretedDefault(final OutputType outputType) throws Exception {
+        return interpreted(ClasspathTemplates.INSTANCE.get(outputType.getDefaultTemplateLocation()));
+    }
+
+    private static Renderer interpreted(final Template template) {
+        return (contextMap, writer) -> {
             final VelocityContext context = new VelocityContext();
             contextMap.forEach((k, v) -> context.put(k, v));
-            writer = new BufferedWriter(createFileWriter(outputType, templateName));
-
             template.merge(context, writer);
-            writer.flush();
-        } catch (ResourceNotFoundException rnfe) {
-            LOG.error("Couldn't find the template with name '" + templateName + "'");
-            throw new Exception(rnfe.getMessage());
-        } catch (ParseErrorException pee) {
-            LOG.error("Syntax error: problem parsing the template ' " + templateName + "': " + pee.getMessage());
-            throw new Exception(pee.getMessage());
-        } catch (MethodInvocationException mie) {
-            LOG.error("An invoked method on the template '" + templateName + "' threw an error: " + mie.getMessage());
-            throw new Exception(mie.getMessage());
-        } catch (Exception e) {
-            LOG.error("Error: " + e.getMessage());
-            throw e;
-        } finally {
-            if (writer != null) writer.close();
-        }
+        };
     }
 
     /**
-     * Prints the header, content and output to the given print stream with the default template from the classpath.
+     * Merges the template with the context into the output file.
      *
-     * @param outputType the desired output type. @see {@link OutputType}
-     * @param contextMap the context for velocity
+     * @param renderers    provides the renderer of the template
+     * @param outputType   the desired output type. @see {@link OutputType}
+     * @param templateName the name of the template
+     * @param contextMap   the context for velocity
      * @throws Exception in case of a error, so the caller can handle it
      */
-    private static void printWithDefaultTemplate(final OutputType outputType, final Map<String, Object> contextMap) throws Exception {
-        VelocityEngine ve = new VelocityEngine();
-        ve.setProperty(RuntimeConstants.RESOURCE_LOADER, "classpath");
-        ve.setProperty("classpath.resource.loader.class", ClasspathResourceLoader.class.getName());
-        ve.init();
-
+    private static void merge(final TemplateCache.Loader<Renderer> renderers, final OutputType outputType,
+                              final String templateName, final Map<String, Object> contextMap) throws Exception {
         Writer writer = null;
-        final String templateName = outputType.getDefaultTemplateLocation();
         try {
-            VelocityContext context = new VelocityContext();
-            contextMap.forEach((k, v) -> context.put(k, v));
-            Template template = ve.getTemplate(templateName, "UTF-8");
-            writer = new BufferedWriter(createFileWriter(outputType, templateName));
+            final Renderer renderer = renderers.load(templateName);
+            final Object title = contextMap.get("title");
+            final String outputFileName = outputFileName(outputType, templateName, title == null ? null : title.toString());
+            writer = new BufferedWriter(createFileWriter(outputFileName));
+            SectionSplicer splicer = null;
+            for (Object value : contextMap.values()) {
+                if (value instanceof FlushingIterator) {
+                    ((FlushingIterator<?>) value).bindTo(writer);
+                } else if (value instanceof SectionSplicer) {
+                    splicer = (SectionSplicer) value;
+                    writer = splicer.attach(writer, Paths.get(outputFileName));
+                }
+            }
 
-            template.merge(context, writer);
+            renderer.render(contextMap, writer);
             writer.flush();
+            if (splicer != null) {
+                splicer.complete();
+            }
         } catch (ResourceNotFoundException rnfe) {
             LOG.error("Couldn't find the template with name '" + templateName + "'");
             throw new Exception(rnfe.getMessage());
@@ -210,16 +297,57 @@ public class VelocityOutputPrinter {
         }
     }
 
+    /**
+     * @param outputType   the output type
+     * @param templateName the name of the template, if empty the default template from classpath
+     * @return identifies the template and its version: the release for the default templates and
+     * the modification time for custom templates
+     */
+    public static String templateVersionOf(final OutputType outputType, final String templateName) {
+        if (templateName.trim().isEmpty()) {
+            return outputType.getDefaultTemplateLocation() + "@compiled-" + VelocityOutputPrinter.class.getPackage().getImplementationVersion();
+        }
+        return templateName + "@" + lastModified(templateName);
+    }
+
+    /**
+     * @param templateName the name of a custom template, relative to the working directory like for the file loader
+     * @return the modification time of the template file or -1 if it is not readable
+     */
+    private static long lastModified(final String templateName) {
+        try {
+            return Files.getLastModifiedTime(Paths.get(templateName)).toMillis();
+        } catch (IOException | InvalidPathException e) {
+            return -1L;
+        }
+    }
+
     /**
      * Creates a file writer with a timestamp from the current output type and template. Write
      * a file in the current directory. Striped the folders off the name if the given template.
      *
      * @param outputType   the output type
      * @param templateName the name of the template
+     * @param title        the title of the output, e.g. of the course
      * @return the OutputStreamWriter
      * @throws IOException if the file could not be created.
      */
-    private static OutputStreamWriter createFileWriter(final OutputType outputType, final String templateName) throws IOException {
+    static OutputStreamWriter createFileWriter(final OutputType outputType, final String templateName,
+                                               final String title) throws IOException {
+        return createFileWriter(outputFileName(outputType, templateName, title));
+    }
+
+    /**
+     * Creates the name of the output file with a timestamp and the title from the current output type and template.
+     * Striped the folders off the name if the given template. The title keeps the outputs of several courses
+     * printed at the same time apart.
+     *
+     * @param outputType   the output type
+     * @param templateName the name of the template
+     * @param title        the title of the output or <code>null</code>
+     * @return the name of the file in the current directory
+     */
+    private static String outputFileName(final OutputType outputType, final String templateName, final String title) {
         final String fileName;
         int lastIndexOf = templateName.lastIndexOf(System.getProperty("file.separator"));
         if (lastIndexOf == -1) {
@@ -227,9 +355,28 @@ public class VelocityOutputPrinter {
         } else {
             fileName = templateName.substring(lastIndexOf + 1).replace(outputType.getTemplateExtension(), "") + outputType.getFileExtension();
         }
-        String datedFileName = Defaults.OUTFILE_DATE_FORMAT.format(ZonedDateTime.now()) + "_" + fileName;
+        return Defaults.OUTFILE_DATE_FORMAT.format(ZonedDateTime.now()) + "_"
+                + (title == null ? "" : ShardedOutput.sanitize(title) + "_") + fileName;
+    }
 
+    private static OutputStreamWriter createFileWriter(final String datedFileName) throws IOException {
         LOG.info("Writing to file '" + datedFileName + "'");
         return new OutputStreamWriter(new FileOutputStream(datedFileName), Charset.forName("UTF-8"));
     }
+
+    private static final class Holder {
+        private static final VelocityOutputPrinter INSTANCE = new VelocityOutputPrinter();
+    }
+
+    private static final class ClasspathTemplates {
+        private static final TemplateCache<Template> INSTANCE;
+
+        static {
+            final VelocityEngine classpathEngine = new VelocityEngine();
+            classpathEngine.setProperty(RuntimeConstants.RESOURCE_LOADER, "classpath");
+            classpathEngine.setProperty("classpath.resource.loader.class", ClasspathResourceLoader.class.getName());
+            classpathEngine.init();
+            INSTANCE = new TemplateCache<>(name -> classpathEngine.getTemplate(name, "UTF-8"), name -> 0L);
+        }
+    }
 }
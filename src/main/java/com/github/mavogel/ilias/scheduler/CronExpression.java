@@ -0,0 +1,173 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.scheduler;
+
+import org.apache.commons.lang3.Validate;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A cron expression with the five fields <code>minute hour day-of-month month day-of-week</code>, e.g.
+ * <code>0 2 * * MON-FRI</code> for 2 am on each working day.
+ * <p>
+ * A field is <code>*</code>, a value, a range like <code>1-5</code> or a list of them like <code>0,30</code>,
+ * each optionally with a step like <code>*&#47;15</code>. Months and days of the week can be given by their
+ * English abbreviations, Sunday is <code>0</code> or <code>7</code>. If both the day of the month and the day of
+ * the week are restricted, a day matching either of them matches, as in the classic cron.
+ */
+public class CronExpression {
+
+    private static final List<String> MONTHS = Arrays.asList(
+            "JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC");
+    private static final List<String> DAYS_OF_WEEK = Arrays.asList("SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT");
+
+    /**
+     * The maximum span searched for the next match, which covers each leap day.
+     */
+    private static final int MAX_YEARS_AHEAD = 5;
+
+    private final String expression;
+    private final BitSet minutes;
+    private final BitSet hours;
+    private final BitSet daysOfMonth;
+    private final BitSet months;
+    private final BitSet daysOfWeek;
+    private final boolean daysOfMonthRestricted;
+    private final boolean daysOfWeekRestricted;
+
+    /**
+     * Parses the expression.
+     *
+     * @param expression the expression
+     * @throws IllegalArgumentException if the expression is invalid
+     */
+    public CronExpression(final String expression) {
+        Validate.notBlank(expression, "The cron expression is empty");
+        final String[] fields = expression.trim().split("\\s+");
+        Validate.isTrue(fields.length == 5, "The cron expression '%s' needs 5 fields but has %d", expression, fields.length);
+        this.expression = expression.trim();
+        this.minutes = parseField(fields[0], 0, 59, null);
+        this.hours = parseField(fields[1], 0, 23, null);
+        this.daysOfMonth = parseField(fields[2], 1, 31, null);
+        this.months = parseField(fields[3], 1, 12, MONTHS);
+        this.daysOfWeek = parseField(fields[4], 0, 7, DAYS_OF_WEEK);
+        if (this.daysOfWeek.get(7)) {
+            this.daysOfWeek.set(0);
+        }
+        this.daysOfMonthRestricted = !fields[2].startsWith("*");
+        this.daysOfWeekRestricted = !fields[4].startsWith("*");
+    }
+
+    /**
+     * Computes the first point in time strictly after the given one which matches the expression.
+     *
+     * @param after the point in time
+     * @return the next matching minute in the zone of the given point in time
+     * @throws IllegalArgumentException if no day within the next years matches, e.g. for the 30th of February
+     */
+    public ZonedDateTime next(final ZonedDateTime after) {
+        ZonedDateTime candidate = after.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        final ZonedDateTime limit = candidate.plusYears(MAX_YEARS_AHEAD);
+        while (candidate.isBefore(limit)) {
+            if (!months.get(candidate.getMonthValue())) {
+                candidate = candidate.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS).plusMonths(1);
+            } else if (!matchesDay(candidate)) {
+                candidate = candidate.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+            } else if (!hours.get(candidate.getHour())) {
+                candidate = candidate.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            } else if (!minutes.get(candidate.getMinute())) {
+                candidate = candidate.plusMinutes(1);
+            } else {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("The cron expression '" + expression + "' matches no day");
+    }
+
+    private boolean matchesDay(final ZonedDateTime candidate) {
+        final boolean dayOfMonth = daysOfMonth.get(candidate.getDayOfMonth());
+        final boolean dayOfWeek = daysOfWeek.get(candidate.getDayOfWeek().getValue() % 7);
+        if (daysOfMonthRestricted && daysOfWeekRestricted) {
+            return dayOfMonth || dayOfWeek;
+        }
+        return dayOfMonth && dayOfWeek;
+    }
+
+    private static BitSet parseField(final String field, final int min, final int max, final List<String> names) {
+        final BitSet values = new BitSet(max + 1);
+        for (String part : field.split(",")) {
+            final String[] rangeAndStep = part.split("/", -1);
+            Validate.isTrue(rangeAndStep.length <= 2, "Invalid cron field '%s'", field);
+            final int step = rangeAndStep.length == 2 ? parseValue(rangeAndStep[1], 1, max, null) : 1;
+
+            final String range = rangeAndStep[0];
+            final int from;
+            final int to;
+            if (range.equals("*")) {
+                from = min;
+                to = max;
+            } else if (range.contains("-")) {
+                final String[] bounds = range.split("-", -1);
+                Validate.isTrue(bounds.length == 2, "Invalid cron field '%s'", field);
+                from = parseValue(bounds[0], min, max, names);
+                to = parseValue(bounds[1], min, max, names);
+                Validate.isTrue(from <= to, "Invalid range '%s' in cron field '%s'", range, field);
+            } else {
+                from = parseValue(range, min, max, names);
+                to = rangeAndStep.length == 2 ? max : from;
+            }
+            for (int value = from; value <= to; value += step) {
+                values.set(value);
+            }
+        }
+        return values;
+    }
+
+    private static int parseValue(final String raw, final int min, final int max, final List<String> names) {
+        final int value;
+        if (names != null && names.contains(raw.toUpperCase(Locale.ENGLISH))) {
+            value = names.indexOf(raw.toUpperCase(Locale.ENGLISH)) + (min == 1 ? 1 : 0);
+        } else {
+            try {
+                value = Integer.parseInt(raw);
+            } catch (NumberFormatException nfe) {
+                throw new IllegalArgumentException("Invalid value '" + raw + "' in cron expression");
+            }
+        }
+        Validate.isTrue(value >= min && value <= max, "The value %d is not between %d and %d", value, min, max);
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.scheduler;
+
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Properties;
+
+/**
+ * Keeps the state of the scheduled jobs in a properties file, so the scheduler knows across restarts when
+ * a job was run last, e.g. to catch up on a run missed while it was down.
+ * <p>
+ * Per job it holds the point in time of the last run, when it finished with which exit code and
+ * how many runs are running. The file is rewritten after each change.
+ */
+public class JobStateStore {
+
+    private static Logger LOG = Logger.getLogger(JobStateStore.class);
+
+    private static final String LAST_FIRE = ".lastFire";
+    private static final String LAST_FINISH = ".lastFinish";
+    private static final String LAST_EXIT_CODE = ".lastExitCode";
+    private static final String RUNNING = ".running";
+
+    private final Path stateFile;
+    private final Properties properties;
+
+    /**
+     * Creates the store and loads the state if the file exists.
+     *
+     * @param stateFile the file to keep the state in
+     */
+    public JobStateStore(final Path stateFile) {
+        this.stateFile = stateFile;
+        this.properties = new Properties();
+        if (Files.isRegularFile(stateFile)) {
+            try (InputStream in = Files.newInputStream(stateFile)) {
+                properties.load(in);
+            } catch (IOException | IllegalArgumentException e) {
+                LOG.warn("Ignoring unreadable job state '" + stateFile + "': " + e.getMessage());
+                properties.clear();
+            }
+        }
+    }
+
+    /**
+     * @param job the name of the job
+     * @return the point in time the job was scheduled at when it was run last, or empty if it never ran
+     */
+    public synchronized Optional<Instant> getLastFire(final String job) {
+        return getLong(job + LAST_FIRE).map(Instant::ofEpochMilli);
+    }
+
+    /**
+     * @param job the name of the job
+     * @return the point in time the last run of the job finished at, or empty if none finished yet
+     */
+    public synchronized Optional<Instant> getLastFinish(final String job) {
+        return getLong(job + LAST_FINISH).map(Instant::ofEpochMilli);
+    }
+
+    /**
+     * @param job the name of the job
+     * @return the exit code of the last finished run of the job, or empty if none finished yet
+     */
+    public synchronized OptionalInt getLastExitCode(final String job) {
+        return getLong(job + LAST_EXIT_CODE).map(code -> OptionalInt.of(code.intValue())).orElse(OptionalInt.empty());
+    }
+
+    /**
+     * @param job the name of the job
+     * @return the amount of runs of the job which started but did not finish
+     */
+    public synchronized int getRunning(final String job) {
+        return getLong(job + RUNNING).orElse(0L).intValue();
+    }
+
+    /**
+     * Records the start of a run.
+     *
+     * @param job      the name of the job
+     * @param fireTime the point in time the run was scheduled at
+     */
+    public synchronized void started(final String job, final Instant fireTime) {
+        properties.setProperty(job + LAST_FIRE, String.valueOf(fireTime.toEpochMilli()));
+        properties.setProperty(job + RUNNING, String.valueOf(getRunning(job) + 1));
+        save();
+    }
+
+    /**
+     * Records the end of a run.
+     *
+     * @param job        the name of the job
+     * @param finishedAt the point in time the run finished at
+     * @param exitCode   the exit code of the run
+     */
+    public synchronized void finished(final String job, final Instant finishedAt, final int exitCode) {
+        properties.setProperty(job + LAST_FINISH, String.valueOf(finishedAt.toEpochMilli()));
+        properties.setProperty(job + LAST_EXIT_CODE, String.valueOf(exitCode));
+        properties.setProperty(job + RUNNING, String.valueOf(Math.max(0, getRunning(job) - 1)));
+        save();
+    }
+
+    /**
+     * Forgets the runs which started but did not finish, e.g. because the scheduler was killed.
+     *
+     * @param job the name of the job
+     */
+    public synchronized void resetRunning(final String job) {
+        properties.remove(job + RUNNING);
+        save();
+    }
+
+    private Optional<Long> getLong(final String key) {
+        final String raw = properties.getProperty(key);
+        if (raw == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Long.valueOf(raw.trim()));
+        } catch (NumberFormatException nfe) {
+            LOG.warn(String.format("Ignoring invalid job state '%s=%s'", key, raw));
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes a temporary file first, which is renamed then, so the state is never partially written.
+     * A failure is logged only, so it does not abort the run of a job.
+     */
+    private void save() {
+        try {
+            final Path directory = stateFile.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            final Path tempFile = Files.createTempFile(directory, "scheduler", ".tmp");
+            try {
+                try (OutputStream out = Files.newOutputStream(tempFile)) {
+                    properties.store(out, "State of the scheduled jobs");
+                }
+                Files.move(tempFile, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException ioe) {
+            LOG.error("Could not save the job state to '" + stateFile + "': " + ioe.getMessage());
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.scheduler;
+
+import com.github.mavogel.ilias.model.Schedule;
+import com.github.mavogel.ilias.model.ScheduledJob;
+import com.github.mavogel.ilias.model.ToolConfiguration;
+import com.github.mavogel.ilias.state.BatchRun;
+import com.github.mavogel.ilias.state.SharedSession;
+import org.apache.log4j.Logger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the jobs of a {@link Schedule} whenever their cron expression matches, without paying the start
+ * of the JVM and the login for each run.
+ * <p>
+ * All runs share one logged in {@link SharedSession}, which is kept alive in the configured interval.
+ * A run is skipped if the maximum concurrent runs of its job are running already. The start and the end of each
+ * run are kept in the {@link JobStateStore}, so a run missed while the daemon was down is caught up once on start.
+ */
+public class SchedulerDaemon {
+
+    private static Logger LOG = Logger.getLogger(SchedulerDaemon.class);
+
+    /**
+     * The seconds the running jobs are waited for when the daemon is stopped.
+     */
+    private static final int STOP_TIMEOUT_SECONDS = 60;
+
+    private final Schedule schedule;
+    private final SharedSession session;
+    private final JobStateStore stateStore;
+    private final Map<String, Semaphore> runPermits;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService runners;
+    private final CountDownLatch stopped;
+
+    /**
+     * Creates the daemon.
+     *
+     * @param toolConfiguration the configuration of the tool
+     * @param schedule          the jobs to run
+     * @throws IllegalArgumentException if a job contains an unknown action
+     */
+    public SchedulerDaemon(final ToolConfiguration toolConfiguration, final Schedule schedule) {
+        this.schedule = schedule;
+        this.session = new SharedSession(toolConfiguration);
+        this.stateStore = new JobStateStore(schedule.getStateFile());
+        this.runPermits = new HashMap<>();
+        for (ScheduledJob job : schedule.getJobs()) {
+            // fails before the login
+            session.validate(job.getBatchJob());
+            runPermits.put(job.getName(), new Semaphore(job.getMaxConcurrentRuns()));
+        }
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ilias-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.runners = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "ilias-job-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.stopped = new CountDownLatch(1);
+    }
+
+    /**
+     * Logs in and schedules the jobs and the calls keeping the session alive.
+     *
+     * @throws IllegalStateException if the login failed
+     */
+    public void start() {
+        if (!session.login()) {
+            throw new IllegalStateException("Could not log in");
+        }
+
+        final ZonedDateTime now = ZonedDateTime.now();
+        for (ScheduledJob job : schedule.getJobs()) {
+            if (stateStore.getRunning(job.getName()) > 0) {
+                LOG.warn(String.format("The last run of job '%s' was interrupted", job.getName()));
+                stateStore.resetRunning(job.getName());
+            }
+            final Optional<Instant> lastFire = stateStore.getLastFire(job.getName());
+            if (lastFire.isPresent()) {
+                final ZonedDateTime missedFire = job.getCron().next(lastFire.get().atZone(now.getZone()));
+                if (missedFire.isBefore(now)) {
+                    LOG.info(String.format("Job '%s' missed its run at %s, running it now", job.getName(), missedFire));
+                    scheduleAt(job, now);
+                    continue;
+                }
+            }
+            scheduleAt(job, job.getCron().next(now));
+        }
+
+        final long keepAliveMillis = schedule.getKeepAliveInterval().toMillis();
+        timer.scheduleWithFixedDelay(session::keepAlive, keepAliveMillis, keepAliveMillis, TimeUnit.MILLISECONDS);
+        LOG.info(String.format("Scheduled %d jobs", schedule.getJobs().size()));
+    }
+
+    /**
+     * Blocks until the daemon is stopped.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    /**
+     * Stops scheduling, waits a while for the running jobs and logs out.
+     */
+    public void stop() {
+        if (stopped.getCount() == 0) {
+            return;
+        }
+        LOG.info("Stopping the scheduler...");
+        timer.shutdownNow();
+        runners.shutdown();
+        try {
+            if (!runners.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOG.warn("Interrupting the jobs which are still running");
+                runners.shutdownNow();
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            runners.shutdownNow();
+        }
+        session.logout();
+        stopped.countDown();
+    }
+
+    private void scheduleAt(final ScheduledJob job, final ZonedDateTime fireTime) {
+        final long delayMillis = Math.max(0, Duration.between(ZonedDateTime.now(), fireTime).toMillis());
+        LOG.debug(String.format("Next run of job '%s' at %s", job.getName(), fireTime));
+        try {
+            timer.schedule(() -> fire(job, fireTime), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ree) {
+            LOG.debug("Not scheduling job '" + job.getName() + "' as the scheduler is stopped");
+        }
+    }
+
+    /**
+     * Schedules the next run first and starts this one if a permit of the job is free.
+     */
+    private void fire(final ScheduledJob job, final ZonedDateTime fireTime) {
+        scheduleAt(job, job.getCron().next(fireTime.isBefore(ZonedDateTime.now()) ? ZonedDateTime.now() : fireTime));
+
+        final Semaphore permits = runPermits.get(job.getName());
+        if (!permits.tryAcquire()) {
+            LOG.warn(String.format("Skipping the run of job '%s' at %s, %d runs are still running",
+                    job.getName(), fireTime, job.getMaxConcurrentRuns()));
+            return;
+        }
+        try {
+            runners.execute(() -> {
+                try {
+                    run(job, fireTime);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException ree) {
+            permits.release();
+        }
+    }
+
+    private void run(final ScheduledJob job, final ZonedDateTime fireTime) {
+        LOG.info(String.format("Running job '%s' scheduled at %s", job.getName(), fireTime));
+        stateStore.started(job.getName(), fireTime.toInstant());
+        int exitCode = BatchRun.EXIT_ERROR;
+        try {
+            final Optional<BatchRun> batchRun = session.run(job.getBatchJob());
+            if (batchRun.isPresent()) {
+                LOG.info(String.format("Finished job '%s'", job.getName()));
+                batchRun.get().logSummary();
+                exitCode = batchRun.get().getExitCode();
+            } else {
+                LOG.error(String.format("Could not run job '%s' as the login failed", job.getName()));
+            }
+        } finally {
+            stateStore.finished(job.getName(), Instant.now(), exitCode);
+        }
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.server;
+
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.lib.wrapper.DisplayStatus;
+import com.github.mavogel.ilias.lib.wrapper.IliasEndpoint;
+import com.github.mavogel.ilias.model.BatchJob;
+import com.github.mavogel.ilias.model.ToolConfiguration;
+import com.github.mavogel.ilias.state.BatchRun;
+import com.github.mavogel.ilias.state.SharedSession;
+import com.github.mavogel.ilias.utils.Defaults;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.configuration2.MapConfiguration;
+import org.apache.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Serves the operations of the tool as JSON over HTTP, using the server of the JDK:
+ * <ul>
+ * <li><code>GET /api/courses</code>: the courses the user is admin of</li>
+ * <li><code>GET /api/courses/&lt;refId&gt;/groups</code>: the groups of a course</li>
+ * <li><code>GET /api/actions</code>: the names of the actions</li>
+ * <li><code>POST /api/actions/&lt;name&gt;</code>: runs the action like a job, with the <code>courses</code>,
+ * <code>groups</code> and parameters of a job file given as query or form parameters</li>
+ * </ul>
+ * All requests share one logged in {@link SharedSession}, so the endpoint and its cache stay warm.
+ * If a token is configured, each request has to send it as <code>Authorization: Bearer &lt;token&gt;</code>,
+ * otherwise only the reading <code>GET</code> requests are served. Requests of browsers from a foreign origin
+ * are refused, as well as requests for a host other than an address, <code>localhost</code> or the configured
+ * <code>server.address</code>, which a page of a foreign domain could send by DNS rebinding.
+ * The requests are handled by a bounded pool of threads with a bounded queue. If both are full, the request
+ * is answered with <code>503</code> and a <code>Retry-After</code> header, so accepting further ones never stalls.
+ */
+public class ControlServer {
+
+    private static Logger LOG = Logger.getLogger(ControlServer.class);
+
+    private static final String API_PATH = "/api";
+    private static final int MAX_FORM_BYTES = 64 * 1024;
+    private static final int STOP_DELAY_SECONDS = 5;
+    private static final int RETRY_AFTER_SECONDS = 1;
+
+    private static final Pattern IPV4_ADDRESS = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+
+    private final SharedSession session;
+    private final String token;
+    private final String serverAddress;
+    private final HttpServer server;
+    private final ThreadPoolExecutor handlers;
+    private final ScheduledExecutorService timer;
+    private final CountDownLatch stopped;
+
+    /**
+     * Creates the server and binds it to the configured address.
+     *
+     * @param toolConfiguration the configuration of the tool
+     * @throws IOException if the address could not be bound
+     */
+    public ControlServer(final ToolConfiguration toolConfiguration) throws IOException {
+        this.session = new SharedSession(toolConfiguration);
+        this.token = toolConfiguration.getServerToken();
+        this.serverAddress = toolConfiguration.getServerAddress();
+        this.server = HttpServer.create(new InetSocketAddress(toolConfiguration.getServerAddress(),
+                toolConfiguration.getServerPort()), 0);
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.handlers = new ThreadPoolExecutor(toolConfiguration.getServerThreads(), toolConfiguration.getServerThreads(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(toolConfiguration.getServerQueueSize()), runnable -> {
+            Thread thread = new Thread(runnable, "ilias-server-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        this.server.createContext(API_PATH + "/courses", exchange -> dispatch(exchange, this::courses));
+        this.server.createContext(API_PATH + "/actions", exchange -> dispatch(exchange, this::actions));
+        this.server.createContext("/", exchange -> dispatch(exchange, (ignored, path) -> {
+            throw new ApiException(404, "Unknown path");
+        }));
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ilias-keep-alive");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.stopped = new CountDownLatch(1);
+    }
+
+    /**
+     * Logs in and starts serving.
+     *
+     * @throws IllegalStateException if the login failed
+     */
+    public void start() {
+        if (!session.login()) {
+            throw new IllegalStateException("Could not log in");
+        }
+        if (token.isEmpty()) {
+            LOG.warn("No server.token is configured, so the actions cannot be run over HTTP");
+        }
+        server.start();
+        timer.scheduleWithFixedDelay(session::keepAlive, Defaults.SESSION_KEEP_ALIVE_MINUTES,
+                Defaults.SESSION_KEEP_ALIVE_MINUTES, TimeUnit.MINUTES);
+        final InetSocketAddress address = server.getAddress();
+        LOG.info(String.format("Serving on http://%s:%d%s", address.getHostString(), address.getPort(), API_PATH));
+    }
+
+    /**
+     * Blocks until the server is stopped.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    /**
+     * Stops serving, waiting a few seconds for the running requests, and logs out.
+     */
+    public void stop() {
+        if (stopped.getCount() == 0) {
+            return;
+        }
+        LOG.info("Stopping the server...");
+        server.stop(STOP_DELAY_SECONDS);
+        timer.shutdownNow();
+        handlers.shutdown();
+        session.logout();
+        stopped.countDown();
+    }
+
+    /**
+     * @param path the segments of the path after <code>/api/courses</code>
+     */
+    private Response courses(final HttpExchange exchange, final List<String> path) throws Exception {
+        if (!path.isEmpty() && (path.size() != 2 || !path.get(1).equals("groups"))) {
+            throw new ApiException(404, "Unknown path");
+        }
+        requireMethod(exchange, "GET");
+        final IliasEndpoint endpoint = endpoint();
+        final List<IliasNode> courses = endpoint.getCoursesForUser(DisplayStatus.ADMIN);
+        if (path.isEmpty()) {
+            return new Response(200, JsonResponses.nodes(courses));
+        } else {
+            final IliasNode course = courses.stream()
+                    .filter(node -> String.valueOf(node.getRefId()).equals(path.get(0)))
+                    .findFirst()
+                    .orElseThrow(() -> new ApiException(404, "Course " + path.get(0) + " is unknown"));
+            return new Response(200, JsonResponses.nodes(endpoint.getGroupsFromCourse(course)));
+        }
+    }
+
+    /**
+     * @param path the segments of the path after <code>/api/actions</code>
+     */
+    private Response actions(final HttpExchange exchange, final List<String> path) throws Exception {
+        final List<String> actionNames = session.getActionNames();
+        if (path.isEmpty()) {
+            requireMethod(exchange, "GET");
+            return new Response(200, JsonResponses.strings(actionNames));
+        }
+        if (path.size() > 1 || actionNames.stream().noneMatch(name -> name.equalsIgnoreCase(path.get(0)))) {
+            throw new ApiException(404, "Action '" + path.get(0) + "' is unknown. Use one of " + String.join(", ", actionNames));
+        }
+        requireMethod(exchange, "POST");
+
+        final Map<String, String> parameters = RequestParameters.parse(exchange.getRequestURI().getRawQuery(), readForm(exchange));
+        parameters.put("actions", path.get(0));
+        final BatchJob batchJob = new BatchJob(new MapConfiguration(parameters));
+        final BatchRun batchRun = session.run(batchJob).orElseThrow(() -> new ApiException(503, "Could not log in"));
+        batchRun.logSummary();
+        return new Response(200, JsonResponses.batchRun(batchRun));
+    }
+
+    private IliasEndpoint endpoint() {
+        return session.getEndpoint().orElseThrow(() -> new ApiException(503, "Could not log in"));
+    }
+
+    /**
+     * Hands the request from the accepting thread to the pool of handlers, or answers it with <code>503</code>
+     * if the pool and its queue are full or the server is stopping.
+     */
+    private void dispatch(final HttpExchange exchange, final Route route) throws IOException {
+        try {
+            handlers.execute(() -> {
+                try {
+                    handle(exchange, route);
+                } catch (IOException ioe) {
+                    LOG.warn("Could not respond to " + exchange.getRequestURI() + ": " + ioe.getMessage());
+                    exchange.close();
+                }
+            });
+        } catch (RejectedExecutionException ree) {
+            LOG.warn("Rejected " + exchange.getRequestMethod() + " " + exchange.getRequestURI() + ", all handlers are busy");
+            exchange.getResponseHeaders().set("Retry-After", String.valueOf(RETRY_AFTER_SECONDS));
+            send(exchange, new Response(503, JsonResponses.error("Too many requests, retry later")));
+        }
+    }
+
+    private void handle(final HttpExchange exchange, final Route route) throws IOException {
+        final long start = System.nanoTime();
+        Response response;
+        try {
+            authorize(exchange);
+            final String contextPath = exchange.getHttpContext().getPath();
+            final List<String> path = Arrays.stream(exchange.getRequestURI().getPath().substring(contextPath.length()).split("/"))
+                    .filter(segment -> !segment.isEmpty())
+                    .collect(Collectors.toList());
+            response = route.respond(exchange, path);
+        } catch (ApiException ae) {
+            response = new Response(ae.status, JsonResponses.error(ae.getMessage()));
+        } catch (IllegalArgumentException iae) {
+            response = new Response(400, JsonResponses.error(iae.getMessage()));
+        } catch (Exception e) {
+            LOG.error("Request " + exchange.getRequestURI() + " failed: " + e.getMessage());
+            response = new Response(502, JsonResponses.error("Call to Ilias failed: " + e.getMessage()));
+        }
+
+        send(exchange, response);
+        LOG.debug(String.format("%s %s: %d in %d ms", exchange.getRequestMethod(), exchange.getRequestURI(),
+                response.status, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+    }
+
+    /**
+     * Refuses requests for a foreign host and of browsers from a foreign origin, which could be forged by any page
+     * the user visits, and requests without the configured token. Without a token only reading requests are allowed.
+     */
+    private void authorize(final HttpExchange exchange) {
+        final String host = exchange.getRequestHeaders().getFirst("Host");
+        if (!isAllowedHost(host, serverAddress)) {
+            throw new ApiException(403, "Requests for host '" + host + "' are not allowed");
+        }
+        final String origin = exchange.getRequestHeaders().getFirst("Origin");
+        if (origin != null && !origin.equals("http://" + host)) {
+            throw new ApiException(403, "Requests from origin '" + origin + "' are not allowed");
+        }
+        if (token.isEmpty()) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                throw new ApiException(403, "Configure a server.token to run actions");
+            }
+            return;
+        }
+        final String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !MessageDigest.isEqual(("Bearer " + token).getBytes(StandardCharsets.UTF_8),
+                authorization.getBytes(StandardCharsets.UTF_8))) {
+            exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+            throw new ApiException(401, "Missing or wrong token");
+        }
+    }
+
+    /**
+     * A page of a foreign domain can resolve its name to this server by DNS rebinding, so its requests are
+     * of the same origin then. Hence only names the server is known by are allowed.
+     *
+     * @param host          the <code>Host</code> header of the request, with or without the port
+     * @param serverAddress the configured address of the server
+     * @return <code>true</code> if the host is an IP address, <code>localhost</code> or the configured address
+     */
+    static boolean isAllowedHost(final String host, final String serverAddress) {
+        if (host == null || host.isEmpty()) {
+            return false;
+        }
+        if (host.startsWith("[")) {
+            // an IPv6 address
+            return host.indexOf(']') > 0;
+        }
+        final int portIndex = host.lastIndexOf(':');
+        final String name = portIndex < 0 ? host : host.substring(0, portIndex);
+        return IPV4_ADDRESS.matcher(name).matches()
+                || name.equalsIgnoreCase("localhost")
+                || name.equalsIgnoreCase(serverAddress);
+    }
+
+    private static void send(final HttpExchange exchange, final Response response) throws IOException {
+        final byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(response.status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void requireMethod(final HttpExchange exchange, final String method) {
+        if (!method.equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Allow", method);
+            throw new ApiException(405, "Use " + method);
+        }
+    }
+
+    private static String readForm(final HttpExchange exchange) throws IOException {
+        final ByteArrayOutputStream form = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        try (InputStream in = exchange.getRequestBody()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                form.write(buffer, 0, read);
+                if (form.size() > MAX_FORM_BYTES) {
+                    throw new ApiException(413, "The form exceeds " + MAX_FORM_BYTES + " bytes");
+                }
+            }
+        }
+        return new String(form.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Responds to a request whose context path is cut off.
+     */
+    private interface Route {
+        Response respond(HttpExchange exchange, List<String> path) throws Exception;
+    }
+
+    private static final class Response {
+        private final int status;
+        private final String body;
+
+        private Response(final int status, final String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    /**
+     * A failed request with the status of its response.
+     */
+    private static final class ApiException extends RuntimeException {
+        private final int status;
+
+        private ApiException(final int status, final String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.server;
+
+import com.github.mavogel.ilias.executor.ActionResult;
+import com.github.mavogel.ilias.executor.GroupResult;
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.printer.MembersExporter;
+import com.github.mavogel.ilias.state.BatchRun;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders the responses of the control server as JSON.
+ */
+final class JsonResponses {
+
+    private JsonResponses() {
+    }
+
+    /**
+     * @param nodes the courses or groups
+     * @return e.g. <code>[{"refId":1,"title":"Course"}]</code>
+     */
+    static String nodes(final List<IliasNode> nodes) {
+        final StringWriter json = new StringWriter();
+        json.write('[');
+        for (int i = 0; i < nodes.size(); i++) {
+            if (i > 0) {
+                json.write(',');
+            }
+            writeNode(nodes.get(i), null, json);
+        }
+        json.write(']');
+        return json.toString();
+    }
+
+    /**
+     * @param values the values
+     * @return the values as array of strings
+     */
+    static String strings(final List<String> values) {
+        final StringWriter json = new StringWriter();
+        writeStrings(values, json);
+        return json.toString();
+    }
+
+    /**
+     * @param message the message of the error
+     * @return e.g. <code>{"error":"Course 1 is unknown"}</code>
+     */
+    static String error(final String message) {
+        final StringWriter json = new StringWriter();
+        json.write("{\"error\":");
+        writeString(message, json);
+        json.write('}');
+        return json.toString();
+    }
+
+    /**
+     * Renders the results of a run with the succeeded and failed groups of each action per course.
+     *
+     * @param batchRun the finished run
+     * @return e.g. <code>{"exitCode":1,"courses":[{"course":"...","actions":[{"action":"RemoveUsers",
+     * "skipped":false,"succeeded":[...],"failed":[{"refId":2,"title":"...","error":"..."}]}]}],"errors":[],
+     * "plan":["..."]}</code>, the plan describing the predicted calls only if the actions were planned
+     */
+    static String batchRun(final BatchRun batchRun) {
+        final StringWriter json = new StringWriter();
+        json.write("{\"exitCode\":" + batchRun.getExitCode() + ",\"courses\":[");
+        boolean firstCourse = true;
+        for (Map.Entry<String, List<ActionResult>> course : batchRun.getResultsByCourse().entrySet()) {
+            if (!firstCourse) {
+                json.write(',');
+            }
+            firstCourse = false;
+            json.write("{\"course\":");
+            writeString(course.getKey(), json);
+            json.write(",\"actions\":[");
+            for (int i = 0; i < course.getValue().size(); i++) {
+                if (i > 0) {
+                    json.write(',');
+                }
+                writeActionResult(course.getValue().get(i), json);
+            }
+            json.write("]}");
+        }
+        json.write("],\"errors\":");
+        writeStrings(batchRun.getErrors(), json);
+        if (batchRun.getPlan().isPresent()) {
+            json.write(",\"plan\":");
+            writeStrings(batchRun.getPlan().get().describe(), json);
+        }
+        json.write('}');
+        return json.toString();
+    }
+
+    private static void writeActionResult(final ActionResult result, final StringWriter json) {
+        json.write("{\"action\":");
+        writeString(result.getActionName(), json);
+        json.write(",\"skipped\":" + result.isSkipped() + ",\"succeeded\":[");
+        writeGroupResults(result.getGroupResults(), true, json);
+        json.write("],\"failed\":[");
+        writeGroupResults(result.getGroupResults(), false, json);
+        json.write("]}");
+    }
+
+    private static void writeGroupResults(final List<GroupResult> results, final boolean success, final StringWriter json) {
+        boolean first = true;
+        for (GroupResult result : results) {
+            if (result.isSuccess() != success) {
+                continue;
+            }
+            if (!first) {
+                json.write(',');
+            }
+            first = false;
+            writeNode(result.getGroup(), result.getError().map(Exception::getMessage).orElse(null), json);
+        }
+    }
+
+    private static void writeNode(final IliasNode node, final String error, final StringWriter json) {
+        json.write("{\"refId\":" + node.getRefId() + ",\"title\":");
+        writeString(node.getTitle(), json);
+        if (error != null) {
+            json.write(",\"error\":");
+            writeString(error, json);
+        }
+        json.write('}');
+    }
+
+    private static void writeStrings(final List<String> values, final StringWriter json) {
+        json.write('[');
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                json.write(',');
+            }
+            writeString(values.get(i), json);
+        }
+        json.write(']');
+    }
+
+    private static void writeString(final String value, final StringWriter json) {
+        try {
+            MembersExporter.writeJsonString(value, json);
+        } catch (IOException e) {
+            // a StringWriter never fails
+            throw new UncheckedIOException(e);
+        }
+    }
+}
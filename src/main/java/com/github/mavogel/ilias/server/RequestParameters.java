@@ -0,0 +1,80 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.server;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parses the parameters of a request to the control server, given in the query or as form in the body.
+ */
+final class RequestParameters {
+
+    private RequestParameters() {
+    }
+
+    /**
+     * Parses the parameters. A parameter given several times is joined with commas, e.g.
+     * <code>courses=1&amp;courses=2</code> to <code>courses=1,2</code> like in a job file.
+     *
+     * @param query the raw query of the URI, may be <code>null</code>
+     * @param form  the raw <code>application/x-www-form-urlencoded</code> body, may be <code>null</code>
+     * @return the decoded parameters in the order they were given
+     * @throws IllegalArgumentException if a parameter is not properly encoded
+     */
+    static Map<String, String> parse(final String query, final String form) {
+        final Map<String, String> parameters = new LinkedHashMap<>();
+        parseInto(query, parameters);
+        parseInto(form, parameters);
+        return parameters;
+    }
+
+    private static void parseInto(final String raw, final Map<String, String> parameters) {
+        if (raw == null || raw.isEmpty()) {
+            return;
+        }
+        for (String pair : raw.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            final int separator = pair.indexOf('=');
+            final String key = decode(separator < 0 ? pair : pair.substring(0, separator)).trim();
+            final String value = separator < 0 ? "" : decode(pair.substring(separator + 1));
+            parameters.merge(key, value, (previous, next) -> previous + "," + next);
+        }
+    }
+
+    private static String decode(final String raw) {
+        try {
+            return URLDecoder.decode(raw, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 is not supported", e);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.snapshot;
+
+import com.github.mavogel.ilias.lib.model.IliasNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * An immutable snapshot of the discovered course tree: the courses the user is admin of
+ * and the groups found in each of them. Changes create a new snapshot.
+ */
+public final class CourseTreeSnapshot {
+
+    private final long createdAtMillis;
+    private final List<IliasNode> courses;
+    private final Map<Integer, List<IliasNode>> groupsByCourse;
+
+    /**
+     * Creates the snapshot.
+     *
+     * @param createdAtMillis the creation time in milliseconds since the epoch
+     * @param courses         the courses
+     * @param groupsByCourse  the groups per refId of the course
+     */
+    public CourseTreeSnapshot(final long createdAtMillis, final List<IliasNode> courses,
+                              final Map<Integer, List<IliasNode>> groupsByCourse) {
+        this.createdAtMillis = createdAtMillis;
+        this.courses = Collections.unmodifiableList(new ArrayList<>(courses));
+        final Map<Integer, List<IliasNode>> copy = new HashMap<>();
+        groupsByCourse.forEach((refId, groups) -> copy.put(refId, Collections.unmodifiableList(new ArrayList<>(groups))));
+        this.groupsByCourse = Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * @return an empty snapshot
+     */
+    public static CourseTreeSnapshot empty() {
+        return new CourseTreeSnapshot(System.currentTimeMillis(), Collections.emptyList(), Collections.emptyMap());
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    public List<IliasNode> getCourses() {
+        return courses;
+    }
+
+    public Map<Integer, List<IliasNode>> getGroupsByCourse() {
+        return groupsByCourse;
+    }
+
+    /**
+     * @param course the course
+     * @return the groups of the course if they were discovered
+     */
+    public Optional<List<IliasNode>> getGroups(final IliasNode course) {
+        return Optional.ofNullable(groupsByCourse.get(course.getRefId()));
+    }
+
+    /**
+     * @param courses the current courses
+     * @return a new snapshot with the courses
+     */
+    public CourseTreeSnapshot withCourses(final List<IliasNode> courses) {
+        return new CourseTreeSnapshot(System.currentTimeMillis(), courses, groupsByCourse);
+    }
+
+    /**
+     * @param course the course
+     * @param groups the current groups of the course
+     * @return a new snapshot with the groups of the course
+     */
+    public CourseTreeSnapshot withGroups(final IliasNode course, final List<IliasNode> groups) {
+        final Map<Integer, List<IliasNode>> changed = new HashMap<>(groupsByCourse);
+        changed.put(course.getRefId(), groups);
+        return new CourseTreeSnapshot(System.currentTimeMillis(), courses, changed);
+    }
+
+    /**
+     * Compares two lists of nodes by their refId, type and title, because the nodes
+     * are not guaranteed to implement equals.
+     *
+     * @param first  the first list
+     * @param second the second list
+     * @return <code>true</code> if both describe the same nodes in the same order
+     */
+    public static boolean isSameNodes(final List<IliasNode> first, final List<IliasNode> second) {
+        if (first.size() != second.size()) {
+            return false;
+        }
+        for (int i = 0; i < first.size(); i++) {
+            final IliasNode a = first.get(i);
+            final IliasNode b = second.get(i);
+            if (a.getRefId() != b.getRefId() || a.getType() != b.getType() || !String.valueOf(a.getTitle()).equals(String.valueOf(b.getTitle()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.snapshot;
+
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.lib.model.LoginConfiguration;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Persists a {@link CourseTreeSnapshot} in a compact binary file, which is memory-mapped for reading.
+ * The file is keyed by the endpoint, client and user of the login, so different accounts never share a snapshot.
+ * <p>
+ * Format: magic, version, creation time, the courses and for each course the groups if discovered.
+ * A node is stored as refId, type and title, strings as length prefixed UTF-8.
+ */
+public class SnapshotStore {
+
+    private static Logger LOG = Logger.getLogger(SnapshotStore.class);
+
+    private static final int MAGIC = 0x494C5354; // ILST
+    private static final short VERSION = 1;
+    /** The ref id and the lengths of type and title. */
+    private static final int NODE_MIN_BYTES = 3 * Integer.BYTES;
+    private static final int GROUPS_NOT_DISCOVERED = -1;
+    private static final int NULL_STRING = -1;
+
+    private final Path snapshotFile;
+
+    /**
+     * Creates the store.
+     *
+     * @param directory          the directory to keep the snapshots in
+     * @param loginConfiguration the login configuration the snapshot is keyed by
+     */
+    public SnapshotStore(final Path directory, final LoginConfiguration loginConfiguration) {
+        this.snapshotFile = directory.resolve(createKey(loginConfiguration) + ".snapshot");
+    }
+
+    public Path getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    /**
+     * Loads the snapshot by memory-mapping the file.
+     *
+     * @return the snapshot or empty if there is none or it is not readable
+     */
+    public Optional<CourseTreeSnapshot> load() {
+        if (!Files.isRegularFile(snapshotFile)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return Optional.of(decode(buffer));
+        } catch (IOException | IllegalArgumentException | BufferUnderflowException e) {
+            LOG.warn("Ignoring unreadable snapshot '" + snapshotFile + "': " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Saves the snapshot. Writes a temporary file first, which is renamed then, so a
+     * concurrently starting client never reads a partial snapshot.
+     *
+     * @param snapshot the snapshot
+     * @throws IOException if the file could not be written
+     */
+    public synchronized void save(final CourseTreeSnapshot snapshot) throws IOException {
+        Files.createDirectories(snapshotFile.getParent());
+        final Path tempFile = Files.createTempFile(snapshotFile.getParent(), "snapshot", ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                encode(snapshot, out);
+            }
+            Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    static void encode(final CourseTreeSnapshot snapshot, final DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeLong(snapshot.getCreatedAtMillis());
+        out.writeInt(snapshot.getCourses().size());
+        for (IliasNode course : snapshot.getCourses()) {
+            writeNode(course, out);
+            final Optional<List<IliasNode>> groups = snapshot.getGroups(course);
+            if (groups.isPresent()) {
+                out.writeInt(groups.get().size());
+                for (IliasNode group : groups.get()) {
+                    writeNode(group, out);
+                }
+            } else {
+                out.writeInt(GROUPS_NOT_DISCOVERED);
+            }
+        }
+    }
+
+    static CourseTreeSnapshot decode(final ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("not a snapshot file");
+        }
+        final short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("unsupported version " + version);
+        }
+        final long createdAtMillis = buffer.getLong();
+        final int courseCount = readLength(buffer, NODE_MIN_BYTES);
+        final List<IliasNode> courses = new ArrayList<>(courseCount);
+        final Map<Integer, List<IliasNode>> groupsByCourse = new HashMap<>();
+        for (int i = 0; i < courseCount; i++) {
+            final IliasNode course = readNode(buffer);
+            courses.add(course);
+            final int groupCount = buffer.getInt();
+            if (groupCount != GROUPS_NOT_DISCOVERED) {
+                checkLength(groupCount, buffer, NODE_MIN_BYTES);
+                final List<IliasNode> groups = new ArrayList<>(groupCount);
+                for (int j = 0; j < groupCount; j++) {
+                    groups.add(readNode(buffer));
+                }
+                groupsByCourse.put(course.getRefId(), groups);
+            }
+        }
+        return new CourseTreeSnapshot(createdAtMillis, courses, groupsByCourse);
+    }
+
+    private static void writeNode(final IliasNode node, final DataOutputStream out) throws IOException {
+        out.writeInt(node.getRefId());
+        writeString(node.getType() == null ? null : node.getType().name(), out);
+        writeString(node.getTitle(), out);
+    }
+
+    private static IliasNode readNode(final ByteBuffer buffer) {
+        final int refId = buffer.getInt();
+        final String type = readString(buffer);
+        final String title = readString(buffer);
+        return new IliasNode(refId, type == null ? null : IliasNode.Type.valueOf(type), title);
+    }
+
+    private static void writeString(final String value, final DataOutputStream out) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_STRING);
+        } else {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length == NULL_STRING) {
+            return null;
+        }
+        checkLength(length, buffer, 1);
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int readLength(final ByteBuffer buffer, final int minBytesPerElement) {
+        final int length = buffer.getInt();
+        checkLength(length, buffer, minBytesPerElement);
+        return length;
+    }
+
+    /**
+     * Checks a length read from the snapshot against the remaining bytes, so a broken
+     * snapshot is rejected before anything is allocated for it.
+     */
+    private static void checkLength(final int length, final ByteBuffer buffer, final int minBytesPerElement) {
+        if (length < 0 || length > buffer.remaining() / minBytesPerElement) {
+            throw new IllegalArgumentException("invalid length " + length);
+        }
+    }
+
+    /**
+     * Creates the key from the endpoint, client and user, hashed to get a valid filename.
+     *
+     * @param loginConfiguration the login configuration
+     * @return the key
+     */
+    private static String createKey(final LoginConfiguration loginConfiguration) {
+        final String raw = loginConfiguration.getEndpoint() + "\n" + loginConfiguration.getClient()
+                + "\n" + loginConfiguration.getUsername();
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(raw.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder sb = new StringBuilder();
+            for (byte b : digest) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
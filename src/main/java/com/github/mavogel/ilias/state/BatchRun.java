@@ -0,0 +1,158 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.state;
+
+import com.github.mavogel.ilias.executor.ActionResult;
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.model.BatchJob;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The results of a {@link BatchJob} run by the state machine without any prompt.
+ */
+public class BatchRun {
+
+    private static Logger LOG = Logger.getLogger(BatchRun.class);
+
+    /**
+     * The exit code if all actions succeeded on all groups.
+     */
+    public static final int EXIT_SUCCESS = 0;
+
+    /**
+     * The exit code if an action failed on at least one group.
+     */
+    public static final int EXIT_FAILED_GROUPS = 1;
+
+    /**
+     * The exit code if the job could not be run completely, e.g. a course was not found.
+     */
+    public static final int EXIT_ERROR = 2;
+
+    private final BatchJob job;
+    private final Map<String, List<ActionResult>> resultsByCourse;
+    private final List<String> errors;
+    private Optional<DryRunPlan> plan;
+
+    /**
+     * @param job the job to run
+     */
+    public BatchRun(final BatchJob job) {
+        this.job = job;
+        this.resultsByCourse = new LinkedHashMap<>();
+        this.errors = new ArrayList<>();
+        this.plan = Optional.empty();
+    }
+
+    public BatchJob getJob() {
+        return job;
+    }
+
+    /**
+     * @return the results of the actions per course
+     */
+    public Map<String, List<ActionResult>> getResultsByCourse() {
+        return Collections.unmodifiableMap(resultsByCourse);
+    }
+
+    /**
+     * @return the errors which prevented a part of the job from running
+     */
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * @return the plan of the calls of the actions or empty if the actions were not planned yet
+     */
+    public Optional<DryRunPlan> getPlan() {
+        return plan;
+    }
+
+    /**
+     * Records the plan of the calls of the actions.
+     *
+     * @param plan the plan
+     */
+    public void plan(final DryRunPlan plan) {
+        this.plan = Optional.of(plan);
+    }
+
+    /**
+     * Records the result of an action on the groups of a course.
+     *
+     * @param course the course
+     * @param result the result
+     */
+    public void record(final IliasNode course, final ActionResult result) {
+        resultsByCourse.computeIfAbsent(course.getTitle() + " (refId " + course.getRefId() + ")", key -> new ArrayList<>())
+                .add(result);
+    }
+
+    /**
+     * Records an error which prevented a part of the job from running.
+     *
+     * @param error the description of the error
+     */
+    public void fail(final String error) {
+        LOG.error(error);
+        errors.add(error);
+    }
+
+    /**
+     * Logs the results of each course and the errors.
+     */
+    public void logSummary() {
+        LOG.info("======================== JOB SUMMARY ========================");
+        resultsByCourse.forEach((course, results) -> {
+            LOG.info(course + ":");
+            results.forEach(ActionResult::logSummary);
+        });
+        errors.stream().map(error -> " - " + error).forEach(LOG::error);
+        LOG.info("Finished with exit code " + getExitCode());
+        LOG.info("=============================================================");
+    }
+
+    /**
+     * @return the exit code of the job
+     */
+    public int getExitCode() {
+        if (!errors.isEmpty()) {
+            return EXIT_ERROR;
+        }
+        final boolean failedGroups = resultsByCourse.values().stream()
+                .flatMap(List::stream)
+                .anyMatch(result -> !result.isSuccess());
+        return failedGroups ? EXIT_FAILED_GROUPS : EXIT_SUCCESS;
+    }
+}
@@ -27,10 +27,13 @@ package com.github.mavogel.ilias.state;
 
 
 import com.github.mavogel.ilias.lib.model.IliasNode;
-import com.github.mavogel.ilias.lib.wrapper.IliasEndpoint;
+import com.github.mavogel.ilias.model.ActionParameters;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * Interface to actions on nodes.
@@ -40,14 +43,48 @@ import java.util.Map;
 public interface ChangeAction {
 
     /**
-     * Performs the action of the state.
+     * The parts of a group an action reads or changes.
+     */
+    enum Resource {
+        MEMBERS,
+        FILES,
+        /**
+         * Each settings call of the endpoint fetches, modifies and updates the whole group on its own,
+         * so two settings actions must not overlap on a group.
+         */
+        SETTINGS,
+        PERMISSIONS
+    }
+
+    /**
+     * Collects the parameters of the action from the user and requests the confirmation.
+     * It is called for all chosen actions before any of them is performed.
+     *
+     * @param context the current context of the state machine
+     * @param nodes   the nodes to perform the action on
+     * @return the action ready to be performed or empty if it was not confirmed
+     */
+    Optional<PreparedAction> prepare(final Map<ToolStateMachine.ContextKey, List<IliasNode>> context, final List<IliasNode> nodes);
+
+    /**
+     * Prepares the action with the given parameters instead of asking the user, e.g. for a batch job.
+     *
+     * @param context    the current context of the state machine
+     * @param nodes      the nodes to perform the action on
+     * @param parameters the parameters of the action
+     * @return the action ready to be performed
+     * @throws IllegalArgumentException if a parameter required by the action is missing or not usable
+     */
+    PreparedAction prepare(final Map<ToolStateMachine.ContextKey, List<IliasNode>> context, final List<IliasNode> nodes,
+                           final ActionParameters parameters);
+
+    /**
+     * Adds the calls the action would make on the groups to the plan, without calling the server.
      *
-     * @param endpoint the endpoint
-     * @param context  the current context of the state machine
-     * @param nodes    the nodes to perform the action on
+     * @param plan   the plan
+     * @param groups the groups to perform the action on
      */
-    void performAction(final IliasEndpoint endpoint,
-                       final Map<ToolStateMachine.ContextKey, List<IliasNode>> context, final List<IliasNode> nodes);
+    void estimate(final DryRunPlan plan, final List<IliasNode> groups);
 
     /**
      * Prints and requests a confirmation from the user for the upcoming action.<br>
@@ -57,6 +94,29 @@ public interface ChangeAction {
      */
     boolean confirm();
 
+    /**
+     * @return the parts of the groups the action reads or changes
+     */
+    Set<Resource> getResources();
+
+    /**
+     * @return <code>true</code> if the action only reads its resources
+     */
+    default boolean isReadOnly() {
+        return false;
+    }
+
+    /**
+     * Two actions conflict if they share a resource which at least one of them changes.
+     * A conflicting action is only performed after the other one has finished.
+     *
+     * @param other the other action
+     * @return <code>true</code> if the actions must not overlap
+     */
+    default boolean conflictsWith(final ChangeAction other) {
+        return !(isReadOnly() && other.isReadOnly()) && !Collections.disjoint(getResources(), other.getResources());
+    }
+
     /**
      * The name of the action
      *
@@ -0,0 +1,269 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.state;
+
+import com.github.mavogel.ilias.lib.model.GroupUserModelFull;
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.model.ToolConfiguration;
+import com.github.mavogel.ilias.wrapper.CachingIliasEndpoint;
+import com.github.mavogel.ilias.wrapper.CallLatencies;
+import com.github.mavogel.ilias.wrapper.EndpointCall;
+import org.apache.log4j.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The predicted calls of the chosen actions on the chosen groups, made without calling the server.
+ * The files and members of the groups are counted if they are cached and the duration is estimated
+ * from the recently measured latencies, the parallelism and the limits of the calls.
+ * <p>
+ * The calls are the calls of the endpoint, which are measured and limited, not the SOAP requests it sends.
+ * A call may send several requests, e.g. per group or member, so the plan is labeled with endpoint calls.
+ */
+public class DryRunPlan {
+
+    private static Logger LOG = Logger.getLogger(DryRunPlan.class);
+
+    private final ToolConfiguration toolConfiguration;
+    private final CallLatencies latencies;
+    private final Optional<CachingIliasEndpoint> cache;
+    private final Map<String, ActionEstimate> estimates;
+
+    /**
+     * Creates an empty plan.
+     *
+     * @param toolConfiguration the configuration containing the parallelism and the limits
+     * @param latencies         the recently measured latencies
+     * @param cache             the cache to look up the files and members of the groups in
+     */
+    public DryRunPlan(final ToolConfiguration toolConfiguration, final CallLatencies latencies,
+                      final Optional<CachingIliasEndpoint> cache) {
+        this.toolConfiguration = toolConfiguration;
+        this.latencies = latencies;
+        this.cache = cache;
+        this.estimates = new LinkedHashMap<>();
+    }
+
+    /**
+     * Adds the predicted calls of an action on the groups.
+     *
+     * @param action the action
+     * @param groups the groups
+     * @return this plan
+     */
+    public DryRunPlan add(final ChangeAction action, final List<IliasNode> groups) {
+        estimates.put(action.actionName(""), new ActionEstimate(groups.size()));
+        action.estimate(this, groups);
+        return this;
+    }
+
+    /**
+     * Adds calls of an action.
+     *
+     * @param action the action
+     * @param call   the call
+     * @param count  the amount of calls
+     */
+    public void addCalls(final ChangeAction action, final EndpointCall call, final int count) {
+        if (count > 0) {
+            estimateOf(action).calls.merge(call, count, Integer::sum);
+        }
+    }
+
+    /**
+     * Adds the members of the groups, as far as they are cached, to the objects the action affects.
+     *
+     * @param action the action
+     * @param groups the groups
+     */
+    public void addAffectedMembers(final ChangeAction action, final List<IliasNode> groups) {
+        int members = 0;
+        int cachedGroups = 0;
+        for (IliasNode group : groups) {
+            final Optional<List<GroupUserModelFull>> cached = cache.flatMap(c -> c.peekMembers(group));
+            if (cached.isPresent()) {
+                cachedGroups++;
+                members += cached.get().stream().mapToInt(model -> model.getGroupMembers().size()).sum();
+            }
+        }
+        estimateOf(action).affected.add(describeCount(members, "members", cachedGroups, groups.size()));
+    }
+
+    /**
+     * Adds the reads of the members of the groups which are not cached and the members.
+     *
+     * @param action the action
+     * @param groups the groups
+     */
+    public void addMemberReads(final ChangeAction action, final List<IliasNode> groups) {
+        addCalls(action, EndpointCall.MEMBERS, (int) groups.stream()
+                .filter(group -> !cache.flatMap(c -> c.peekMembers(group)).isPresent())
+                .count());
+        addAffectedMembers(action, groups);
+    }
+
+    /**
+     * Adds the reads of the files of the groups which are not cached and the files.
+     *
+     * @param action the action
+     * @param groups the groups
+     * @return the amount of groups which have files or whose files are not cached
+     */
+    public int addFileReads(final ChangeAction action, final List<IliasNode> groups) {
+        int files = 0;
+        int cachedGroups = 0;
+        int groupsWithFiles = 0;
+        for (IliasNode group : groups) {
+            final Optional<List<IliasNode>> cached = cache.flatMap(c -> c.peekFiles(group));
+            if (cached.isPresent()) {
+                cachedGroups++;
+                files += cached.get().size();
+            }
+            if (!cached.isPresent() || !cached.get().isEmpty()) {
+                groupsWithFiles++;
+            }
+        }
+        addCalls(action, EndpointCall.FILES, groups.size() - cachedGroups);
+        estimateOf(action).affected.add(describeCount(files, "files", cachedGroups, groups.size()));
+        return groupsWithFiles;
+    }
+
+    /**
+     * @return the amount of each call of all actions
+     */
+    public Map<EndpointCall, Integer> getCalls() {
+        final Map<EndpointCall, Integer> calls = new EnumMap<>(EndpointCall.class);
+        estimates.values().forEach(estimate -> estimate.calls.forEach((call, count) -> calls.merge(call, count, Integer::sum)));
+        return calls;
+    }
+
+    /**
+     * Estimates the duration of the calls. The reading and the mutating calls each run as concurrently as
+     * the parallelism and their limit allow, but not faster than the calls per second allow.
+     *
+     * @return the estimated duration or empty if no call was measured yet
+     */
+    public Optional<Duration> estimateDuration() {
+        double readNanos = 0;
+        double writeNanos = 0;
+        int total = 0;
+        for (Map.Entry<EndpointCall, Integer> calls : getCalls().entrySet()) {
+            final Optional<Duration> latency = latencies.estimate(calls.getKey());
+            if (!latency.isPresent()) {
+                return Optional.empty();
+            }
+            final double nanos = (double) latency.get().toNanos() * calls.getValue();
+            if (calls.getKey().isMutating()) {
+                writeNanos += nanos;
+            } else {
+                readNanos += nanos;
+            }
+            total += calls.getValue();
+        }
+
+        final int parallelism = toolConfiguration.getParallelism();
+        final double concurrentNanos = readNanos / Math.min(parallelism, toolConfiguration.getMaxConcurrentReads())
+                + writeNanos / Math.min(parallelism, toolConfiguration.getMaxConcurrentWrites());
+        final double rateNanos = total * 1e9 / toolConfiguration.getMaxRequestsPerSecond();
+        return Optional.of(Duration.ofNanos((long) Math.max(concurrentNanos, rateNanos)));
+    }
+
+    /**
+     * @return the lines describing the plan
+     */
+    public List<String> describe() {
+        final List<String> lines = new ArrayList<>();
+        estimates.forEach((name, estimate) -> {
+            lines.add(name + " on " + estimate.groups + " groups"
+                    + (estimate.affected.isEmpty() ? "" : ": " + String.join(", ", estimate.affected)));
+            estimate.calls.forEach((call, count) -> lines.add("    " + call.getMethodName() + ": " + count
+                    + " endpoint calls" + describeLatency(call)));
+        });
+
+        final Map<EndpointCall, Integer> calls = getCalls();
+        final int reads = calls.entrySet().stream().filter(e -> !e.getKey().isMutating()).mapToInt(Map.Entry::getValue).sum();
+        final int writes = calls.entrySet().stream().filter(e -> e.getKey().isMutating()).mapToInt(Map.Entry::getValue).sum();
+        lines.add(String.format("In total %d reading and %d mutating endpoint calls, estimated duration %s", reads, writes,
+                estimateDuration().map(DryRunPlan::formatDuration).orElse("unknown until a call was measured")));
+        return Collections.unmodifiableList(lines);
+    }
+
+    /**
+     * Logs the plan.
+     */
+    public void log() {
+        LOG.info("========================= DRY RUN ===========================");
+        describe().forEach(LOG::info);
+        LOG.info("=============================================================");
+    }
+
+    private ActionEstimate estimateOf(final ChangeAction action) {
+        return estimates.computeIfAbsent(action.actionName(""), name -> new ActionEstimate(0));
+    }
+
+    private String describeLatency(final EndpointCall call) {
+        final Optional<Duration> measured = latencies.get(call);
+        if (measured.isPresent()) {
+            return ", " + measured.get().toMillis() + " ms each";
+        }
+        return latencies.estimate(call)
+                .map(latency -> ", about " + latency.toMillis() + " ms each (not measured yet)")
+                .orElse("");
+    }
+
+    private static String describeCount(final int count, final String objects, final int cachedGroups, final int groups) {
+        if (cachedGroups == groups) {
+            return count + " " + objects;
+        } else if (cachedGroups == 0) {
+            return objects + " not cached";
+        }
+        return String.format("at least %d %s (cached for %d of %d groups)", count, objects, cachedGroups, groups);
+    }
+
+    private static String formatDuration(final Duration duration) {
+        return String.format("%.1f s", duration.toMillis() / 1000.0);
+    }
+
+    /**
+     * The predicted calls and affected objects of an action.
+     */
+    private static final class ActionEstimate {
+        private final int groups;
+        private final Map<EndpointCall, Integer> calls = new EnumMap<>(EndpointCall.class);
+        private final List<String> affected = new ArrayList<>();
+
+        private ActionEstimate(final int groups) {
+            this.groups = groups;
+        }
+    }
+}
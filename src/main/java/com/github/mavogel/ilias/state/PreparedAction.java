@@ -0,0 +1,86 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.state;
+
+import com.github.mavogel.ilias.executor.ActionResult;
+import com.github.mavogel.ilias.executor.GroupTaskExecutor;
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.wrapper.AsyncIliasEndpoint;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@link ChangeAction} with all input of the user collected, ready to be performed.
+ */
+@FunctionalInterface
+public interface PreparedAction {
+
+    /**
+     * Starts the calls of the action without waiting for them. Is called again with the groups
+     * which failed, if the user wants to retry them.
+     *
+     * If several courses were chosen, it is called for the groups of each course concurrently.
+     *
+     * @param endpoint the endpoint
+     * @param executor the executor to aggregate the calls on each node
+     * @param course   the course of the nodes
+     * @param nodes    the nodes to perform the action on
+     * @return the future of the aggregated result for each node
+     */
+    CompletableFuture<ActionResult> perform(final AsyncIliasEndpoint endpoint, final GroupTaskExecutor executor,
+                                            final IliasNode course, final List<IliasNode> nodes);
+
+    /**
+     * @return the parameters the action was prepared with as properties of a job file, e.g. <code>maxMembers</code>.
+     * They are journaled, so the action is resumed with them.
+     */
+    default Map<String, String> getParameters() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * @param action     the prepared action
+     * @param parameters the parameters it was prepared with as properties of a job file
+     * @return the action with its parameters
+     */
+    static PreparedAction withParameters(final PreparedAction action, final Map<String, String> parameters) {
+        return new PreparedAction() {
+            @Override
+            public CompletableFuture<ActionResult> perform(final AsyncIliasEndpoint endpoint, final GroupTaskExecutor executor,
+                                                           final IliasNode course, final List<IliasNode> nodes) {
+                return action.perform(endpoint, executor, course, nodes);
+            }
+
+            @Override
+            public Map<String, String> getParameters() {
+                return parameters;
+            }
+        };
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.state;
+
+import com.github.mavogel.ilias.lib.wrapper.IliasEndpoint;
+import com.github.mavogel.ilias.model.BatchJob;
+import com.github.mavogel.ilias.model.ToolConfiguration;
+import com.github.mavogel.ilias.state.states.ActionsOnGroupsState;
+import org.apache.log4j.Logger;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * One logged in session shared by many state machines, e.g. the runs of the scheduler daemon or the requests
+ * of the control server. They all use its decorated endpoint with the cache and the limits and its executor.
+ * The session is kept alive by a cheap call and logged in again by the next run if it was lost.
+ */
+public class SharedSession {
+
+    private static Logger LOG = Logger.getLogger(SharedSession.class);
+
+    private final ToolStateMachine owner;
+
+    /**
+     * Creates the session, which is not logged in yet.
+     *
+     * @param toolConfiguration the configuration of the tool
+     */
+    public SharedSession(final ToolConfiguration toolConfiguration) {
+        this(ToolStateMachine.forSharedSession(toolConfiguration));
+    }
+
+    /**
+     * @param owner the state machine owning the endpoint and the executor of the session
+     */
+    SharedSession(final ToolStateMachine owner) {
+        this.owner = owner;
+    }
+
+    public ToolConfiguration getToolConfiguration() {
+        return owner.getToolConfiguration();
+    }
+
+    /**
+     * @return the names of the actions a job can contain
+     */
+    public List<String> getActionNames() {
+        return ((ActionsOnGroupsState) owner.getActionsOnGroupsState()).getActionNames();
+    }
+
+    /**
+     * Validates the job without running it.
+     *
+     * @param batchJob the job
+     * @throws IllegalArgumentException if the job contains an unknown action
+     */
+    public void validate(final BatchJob batchJob) {
+        new ToolStateMachine(owner, batchJob);
+    }
+
+    /**
+     * Logs in, replacing a previous login, which is logged out.
+     *
+     * @return <code>true</code> if the login succeeded
+     */
+    public synchronized boolean login() {
+        logoutQuietly();
+        return owner.login();
+    }
+
+    /**
+     * @return the decorated endpoint, logging in again first if the session was lost, or empty if the login failed
+     */
+    public synchronized Optional<IliasEndpoint> getEndpoint() {
+        if (owner.getEndpoint() == null && !owner.login()) {
+            return Optional.empty();
+        }
+        return Optional.of(owner.getEndpoint());
+    }
+
+    /**
+     * Runs the job on the session without any prompt, logging in again first if the session was lost.
+     *
+     * @param batchJob the job
+     * @return the run with its results or empty if the login failed
+     * @throws IllegalArgumentException if the job contains an unknown action
+     */
+    public Optional<BatchRun> run(final BatchJob batchJob) {
+        final Optional<ToolStateMachine> stateMachine = createRun(batchJob);
+        if (!stateMachine.isPresent()) {
+            return Optional.empty();
+        }
+        final BatchRun batchRun = stateMachine.get().getBatchRun().get();
+        try {
+            stateMachine.get().start();
+        } catch (RuntimeException e) {
+            batchRun.fail("Aborted the job: " + e.getMessage());
+        }
+        return Optional.of(batchRun);
+    }
+
+    private synchronized Optional<ToolStateMachine> createRun(final BatchJob batchJob) {
+        if (!getEndpoint().isPresent()) {
+            return Optional.empty();
+        }
+        return Optional.of(new ToolStateMachine(owner, batchJob));
+    }
+
+    /**
+     * Makes a cheap call, so the session at Ilias does not expire while idle, and tries it once more if it failed.
+     * If it failed again, the session is logged out and dropped. The next run logs in again then, so the
+     * thread keeping the session alive is not blocked by the login.
+     */
+    public synchronized void keepAlive() {
+        if (owner.getEndpoint() == null) {
+            return;
+        }
+        try {
+            owner.keepAlive();
+        } catch (Exception first) {
+            LOG.debug("Could not keep the session alive, trying once more: " + first.getMessage());
+            try {
+                owner.keepAlive();
+            } catch (Exception e) {
+                LOG.warn("The session seems to be expired, the next run logs in again: " + e.getMessage());
+                logoutQuietly();
+                owner.setEndpoint(null);
+                return;
+            }
+        }
+        LOG.debug("Kept the session alive");
+    }
+
+    /**
+     * Logs out and stops the executor. The session must not be used afterwards.
+     */
+    public synchronized void logout() {
+        final IliasEndpoint endpoint = owner.getEndpoint();
+        if (endpoint != null) {
+            endpoint.logout("");
+        }
+        owner.stop();
+    }
+
+    /**
+     * Logs out the current endpoint, if any, ignoring a session which expired already.
+     */
+    private void logoutQuietly() {
+        final IliasEndpoint endpoint = owner.getEndpoint();
+        if (endpoint == null) {
+            return;
+        }
+        try {
+            endpoint.logout("");
+        } catch (RuntimeException e) {
+            LOG.debug("Could not log out the previous session: " + e.getMessage());
+        }
+    }
+}
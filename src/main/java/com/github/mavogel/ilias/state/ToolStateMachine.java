@@ -25,22 +25,43 @@
  */
 package com.github.mavogel.ilias.state;
 
+import com.github.mavogel.ilias.executor.GroupTaskExecutor;
+import com.github.mavogel.ilias.journal.ActionJournal;
+import com.github.mavogel.ilias.journal.UnfinishedRun;
 import com.github.mavogel.ilias.lib.model.IliasNode;
 import com.github.mavogel.ilias.lib.model.LoginConfiguration;
 import com.github.mavogel.ilias.lib.model.UserDataIds;
+import com.github.mavogel.ilias.model.BatchJob;
+import com.github.mavogel.ilias.model.ToolConfiguration;
 import com.github.mavogel.ilias.state.states.*;
 import com.github.mavogel.ilias.lib.wrapper.AbstractIliasEndpoint;
+import com.github.mavogel.ilias.lib.wrapper.DisplayStatus;
+import com.github.mavogel.ilias.lib.wrapper.IliasEndpoint;
+import com.github.mavogel.ilias.snapshot.SnapshotStore;
+import com.github.mavogel.ilias.wrapper.AsyncIliasEndpoint;
+import com.github.mavogel.ilias.wrapper.CachingIliasEndpoint;
+import com.github.mavogel.ilias.wrapper.CallLatencies;
+import com.github.mavogel.ilias.wrapper.LimitingIliasEndpoint;
+import com.github.mavogel.ilias.wrapper.ResilientIliasEndpoint;
+import com.github.mavogel.ilias.wrapper.SingleFlightIliasEndpoint;
+import com.github.mavogel.ilias.wrapper.SnapshotIliasEndpoint;
+import org.apache.commons.lang3.Validate;
+import org.apache.log4j.Logger;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created by mavogel on 9/6/16.
  */
 public class ToolStateMachine {
 
+    private static Logger LOG = Logger.getLogger(ToolStateMachine.class);
+
     /**
      * The keys for the context shared between the states.
      */
@@ -53,42 +74,152 @@ public class ToolStateMachine {
         /**
          * The refIds of the chosen groups
          */
-        GROUPS
+        GROUPS,
+
+        /**
+         * The groups discovered in the chosen courses, kept until other courses are chosen
+         */
+        DISCOVERED_GROUPS
     }
 
+    private final ToolConfiguration toolConfiguration;
     private AbstractIliasEndpoint endpoint;
+    private IliasEndpoint decoratedEndpoint;
+    private AsyncIliasEndpoint asyncEndpoint;
+    private GroupTaskExecutor executor;
+    private final CallLatencies latencies;
+    private final Optional<ActionJournal> journal;
     private Map<ContextKey, List<IliasNode>> context;
+    private final Optional<BatchRun> batchRun;
+    private final boolean isSessionOwner;
+    private final boolean isInteractive;
 
     private boolean isInEndState;
     private ToolState startState;
     private ToolState loginState;
     private ToolState chooseCoursesState;
     private ToolState actionsOnGroupsState;
+    private ToolState repeatActionsState;
     private ToolState quitState;
 
     private ToolState currentState;
 
     /**
-     * Creates the state machine of the tool.
+     * Creates the state machine of the tool with the default settings.
      *
      * @param loginConfiguration the configuration of the login
      */
     public ToolStateMachine(final LoginConfiguration loginConfiguration) {
+        this(ToolConfiguration.withDefaults(loginConfiguration));
+    }
+
+    /**
+     * Creates the state machine of the tool.
+     *
+     * @param toolConfiguration the configuration of the tool
+     */
+    public ToolStateMachine(final ToolConfiguration toolConfiguration) {
+        this(toolConfiguration, null);
+    }
+
+    /**
+     * Creates the state machine of the tool, which runs the given job without any prompt.
+     *
+     * @param toolConfiguration the configuration of the tool
+     * @param batchJob          the job, if <code>null</code> the user is asked for all choices
+     * @throws IllegalArgumentException if the job contains an unknown action
+     */
+    public ToolStateMachine(final ToolConfiguration toolConfiguration, final BatchJob batchJob) {
+        this(toolConfiguration, batchJob, batchJob == null);
+    }
+
+    /**
+     * Creates the state machine of a session shared by runs of jobs, e.g. of the scheduler daemon.
+     *
+     * @param toolConfiguration the configuration of the tool
+     * @return the state machine, which is not logged in yet
+     */
+    static ToolStateMachine forSharedSession(final ToolConfiguration toolConfiguration) {
+        return new ToolStateMachine(toolConfiguration, null, false);
+    }
+
+    private ToolStateMachine(final ToolConfiguration toolConfiguration, final BatchJob batchJob, final boolean isInteractive) {
+        final LoginConfiguration loginConfiguration = toolConfiguration.getLoginConfiguration();
+        this.toolConfiguration = toolConfiguration;
+        this.batchRun = Optional.ofNullable(batchJob).map(BatchRun::new);
+        this.isSessionOwner = true;
+        this.isInteractive = isInteractive;
         this.isInEndState = false;
-        this.context = new HashMap<>();
+        this.context = new ConcurrentHashMap<>();
+        this.executor = new GroupTaskExecutor(toolConfiguration.getParallelism());
+        this.latencies = new CallLatencies();
+        this.journal = openJournal(toolConfiguration);
+        encodeStates(loginConfiguration, batchJob);
+        setState(this.startState);
+    }
 
-        // encoding of the state machine
+    /**
+     * Creates the state machine running the given job without any prompt on the session of the given state machine,
+     * which is logged in already. It starts with the choice of the courses and neither logs out nor stops the
+     * executor of the session when it quits.
+     *
+     * @param session  the logged in state machine whose endpoint and executor are used
+     * @param batchJob the job
+     * @throws IllegalArgumentException if the job contains an unknown action
+     */
+    public ToolStateMachine(final ToolStateMachine session, final BatchJob batchJob) {
+        this.toolConfiguration = session.toolConfiguration;
+        this.batchRun = Optional.of(new BatchRun(batchJob));
+        this.isSessionOwner = false;
+        this.isInteractive = false;
+        this.isInEndState = false;
+        this.context = new ConcurrentHashMap<>();
+        this.endpoint = session.endpoint;
+        this.decoratedEndpoint = session.decoratedEndpoint;
+        this.asyncEndpoint = session.asyncEndpoint;
+        this.executor = session.executor;
+        this.latencies = session.latencies;
+        this.journal = session.journal;
+        encodeStates(toolConfiguration.getLoginConfiguration(), batchJob);
+        setState(this.chooseCoursesState);
+    }
+
+    private static Optional<ActionJournal> openJournal(final ToolConfiguration toolConfiguration) {
+        if (!toolConfiguration.isJournalEnabled()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new ActionJournal(toolConfiguration.getJournalFile(), toolConfiguration.getJournalSyncInterval()));
+        } catch (IOException ioe) {
+            LOG.warn("Could not open the journal '" + toolConfiguration.getJournalFile() + "', the actions are not journaled: "
+                    + ioe.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void encodeStates(final LoginConfiguration loginConfiguration, final BatchJob batchJob) {
         this.quitState = new QuitState(this);
         this.actionsOnGroupsState = new ActionsOnGroupsState(this);
+        this.repeatActionsState = new RepeatActionsState(this, (ActionsOnGroupsState) this.actionsOnGroupsState);
         this.chooseCoursesState = new ChooseCoursesState(this);
 
         this.chooseCoursesState.setSuccessors(this.chooseCoursesState, this.actionsOnGroupsState, this.quitState);
-        this.actionsOnGroupsState.setSuccessors(this.chooseCoursesState, this.quitState);
+        this.actionsOnGroupsState.setSuccessors(this.chooseCoursesState, this.quitState,
+                this.actionsOnGroupsState, this.repeatActionsState);
+        this.repeatActionsState.setSuccessors(this.chooseCoursesState, this.quitState,
+                this.actionsOnGroupsState, this.repeatActionsState);
 
         this.loginState = new LoginState(this, loginConfiguration, this.chooseCoursesState);
         this.startState = new StartState(this, this.loginState);
 
-        setState(this.startState);
+        if (batchJob != null) {
+            // fails before the login
+            ((ActionsOnGroupsState) this.actionsOnGroupsState).resolveActions(batchJob.getActions());
+        }
+    }
+
+    public ToolConfiguration getToolConfiguration() {
+        return toolConfiguration;
     }
 
     /**
@@ -103,19 +234,146 @@ public class ToolStateMachine {
     }
 
     /**
-     * @return the endpoint
+     * @return the endpoint decorated with the cache
      */
-    public AbstractIliasEndpoint getEndpoint() {
-        return endpoint;
+    public IliasEndpoint getEndpoint() {
+        return decoratedEndpoint;
     }
 
     /**
+     * Sets the endpoint and decorates it with the cache, the coalescing of identical reads, the snapshot
+     * of the course tree if enabled, the retries of transient failures and the limits protecting the server.
+     * The snapshot is only used if the user chooses the groups, since nobody checks them in a job.
+     *
      * @param endpoint the endpoint
      */
     public void setEndpoint(final AbstractIliasEndpoint endpoint) {
         this.endpoint = endpoint;
+        if (endpoint == null) {
+            this.decoratedEndpoint = null;
+            this.asyncEndpoint = null;
+            return;
+        }
+
+        IliasEndpoint innerEndpoint = new LimitingIliasEndpoint(endpoint, toolConfiguration, latencies);
+        innerEndpoint = new ResilientIliasEndpoint(innerEndpoint, toolConfiguration);
+        if (toolConfiguration.isSnapshotEnabled() && isInteractive) {
+            final SnapshotStore store = new SnapshotStore(toolConfiguration.getSnapshotDirectory(),
+                    toolConfiguration.getLoginConfiguration());
+            innerEndpoint = new SnapshotIliasEndpoint(innerEndpoint, store, new SnapshotIliasEndpoint.Listener() {
+                @Override
+                public void onCoursesChanged() {
+                    invalidateCache(CachingIliasEndpoint.Operation.COURSES);
+                }
+
+                @Override
+                public void onGroupsChanged(final IliasNode course) {
+                    getCache().ifPresent(cache -> cache.invalidate(CachingIliasEndpoint.Operation.GROUPS,
+                            Collections.singletonList(course)));
+                    final List<IliasNode> courses = context.getOrDefault(ContextKey.COURSES, Collections.emptyList());
+                    if (courses.stream().anyMatch(chosen -> chosen.getRefId() == course.getRefId())) {
+                        context.remove(ContextKey.DISCOVERED_GROUPS);
+                    }
+                }
+            });
+        }
+        innerEndpoint = new SingleFlightIliasEndpoint(innerEndpoint);
+        this.decoratedEndpoint = new CachingIliasEndpoint(innerEndpoint, toolConfiguration);
+        this.asyncEndpoint = new AsyncIliasEndpoint(decoratedEndpoint, executor);
     }
 
+    /**
+     * Logs in without starting the state machine, e.g. for a session shared by the runs of scheduled jobs.
+     * A previous endpoint is replaced, the state machines already sharing it keep using it.
+     *
+     * @return <code>true</code> if the login succeeded
+     */
+    public boolean login() {
+        setEndpoint(null);
+        loginState.execute();
+        return decoratedEndpoint != null;
+    }
+
+    /**
+     * Reads the courses bypassing the cache, so the session at Ilias does not expire while idle.
+     *
+     * @throws Exception if the call failed, e.g. because the session expired nevertheless
+     */
+    public void keepAlive() throws Exception {
+        Validate.validState(decoratedEndpoint != null, "Not logged in");
+        invalidateCache(CachingIliasEndpoint.Operation.COURSES);
+        decoratedEndpoint.getCoursesForUser(DisplayStatus.ADMIN);
+    }
+
+    /**
+     * @return the non-blocking facade of the decorated endpoint
+     */
+    public AsyncIliasEndpoint getAsyncEndpoint() {
+        return asyncEndpoint;
+    }
+
+    /**
+     * @return the cache of the decorated endpoint or empty if not logged in
+     */
+    public Optional<CachingIliasEndpoint> getCache() {
+        return decoratedEndpoint instanceof CachingIliasEndpoint
+                ? Optional.of((CachingIliasEndpoint) decoratedEndpoint)
+                : Optional.empty();
+    }
+
+    /**
+     * @return the recently measured latencies of the calls to the server
+     */
+    public CallLatencies getLatencies() {
+        return latencies;
+    }
+
+    private void invalidateCache(final CachingIliasEndpoint.Operation operation) {
+        if (decoratedEndpoint instanceof CachingIliasEndpoint) {
+            ((CachingIliasEndpoint) decoratedEndpoint).invalidate(operation);
+        }
+    }
+
+
+    /**
+     * @return the executor for performing calls on groups concurrently
+     */
+    public GroupTaskExecutor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @return the journal of the mutating actions or empty if it is disabled
+     */
+    public Optional<ActionJournal> getJournal() {
+        return journal;
+    }
+
+    /**
+     * Resumes the unfinished work of the given runs right after the login, instead of choosing the courses.
+     *
+     * @param runs the runs to resume
+     */
+    public void resume(final List<UnfinishedRun> runs) {
+        final ToolState resumeState = new ResumeState(this, (ActionsOnGroupsState) this.actionsOnGroupsState, runs,
+                this.chooseCoursesState, this.quitState);
+        this.loginState.setSuccessors(resumeState);
+    }
+
+    /**
+     * @return the run of the batch job or empty if the user is asked for all choices
+     */
+    public Optional<BatchRun> getBatchRun() {
+        return batchRun;
+    }
+
+    /**
+     * @return <code>true</code> if the state machine logs out and stops the executor when it quits,
+     * <code>false</code> if it runs on the session of another one
+     */
+    public boolean isSessionOwner() {
+        return isSessionOwner;
+    }
 
     /**
      * @return the current context
@@ -149,10 +407,14 @@ public class ToolStateMachine {
     }
 
     /**
-     * Stops the state machine
+     * Stops the state machine, the executor and the journal if it owns the session.
      */
     public void stop() {
         isInEndState = true;
+        if (isSessionOwner) {
+            executor.shutdown();
+            journal.ifPresent(ActionJournal::close);
+        }
     }
 
     ///////////////////////////////
@@ -163,6 +425,14 @@ public class ToolStateMachine {
         return chooseCoursesState;
     }
 
+    public ToolState getActionsOnGroupsState() {
+        return actionsOnGroupsState;
+    }
+
+    public ToolState getRepeatActionsState() {
+        return repeatActionsState;
+    }
+
     public ToolState getQuitState() {
         return quitState;
     }
@@ -25,21 +25,40 @@
  */
 package com.github.mavogel.ilias.state.states;
 
+import com.github.mavogel.ilias.executor.ActionResult;
+import com.github.mavogel.ilias.executor.DiscoverAndDeletePipeline;
+import com.github.mavogel.ilias.executor.GroupTaskExecutor;
+import com.github.mavogel.ilias.journal.ActionJournal;
+import com.github.mavogel.ilias.model.ActionParameters;
+import com.github.mavogel.ilias.model.BatchJob;
 import com.github.mavogel.ilias.model.IliasAction;
+import com.github.mavogel.ilias.model.ToolConfiguration;
 import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.state.BatchRun;
 import com.github.mavogel.ilias.state.ChangeAction;
+import com.github.mavogel.ilias.state.DryRunPlan;
+import com.github.mavogel.ilias.state.PreparedAction;
 import com.github.mavogel.ilias.state.ToolState;
 import com.github.mavogel.ilias.state.ToolStateMachine;
 import com.github.mavogel.ilias.state.states.action.*;
 import com.github.mavogel.ilias.utils.Defaults;
 import com.github.mavogel.ilias.utils.IOUtils;
 import com.github.mavogel.ilias.lib.wrapper.IliasEndpoint;
+import com.github.mavogel.ilias.wrapper.AsyncIliasEndpoint;
 import org.apache.log4j.Logger;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -55,14 +74,13 @@ public class ActionsOnGroupsState extends ToolState {
     /**
      * The choices on groups.
      */
-    private static final List<ChangeAction> ACTION_CHOICES = Arrays.asList(
-            new RemoveUploadedMaterialsAction(),
-            new RemoveUsersAction(),
-            new SetRegistrationPeriodAction(),
-            new SetMaxMembersAction(),
-            new GrantFileUploadToGroupMembersAction(),
-            new PrintGroupMembersAction()
-    );
+    private final List<ChangeAction> actionChoices;
+
+    /**
+     * The courses whose groups were discovered and the course of each group by the refId of the group.
+     */
+    private final List<IliasNode> discoveredCourses = new ArrayList<>();
+    private final Map<Integer, IliasNode> courseOfGroup = new HashMap<>();
 
     /**
      * Creates the action on groups state.
@@ -73,6 +91,16 @@ public class ActionsOnGroupsState extends ToolState {
     public ActionsOnGroupsState(final ToolStateMachine stateMachine, final ToolState... successors) {
         super(stateMachine);
         setSuccessors(successors);
+        final ToolConfiguration toolConfiguration = stateMachine.getToolConfiguration();
+        this.actionChoices = Arrays.asList(
+                new RemoveUploadedMaterialsAction(new DiscoverAndDeletePipeline(
+                        toolConfiguration.getPipelineDeleters(), toolConfiguration.getPipelineQueueSize())),
+                new RemoveUsersAction(),
+                new SetRegistrationPeriodAction(),
+                new SetMaxMembersAction(),
+                new GrantFileUploadToGroupMembersAction(),
+                new PrintGroupMembersAction(toolConfiguration)
+        );
     }
 
     @Override
@@ -80,50 +108,422 @@ public class ActionsOnGroupsState extends ToolState {
         LOG.info("Choose one or more actions on groups when collection is finished!");
     }
 
+    /**
+     * Discovers the groups of all chosen courses concurrently. A course whose groups could not be
+     * discovered is left out. The groups are kept in the context, so they are not discovered again
+     * until other courses are chosen.
+     */
     @Override
     protected List<IliasNode> collectDataForExecution() {
-        IliasEndpoint endpoint = stateMachine.getEndpoint();
+        final List<IliasNode> discoveredGroups = stateMachine.getContext().get(ToolStateMachine.ContextKey.DISCOVERED_GROUPS);
+        if (discoveredGroups != null) {
+            LOG.debug(String.format("Reusing the %d discovered groups", discoveredGroups.size()));
+            return discoveredGroups;
+        }
+
+        final AsyncIliasEndpoint endpoint = stateMachine.getAsyncEndpoint();
         final List<IliasNode> courses = stateMachine.getContext().get(ToolStateMachine.ContextKey.COURSES);
+        final List<CompletableFuture<List<IliasNode>>> discoveries = courses.stream()
+                .map(endpoint::getGroupsFromCourse)
+                .collect(Collectors.toList());
 
-        try {
-            return endpoint.getGroupsFromCourse(courses.get(0)); // TODO only one course atm
-        } catch (Exception e) {
+        discoveredCourses.clear();
+        courseOfGroup.clear();
+        final List<IliasNode> groups = new ArrayList<>();
+        for (int i = 0; i < courses.size(); i++) {
+            final IliasNode course = courses.get(i);
+            try {
+                for (IliasNode group : discoveries.get(i).join()) {
+                    courseOfGroup.put(group.getRefId(), course);
+                    groups.add(group);
+                }
+                discoveredCourses.add(course);
+            } catch (CompletionException e) {
+                final String error = "Could not get the groups of course '" + course.getTitle() + "': "
+                        + GroupTaskExecutor.causeOf(e).getMessage();
+                if (stateMachine.getBatchRun().isPresent()) {
+                    stateMachine.getBatchRun().get().fail(error);
+                } else {
+                    LOG.error(error);
+                }
+            }
+        }
+        if (discoveredCourses.isEmpty() && !stateMachine.getBatchRun().isPresent()) {
             this.stateMachine.setState(stateMachine.getChooseCoursesState());
+        } else if (!discoveredCourses.isEmpty()) {
+            stateMachine.getContext().put(ToolStateMachine.ContextKey.DISCOVERED_GROUPS, groups);
         }
+        return groups;
+    }
+
+    /**
+     * Resolves the actions by their names.
+     *
+     * @param actionNames the names of the actions, e.g. <code>SetMaxMembers</code>
+     * @return the actions in the given order
+     * @throws IllegalArgumentException if an action is unknown
+     */
+    public List<ChangeAction> resolveActions(final List<String> actionNames) {
+        return actionNames.stream()
+                .map(name -> actionChoices.stream()
+                        .filter(action -> action.actionName("").equalsIgnoreCase(name))
+                        .findFirst()
+                        .orElseThrow(() -> new IllegalArgumentException(String.format("Action '%s' is unknown. Use one of %s",
+                                name, actionChoices.stream().map(action -> action.actionName("")).collect(Collectors.joining(", "))))))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Assigns a group to its course without discovering it, e.g. for resuming the unfinished work on it.
+     *
+     * @param group  the group
+     * @param course its course
+     */
+    void assignCourse(final IliasNode group, final IliasNode course) {
+        courseOfGroup.put(group.getRefId(), course);
+    }
 
-        return Collections.emptyList();
+    /**
+     * Performs the actions of an unfinished run of the journal on its groups with the journaled parameters, so
+     * nothing is asked again. The groups are journaled as done under the id of the run, which is neither begun
+     * nor ended again, so the groups stay resumable until the run is ended.
+     *
+     * @param nodesAndActions the unfinished groups and their action
+     * @param runId           the id of the journaled run
+     * @param parameters      the parameters the actions were prepared with in the run
+     * @return <code>true</code> if the actions are done with all groups, so the run can be ended
+     * @throws IllegalArgumentException if a parameter required by an action is missing
+     */
+    boolean resume(final IliasAction nodesAndActions, final String runId, final ActionParameters parameters) {
+        return execute(nodesAndActions, Optional.of(runId), parameters);
+    }
+
+    /**
+     * @return the names of the actions, e.g. for a job
+     */
+    public List<String> getActionNames() {
+        return actionChoices.stream().map(action -> action.actionName("")).collect(Collectors.toList());
     }
 
     @Override
     protected IliasAction printAndParseExecutionChoices(final List<IliasNode> nodeChoices) {
+        final Optional<BatchRun> batchRun = stateMachine.getBatchRun();
+        if (batchRun.isPresent()) {
+            final BatchJob job = batchRun.get().getJob();
+            final List<IliasNode> selectedGroups = nodeChoices.stream()
+                    .filter(job::isGroupSelected)
+                    .collect(Collectors.toList());
+            LOG.info(String.format("%d of %d groups match", selectedGroups.size(), nodeChoices.size()));
+            return new IliasAction(selectedGroups, resolveActions(job.getActions()));
+        }
+
         LOG.info(Defaults.GET_CHOICE_AROUND());
-        IntStream.range(0, nodeChoices.size())
-                .mapToObj(i -> nodeChoices.get(i).asDisplayString(Defaults.GET_CHOICE_PREFIX(i)))
-                .forEach(LOG::info);
+        final boolean severalCourses = stateMachine.getContext().get(ToolStateMachine.ContextKey.COURSES).size() > 1;
+        IliasNode currentCourse = null;
+        for (int i = 0; i < nodeChoices.size(); i++) {
+            final IliasNode course = courseOfGroup.get(nodeChoices.get(i).getRefId());
+            if (severalCourses && course != currentCourse) {
+                LOG.info(course.getTitle() + ":");
+                currentCourse = course;
+            }
+            LOG.info(nodeChoices.get(i).asDisplayString(Defaults.GET_CHOICE_PREFIX(i)));
+        }
         LOG.info(Defaults.GET_CHOICE_AROUND());
         List<Integer> indexesOfChosenNodes = IOUtils.readAndParseChoicesFromUser(nodeChoices);
         List<IliasNode> choseIliasNodes = indexesOfChosenNodes.stream()
                 .map(idx -> nodeChoices.get(idx))
                 .collect(Collectors.toList());
 
+        return new IliasAction(choseIliasNodes, printAndParseActionChoices());
+    }
+
+    /**
+     * Prints and parses the choice of the actions.
+     *
+     * @return the chosen actions
+     */
+    List<ChangeAction> printAndParseActionChoices() {
         LOG.info(Defaults.GET_CHOICE_AROUND());
-        IntStream.range(0, ACTION_CHOICES.size())
-                .mapToObj(i -> ACTION_CHOICES.get(i).actionName(Defaults.GET_CHOICE_PREFIX(i)))
+        IntStream.range(0, actionChoices.size())
+                .mapToObj(i -> actionChoices.get(i).actionName(Defaults.GET_CHOICE_PREFIX(i)))
                 .forEach(LOG::info);
         LOG.info(Defaults.GET_CHOICE_AROUND());
-        List<Integer> indexesOfChosenActions = IOUtils.readAndParseChoicesFromUser(ACTION_CHOICES);
-        List<ChangeAction> choseActions = indexesOfChosenActions.stream()
-                .map(idx -> ACTION_CHOICES.get(idx))
+        List<Integer> indexesOfChosenActions = IOUtils.readAndParseChoicesFromUser(actionChoices);
+        return indexesOfChosenActions.stream()
+                .map(idx -> actionChoices.get(idx))
                 .collect(Collectors.toList());
-        return new IliasAction(choseIliasNodes, choseActions);
     }
 
+    /**
+     * Prints the predicted calls of the chosen actions before they are confirmed, which is all a dry run
+     * of a batch job does. Then prepares the chosen actions once and performs them on the groups of each
+     * course concurrently. The results are logged per course. The chosen groups are kept in the context for repeating actions on them.
+     */
     @Override
     protected void doExecute(final IliasAction nodesAndActions) {
-        IliasEndpoint iliasEndpoint = stateMachine.getEndpoint();
+        execute(nodesAndActions, Optional.empty(), stateMachine.getBatchRun()
+                .map(run -> run.getJob().getActionParameters())
+                .orElse(null));
+    }
+
+    /**
+     * @param nodesAndActions the chosen groups and actions
+     * @param resumedRunId    the id of the journaled run which is resumed or empty to journal a new run
+     * @param parameters      the parameters of the actions or <code>null</code> to ask the user
+     * @return <code>true</code> if all actions were prepared and are done with all groups
+     */
+    private boolean execute(final IliasAction nodesAndActions, final Optional<String> resumedRunId,
+                         final ActionParameters parameters) {
+        AsyncIliasEndpoint iliasEndpoint = stateMachine.getAsyncEndpoint();
+        GroupTaskExecutor executor = stateMachine.getExecutor();
         Map<ToolStateMachine.ContextKey, List<IliasNode>> context = stateMachine.getContext();
         List<IliasNode> nodes = nodesAndActions.getNodes();
+        context.put(ToolStateMachine.ContextKey.GROUPS, nodes);
+        final Optional<BatchRun> batchRun = stateMachine.getBatchRun();
+
+        final Map<IliasNode, List<IliasNode>> nodesByCourse = new LinkedHashMap<>();
+        for (IliasNode node : nodes) {
+            nodesByCourse.computeIfAbsent(courseOfGroup.get(node.getRefId()), course -> new ArrayList<>()).add(node);
+        }
+        if (batchRun.isPresent()) {
+            discoveredCourses.stream()
+                    .filter(course -> !nodesByCourse.containsKey(course))
+                    .forEach(course -> batchRun.get().fail("Found no matching groups in course '" + course.getTitle() + "'"));
+            if (nodes.isEmpty()) {
+                return false;
+            }
+        }
+
+        final DryRunPlan dryRunPlan = new DryRunPlan(stateMachine.getToolConfiguration(), stateMachine.getLatencies(),
+                stateMachine.getCache());
+        nodesAndActions.getActions().forEach(action -> dryRunPlan.add(action, nodes));
+        dryRunPlan.log();
+        if (batchRun.isPresent()) {
+            batchRun.get().plan(dryRunPlan);
+            if (batchRun.get().getJob().isDryRun()) {
+                return false;
+            }
+        }
 
-        nodesAndActions.getActions().stream().forEach(action -> action.performAction(iliasEndpoint, context, nodes));
+        // collect all input first, so no question is asked while calls are running
+        final List<PlannedAction> plan;
+        try {
+            plan = plan(nodesAndActions.getActions(), context, nodes, parameters);
+        } catch (IllegalArgumentException iae) {
+            if (!batchRun.isPresent()) {
+                throw iae;
+            }
+            batchRun.get().fail("Could not prepare the actions: " + iae.getMessage());
+            return false;
+        }
+
+        final Optional<String> journalRunId = resumedRunId.isPresent()
+                ? resumedRunId.filter(runId -> stateMachine.getJournal().isPresent())
+                : journal(plan, nodesByCourse);
+        final Function<PlannedAction, GroupTaskExecutor> executors = planned -> journaling(executor, planned, journalRunId);
+
+        final Map<IliasNode, List<CompletableFuture<ActionResult>>> resultsByCourse = new LinkedHashMap<>();
+        nodesByCourse.forEach((course, groups) ->
+                resultsByCourse.put(course, performPlan(plan, iliasEndpoint, executors, course, groups)));
+
+        final List<FailedAction> failedActions = new ArrayList<>();
+        resultsByCourse.forEach((course, results) -> {
+            LOG.info("Results of course '" + course.getTitle() + "':");
+            for (int i = 0; i < plan.size(); i++) {
+                final ActionResult result = results.get(i).join();
+                result.logSummary();
+                batchRun.ifPresent(run -> run.record(course, result));
+                if (!result.getFailedGroups().isEmpty()) {
+                    failedActions.add(new FailedAction(plan.get(i), course, result));
+                }
+            }
+        });
+        if (!batchRun.isPresent()) {
+            retryFailedGroups(failedActions, iliasEndpoint, executors);
+        }
+        if (!resumedRunId.isPresent()) {
+            journalRunId.ifPresent(runId -> stateMachine.getJournal().get().end(runId));
+        }
+        return failedActions.isEmpty() && plan.stream().allMatch(planned -> planned.preparedAction.isPresent());
+    }
+
+    /**
+     * Begins a run in the journal, if it is enabled, with the parameters and groups of each mutating action before
+     * any call is made.
+     *
+     * @param plan          the planned actions
+     * @param nodesByCourse the chosen groups of each course
+     * @return the id of the run or empty if the journal is disabled
+     */
+    private Optional<String> journal(final List<PlannedAction> plan, final Map<IliasNode, List<IliasNode>> nodesByCourse) {
+        final Optional<ActionJournal> journal = stateMachine.getJournal();
+        if (!journal.isPresent()) {
+            return Optional.empty();
+        }
+        final String runId = journal.get().begin();
+        plan.stream()
+                .filter(planned -> planned.preparedAction.isPresent() && !planned.action.isReadOnly())
+                .forEach(planned -> {
+                    journal.get().parameters(runId, planned.name, planned.preparedAction.get().getParameters());
+                    nodesByCourse.forEach((course, groups) -> journal.get().planned(runId, planned.name, course, groups));
+                });
+        return Optional.of(runId);
+    }
+
+    /**
+     * @return the executor journaling the groups a mutating action succeeded on, if the run is journaled
+     */
+    private GroupTaskExecutor journaling(final GroupTaskExecutor executor, final PlannedAction planned,
+                                         final Optional<String> journalRunId) {
+        if (!journalRunId.isPresent() || planned.action.isReadOnly()) {
+            return executor;
+        }
+        final ActionJournal journal = stateMachine.getJournal().get();
+        return executor.reportingTo(result -> {
+            if (result.isSuccess()) {
+                journal.done(journalRunId.get(), planned.name, result.getGroup());
+            }
+        });
+    }
+
+    /**
+     * Starts the planned actions on the groups of a course. An action waits for the earlier actions
+     * it conflicts with.
+     *
+     * @param plan      the planned actions
+     * @param endpoint  the endpoint
+     * @param executors the executor of each planned action
+     * @param course    the course
+     * @param groups    the chosen groups of the course
+     * @return the futures of the results in the order of the plan
+     */
+    private static List<CompletableFuture<ActionResult>> performPlan(final List<PlannedAction> plan, final AsyncIliasEndpoint endpoint,
+                                                                     final Function<PlannedAction, GroupTaskExecutor> executors,
+                                                                     final IliasNode course, final List<IliasNode> groups) {
+        final List<CompletableFuture<ActionResult>> results = new ArrayList<>(plan.size());
+        for (int i = 0; i < plan.size(); i++) {
+            final PlannedAction planned = plan.get(i);
+            if (!planned.preparedAction.isPresent()) {
+                results.add(CompletableFuture.completedFuture(ActionResult.skipped(planned.name)));
+                continue;
+            }
+
+            final CompletableFuture<?>[] conflicting = IntStream.range(0, i)
+                    .filter(j -> planned.action.conflictsWith(plan.get(j).action))
+                    .mapToObj(results::get)
+                    .toArray(CompletableFuture<?>[]::new);
+            results.add(CompletableFuture.allOf(conflicting)
+                    .thenCompose(done -> perform(planned, endpoint, executors.apply(planned), course, groups)));
+        }
+        return results;
+    }
+
+    @Override
+    protected int printAndParseTransitionChoices() {
+        if (!stateMachine.getBatchRun().isPresent()) {
+            return super.printAndParseTransitionChoices();
+        }
+        return successors.indexOf(stateMachine.getQuitState());
+    }
+
+    /**
+     * Offers to perform the actions again on the groups they failed on, as long as there are any.
+     * The actions are retried one after the other.
+     *
+     * @param failedActions the actions with their results containing failed groups
+     * @param endpoint      the endpoint
+     * @param executors     the executor of each planned action
+     */
+    private static void retryFailedGroups(final List<FailedAction> failedActions, final AsyncIliasEndpoint endpoint,
+                                          final Function<PlannedAction, GroupTaskExecutor> executors) {
+        while (!failedActions.isEmpty()) {
+            LOG.info("Retry the failed groups of " + failedActions.stream()
+                    .map(failed -> failed.planned.name + " in '" + failed.course.getTitle() + "'")
+                    .collect(Collectors.joining(", ")) + "?");
+            if (!IOUtils.readAndParseUserConfirmation()) {
+                return;
+            }
+
+            final Iterator<FailedAction> it = failedActions.iterator();
+            while (it.hasNext()) {
+                final FailedAction failedAction = it.next();
+                final ActionResult retried = perform(failedAction.planned, endpoint, executors.apply(failedAction.planned), failedAction.course,
+                        failedAction.result.getFailedGroups()).join();
+                retried.logSummary();
+                if (retried.getFailedGroups().isEmpty()) {
+                    it.remove();
+                } else {
+                    failedAction.result = retried;
+                }
+            }
+        }
+    }
+
+    /**
+     * Prepares the chosen actions in their order.
+     *
+     * @param actions    the chosen actions
+     * @param context    the current context of the state machine
+     * @param nodes      the chosen nodes
+     * @param parameters the parameters of the actions or <code>null</code> to ask the user
+     * @return the actions to perform
+     * @throws IllegalArgumentException if a parameter required by an action is missing
+     */
+    private static List<PlannedAction> plan(final List<ChangeAction> actions,
+                                            final Map<ToolStateMachine.ContextKey, List<IliasNode>> context,
+                                            final List<IliasNode> nodes, final ActionParameters parameters) {
+        final List<PlannedAction> plan = new ArrayList<>(actions.size());
+        for (ChangeAction action : actions) {
+            plan.add(new PlannedAction(action, action.actionName(""), parameters == null
+                    ? action.prepare(context, nodes)
+                    : Optional.of(action.prepare(context, nodes, parameters))));
+        }
+        return plan;
+    }
+
+    /**
+     * Performs the action and turns an unexpected failure into a failed result for each node.
+     */
+    private static CompletableFuture<ActionResult> perform(final PlannedAction planned, final AsyncIliasEndpoint endpoint,
+                                                           final GroupTaskExecutor executor, final IliasNode course,
+                                                           final List<IliasNode> nodes) {
+        CompletableFuture<ActionResult> result;
+        try {
+            result = planned.preparedAction.get().perform(endpoint, executor, course, nodes);
+        } catch (RuntimeException e) {
+            result = new CompletableFuture<>();
+            result.completeExceptionally(e);
+        }
+        return result.exceptionally(e -> ActionResult.failed(planned.name, nodes, GroupTaskExecutor.causeOf(e)));
+    }
+
+    /**
+     * A chosen action with its name in the summary and the prepared calls.
+     */
+    private static final class PlannedAction {
+        private final ChangeAction action;
+        private final String name;
+        private final Optional<PreparedAction> preparedAction;
+
+        private PlannedAction(final ChangeAction action, final String name, final Optional<PreparedAction> preparedAction) {
+            this.action = action;
+            this.name = name;
+            this.preparedAction = preparedAction;
+        }
+    }
+
+    /**
+     * A planned action with the result of its last run on the groups of a course, which failed on some of them.
+     */
+    private static final class FailedAction {
+        private final PlannedAction planned;
+        private final IliasNode course;
+        private ActionResult result;
+
+        private FailedAction(final PlannedAction planned, final IliasNode course, final ActionResult result) {
+            this.planned = planned;
+            this.course = course;
+            this.result = result;
+        }
     }
 }
@@ -27,6 +27,8 @@ package com.github.mavogel.ilias.state.states;
 
 import com.github.mavogel.ilias.model.IliasAction;
 import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.model.BatchJob;
+import com.github.mavogel.ilias.state.BatchRun;
 import com.github.mavogel.ilias.state.ToolState;
 import com.github.mavogel.ilias.state.ToolStateMachine;
 import com.github.mavogel.ilias.utils.Defaults;
@@ -38,6 +40,7 @@ import org.apache.log4j.Logger;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -50,6 +53,8 @@ public class ChooseCoursesState extends ToolState {
 
     private static Logger LOG = Logger.getLogger(ChooseCoursesState.class);
 
+    private boolean isCourseChosen;
+
     /**
      * Creates the choose courses state.
      *
@@ -63,8 +68,9 @@ public class ChooseCoursesState extends ToolState {
 
     @Override
     public void printInformation() {
-        LOG.info("Choose a Course:");
+        LOG.info("Choose one or more Courses:");
         this.stateMachine.getContext().remove(ToolStateMachine.ContextKey.GROUPS);
+        this.stateMachine.getContext().remove(ToolStateMachine.ContextKey.DISCOVERED_GROUPS);
     }
 
     @Override
@@ -81,6 +87,10 @@ public class ChooseCoursesState extends ToolState {
 
     @Override
     protected IliasAction printAndParseExecutionChoices(final List<IliasNode> nodeChoices) {
+        final Optional<BatchRun> batchRun = stateMachine.getBatchRun();
+        if (batchRun.isPresent()) {
+            return chooseCoursesOfJob(batchRun.get(), nodeChoices);
+        }
         if(nodeChoices.isEmpty()) {
             LOG.info("======================== HINT =========================");
 //            LOG.info("Found no courses you're admin of with userId '" + stateMachine.getUserDataIds().getUsername() + "'");
@@ -97,12 +107,7 @@ public class ChooseCoursesState extends ToolState {
                 .forEach(LOG::info);
         LOG.info(Defaults.GET_CHOICE_AROUND());
 
-        // TODO only single nodes atm due to printing or change context keys
-        // IOUtils.readAndParseChoicesFromUser(nodeChoices);
-        int singleChoice = IOUtils.readAndParseSingleChoiceFromUser(nodeChoices);
-        List<Integer> indexesOfChosenNodes = new ArrayList<>();
-        indexesOfChosenNodes.add(singleChoice);
-
+        List<Integer> indexesOfChosenNodes = IOUtils.readAndParseChoicesFromUser(nodeChoices);
         List<IliasNode> chosenIliasNodes = indexesOfChosenNodes.stream()
                 .map(idx -> nodeChoices.get(idx))
                 .collect(Collectors.toList());
@@ -110,10 +115,48 @@ public class ChooseCoursesState extends ToolState {
         return new IliasAction(chosenIliasNodes, null);
     }
 
+    /**
+     * Chooses the courses of the batch job.
+     *
+     * @param batchRun    the run of the job
+     * @param nodeChoices the courses of the user
+     * @return the found courses
+     */
+    private IliasAction chooseCoursesOfJob(final BatchRun batchRun, final List<IliasNode> nodeChoices) {
+        final List<IliasNode> chosenIliasNodes = new ArrayList<>();
+        for (String selector : batchRun.getJob().getCourses()) {
+            final Optional<IliasNode> course = nodeChoices.stream()
+                    .filter(node -> BatchJob.isCourse(node, selector))
+                    .findFirst();
+            if (course.isPresent()) {
+                LOG.info(course.get().asDisplayString(""));
+                chosenIliasNodes.add(course.get());
+            } else {
+                batchRun.fail("Found no course '" + selector + "' you're admin of");
+            }
+        }
+        return new IliasAction(chosenIliasNodes, null);
+    }
+
+    @Override
+    protected int printAndParseTransitionChoices() {
+        if (!stateMachine.getBatchRun().isPresent()) {
+            return super.printAndParseTransitionChoices();
+        }
+        return successors.indexOf(isCourseChosen ? stateMachine.getActionsOnGroupsState() : stateMachine.getQuitState());
+    }
+
     @Override
     protected void doExecute(final IliasAction nodesAndActions) {
+        isCourseChosen = !nodesAndActions.isCompletelyEmpty();
         if(!nodesAndActions.isCompletelyEmpty()) {
             stateMachine.getContext().put(ToolStateMachine.ContextKey.COURSES, nodesAndActions.getNodes());
+            // loads the groups while the user chooses the next step
+            nodesAndActions.getNodes().forEach(course -> stateMachine.getAsyncEndpoint().getGroupsFromCourse(course)
+                    .exceptionally(e -> {
+                        LOG.debug("Could not prefetch the groups of '" + course.getTitle() + "': " + e.getMessage());
+                        return Collections.emptyList();
+                    }));
         }
     }
 }
@@ -32,6 +32,7 @@ import com.github.mavogel.ilias.state.ToolState;
 import com.github.mavogel.ilias.state.ToolStateMachine;
 import com.github.mavogel.ilias.lib.wrapper.AbstractIliasEndpoint;
 import com.github.mavogel.ilias.lib.EndpointBuilder;
+import com.github.mavogel.ilias.wrapper.HttpTransport;
 import org.apache.log4j.Logger;
 
 import java.util.Collections;
@@ -74,6 +75,14 @@ public class LoginState extends ToolState {
         return 0;
     }
 
+    @Override
+    protected void transition() {
+        // stays in the quit state if the login failed
+        if (stateMachine.getEndpoint() != null) {
+            super.transition();
+        }
+    }
+
     @Override
     protected List<IliasNode> collectDataForExecution() {
         return Collections.emptyList();
@@ -87,11 +96,13 @@ public class LoginState extends ToolState {
     @Override
     protected void doExecute(final IliasAction nodesAndActions) {
         try {
+            HttpTransport.configure(stateMachine.getToolConfiguration());
             // choose SOAP or REST here
             AbstractIliasEndpoint iliasEndpoint = EndpointBuilder.build(EndpointBuilder.Type.SOAP, loginConfiguration);
             this.stateMachine.setEndpoint(iliasEndpoint);
             LOG.info(String.format("Logged in successfully as '%s'", loginConfiguration.getUsername()));
         } catch (Exception e) {
+            stateMachine.getBatchRun().ifPresent(run -> run.fail("Could not log in: " + e.getMessage()));
             stateMachine.setState(stateMachine.getQuitState());
         }
     }
@@ -36,7 +36,8 @@ import java.util.Collections;
 import java.util.List;
 
 /**
- * The state performing the quit of the application and the logout at the endpoint.
+ * The state performing the quit of the application and the logout at the endpoint, unless the
+ * state machine runs on the session of another one.
  * <p>
  * Created by mavogel on 9/7/16.
  */
@@ -71,6 +72,11 @@ public class QuitState extends ToolState {
 
     @Override
     protected void doExecute(final IliasAction nodesAndActions) {
+        if (!this.stateMachine.isSessionOwner()) {
+            // the session is logged out by its owner
+            this.stateMachine.stop();
+            return;
+        }
         IliasEndpoint endpoint = this.stateMachine.getEndpoint();
         try {
             endpoint.logout("");
@@ -0,0 +1,83 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.state.states;
+
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.model.IliasAction;
+import com.github.mavogel.ilias.state.ToolState;
+import com.github.mavogel.ilias.state.ToolStateMachine;
+import org.apache.log4j.Logger;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The state for repeating actions on the groups chosen last in the {@link ActionsOnGroupsState}.
+ * The groups are taken from the context, so only the actions are asked and no call is made to find them again.
+ */
+public class RepeatActionsState extends ToolState {
+
+    private static Logger LOG = Logger.getLogger(RepeatActionsState.class);
+
+    private final ActionsOnGroupsState actionsOnGroupsState;
+
+    /**
+     * Creates the state for repeating actions.
+     *
+     * @param stateMachine         the state machine
+     * @param actionsOnGroupsState the state the groups were chosen in, which performs the actions
+     * @param successors           its successors
+     */
+    public RepeatActionsState(final ToolStateMachine stateMachine, final ActionsOnGroupsState actionsOnGroupsState,
+                              final ToolState... successors) {
+        super(stateMachine);
+        this.actionsOnGroupsState = actionsOnGroupsState;
+        setSuccessors(successors);
+    }
+
+    @Override
+    public void printInformation() {
+        LOG.info("Choose one or more actions on the same groups!");
+    }
+
+    @Override
+    protected List<IliasNode> collectDataForExecution() {
+        final List<IliasNode> groups = stateMachine.getContext()
+                .getOrDefault(ToolStateMachine.ContextKey.GROUPS, Collections.emptyList());
+        groups.forEach(group -> LOG.info(group.asDisplayString(" - ")));
+        return groups;
+    }
+
+    @Override
+    protected IliasAction printAndParseExecutionChoices(final List<IliasNode> nodeChoices) {
+        return new IliasAction(nodeChoices, actionsOnGroupsState.printAndParseActionChoices());
+    }
+
+    @Override
+    protected void doExecute(final IliasAction nodesAndActions) {
+        actionsOnGroupsState.doExecute(nodesAndActions);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.state.states;
+
+import com.github.mavogel.ilias.journal.ActionJournal;
+import com.github.mavogel.ilias.journal.UnfinishedRun;
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.model.ActionParameters;
+import com.github.mavogel.ilias.model.IliasAction;
+import com.github.mavogel.ilias.state.ToolState;
+import com.github.mavogel.ilias.state.ToolStateMachine;
+import org.apache.commons.configuration2.MapConfiguration;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The state for resuming the unfinished work of runs found in the {@link ActionJournal}, e.g. after a crash.
+ * Each action is performed by the {@link ActionsOnGroupsState} again, only on the groups it was not done with,
+ * with the parameters journaled in the run, so nothing is asked again.
+ */
+public class ResumeState extends ToolState {
+
+    private static Logger LOG = Logger.getLogger(ResumeState.class);
+
+    private final ActionsOnGroupsState actionsOnGroupsState;
+    private final List<UnfinishedRun> runs;
+
+    /**
+     * Creates the state for resuming.
+     *
+     * @param stateMachine         the state machine
+     * @param actionsOnGroupsState the state performing the actions
+     * @param runs                 the runs to resume
+     * @param successors           its successors
+     */
+    public ResumeState(final ToolStateMachine stateMachine, final ActionsOnGroupsState actionsOnGroupsState,
+                       final List<UnfinishedRun> runs, final ToolState... successors) {
+        super(stateMachine);
+        this.actionsOnGroupsState = actionsOnGroupsState;
+        this.runs = runs;
+        setSuccessors(successors);
+    }
+
+    @Override
+    public void printInformation() {
+        LOG.info("Resuming the unfinished work with the journaled parameters of the actions");
+    }
+
+    /**
+     * Assigns the unfinished groups to their courses, which were journaled with them.
+     */
+    @Override
+    protected List<IliasNode> collectDataForExecution() {
+        final Map<Integer, IliasNode> groups = new LinkedHashMap<>();
+        for (UnfinishedRun run : runs) {
+            for (String action : run.getActions()) {
+                for (IliasNode group : run.getUnfinishedGroups(action)) {
+                    actionsOnGroupsState.assignCourse(group, run.getCourseOf(group));
+                    groups.put(group.getRefId(), group);
+                }
+            }
+        }
+        return Collections.unmodifiableList(new ArrayList<>(groups.values()));
+    }
+
+    /**
+     * Nothing to choose, the actions and their groups are given by the runs.
+     */
+    @Override
+    protected IliasAction printAndParseExecutionChoices(final List<IliasNode> nodeChoices) {
+        runs.forEach(run -> run.asDisplayStrings().forEach(LOG::info));
+        return new IliasAction(nodeChoices, Collections.emptyList());
+    }
+
+    /**
+     * Performs each action of each run on its unfinished groups, journaling them under the run. A run is ended
+     * in the journal only if all of its actions are done with all of their groups. Otherwise, e.g. if an action
+     * could not be resumed or groups failed, it stays unfinished and is offered again on the next start.
+     */
+    @Override
+    protected void doExecute(final IliasAction nodesAndActions) {
+        final Optional<ActionJournal> journal = stateMachine.getJournal();
+        for (UnfinishedRun run : runs) {
+            boolean finished = true;
+            for (String action : run.getActions()) {
+                try {
+                    final ActionParameters parameters =
+                            new ActionParameters(new MapConfiguration(run.getParameters(action)));
+                    finished &= actionsOnGroupsState.resume(new IliasAction(run.getUnfinishedGroups(action),
+                            actionsOnGroupsState.resolveActions(Collections.singletonList(action))), run.getRunId(),
+                            parameters);
+                } catch (IllegalArgumentException iae) {
+                    LOG.error("Could not resume " + action + ": " + iae.getMessage());
+                    finished = false;
+                }
+            }
+            if (finished) {
+                journal.ifPresent(j -> j.end(run.getRunId()));
+            } else {
+                LOG.warn("The run from " + run.getStarted() + " is not finished and is offered again on the next start");
+            }
+        }
+    }
+}
@@ -25,14 +25,21 @@ package com.github.mavogel.ilias.state.states.action;/*
  */
 
 import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.model.ActionParameters;
 import com.github.mavogel.ilias.state.ChangeAction;
+import com.github.mavogel.ilias.state.DryRunPlan;
+import com.github.mavogel.ilias.state.PreparedAction;
 import com.github.mavogel.ilias.state.ToolStateMachine;
 import com.github.mavogel.ilias.utils.IOUtils;
-import com.github.mavogel.ilias.lib.wrapper.IliasEndpoint;
+import com.github.mavogel.ilias.wrapper.EndpointCall;
 import org.apache.log4j.Logger;
 
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * Represents the action for granting the group member the permission to uplaod files.
@@ -44,17 +51,30 @@ public class GrantFileUploadToGroupMembersAction implements ChangeAction {
     private static Logger LOG = Logger.getLogger(GrantFileUploadToGroupMembersAction.class);
 
     @Override
-    public void performAction(final IliasEndpoint endpoint,
-                              final Map<ToolStateMachine.ContextKey, List<IliasNode>> context,
-                              final List<IliasNode> nodes) {
+    public Optional<PreparedAction> prepare(final Map<ToolStateMachine.ContextKey, List<IliasNode>> context,
+                                            final List<IliasNode> nodes) {
         LOG.info("Grant file upload to group members");
-        if (confirm()) {
-            try {
-                endpoint.grantFileUploadPermissionForMembers(nodes);
-            } catch (Exception e) {
-                LOG.error("Error granting file upload to group members: " + e.getMessage());
-            }
+        if (!confirm()) {
+            return Optional.empty();
         }
+        return Optional.of(prepare(context, nodes, null));
+    }
+
+    @Override
+    public PreparedAction prepare(final Map<ToolStateMachine.ContextKey, List<IliasNode>> context,
+                                  final List<IliasNode> nodes, final ActionParameters parameters) {
+        return (endpoint, executor, course, groups) -> executor.executeAsync(actionName(""), groups,
+                group -> endpoint.grantFileUploadPermissionForMembers(Collections.singletonList(group)));
+    }
+
+    @Override
+    public void estimate(final DryRunPlan plan, final List<IliasNode> groups) {
+        plan.addCalls(this, EndpointCall.GRANT_FILE_UPLOAD, groups.size());
+    }
+
+    @Override
+    public Set<Resource> getResources() {
+        return EnumSet.of(Resource.PERMISSIONS);
     }
 
     @Override
@@ -26,20 +26,44 @@ package com.github.mavogel.ilias.state.states.action;
  *  https://opensource.org/licenses/MIT
  */
 
+import com.github.mavogel.ilias.executor.ActionResult;
+import com.github.mavogel.ilias.executor.GroupResult;
+import com.github.mavogel.ilias.executor.GroupTaskExecutor;
 import com.github.mavogel.ilias.lib.model.GroupUserModelFull;
 import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.lib.wrapper.IliasEndpoint;
+import com.github.mavogel.ilias.model.ActionParameters;
+import com.github.mavogel.ilias.model.ToolConfiguration;
+import com.github.mavogel.ilias.printer.FlushingIterator;
+import com.github.mavogel.ilias.printer.MembersExporter;
+import com.github.mavogel.ilias.printer.SectionSplicer;
+import com.github.mavogel.ilias.printer.ShardedOutput;
 import com.github.mavogel.ilias.printer.VelocityOutputPrinter;
 import com.github.mavogel.ilias.state.ChangeAction;
+import com.github.mavogel.ilias.state.DryRunPlan;
+import com.github.mavogel.ilias.state.PreparedAction;
 import com.github.mavogel.ilias.state.ToolStateMachine;
 import com.github.mavogel.ilias.utils.Defaults;
 import com.github.mavogel.ilias.utils.IOUtils;
-import com.github.mavogel.ilias.lib.wrapper.IliasEndpoint;
 import org.apache.log4j.Logger;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -47,6 +71,12 @@ import java.util.stream.IntStream;
  * Represents the action for retrieving all groups with its users and stores the in
  * a Latex file. It's kept simple atm.
  * <p>
+ * In the streaming mode the members are not fetched upfront. The templates iterate over the groups,
+ * which fetches the members of one group at a time, and the section of a group is written out before the
+ * next group is fetched. Hence the templates must only iterate over <code>membersPerGroup</code> once.
+ * The same holds for the incremental mode, which takes the sections of unchanged groups from the previous output.
+ * In the sharded mode each group is printed into its own file of a dated directory, which has an index.
+ * <p>
  * Created by mavogel on 9/20/16.
  */
 public class PrintGroupMembersAction implements ChangeAction {
@@ -70,71 +100,543 @@ public class PrintGroupMembersAction implements ChangeAction {
         }
     }
 
+    private final boolean streaming;
+    private final boolean incremental;
+    private final boolean sharded;
+
+    /**
+     * Creates the action fetching all members before printing them into one file per output type.
+     */
+    public PrintGroupMembersAction() {
+        this.streaming = false;
+        this.incremental = false;
+        this.sharded = false;
+    }
+
+    /**
+     * Creates the action with the print settings of the configuration.
+     *
+     * @param toolConfiguration the configuration
+     */
+    public PrintGroupMembersAction(final ToolConfiguration toolConfiguration) {
+        this.streaming = toolConfiguration.isPrintStreaming();
+        this.incremental = toolConfiguration.isPrintIncremental();
+        this.sharded = toolConfiguration.isPrintSharded();
+    }
+
     @Override
-    public void performAction(final IliasEndpoint endpoint,
-                              final Map<ToolStateMachine.ContextKey, List<IliasNode>> context,
-                              final List<IliasNode> nodes) {
+    public Optional<PreparedAction> prepare(final Map<ToolStateMachine.ContextKey, List<IliasNode>> context,
+                                            final List<IliasNode> nodes) {
         LOG.info("Print group members");
-        if (confirm()) {
+        if (!confirm()) {
+            return Optional.empty();
+        }
+
+        IntStream.range(0, VelocityOutputPrinter.OutputType.values().length)
+                .mapToObj(i -> VelocityOutputPrinter.OutputType.getAtIndex(i).asDisplayString(Defaults.GET_CHOICE_PREFIX(i)))
+                .forEach(LOG::info);
+        List<Integer> outputChoicesIdx = IOUtils.readAndParseChoicesFromUser(Arrays.stream(VelocityOutputPrinter.OutputType.values())
+                .collect(Collectors.toList()));
+
+        final Map<VelocityOutputPrinter.OutputType, String> templatePaths = new LinkedHashMap<>();
+        for (Integer idxChoice : outputChoicesIdx) {
+            VelocityOutputPrinter.OutputType outputType = VelocityOutputPrinter.OutputType.getAtIndex(idxChoice);
+            if (!outputType.isTemplated()) {
+                templatePaths.put(outputType, "");
+                continue;
+            }
+            LOG.info("Path to template for '" + outputType + "' (if left empty the default '" + outputType.getDefaultTemplateLocation() + "' will be used) :");
+            templatePaths.put(outputType, readTemplatePath(outputType));
+        }
+        return Optional.of(prepare(context, nodes, templatePaths));
+    }
+
+    @Override
+    public PreparedAction prepare(final Map<ToolStateMachine.ContextKey, List<IliasNode>> context,
+                                  final List<IliasNode> nodes, final ActionParameters parameters) {
+        parameters.getTemplatePaths().forEach((outputType, path) -> {
             try {
-                List<GroupUserModelFull> membersPerGroup = endpoint.getUsersForGroups(nodes);
-                if (membersPerGroup.isEmpty()) {
-                    LOG.info("======================== HINT =========================");
-                    LOG.info("Could not retrieve users for groups ");
-                    LOG.info("Please add your user in the Ilias GUI as admin");
-                    LOG.info("to each group and re-run this action");
-                    LOG.info("=======================================================");
-                    return;
-                }
+                VelocityOutputPrinter.checkTemplate(outputType, path);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Could not load the template '" + path + "' for '" + outputType + "': "
+                        + e.getMessage(), e);
+            }
+        });
+        return prepare(context, nodes, parameters.getTemplatePaths());
+    }
 
+    /**
+     * Asks for the path of a template until it can be loaded, so no question is asked while the members are printed.
+     *
+     * @param outputType the output type
+     * @return the path, empty for the default
+     */
+    private static String readTemplatePath(final VelocityOutputPrinter.OutputType outputType) {
+        while (true) {
+            final String path = IOUtils.readLine();
+            try {
+                VelocityOutputPrinter.checkTemplate(outputType, path);
+                return path;
+            } catch (Exception e) {
+                LOG.error("Could not load the template '" + path + "': " + e.getMessage());
+                LOG.info("Path to template for '" + outputType + "':");
+            }
+        }
+    }
+
+    /**
+     * @param context       the current context of the state machine
+     * @param nodes         the nodes to perform the action on
+     * @param templatePaths the template path for each chosen output type, empty for the default
+     * @return the prepared action
+     */
+    private PreparedAction prepare(final Map<ToolStateMachine.ContextKey, List<IliasNode>> context, final List<IliasNode> nodes,
+                                   final Map<VelocityOutputPrinter.OutputType, String> templatePaths) {
+        if (streaming) {
+            return streamed(templatePaths);
+        }
 
-                IntStream.range(0, VelocityOutputPrinter.OutputType.values().length)
-                        .mapToObj(i -> VelocityOutputPrinter.OutputType.getAtIndex(i).asDisplayString(Defaults.GET_CHOICE_PREFIX(i)))
-                        .forEach(LOG::info);
-                List<Integer> outputChoicesIdx = IOUtils.readAndParseChoicesFromUser(Arrays.stream(VelocityOutputPrinter.OutputType.values())
-                        .collect(Collectors.toList()));
-
-                HashMap<String, Object> contextMap = new HashMap<>();
-                for (Integer idxChoice : outputChoicesIdx) {
-                    VelocityOutputPrinter.OutputType outputType = VelocityOutputPrinter.OutputType.getAtIndex(idxChoice);
-                    LOG.info("Path to template for '" + outputType + "' (if left empty the default '" + outputType.getDefaultTemplateLocation() + "' will be used) :");
-                    String templatePath = IOUtils.readLine();
-
-                    switch (outputType) {
-                        case LATEX:
-                            contextMap.put(ContextKeys.COLUMS_ORDER.getVelocityKey(), "| c | p{2.5cm} | p{2.5cm} | p{2.5cm} | p{2.5cm} | p{2.5cm} |");
-                        case HTML:
-                            contextMap.put(ContextKeys.TITLE.getVelocityKey(), context.get(ToolStateMachine.ContextKey.COURSES).get(0).getTitle()); // TODO atm we only have one course in the context
-                            contextMap.put(ContextKeys.MEMBERS_PER_GROUP.getVelocityKey(), membersPerGroup);
-                            contextMap.put(ContextKeys.COLUMS_COUNT.getVelocityKey(), Arrays.asList("1", "2", "3", "4", "5"));
-                            break;
-                        default:
-                            throw new RuntimeException("output type '" + outputType + "' not yet implemented for filling context map!");
+        // kept for a retry of the failed groups, which prints the members of all groups of the course again
+        final Map<Integer, GroupUserModelFull> membersByRefId = new ConcurrentHashMap<>();
+        final Map<Integer, List<IliasNode>> groupsByCourse = new ConcurrentHashMap<>();
+        return (endpoint, executor, course, groups) -> executor.executeAsync(actionName(""), groups,
+                group -> endpoint.getUsersForGroups(Collections.singletonList(group))
+                        .thenAccept(members -> members.forEach(m -> membersByRefId.put(group.getRefId(), m))))
+                .thenCompose(result -> {
+                    final List<IliasNode> courseGroups = groupsByCourse.computeIfAbsent(course.getRefId(), refId -> groups);
+                    final List<GroupUserModelFull> membersPerGroup = courseGroups.stream()
+                            .map(group -> membersByRefId.get(group.getRefId()))
+                            .filter(Objects::nonNull)
+                            .collect(Collectors.toList());
+                    if (membersPerGroup.isEmpty()) {
+                        printHint();
+                        return CompletableFuture.completedFuture(result);
                     }
+                    final MembersModel model = new MembersModel(course.getTitle(), membersPerGroup);
+                    return print(executor, model, templatePaths).thenApply(ignored -> result);
+                });
+    }
+
+    /**
+     * Prints the members while they are fetched group by group. Each group is fetched once for all output types.
+     * A retry of the failed groups prints only these groups.
+     *
+     * @param templatePaths the template path for each chosen output type, empty for the default
+     * @return the prepared action
+     */
+    private PreparedAction streamed(final Map<VelocityOutputPrinter.OutputType, String> templatePaths) {
+        return (endpoint, executor, course, groups) -> {
+            final Map<Integer, Exception> failures = new ConcurrentHashMap<>();
+            // the renders hold a permit of the executor already, hence they call the endpoint directly
+            final SharedMembers members = new SharedMembers(endpoint.getDelegate(), groups, failures);
+            final MembersModel model = new MembersModel(course.getTitle(), members);
+            return print(executor, model, templatePaths)
+                    .thenApply(ignored -> new ActionResult(actionName(""), groups.stream()
+                            .map(group -> failures.containsKey(group.getRefId())
+                                    ? GroupResult.failure(group, failures.get(group.getRefId()))
+                                    : GroupResult.success(group))
+                            .collect(Collectors.toList())));
+        };
+    }
 
-                    boolean isTemplateWritten = false;
-                    while (!isTemplateWritten) {
-                        try {
-                            VelocityOutputPrinter.print(outputType, templatePath, contextMap);
-                            isTemplateWritten = true;
-                            LOG.info(outputType + " output successfully written!");
-                        } catch (Exception e) {
-                            outputType = VelocityOutputPrinter.OutputType.getAtIndex(idxChoice);
-                            LOG.info("Path to template for '" + outputType + "':");
-                            templatePath = IOUtils.readLine();
-                        }
+    @Override
+    public void estimate(final DryRunPlan plan, final List<IliasNode> groups) {
+        plan.addMemberReads(this, groups);
+    }
+
+    @Override
+    public Set<Resource> getResources() {
+        return EnumSet.of(Resource.MEMBERS);
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    /**
+     * Prints the members with all chosen templates and exports concurrently, each into its own file.
+     * The future fails if any output type could not be written, so the groups are offered for a retry.
+     *
+     * @param executor      the executor to render on
+     * @param model         the members to print
+     * @param templatePaths the template path for each chosen output type, empty for the default
+     * @return the future completed when all output types are written
+     */
+    private CompletableFuture<Void> print(final GroupTaskExecutor executor, final MembersModel model,
+                                          final Map<VelocityOutputPrinter.OutputType, String> templatePaths) {
+        // all renders are opened before the first one starts, so no members are dropped before each of them passed
+        final Map<VelocityOutputPrinter.OutputType, MembersModel> renderModels = new LinkedHashMap<>();
+        templatePaths.keySet().forEach(outputType -> renderModels.put(outputType, model.openRender()));
+        final Map<VelocityOutputPrinter.OutputType, CompletableFuture<Void>> renders = new LinkedHashMap<>();
+        templatePaths.forEach((outputType, path) -> renders.put(outputType, (outputType.isTemplated() && sharded
+                ? printSharded(executor, renderModels.get(outputType), outputType, path)
+                : printSingle(executor, renderModels.get(outputType), outputType, path))
+                .whenComplete((done, error) -> {
+                    renderModels.get(outputType).closeRender();
+                    if (error == null) {
+                        LOG.info(outputType + " output successfully written!");
+                    } else {
+                        LOG.error("Error writing group members as " + outputType + ": " + GroupTaskExecutor.causeOf(error).getMessage());
                     }
+                })));
+        return CompletableFuture.allOf(renders.values().toArray(new CompletableFuture<?>[renders.size()]))
+                .handle((ignored, error) -> {
+                    final List<VelocityOutputPrinter.OutputType> failed = renders.entrySet().stream()
+                            .filter(render -> render.getValue().isCompletedExceptionally())
+                            .map(Map.Entry::getKey)
+                            .collect(Collectors.toList());
+                    if (!failed.isEmpty()) {
+                        throw new IllegalStateException("Could not write the output types " + failed);
+                    }
+                    return null;
+                });
+    }
 
-                    contextMap.clear();
-                }
-            } catch (Exception e) {
-                LOG.error("Error printing group members: " + e.getMessage());
+    /**
+     * Prints the members of all groups into one file.
+     *
+     * @param executor   the executor to render on
+     * @param model      the members to print
+     * @param outputType the output type
+     * @param path       the template path, empty for the default
+     * @return the future completed when the file is written
+     */
+    private CompletableFuture<Void> printSingle(final GroupTaskExecutor executor, final MembersModel model,
+                                                final VelocityOutputPrinter.OutputType outputType, final String path) {
+        return executor.submit(() -> {
+            if (outputType.isTemplated() && incremental) {
+                VelocityOutputPrinter.print(outputType, path, model.contextFor(outputType, new SectionSplicer(
+                        model.iterateMembers(), VelocityOutputPrinter.templateVersionOf(outputType, path))));
+            } else if (outputType.isTemplated()) {
+                VelocityOutputPrinter.print(outputType, path, model.contextFor(outputType));
+            } else {
+                MembersExporter.export(outputType, model.getTitle(), model.iterateMembers());
             }
+            return null;
+        });
+    }
+
+    /**
+     * Prints the members of each group into its own file concurrently and the index afterwards.
+     *
+     * @param executor   the executor to render on
+     * @param model      the members to print
+     * @param outputType the output type
+     * @param path       the template path, empty for the default
+     * @return the future completed when all files and the index are written
+     */
+    private CompletableFuture<Void> printSharded(final GroupTaskExecutor executor, final MembersModel model,
+                                                 final VelocityOutputPrinter.OutputType outputType, final String path) {
+        final ShardedOutput output;
+        try {
+            output = VelocityOutputPrinter.getInstance().openSharded(outputType, path, model.getTitle());
+        } catch (Exception e) {
+            final CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
         }
+        // iterating fetches the members while streaming, hence it holds a permit as well
+        return executor.submit(() -> {
+            final List<CompletableFuture<Void>> writes = new ArrayList<>();
+            final Iterator<GroupUserModelFull> groups = model.iterateMembers();
+            while (groups.hasNext()) {
+                final GroupUserModelFull group = groups.next();
+                writes.add(executor.submit(() -> {
+                    output.write(group.getGroupNode(), model.contextFor(outputType, Collections.singletonList(group)));
+                    return null;
+                }));
+            }
+            return writes;
+        }).thenCompose(writes -> CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[writes.size()])))
+                .thenCompose(done -> executor.submit(() -> {
+                    output.complete(model.getTitle());
+                    return null;
+                }));
+    }
+
+    private static void printHint() {
+        LOG.info("======================== HINT =========================");
+        LOG.info("Could not retrieve users for groups ");
+        LOG.info("Please add your user in the Ilias GUI as admin");
+        LOG.info("to each group and re-run this action");
+        LOG.info("=======================================================");
     }
 
     @Override
     public boolean confirm() {
         return true;
     }
+
+    /**
+     * The members to print, built once and shared by the concurrent renders of the output types.
+     */
+    static final class MembersModel {
+
+        private static final String LATEX_COLUMNS_ORDER = "| c | p{2.5cm} | p{2.5cm} | p{2.5cm} | p{2.5cm} | p{2.5cm} |";
+        private static final List<String> COLUMNS = Collections.unmodifiableList(Arrays.asList("1", "2", "3", "4", "5"));
+
+        private final String title;
+        private final Supplier<Object> membersPerGroup;
+        private final SharedMembers sharedMembers;
+        private final SharedMembers.Cursor cursor;
+
+        /**
+         * @param title           the title of the output
+         * @param membersPerGroup the fetched members of each group
+         */
+        MembersModel(final String title, final List<GroupUserModelFull> membersPerGroup) {
+            final List<GroupUserModelFull> members = Collections.unmodifiableList(new ArrayList<>(membersPerGroup));
+            this.title = title;
+            this.membersPerGroup = () -> members;
+            this.sharedMembers = null;
+            this.cursor = null;
+        }
+
+        /**
+         * @param title         the title of the output
+         * @param sharedMembers the members of each group, fetched while the renders iterate over them
+         */
+        MembersModel(final String title, final SharedMembers sharedMembers) {
+            this.title = title;
+            this.membersPerGroup = () -> {
+                throw new IllegalStateException("the members are only iterated by an opened render");
+            };
+            this.sharedMembers = sharedMembers;
+            this.cursor = null;
+        }
+
+        private MembersModel(final String title, final SharedMembers.Cursor cursor) {
+            this.title = title;
+            this.membersPerGroup = () -> new FlushingIterator<>(cursor.iterator());
+            this.sharedMembers = null;
+            this.cursor = cursor;
+        }
+
+        /**
+         * @return the model for one render, which has to be closed once the render finished or failed
+         */
+        MembersModel openRender() {
+            return sharedMembers == null ? this : new MembersModel(title, sharedMembers.open());
+        }
+
+        /**
+         * Closes the render, so the members it did not pass yet are not kept for it.
+         */
+        void closeRender() {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        String getTitle() {
+            return title;
+        }
+
+        /**
+         * @return the members of each group for an export
+         */
+        @SuppressWarnings("unchecked")
+        Iterator<GroupUserModelFull> iterateMembers() {
+            final Object members = membersPerGroup.get();
+            return members instanceof Iterator
+                    ? (Iterator<GroupUserModelFull>) members
+                    : ((List<GroupUserModelFull>) members).iterator();
+        }
+
+        /**
+         * @param outputType the output type
+         * @return a new unmodifiable velocity context for the output type
+         */
+        Map<String, Object> contextFor(final VelocityOutputPrinter.OutputType outputType) {
+            return contextFor(outputType, membersPerGroup.get());
+        }
+
+        /**
+         * @param outputType      the output type
+         * @param membersPerGroup the members of each group for the template
+         * @return a new unmodifiable velocity context for the output type
+         */
+        Map<String, Object> contextFor(final VelocityOutputPrinter.OutputType outputType, final Object membersPerGroup) {
+            final Map<String, Object> contextMap = new HashMap<>();
+            switch (outputType) {
+                case LATEX:
+                    contextMap.put(ContextKeys.COLUMS_ORDER.getVelocityKey(), LATEX_COLUMNS_ORDER);
+                case HTML:
+                    contextMap.put(ContextKeys.TITLE.getVelocityKey(), title);
+                    contextMap.put(ContextKeys.MEMBERS_PER_GROUP.getVelocityKey(), membersPerGroup);
+                    contextMap.put(ContextKeys.COLUMS_COUNT.getVelocityKey(), COLUMNS);
+                    break;
+                default:
+                    throw new RuntimeException("output type '" + outputType + "' not yet implemented for filling context map!");
+            }
+            return Collections.unmodifiableMap(contextMap);
+        }
+    }
+
+    /**
+     * Fetches the members of each group once, when the first of the renders asks for them, and hands them
+     * to the other renders as well. The members of a group are dropped once all live renders passed them,
+     * a render which finished or failed is closed and no longer counted.
+     * Groups without members are skipped, failed groups are recorded.
+     */
+    static final class SharedMembers {
+
+        private final IliasEndpoint endpoint;
+        private final List<IliasNode> groups;
+        private final Map<Integer, Exception> failures;
+        private final Map<Integer, Slot> slots;
+        private final List<Cursor> liveCursors;
+
+        /**
+         * @param endpoint the endpoint
+         * @param groups   the groups
+         * @param failures records the error of each failed group
+         */
+        SharedMembers(final IliasEndpoint endpoint, final List<IliasNode> groups, final Map<Integer, Exception> failures) {
+            this.endpoint = endpoint;
+            this.groups = groups;
+            this.failures = failures;
+            this.slots = new HashMap<>();
+            this.liveCursors = new ArrayList<>();
+        }
+
+        /**
+         * Opens a render. All renders have to be opened before the first one iterates.
+         *
+         * @return the cursor of the render
+         */
+        synchronized Cursor open() {
+            final Cursor cursor = new Cursor();
+            liveCursors.add(cursor);
+            return cursor;
+        }
+
+        /**
+         * @return the amount of groups whose members are kept for renders which did not pass them yet
+         */
+        synchronized int keptGroups() {
+            return slots.size();
+        }
+
+        private Optional<GroupUserModelFull> membersAt(final Cursor cursor, final int index) {
+            final Slot slot;
+            final boolean isFetching;
+            synchronized (this) {
+                slot = slots.computeIfAbsent(index, i -> new Slot());
+                isFetching = !slot.isClaimed;
+                slot.isClaimed = true;
+            }
+            if (isFetching) {
+                try {
+                    slot.members.complete(fetch(groups.get(index)));
+                } catch (RuntimeException | Error e) {
+                    slot.members.completeExceptionally(e);
+                    throw e;
+                }
+            }
+            final Optional<GroupUserModelFull> members = slot.members.join();
+            synchronized (this) {
+                cursor.passed = index + 1;
+                dropPassedSlots();
+            }
+            return members;
+        }
+
+        private synchronized void close(final Cursor cursor) {
+            if (liveCursors.remove(cursor)) {
+                dropPassedSlots();
+            }
+        }
+
+        private void dropPassedSlots() {
+            final int passedByAll = liveCursors.stream().mapToInt(cursor -> cursor.passed).min().orElse(groups.size());
+            slots.keySet().removeIf(index -> index < passedByAll);
+        }
+
+        private Optional<GroupUserModelFull> fetch(final IliasNode group) {
+            try {
+                final List<GroupUserModelFull> members = endpoint.getUsersForGroups(Collections.singletonList(group));
+                return members.isEmpty() ? Optional.empty() : Optional.of(members.get(0));
+            } catch (Exception e) {
+                LOG.debug("Could not fetch the members of group '" + group.getTitle() + "': " + e.getMessage());
+                failures.put(group.getRefId(), e);
+                return Optional.empty();
+            }
+        }
+
+        /**
+         * The position of a render in the groups.
+         */
+        final class Cursor {
+            private int passed;
+            private boolean isIterated;
+
+            /**
+             * @return an iterator over the members of the groups. The first one walks the shared members,
+             * a render iterating again gets a fresh iterator fetching the members itself.
+             */
+            Iterator<GroupUserModelFull> iterator() {
+                synchronized (SharedMembers.this) {
+                    if (isIterated) {
+                        close();
+                        return new MembersIterator(index -> fetch(groups.get(index)), () -> { });
+                    }
+                    isIterated = true;
+                }
+                return new MembersIterator(index -> membersAt(this, index), this::close);
+            }
+
+            /**
+             * Closes the render, e.g. if it finished or failed.
+             */
+            void close() {
+                SharedMembers.this.close(this);
+            }
+        }
+
+        /**
+         * Iterates over the members of the groups, skipping groups without members.
+         */
+        private final class MembersIterator implements Iterator<GroupUserModelFull> {
+            private final IntFunction<Optional<GroupUserModelFull>> membersAt;
+            private final Runnable onEnd;
+            private int index;
+            private GroupUserModelFull next;
+
+            private MembersIterator(final IntFunction<Optional<GroupUserModelFull>> membersAt, final Runnable onEnd) {
+                this.membersAt = membersAt;
+                this.onEnd = onEnd;
+            }
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && index < groups.size()) {
+                    next = membersAt.apply(index++).orElse(null);
+                }
+                if (next == null) {
+                    onEnd.run();
+                }
+                return next != null;
+            }
+
+            @Override
+            public GroupUserModelFull next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final GroupUserModelFull current = next;
+                next = null;
+                return current;
+            }
+        }
+
+        /**
+         * The members of one group, fetched by the render which asked first.
+         */
+        private static final class Slot {
+            private final CompletableFuture<Optional<GroupUserModelFull>> members = new CompletableFuture<>();
+            private boolean isClaimed;
+        }
+    }
 }
@@ -25,15 +25,23 @@
  */
 package com.github.mavogel.ilias.state.states.action;
 
+import com.github.mavogel.ilias.executor.DiscoverAndDeletePipeline;
 import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.model.ActionParameters;
 import com.github.mavogel.ilias.state.ChangeAction;
+import com.github.mavogel.ilias.state.DryRunPlan;
+import com.github.mavogel.ilias.state.PreparedAction;
 import com.github.mavogel.ilias.state.ToolStateMachine;
 import com.github.mavogel.ilias.utils.IOUtils;
-import com.github.mavogel.ilias.lib.wrapper.IliasEndpoint;
+import com.github.mavogel.ilias.wrapper.CachingIliasEndpoint;
+import com.github.mavogel.ilias.wrapper.EndpointCall;
 import org.apache.log4j.Logger;
 
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * Represents the action for removing the uploaded materials.
@@ -44,19 +52,47 @@ public class RemoveUploadedMaterialsAction implements ChangeAction {
 
     private static Logger LOG = Logger.getLogger(RemoveUploadedMaterialsAction.class);
 
+    private final DiscoverAndDeletePipeline pipeline;
+
+    /**
+     * Creates the action.
+     *
+     * @param pipeline the pipeline deleting the files of each group once they are discovered
+     */
+    public RemoveUploadedMaterialsAction(final DiscoverAndDeletePipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
     @Override
-    public void performAction(final IliasEndpoint endpoint,
-                              final Map<ToolStateMachine.ContextKey, List<IliasNode>> context,
-                              final List<IliasNode> nodes) {
+    public Optional<PreparedAction> prepare(final Map<ToolStateMachine.ContextKey, List<IliasNode>> context,
+                                            final List<IliasNode> nodes) {
         LOG.info("Removing uploaded materials from groups");
-        if (confirm()) {
-            try {
-                final List<IliasNode> files = endpoint.getFilesFromGroups(nodes);
-                endpoint.deleteObjectNodes(files);
-            } catch (Exception e) {
-                LOG.error("Error removing uploaded materials: " + e.getMessage());
-            }
+        if (!confirm()) {
+            return Optional.empty();
         }
+        return Optional.of(prepare(context, nodes, null));
+    }
+
+    @Override
+    public PreparedAction prepare(final Map<ToolStateMachine.ContextKey, List<IliasNode>> context,
+                                  final List<IliasNode> nodes, final ActionParameters parameters) {
+        return (endpoint, executor, course, groups) -> {
+            // files uploaded since they were cached would survive the deletion otherwise
+            if (endpoint.getDelegate() instanceof CachingIliasEndpoint) {
+                ((CachingIliasEndpoint) endpoint.getDelegate()).invalidate(CachingIliasEndpoint.Operation.FILES, groups);
+            }
+            return pipeline.run(actionName(""), groups, endpoint, executor.getResultListener());
+        };
+    }
+
+    @Override
+    public void estimate(final DryRunPlan plan, final List<IliasNode> groups) {
+        plan.addCalls(this, EndpointCall.DELETE_NODES, plan.addFileReads(this, groups));
+    }
+
+    @Override
+    public Set<Resource> getResources() {
+        return EnumSet.of(Resource.FILES);
     }
 
     @Override
@@ -26,14 +26,21 @@
 package com.github.mavogel.ilias.state.states.action;
 
 import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.model.ActionParameters;
 import com.github.mavogel.ilias.state.ChangeAction;
+import com.github.mavogel.ilias.state.DryRunPlan;
+import com.github.mavogel.ilias.state.PreparedAction;
 import com.github.mavogel.ilias.state.ToolStateMachine;
 import com.github.mavogel.ilias.utils.IOUtils;
-import com.github.mavogel.ilias.lib.wrapper.IliasEndpoint;
+import com.github.mavogel.ilias.wrapper.EndpointCall;
 import org.apache.log4j.Logger;
 
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * Represents the action for removing/excluding the users of a group.
@@ -45,17 +52,31 @@ public class RemoveUsersAction implements ChangeAction {
     private static Logger LOG = Logger.getLogger(RemoveUsersAction.class);
 
     @Override
-    public void performAction(final IliasEndpoint endpoint,
-                              final Map<ToolStateMachine.ContextKey, List<IliasNode>> context,
-                              final List<IliasNode> nodes) {
+    public Optional<PreparedAction> prepare(final Map<ToolStateMachine.ContextKey, List<IliasNode>> context,
+                                            final List<IliasNode> nodes) {
         LOG.info("Removing users from groups");
-        if (confirm()) {
-            try {
-                endpoint.removeAllMembersFromGroups(nodes);
-            } catch (Exception e) {
-                LOG.error("Error Removing users from groups: " + e.getMessage());
-            }
+        if (!confirm()) {
+            return Optional.empty();
         }
+        return Optional.of(prepare(context, nodes, null));
+    }
+
+    @Override
+    public PreparedAction prepare(final Map<ToolStateMachine.ContextKey, List<IliasNode>> context,
+                                  final List<IliasNode> nodes, final ActionParameters parameters) {
+        return (endpoint, executor, course, groups) -> executor.executeAsync(actionName(""), groups,
+                group -> endpoint.removeAllMembersFromGroups(Collections.singletonList(group)));
+    }
+
+    @Override
+    public void estimate(final DryRunPlan plan, final List<IliasNode> groups) {
+        plan.addCalls(this, EndpointCall.REMOVE_MEMBERS, groups.size());
+        plan.addAffectedMembers(this, groups);
+    }
+
+    @Override
+    public Set<Resource> getResources() {
+        return EnumSet.of(Resource.MEMBERS);
     }
 
     @Override
@@ -25,14 +25,21 @@ package com.github.mavogel.ilias.state.states.action;/*
  */
 
 import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.model.ActionParameters;
 import com.github.mavogel.ilias.state.ChangeAction;
+import com.github.mavogel.ilias.state.DryRunPlan;
+import com.github.mavogel.ilias.state.PreparedAction;
 import com.github.mavogel.ilias.state.ToolStateMachine;
 import com.github.mavogel.ilias.utils.IOUtils;
-import com.github.mavogel.ilias.lib.wrapper.IliasEndpoint;
+import com.github.mavogel.ilias.wrapper.EndpointCall;
 import org.apache.log4j.Logger;
 
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * Represents the action to set the maximum amount of members in a group.
@@ -44,18 +51,36 @@ public class SetMaxMembersAction implements ChangeAction {
     private static Logger LOG = Logger.getLogger(SetMaxMembersAction.class);
 
     @Override
-    public void performAction(final IliasEndpoint endpoint,
-                              final Map<ToolStateMachine.ContextKey, List<IliasNode>> context,
-                              final List<IliasNode> nodes) {
+    public Optional<PreparedAction> prepare(final Map<ToolStateMachine.ContextKey, List<IliasNode>> context,
+                                            final List<IliasNode> nodes) {
         LOG.info("Setting maximum amount of group members");
         int maxGroupMembers = IOUtils.readAndParsePositiveInteger();
-        if (confirm()) {
-            try {
-                endpoint.setMaxMembersOnGroups(nodes, maxGroupMembers);
-            } catch (Exception e) {
-                LOG.error("Error setting max group members: " + e.getMessage());
-            }
+        if (!confirm()) {
+            return Optional.empty();
         }
+        return Optional.of(changeTo(maxGroupMembers));
+    }
+
+    @Override
+    public PreparedAction prepare(final Map<ToolStateMachine.ContextKey, List<IliasNode>> context,
+                                  final List<IliasNode> nodes, final ActionParameters parameters) {
+        return changeTo(parameters.getMaxMembers());
+    }
+
+    private PreparedAction changeTo(final int maxGroupMembers) {
+        return PreparedAction.withParameters((endpoint, executor, course, groups) -> executor.executeAsync(actionName(""), groups,
+                group -> endpoint.setMaxMembersOnGroups(Collections.singletonList(group), maxGroupMembers)),
+                Collections.singletonMap(ActionParameters.MAX_MEMBERS, String.valueOf(maxGroupMembers)));
+    }
+
+    @Override
+    public void estimate(final DryRunPlan plan, final List<IliasNode> groups) {
+        plan.addCalls(this, EndpointCall.SET_MAX_MEMBERS, groups.size());
+    }
+
+    @Override
+    public Set<Resource> getResources() {
+        return EnumSet.of(Resource.SETTINGS);
     }
 
     @Override
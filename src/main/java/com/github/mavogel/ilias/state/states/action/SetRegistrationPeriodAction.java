@@ -26,15 +26,24 @@
 package com.github.mavogel.ilias.state.states.action;
 
 import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.model.ActionParameters;
 import com.github.mavogel.ilias.model.RegistrationPeriod;
 import com.github.mavogel.ilias.state.ChangeAction;
+import com.github.mavogel.ilias.state.DryRunPlan;
+import com.github.mavogel.ilias.state.PreparedAction;
 import com.github.mavogel.ilias.state.ToolStateMachine;
+import com.github.mavogel.ilias.utils.Defaults;
 import com.github.mavogel.ilias.utils.IOUtils;
-import com.github.mavogel.ilias.lib.wrapper.IliasEndpoint;
+import com.github.mavogel.ilias.wrapper.EndpointCall;
 import org.apache.log4j.Logger;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * Represents the action for setting a new registration period.
@@ -46,18 +55,40 @@ public class SetRegistrationPeriodAction implements ChangeAction {
     private static Logger LOG = Logger.getLogger(SetRegistrationPeriodAction.class);
 
     @Override
-    public void performAction(final IliasEndpoint endpoint,
-                              final Map<ToolStateMachine.ContextKey, List<IliasNode>> context,
-                              final List<IliasNode> nodes) {
+    public Optional<PreparedAction> prepare(final Map<ToolStateMachine.ContextKey, List<IliasNode>> context,
+                                            final List<IliasNode> nodes) {
         LOG.info("Setting registration date");
         RegistrationPeriod registrationPeriod = IOUtils.readAndParseRegistrationDates();
-        if (confirm()) {
-            try {
-                endpoint.setRegistrationDatesOnGroups(nodes, registrationPeriod.getRegistrationStart(), registrationPeriod.getRegistrationEnd());
-            } catch (Exception e) {
-                LOG.error("Error setting registration period: " + e.getMessage());
-            }
+        if (!confirm()) {
+            return Optional.empty();
         }
+        return Optional.of(changeTo(registrationPeriod));
+    }
+
+    @Override
+    public PreparedAction prepare(final Map<ToolStateMachine.ContextKey, List<IliasNode>> context,
+                                  final List<IliasNode> nodes, final ActionParameters parameters) {
+        return changeTo(parameters.getRegistrationPeriod());
+    }
+
+    private PreparedAction changeTo(final RegistrationPeriod registrationPeriod) {
+        final Map<String, String> parameters = new LinkedHashMap<>();
+        parameters.put(ActionParameters.REGISTRATION_START, Defaults.DATE_FORMAT.format(registrationPeriod.getRegistrationStart()));
+        parameters.put(ActionParameters.REGISTRATION_END, Defaults.DATE_FORMAT.format(registrationPeriod.getRegistrationEnd()));
+        return PreparedAction.withParameters((endpoint, executor, course, groups) -> executor.executeAsync(actionName(""), groups,
+                group -> endpoint.setRegistrationDatesOnGroups(Collections.singletonList(group),
+                        registrationPeriod.getRegistrationStart(), registrationPeriod.getRegistrationEnd())),
+                parameters);
+    }
+
+    @Override
+    public void estimate(final DryRunPlan plan, final List<IliasNode> groups) {
+        plan.addCalls(this, EndpointCall.SET_REGISTRATION_DATES, groups.size());
+    }
+
+    @Override
+    public Set<Resource> getResources() {
+        return EnumSet.of(Resource.SETTINGS);
     }
 
     @Override
@@ -26,6 +26,9 @@
 package com.github.mavogel.ilias.utils;
 
 import com.github.mavogel.ilias.lib.model.LoginConfiguration;
+import com.github.mavogel.ilias.model.BatchJob;
+import com.github.mavogel.ilias.model.Schedule;
+import com.github.mavogel.ilias.model.ToolConfiguration;
 import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.configuration2.FileBasedConfiguration;
 import org.apache.commons.configuration2.PropertiesConfiguration;
@@ -46,6 +49,56 @@ import java.util.stream.Collectors;
  */
 public class ConfigurationsUtils {
 
+    /**
+     * Creates the tool configuration containing the login configuration and the
+     * settings of the client. Uses defaults if necessary.
+     *
+     * @param propertyFilename the name of the property file
+     * @return the {@link ToolConfiguration}
+     */
+    public static ToolConfiguration createToolConfiguration(final String propertyFilename) {
+        final LoginConfiguration loginConfiguration = createLoginConfiguration(propertyFilename);
+        try {
+            return new ToolConfiguration(loginConfiguration, createBuilder(propertyFilename).getConfiguration());
+        } catch (IllegalArgumentException iae) {
+            throw new RuntimeException(iae.getMessage());
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Creates the job which is run without any prompt.
+     *
+     * @param jobFilename the name of the property file of the job
+     * @return the {@link BatchJob}
+     */
+    public static BatchJob createBatchJob(final String jobFilename) {
+        try {
+            return new BatchJob(createBuilder(jobFilename).getConfiguration());
+        } catch (IllegalArgumentException iae) {
+            throw new RuntimeException(iae.getMessage());
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Creates the schedule of the jobs run by the scheduler daemon.
+     *
+     * @param scheduleFilename the name of the property file of the schedule
+     * @return the {@link Schedule}
+     */
+    public static Schedule createSchedule(final String scheduleFilename) {
+        try {
+            return new Schedule(createBuilder(scheduleFilename).getConfiguration());
+        } catch (IllegalArgumentException iae) {
+            throw new RuntimeException(iae.getMessage());
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
     /**
      * Creates the login configuration and uses defaults if necessary.
      *
@@ -53,10 +106,7 @@ public class ConfigurationsUtils {
      * @return the {@link LoginConfiguration}
      */
     public static LoginConfiguration createLoginConfiguration(final String propertyFilename) {
-        Parameters params = new Parameters();
-        FileBasedConfigurationBuilder<FileBasedConfiguration> builder =
-                new FileBasedConfigurationBuilder<FileBasedConfiguration>(PropertiesConfiguration.class)
-                        .configure(params.properties().setFileName(propertyFilename));
+        FileBasedConfigurationBuilder<FileBasedConfiguration> builder = createBuilder(propertyFilename);
         LoginConfiguration.LOGIN_MODE loginMode = null;
         String endpoint, client, username, password, loginModeRaw = "";
         int maxFolderDepth;
@@ -106,4 +156,16 @@ public class ConfigurationsUtils {
                 return null;
         }
     }
+
+    /**
+     * Creates the builder for the given property file.
+     *
+     * @param propertyFilename the name of the property file
+     * @return the builder
+     */
+    private static FileBasedConfigurationBuilder<FileBasedConfiguration> createBuilder(final String propertyFilename) {
+        Parameters params = new Parameters();
+        return new FileBasedConfigurationBuilder<FileBasedConfiguration>(PropertiesConfiguration.class)
+                .configure(params.properties().setFileName(propertyFilename));
+    }
 }
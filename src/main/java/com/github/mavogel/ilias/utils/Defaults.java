@@ -44,6 +44,172 @@ public final class Defaults {
      */
     public static final int MAX_FOLDER_DEPTH = 5;
 
+    /**
+     * The amount of workers performing calls on groups concurrently.
+     */
+    public static final int PARALLELISM = 4;
+
+    /**
+     * The time to live in seconds of the cached courses and groups.
+     */
+    public static final int CACHE_NODES_TTL_SECONDS = 600;
+
+    /**
+     * The time to live in seconds of the cached files and members of groups.
+     */
+    public static final int CACHE_CONTENT_TTL_SECONDS = 60;
+
+    /**
+     * The maximum amount of cached results.
+     */
+    public static final int CACHE_MAX_ENTRIES = 2000;
+
+    /**
+     * If the discovered course tree is persisted for faster starts.
+     */
+    public static final boolean SNAPSHOT_ENABLED = false;
+
+    /**
+     * The directory of the course tree snapshots.
+     */
+    public static final String SNAPSHOT_DIRECTORY = System.getProperty("user.home") + "/.ilias-client/snapshots";
+
+    /**
+     * The maximum amount of concurrent deletions of the discovered files of groups.
+     */
+    public static final int PIPELINE_DELETERS = 2;
+
+    /**
+     * The maximum amount of groups whose files are discovered but not deleted yet.
+     */
+    public static final int PIPELINE_QUEUE_SIZE = 16;
+
+    /**
+     * The maximum amount of concurrent reading calls to the server.
+     */
+    public static final int LIMIT_MAX_CONCURRENT_READS = 8;
+
+    /**
+     * The maximum amount of concurrent mutating calls to the server.
+     */
+    public static final int LIMIT_MAX_CONCURRENT_WRITES = 4;
+
+    /**
+     * The maximum amount of calls per second to the server.
+     */
+    public static final int LIMIT_MAX_REQUESTS_PER_SECOND = 20;
+
+    /**
+     * The maximum attempts of a call failing with transport errors.
+     */
+    public static final int RETRY_MAX_ATTEMPTS = 3;
+
+    /**
+     * The backoff in milliseconds before the first repetition, doubled for each further one.
+     */
+    public static final int RETRY_BACKOFF_MILLIS = 200;
+
+    /**
+     * The maximum backoff in milliseconds between two attempts.
+     */
+    public static final int RETRY_MAX_BACKOFF_MILLIS = 5000;
+
+    /**
+     * The consecutive transport errors after which no further calls are made for a while.
+     */
+    public static final int CIRCUIT_FAILURE_THRESHOLD = 5;
+
+    /**
+     * The seconds no calls are made after the server failed repeatedly.
+     */
+    public static final int CIRCUIT_OPEN_SECONDS = 30;
+
+    /**
+     * The maximum amount of idle persistent connections kept to the server.
+     */
+    public static final int HTTP_MAX_CONNECTIONS = 12;
+
+    /**
+     * The milliseconds to wait for a connection to the server.
+     */
+    public static final int HTTP_CONNECT_TIMEOUT_MILLIS = 10000;
+
+    /**
+     * The milliseconds to wait for the response of a call, 0 for none. Fetching large trees takes a while,
+     * so a call waits as long as the server needs unless a timeout is configured.
+     */
+    public static final int HTTP_READ_TIMEOUT_MILLIS = 0;
+
+    /**
+     * If the members are printed group by group while they are fetched instead of all at once.
+     */
+    public static final boolean PRINT_STREAMING = false;
+
+    /**
+     * If the sections of unchanged groups are taken from the previous output instead of rendering them again.
+     */
+    public static final boolean PRINT_INCREMENTAL = false;
+
+    /**
+     * If each group is printed into its own file instead of all groups into one file.
+     */
+    public static final boolean PRINT_SHARDED = false;
+
+    /**
+     * The maximum amount of runs of a scheduled job at the same time.
+     */
+    public static final int SCHEDULER_MAX_CONCURRENT_RUNS = 1;
+
+    /**
+     * The file the state of the scheduled jobs is kept in.
+     */
+    public static final String SCHEDULER_STATE_FILE = System.getProperty("user.home") + "/.ilias-client/scheduler.state";
+
+    /**
+     * The minutes between the calls keeping a shared session alive.
+     */
+    public static final int SESSION_KEEP_ALIVE_MINUTES = 10;
+
+    /**
+     * The address the control server listens on. Only local clients by default.
+     */
+    public static final String SERVER_ADDRESS = "127.0.0.1";
+
+    /**
+     * The port of the control server.
+     */
+    public static final int SERVER_PORT = 8080;
+
+    /**
+     * The maximum amount of requests of the control server handled at the same time.
+     */
+    public static final int SERVER_THREADS = 8;
+
+    /**
+     * The maximum amount of accepted requests of the control server waiting for a thread.
+     */
+    public static final int SERVER_QUEUE_SIZE = 64;
+
+    /**
+     * The token of the requests to the control server. None, so only reading requests are served.
+     */
+    public static final String SERVER_TOKEN = "";
+
+    /**
+     * If the groups the mutating actions are planned on and done with are journaled for resuming after a crash.
+     */
+    public static final boolean JOURNAL_ENABLED = false;
+
+    /**
+     * The journal file of the actions.
+     */
+    public static final String JOURNAL_FILE = System.getProperty("user.home") + "/.ilias-client/actions.journal";
+
+    /**
+     * The milliseconds between two syncs of the journal to the disk.
+     */
+    public static final int JOURNAL_SYNC_MILLIS = 200;
+
     /**
      * The default log level for the application.
      */
@@ -31,13 +31,12 @@ import org.apache.log4j.Logger;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Optional;
 import java.util.Scanner;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
-import java.util.stream.Stream;
 
 /**
  * Util class for operations of reading, parsing and validating user input.
@@ -57,135 +56,141 @@ public class IOUtils {
      * @return the choice of the user.
      */
     public static List<Integer> readAndParseChoicesFromUser(final List<?> choices) {
-        boolean isCorrectDigits = false, isCorrectRanges = false;
-        String line = null;
-        List<Integer> digits = null;
-        List<String[]> ranges = null;
-
         Scanner scanner = new Scanner(System.in);
-        while (!(isCorrectDigits && isCorrectRanges)) {
-            try {
-                LOG.info("Your choice: \n - Comma separated choices and/or ranges (e.g.: 1, 2, 4-6, 8, 10-15 -> or a combination) \n - The Wildcard 'A' for selecting all choices");
-                line = scanner.nextLine();
+        while (true) {
+            LOG.info("Your choice: \n - Comma separated choices and/or ranges (e.g.: 1, 2, 4-6, 8, 10-15 -> or a combination) \n - The Wildcard 'A' for selecting all choices");
+            final String line = scanner.nextLine();
 
-                if (containsWildcard(line)) {
-                    return IntStream.range(0, choices.size()).mapToObj(Integer::valueOf).collect(Collectors.toList());
-                }
-                // == 1
-                List<String> trimmedSplit = splitAndTrim(line);
-                checkForInvalidCharacters(trimmedSplit);
-
-                // == 2
-                digits = parseDigits(trimmedSplit);
-                isCorrectDigits = checkInputDigits(choices, digits);
-
-                // == 3
-                ranges = parseRanges(trimmedSplit);
-                isCorrectRanges = checkRanges(choices, ranges);
-            } catch (NumberFormatException nfe) {
-                if (!isCorrectDigits) {
-                    LOG.error("'" + line + "' contains incorrect indexes! Try again");
-                }
-                if (!isCorrectRanges) {
-                    LOG.error("'" + line + "' contains incorrect ranges! Try again");
-                }
-            } catch (Exception e) {
-                LOG.error(e.getMessage());
+            if (containsWildcard(line)) {
+                return IntStream.range(0, choices.size()).mapToObj(Integer::valueOf).collect(Collectors.toList());
+            }
+            try {
+                return parseChoiceIndexes(line, choices.size());
+            } catch (IllegalArgumentException iae) {
+                LOG.error(iae.getMessage());
             }
         }
-
-        return concatDigitsAndRanges(digits, ranges);
     }
 
     /**
-     * Concatenates the digits and ranges to a distinct and sorted range: 1,3,4,6,7,...
+     * Parses comma separated choices and ranges, e.g. <code>1, 2, 4-6</code>.
      *
-     * @param digitsInput the single digits
-     * @param rangesInput the ranges @see {@link Defaults#RANGE_PATTERN} for details
-     * @return the sorted range
+     * @param line    the line of the user
+     * @param choices the amount of possible choices
+     * @return the chosen indexes in ascending order
+     * @throws IllegalArgumentException if the line contains invalid characters, indexes or ranges
+     * @see #parseChoices(String, int)
      */
-    private static List<Integer> concatDigitsAndRanges(final List<Integer> digitsInput, final List<String[]> rangesInput) {
-        return Stream.concat(digitsInput.stream(), expandRanges(rangesInput).orElse(Stream.empty()))
-                .sorted()
-                .distinct()
-                .collect(Collectors.toList());
+    static List<Integer> parseChoiceIndexes(final String line, final int choices) {
+        final BitSet chosen = parseChoices(line, choices);
+        final List<Integer> indexes = new ArrayList<>(chosen.cardinality());
+        for (int index = chosen.nextSetBit(0); index >= 0; index = chosen.nextSetBit(index + 1)) {
+            indexes.add(index);
+        }
+        return indexes;
     }
 
     /**
-     * Splits with ',' and trims each token.
+     * Parses comma separated choices and ranges, e.g. <code>1, 2, 4-6</code>, in a single pass.<br>
+     * Whitespaces are ignored and ranges are set as a whole, so large ranges
+     * neither are expanded nor boxed. The errors are reported in the order: invalid characters,
+     * incorrect indexes and then incorrect ranges.
      *
-     * @param line the line to split
-     * @return the tokens
+     * @param line    the line of the user
+     * @param choices the amount of possible choices
+     * @return the chosen indexes
+     * @throws IllegalArgumentException if the line contains invalid characters, indexes or ranges
      */
-    private static List<String> splitAndTrim(final String line) {
-        return Arrays.stream(line.split(","))
-                .map(StringUtils::deleteWhitespace)
-                .collect(Collectors.toList());
-    }
+    static BitSet parseChoices(final String line, final int choices) {
+        final BitSet chosen = new BitSet(choices);
+        String indexError = null, rangeError = null;
+        boolean indexOverflow = false;
+
+        // as String#split does, trailing empty tokens are dropped
+        int end = line.length();
+        final boolean hasSeparator = line.indexOf(',') >= 0;
+        while (hasSeparator && end > 0 && line.charAt(end - 1) == ',') {
+            end--;
+        }
+        int start = 0;
+        while (start < end || (!hasSeparator && start == 0)) {
+            int tokenEnd = line.indexOf(',', start);
+            if (tokenEnd < 0 || tokenEnd > end) {
+                tokenEnd = end;
+            }
 
-    /**
-     * Checks the ranges if they are meaningful against the choices.
-     *
-     * @param choices the choices
-     * @param ranges the ranges
-     * @return true of they are correct, false otherwise
-     */
-    private static boolean checkRanges(final List<?> choices, final List<String[]> ranges) {
-        return ranges.stream().allMatch(r -> isInMeaningfulRange(choices, Integer.valueOf(r[0]), Integer.valueOf(r[1])));
-    }
+            long lower = -1, upper = -1;
+            boolean isRange = false;
+            for (int i = start; i < tokenEnd; i++) {
+                final char c = line.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    continue;
+                }
+                if (c >= '0' && c <= '9') {
+                    if (isRange) {
+                        upper = appendDigit(upper, c);
+                    } else {
+                        lower = appendDigit(lower, c);
+                    }
+                } else if (c == '-' && !isRange && lower >= 0) {
+                    isRange = true;
+                } else {
+                    lower = -1;
+                    break;
+                }
+            }
+            if (lower < 0 || (isRange && upper < 0)) {
+                throw new IllegalArgumentException("Contains invalid indexes and/or ranges or an invalid wildcard!");
+            }
 
-    /**
-     * Checks the digits if they are in range against the choices.
-     *
-     * @param choices the choices
-     * @param digits the digits
-     * @return true of they are correct, false otherwise
-     */
-    private static boolean checkInputDigits(final List<?> choices, final List<Integer> digits) {
-        return digits.stream().allMatch(idx -> isInRange(choices, idx));
-    }
+            if (!isRange) {
+                if (lower > Integer.MAX_VALUE) {
+                    indexOverflow = true;
+                } else if (lower >= choices) {
+                    indexError = indexError != null ? indexError : notInRange(lower);
+                } else {
+                    chosen.set((int) lower);
+                }
+            } else if (rangeError == null) {
+                if (lower > Integer.MAX_VALUE || upper > Integer.MAX_VALUE) {
+                    rangeError = "'" + line + "' contains incorrect ranges! Try again";
+                } else if (lower > upper) {
+                    rangeError = "Range '" + lower + "-" + upper + "' is not ascending! Try again";
+                } else if (lower >= choices || upper >= choices) {
+                    rangeError = notInRange(lower >= choices ? lower : upper);
+                } else {
+                    chosen.set((int) lower, (int) upper + 1);
+                }
+            }
+            start = tokenEnd + 1;
+        }
 
-    /**
-     * Parses the ranges from the tokens.
-     *
-     * @param tokens the tokens @see {@link IOUtils#splitAndTrim(String)}
-     * @return the ranges
-     */
-    private static List<String[]> parseRanges(final List<String> tokens) {
-        return tokens.stream()
-                .filter(s -> Defaults.RANGE_PATTERN.matcher(s).matches())
-                .map(r -> r.split("-"))
-                .collect(Collectors.toList());
+        if (indexOverflow) {
+            throw new IllegalArgumentException("'" + line + "' contains incorrect indexes! Try again");
+        } else if (indexError != null) {
+            throw new IllegalArgumentException(indexError);
+        } else if (rangeError != null) {
+            throw new IllegalArgumentException(rangeError);
+        }
+        return chosen;
     }
 
     /**
-     * Parses the digits from the tokens
+     * Appends a digit to a parsed number without overflowing.
      *
-     * @param tokens the tokens @see {@link IOUtils#splitAndTrim(String)}
-     * @return the tokens
+     * @param number the number parsed so far or a negative value if none
+     * @param digit  the digit character
+     * @return the number with the digit or a value above {@link Integer#MAX_VALUE} if it is too large
      */
-    private static List<Integer> parseDigits(final List<String> tokens) {
-        return tokens.stream()
-                .filter(s -> Defaults.DIGIT_PATTERN.matcher(s).matches())
-                .map(Integer::valueOf)
-                .collect(Collectors.toList());
+    private static long appendDigit(final long number, final char digit) {
+        final long appended = Math.max(number, 0) * 10 + (digit - '0');
+        return Math.min(appended, Integer.MAX_VALUE + 1L);
     }
 
-    /**
-     * Checks for valid characters in tokens.
-     *
-     * @param tokens the tokens @see {@link IOUtils#splitAndTrim(String)}
-     * @throws IllegalArgumentException if there is an invalid token
-     */
-    private static void checkForInvalidCharacters(final List<String> tokens) {
-        Optional<String> invalidChoice = tokens.stream()
-                .filter(s -> !Defaults.DIGIT_PATTERN.matcher(s).matches() && !Defaults.RANGE_PATTERN.matcher(s).matches())
-                .findAny();
-        if (invalidChoice.isPresent())
-            throw new IllegalArgumentException("Contains invalid indexes and/or ranges or an invalid wildcard!");
+    private static String notInRange(final long index) {
+        return "Choice '" + index + "' is not in range! Try again";
     }
 
-
     /**
      * Checks if the line contains the {@link Defaults#CHOICE_WILDCARD} character.
      *
@@ -243,40 +248,6 @@ public class IOUtils {
         }
     }
 
-    /**
-     * Checks if the given range of the array is in meaningful sense. <br>
-     * <ul>
-     * <li>lower is less or equals than upper</li>
-     * <li>both bounds are in the range of the array</li>
-     * </ul>
-     *
-     * @param choices the list of choices
-     * @param lower   the lower bound
-     * @param upper   the upper bound
-     * @return <code>true</code> if the bounds are meanigful, <code>false</code> otherwise.
-     */
-    private static boolean isInMeaningfulRange(final List<?> choices, final int lower, final int upper) {
-        return lower <= upper && isInRange(choices, lower) && isInRange(choices, upper);
-    }
-
-    /**
-     * Expands the ranges.<br>
-     * Example:
-     * <ul>
-     * <li>1-4 -> 1,2,3,4</li>
-     * <li>1-4,6-8 -> 1,2,3,4,6,7,8</li>
-     * </ul>
-     *
-     * @param ranges the ranges to expand
-     * @return the expanded ranges.
-     */
-    private static Optional<Stream<Integer>> expandRanges(List<String[]> ranges) { // TODO maybe as Integer[]
-        return ranges.stream()
-                .map(eachRange -> IntStream.rangeClosed(Integer.valueOf(eachRange[0]), Integer.valueOf(eachRange[1])))
-                .map(eachExpandedRange -> eachExpandedRange.mapToObj(Integer::valueOf))
-                .reduce(Stream::concat);
-    }
-
     /**
      * Reads and parses the registration period.<br>
      * Validates the format and that the start is after the end.
@@ -0,0 +1,121 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.wrapper;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A concurrency limit which adapts to the measured latency of the calls (AIMD):
+ * <ul>
+ * <li>it grows by one per limit of calls answered without delay while the limit is used</li>
+ * <li>it shrinks by 10% on a call answered twice as slow as the baseline latency</li>
+ * <li>it halves on a transport error</li>
+ * </ul>
+ * The baseline is the lowest latency seen, slowly drifting towards the current latency, so a server
+ * which got permanently slower does not keep the limit low forever.
+ */
+public class AdaptiveLimit {
+
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final double DECREASE_FACTOR = 0.9;
+    private static final double TRANSPORT_ERROR_FACTOR = 0.5;
+    private static final double BASELINE_DRIFT = 0.01;
+
+    private final String name;
+    private final int maxLimit;
+    private double limit;
+    private int inFlight;
+    private double baselineNanos;
+
+    /**
+     * Creates the limit, starting at half of the maximum.
+     *
+     * @param name     the name used in the log
+     * @param maxLimit the maximum limit
+     */
+    public AdaptiveLimit(final String name, final int maxLimit) {
+        Validate.isTrue(maxLimit > 0, "maxLimit has to be greater than 0");
+        this.name = name;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(1, maxLimit / 2);
+        this.baselineNanos = Double.NaN;
+    }
+
+    /**
+     * Waits until a call is allowed.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized void acquire() throws InterruptedException {
+        while (inFlight >= currentLimit()) {
+            wait();
+        }
+        inFlight++;
+    }
+
+    /**
+     * Releases a call and adapts the limit to its outcome.
+     *
+     * @param latencyNanos   the latency of the call
+     * @param transportError if the call failed with a transport error
+     */
+    public synchronized void release(final long latencyNanos, final boolean transportError) {
+        final boolean limitUsed = inFlight >= currentLimit();
+        inFlight--;
+        if (transportError) {
+            limit = Math.max(1, limit * TRANSPORT_ERROR_FACTOR);
+        } else if (Double.isNaN(baselineNanos) || latencyNanos < baselineNanos) {
+            baselineNanos = latencyNanos;
+        } else {
+            baselineNanos += (latencyNanos - baselineNanos) * BASELINE_DRIFT;
+            if (latencyNanos > baselineNanos * LATENCY_TOLERANCE) {
+                limit = Math.max(1, limit * DECREASE_FACTOR);
+            } else if (limitUsed) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+        }
+        notifyAll();
+    }
+
+    /**
+     * @return the amount of calls allowed at the same time
+     */
+    public synchronized int currentLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s limit %.2f of %d, in flight %d, baseline %d ms", name, limit, maxLimit, inFlight,
+                Double.isNaN(baselineNanos) ? 0 : TimeUnit.NANOSECONDS.toMillis((long) baselineNanos));
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.wrapper;
+
+import com.github.mavogel.ilias.executor.GroupTaskExecutor;
+import com.github.mavogel.ilias.lib.model.GroupUserModelFull;
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.lib.wrapper.DisplayStatus;
+import com.github.mavogel.ilias.lib.wrapper.IliasEndpoint;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking facade of an {@link IliasEndpoint}. Each call is performed by the {@link GroupTaskExecutor}
+ * and returns a {@link CompletableFuture}, so independent calls can be composed to overlap.
+ */
+public class AsyncIliasEndpoint {
+
+    private final IliasEndpoint delegate;
+    private final GroupTaskExecutor executor;
+
+    /**
+     * Creates the facade.
+     *
+     * @param delegate the blocking endpoint
+     * @param executor the executor performing the calls
+     */
+    public AsyncIliasEndpoint(final IliasEndpoint delegate, final GroupTaskExecutor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    public IliasEndpoint getDelegate() {
+        return delegate;
+    }
+
+    public CompletableFuture<List<IliasNode>> getCoursesForUser(final DisplayStatus status) {
+        return executor.submit(() -> delegate.getCoursesForUser(status));
+    }
+
+    public CompletableFuture<List<IliasNode>> getGroupsFromCourse(final IliasNode courseNode) {
+        return executor.submit(() -> delegate.getGroupsFromCourse(courseNode));
+    }
+
+    public CompletableFuture<List<IliasNode>> getFilesFromGroups(final List<IliasNode> groupNodes) {
+        return executor.submit(() -> delegate.getFilesFromGroups(groupNodes));
+    }
+
+    public CompletableFuture<List<GroupUserModelFull>> getUsersForGroups(final List<IliasNode> groupNodes) {
+        return executor.submit(() -> delegate.getUsersForGroups(groupNodes));
+    }
+
+    public CompletableFuture<Void> deleteObjectNodes(final List<IliasNode> nodes) {
+        return executor.submit(() -> {
+            delegate.deleteObjectNodes(nodes);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> removeAllMembersFromGroups(final List<IliasNode> groupNodes) {
+        return executor.submit(() -> {
+            delegate.removeAllMembersFromGroups(groupNodes);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> setRegistrationDatesOnGroups(final List<IliasNode> groupNodes,
+                                                                final LocalDateTime registrationStart,
+                                                                final LocalDateTime registrationEnd) {
+        return executor.submit(() -> {
+            delegate.setRegistrationDatesOnGroups(groupNodes, registrationStart, registrationEnd);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> setMaxMembersOnGroups(final List<IliasNode> groupNodes, final int maxGroupMembers) {
+        return executor.submit(() -> {
+            delegate.setMaxMembersOnGroups(groupNodes, maxGroupMembers);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> grantFileUploadPermissionForMembers(final List<IliasNode> groupNodes) {
+        return executor.submit(() -> {
+            delegate.grantFileUploadPermissionForMembers(groupNodes);
+            return null;
+        });
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.wrapper;
+
+import com.github.mavogel.ilias.lib.model.GroupUserModelFull;
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.lib.wrapper.DisplayStatus;
+import com.github.mavogel.ilias.lib.wrapper.IliasEndpoint;
+import com.github.mavogel.ilias.model.ToolConfiguration;
+import org.apache.log4j.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.BiPredicate;
+import java.util.stream.Collectors;
+
+/**
+ * Caches the results of the reading calls to the endpoint with a time to live per operation.
+ * The mutating calls invalidate the entries they affect:
+ * <ul>
+ * <li>{@link #deleteObjectNodes(List)}: each entry which was requested for or contains a deleted node</li>
+ * <li>{@link #removeAllMembersFromGroups(List)}: the members of the groups</li>
+ * <li>{@link #logout(String)}: all entries</li>
+ * </ul>
+ * The settings of a group, like the maximum members or the registration period, are not cached,
+ * hence changing them invalidates nothing.
+ */
+public class CachingIliasEndpoint extends ForwardingIliasEndpoint {
+
+    private static Logger LOG = Logger.getLogger(CachingIliasEndpoint.class);
+
+    /**
+     * The cached reading operations.
+     */
+    public enum Operation {
+        COURSES(false),
+        GROUPS(false),
+        FILES(true),
+        MEMBERS(true);
+
+        private final boolean cacheEmptyResults;
+
+        /**
+         * @param cacheEmptyResults if an empty result is cached. Courses and groups are not, because
+         *                          the user is asked to fix the permissions in the GUI and try again.
+         */
+        Operation(final boolean cacheEmptyResults) {
+            this.cacheEmptyResults = cacheEmptyResults;
+        }
+    }
+
+    private final ExpiringLruCache<CacheKey, List<?>> cache;
+    private final Map<Operation, Duration> timesToLive;
+
+    /**
+     * Creates the caching endpoint.
+     *
+     * @param delegate          the endpoint to forward the calls to
+     * @param toolConfiguration the configuration containing the times to live and the maximum size
+     */
+    public CachingIliasEndpoint(final IliasEndpoint delegate, final ToolConfiguration toolConfiguration) {
+        super(delegate);
+        this.cache = new ExpiringLruCache<>(toolConfiguration.getCacheMaxEntries());
+        this.timesToLive = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            this.timesToLive.put(operation, toolConfiguration.getCacheTimeToLive(operation));
+        }
+    }
+
+    @Override
+    public List<IliasNode> getCoursesForUser(final DisplayStatus status) throws Exception {
+        return readThrough(new CacheKey(Operation.COURSES, status.name(), Collections.emptyList()),
+                () -> delegate.getCoursesForUser(status));
+    }
+
+    @Override
+    public List<IliasNode> getGroupsFromCourse(final IliasNode courseNode) throws Exception {
+        return readThrough(new CacheKey(Operation.GROUPS, courseNode),
+                () -> delegate.getGroupsFromCourse(courseNode));
+    }
+
+    @Override
+    public List<IliasNode> getFilesFromGroups(final List<IliasNode> groupNodes) throws Exception {
+        return readThrough(new CacheKey(Operation.FILES, groupNodes),
+                () -> delegate.getFilesFromGroups(groupNodes));
+    }
+
+    @Override
+    public List<GroupUserModelFull> getUsersForGroups(final List<IliasNode> groupNodes) throws Exception {
+        return readThrough(new CacheKey(Operation.MEMBERS, groupNodes),
+                () -> delegate.getUsersForGroups(groupNodes));
+    }
+
+    @Override
+    public void deleteObjectNodes(final List<IliasNode> nodes) throws Exception {
+        try {
+            delegate.deleteObjectNodes(nodes);
+        } finally {
+            final Set<Integer> deletedRefIds = refIdsOf(nodes);
+            invalidate("deleted nodes", (key, value) ->
+                    key.refIds.stream().anyMatch(deletedRefIds::contains)
+                            || value.stream().map(CachingIliasEndpoint::refIdOf).anyMatch(deletedRefIds::contains));
+        }
+    }
+
+    @Override
+    public void removeAllMembersFromGroups(final List<IliasNode> groupNodes) throws Exception {
+        try {
+            delegate.removeAllMembersFromGroups(groupNodes);
+        } finally {
+            final Set<Integer> groupRefIds = refIdsOf(groupNodes);
+            invalidate("removed members", (key, value) ->
+                    key.operation == Operation.MEMBERS && key.refIds.stream().anyMatch(groupRefIds::contains));
+        }
+    }
+
+    @Override
+    public void logout(final String logoutMessage) {
+        cache.clear();
+        super.logout(logoutMessage);
+    }
+
+    /**
+     * Removes all entries of the cache.
+     */
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    /**
+     * Removes all entries of the given operation.
+     *
+     * @param operation the operation
+     */
+    public void invalidate(final Operation operation) {
+        invalidate("changed " + operation.name().toLowerCase(), (key, value) -> key.operation == operation);
+    }
+
+    /**
+     * Removes the entries of the given operation which were requested for one of the nodes, e.g. the files
+     * of groups before they are deleted, so they are read from the server again.
+     *
+     * @param operation the operation
+     * @param nodes     the nodes
+     */
+    public void invalidate(final Operation operation, final List<IliasNode> nodes) {
+        final Set<Integer> refIds = refIdsOf(nodes);
+        invalidate("changed " + operation.name().toLowerCase() + " of " + refIds, (key, value) ->
+                key.operation == operation && key.refIds.stream().anyMatch(refIds::contains));
+    }
+
+    /**
+     * Looks up the cached files of a group without calling the server, e.g. for a dry run.
+     *
+     * @param group the group
+     * @return the cached files or empty if they are not cached
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<List<IliasNode>> peekFiles(final IliasNode group) {
+        return cache.get(new CacheKey(Operation.FILES, group)).map(files -> (List<IliasNode>) files);
+    }
+
+    /**
+     * Looks up the cached members of a group without calling the server, e.g. for a dry run.
+     *
+     * @param group the group
+     * @return the cached members or empty if they are not cached
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<List<GroupUserModelFull>> peekMembers(final IliasNode group) {
+        return cache.get(new CacheKey(Operation.MEMBERS, group)).map(members -> (List<GroupUserModelFull>) members);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> readThrough(final CacheKey key, final Callable<List<T>> loader) throws Exception {
+        final Optional<List<?>> cached = cache.get(key);
+        if (cached.isPresent()) {
+            LOG.debug("Cache hit for " + key);
+            return (List<T>) cached.get();
+        }
+
+        final List<T> loaded = Collections.unmodifiableList(new ArrayList<>(loader.call()));
+        if (!loaded.isEmpty() || key.operation.cacheEmptyResults) {
+            cache.put(key, loaded, timesToLive.get(key.operation));
+        }
+        return loaded;
+    }
+
+    private void invalidate(final String reason, final BiPredicate<CacheKey, List<?>> predicate) {
+        final int removed = cache.invalidateIf(predicate);
+        LOG.debug(String.format("Invalidated %d cache entries due to %s", removed, reason));
+    }
+
+    private static Set<Integer> refIdsOf(final List<IliasNode> nodes) {
+        return nodes.stream().map(IliasNode::getRefId).collect(Collectors.toSet());
+    }
+
+    private static Integer refIdOf(final Object cachedElement) {
+        if (cachedElement instanceof IliasNode) {
+            return ((IliasNode) cachedElement).getRefId();
+        } else if (cachedElement instanceof GroupUserModelFull) {
+            return ((GroupUserModelFull) cachedElement).getGroupNode().getRefId();
+        }
+        return null;
+    }
+
+    /**
+     * The key of a cached result: the operation with its arguments.
+     */
+    private static final class CacheKey {
+        private final Operation operation;
+        private final String argument;
+        private final List<Integer> refIds;
+
+        private CacheKey(final Operation operation, final String argument, final List<Integer> refIds) {
+            this.operation = operation;
+            this.argument = argument;
+            this.refIds = refIds;
+        }
+
+        private CacheKey(final Operation operation, final IliasNode node) {
+            this(operation, Collections.singletonList(node));
+        }
+
+        private CacheKey(final Operation operation, final List<IliasNode> nodes) {
+            this(operation, "", nodes.stream().map(IliasNode::getRefId).collect(Collectors.toList()));
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            CacheKey cacheKey = (CacheKey) o;
+            return operation == cacheKey.operation
+                    && argument.equals(cacheKey.argument)
+                    && refIds.equals(cacheKey.refIds);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(operation, argument, refIds);
+        }
+
+        @Override
+        public String toString() {
+            return operation + (argument.isEmpty() ? "" : "(" + argument + ")") + refIds;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.wrapper;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.function.Predicate;
+
+/**
+ * The recently measured latencies of the successful calls to the server, as an exponentially
+ * weighted moving average per call.
+ */
+public class CallLatencies {
+
+    private static final double SMOOTHING = 0.2;
+
+    private final Map<EndpointCall, Double> averageNanos = new EnumMap<>(EndpointCall.class);
+
+    /**
+     * Records the latency of a successful call.
+     *
+     * @param call         the call
+     * @param latencyNanos its latency
+     */
+    public synchronized void record(final EndpointCall call, final long latencyNanos) {
+        averageNanos.merge(call, (double) latencyNanos,
+                (average, latency) -> average + (latency - average) * SMOOTHING);
+    }
+
+    /**
+     * @param call the call
+     * @return the average latency of the call or empty if it was not measured yet
+     */
+    public synchronized Optional<Duration> get(final EndpointCall call) {
+        return Optional.ofNullable(averageNanos.get(call)).map(nanos -> Duration.ofNanos(nanos.longValue()));
+    }
+
+    /**
+     * Estimates the latency of a call which was not measured yet from the calls of the same kind,
+     * reading or mutating, or else from all measured calls.
+     *
+     * @param call the call
+     * @return the estimated latency or empty if no call was measured yet
+     */
+    public synchronized Optional<Duration> estimate(final EndpointCall call) {
+        final Optional<Duration> measured = get(call);
+        if (measured.isPresent()) {
+            return measured;
+        }
+        final Optional<Duration> sameKind = average(other -> other.isMutating() == call.isMutating());
+        return sameKind.isPresent() ? sameKind : average(other -> true);
+    }
+
+    private Optional<Duration> average(final Predicate<EndpointCall> filter) {
+        final OptionalDouble nanos = averageNanos.entrySet().stream()
+                .filter(entry -> filter.test(entry.getKey()))
+                .mapToDouble(Map.Entry::getValue)
+                .average();
+        return nanos.isPresent() ? Optional.of(Duration.ofNanos((long) nanos.getAsDouble())) : Optional.empty();
+    }
+}
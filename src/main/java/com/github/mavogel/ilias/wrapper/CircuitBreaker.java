@@ -0,0 +1,122 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.wrapper;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.log4j.Logger;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops calling a server which is clearly down. After <code>failureThreshold</code> consecutive
+ * transport errors the breaker opens and calls fail immediately. When the open duration has passed,
+ * a single trial call is let through: it closes the breaker on success and opens it again on failure.
+ */
+public class CircuitBreaker {
+
+    private static Logger LOG = Logger.getLogger(CircuitBreaker.class);
+
+    /**
+     * The states of the breaker.
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier nanoClock;
+    private State state;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+
+    /**
+     * Creates the breaker.
+     *
+     * @param failureThreshold the consecutive transport errors opening the breaker
+     * @param openDuration     how long the breaker stays open
+     */
+    public CircuitBreaker(final int failureThreshold, final Duration openDuration) {
+        this(failureThreshold, openDuration, System::nanoTime);
+    }
+
+    CircuitBreaker(final int failureThreshold, final Duration openDuration, final LongSupplier nanoClock) {
+        Validate.isTrue(failureThreshold > 0, "failureThreshold has to be greater than 0");
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.nanoClock = nanoClock;
+        this.state = State.CLOSED;
+    }
+
+    /**
+     * Checks if a call is allowed.
+     *
+     * @throws CircuitOpenException if the breaker is open or the trial call is already running
+     */
+    public synchronized void acquire() throws CircuitOpenException {
+        if (state == State.OPEN && nanoClock.getAsLong() - openedAtNanos >= openNanos) {
+            LOG.debug("Circuit half open, letting a trial call through");
+            state = State.HALF_OPEN;
+            return;
+        }
+        if (state != State.CLOSED) {
+            throw new CircuitOpenException("Ilias seems to be down, not calling it for now");
+        }
+    }
+
+    /**
+     * Records a call which succeeded or failed with a fault of the server.
+     */
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            LOG.info("Ilias is reachable again");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    /**
+     * Records a call which failed with a transport error.
+     */
+    public synchronized void onTransportError() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            if (state == State.CLOSED) {
+                LOG.warn(String.format("Ilias failed %d times in a row, pausing calls for %d seconds",
+                        consecutiveFailures, Duration.ofNanos(openNanos).getSeconds()));
+            }
+            state = State.OPEN;
+            openedAtNanos = nanoClock.getAsLong();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.wrapper;
+
+/**
+ * The calls of the endpoint whose latencies are measured.
+ */
+public enum EndpointCall {
+    COURSES("getCoursesForUser", false),
+    GROUPS("getGroupsFromCourse", false),
+    FILES("getFilesFromGroups", false),
+    MEMBERS("getUsersForGroups", false),
+    DELETE_NODES("deleteObjectNodes", true),
+    REMOVE_MEMBERS("removeAllMembersFromGroups", true),
+    SET_REGISTRATION_DATES("setRegistrationDatesOnGroups", true),
+    SET_MAX_MEMBERS("setMaxMembersOnGroups", true),
+    GRANT_FILE_UPLOAD("grantFileUploadPermissionForMembers", true);
+
+    private final String methodName;
+    private final boolean mutating;
+
+    EndpointCall(final String methodName, final boolean mutating) {
+        this.methodName = methodName;
+        this.mutating = mutating;
+    }
+
+    /**
+     * @return the name of the method of the endpoint
+     */
+    public String getMethodName() {
+        return methodName;
+    }
+
+    /**
+     * @return <code>true</code> if the call changes the groups
+     */
+    public boolean isMutating() {
+        return mutating;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.wrapper;
+
+import java.io.IOException;
+
+/**
+ * Classifies the errors of calls to the endpoint.
+ */
+public final class EndpointFaults {
+
+    private EndpointFaults() {
+    }
+
+    /**
+     * An error of the transport, e.g. a refused connection or a timeout. Such errors indicate that
+     * the server is down or overloaded and the call may succeed when repeated.
+     * A SOAP fault is not a transport error, even if its class is an {@link IOException}
+     * like the <code>AxisFault</code>, unless it was caused by one.
+     *
+     * @param error the error of the call
+     * @return <code>true</code> if the error or one of its causes is a transport error
+     */
+    public static boolean isTransportError(final Throwable error) {
+        for (Throwable cause = error; cause != null; cause = nextCause(cause)) {
+            final String name = cause.getClass().getSimpleName();
+            if (isFault(cause)) {
+                continue;
+            }
+            if (cause instanceof IOException || name.contains("Timeout") || name.endsWith("ConnectException")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A fault the server answered with, e.g. missing permissions or an unknown node.
+     * Repeating the call will fail again.
+     *
+     * @param error the error of the call
+     * @return <code>true</code> if the error is a SOAP fault not caused by a transport error
+     */
+    public static boolean isServerFault(final Throwable error) {
+        if (isTransportError(error)) {
+            return false;
+        }
+        for (Throwable cause = error; cause != null; cause = nextCause(cause)) {
+            if (isFault(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isFault(final Throwable error) {
+        return error.getClass().getSimpleName().contains("Fault");
+    }
+
+    private static Throwable nextCause(final Throwable error) {
+        return error.getCause() == error ? null : error.getCause();
+    }
+}
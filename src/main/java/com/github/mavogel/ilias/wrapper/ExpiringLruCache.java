@@ -0,0 +1,154 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.wrapper;
+
+import org.apache.commons.lang3.Validate;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiPredicate;
+import java.util.function.LongSupplier;
+
+/**
+ * A thread-safe cache with a bounded size, which evicts the least recently used entry
+ * if it is full. Each entry expires after its own time to live.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class ExpiringLruCache<K, V> {
+
+    private final int maxEntries;
+    private final LongSupplier nanoClock;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    /**
+     * Creates the cache.
+     *
+     * @param maxEntries the maximum amount of entries
+     */
+    public ExpiringLruCache(final int maxEntries) {
+        this(maxEntries, System::nanoTime);
+    }
+
+    /**
+     * Creates the cache with a custom clock.
+     *
+     * @param maxEntries the maximum amount of entries
+     * @param nanoClock  the clock providing the current time in nanoseconds
+     */
+    ExpiringLruCache(final int maxEntries, final LongSupplier nanoClock) {
+        Validate.isTrue(maxEntries > 0, "maxEntries has to be greater than 0");
+        this.maxEntries = maxEntries;
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<K, Entry<V>> eldest) {
+                return size() > ExpiringLruCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param key the key
+     * @return the value if present and not expired
+     */
+    public synchronized Optional<V> get(final K key) {
+        final Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.isExpired(nanoClock.getAsLong())) {
+            entries.remove(key);
+            return Optional.empty();
+        }
+        return Optional.of(entry.value);
+    }
+
+    /**
+     * Puts the value into the cache. Is not stored if the time to live is zero or negative.
+     *
+     * @param key        the key
+     * @param value      the value
+     * @param timeToLive the time to live of the entry
+     */
+    public synchronized void put(final K key, final V value, final Duration timeToLive) {
+        if (timeToLive.isZero() || timeToLive.isNegative()) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, nanoClock.getAsLong() + timeToLive.toNanos()));
+    }
+
+    /**
+     * Removes all entries matching the predicate.
+     *
+     * @param predicate the predicate on the key and value
+     * @return the amount of removed entries
+     */
+    public synchronized int invalidateIf(final BiPredicate<K, V> predicate) {
+        int removed = 0;
+        final Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<K, Entry<V>> entry = iterator.next();
+            if (predicate.test(entry.getKey(), entry.getValue().value)) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return the amount of entries, including the expired ones which were not accessed yet
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAtNanos;
+
+        private Entry(final V value, final long expiresAtNanos) {
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private boolean isExpired(final long nowNanos) {
+            return nowNanos - expiresAtNanos >= 0;
+        }
+    }
+}
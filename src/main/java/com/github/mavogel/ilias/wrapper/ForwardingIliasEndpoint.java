@@ -0,0 +1,109 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.wrapper;
+
+import com.github.mavogel.ilias.lib.model.GroupUserModelFull;
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.lib.model.UserDataIds;
+import com.github.mavogel.ilias.lib.wrapper.DisplayStatus;
+import com.github.mavogel.ilias.lib.wrapper.IliasEndpoint;
+import org.apache.commons.lang3.Validate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Base class for decorators of an {@link IliasEndpoint}. Forwards each call to the delegate,
+ * so a decorator only overrides the calls it is interested in.
+ */
+public abstract class ForwardingIliasEndpoint implements IliasEndpoint {
+
+    protected final IliasEndpoint delegate;
+
+    /**
+     * @param delegate the endpoint to forward the calls to
+     */
+    protected ForwardingIliasEndpoint(final IliasEndpoint delegate) {
+        Validate.notNull(delegate, "The delegate endpoint must not be null");
+        this.delegate = delegate;
+    }
+
+    public UserDataIds getUserDataIds() {
+        return delegate.getUserDataIds();
+    }
+
+    @Override
+    public List<IliasNode> getCoursesForUser(final DisplayStatus status) throws Exception {
+        return delegate.getCoursesForUser(status);
+    }
+
+    @Override
+    public List<IliasNode> getGroupsFromCourse(final IliasNode courseNode) throws Exception {
+        return delegate.getGroupsFromCourse(courseNode);
+    }
+
+    @Override
+    public List<IliasNode> getFilesFromGroups(final List<IliasNode> groupNodes) throws Exception {
+        return delegate.getFilesFromGroups(groupNodes);
+    }
+
+    @Override
+    public List<GroupUserModelFull> getUsersForGroups(final List<IliasNode> groupNodes) throws Exception {
+        return delegate.getUsersForGroups(groupNodes);
+    }
+
+    @Override
+    public void deleteObjectNodes(final List<IliasNode> nodes) throws Exception {
+        delegate.deleteObjectNodes(nodes);
+    }
+
+    @Override
+    public void removeAllMembersFromGroups(final List<IliasNode> groupNodes) throws Exception {
+        delegate.removeAllMembersFromGroups(groupNodes);
+    }
+
+    @Override
+    public void setRegistrationDatesOnGroups(final List<IliasNode> groupNodes,
+                                             final LocalDateTime registrationStart,
+                                             final LocalDateTime registrationEnd) throws Exception {
+        delegate.setRegistrationDatesOnGroups(groupNodes, registrationStart, registrationEnd);
+    }
+
+    @Override
+    public void setMaxMembersOnGroups(final List<IliasNode> groupNodes, final int maxGroupMembers) throws Exception {
+        delegate.setMaxMembersOnGroups(groupNodes, maxGroupMembers);
+    }
+
+    @Override
+    public void grantFileUploadPermissionForMembers(final List<IliasNode> groupNodes) throws Exception {
+        delegate.grantFileUploadPermissionForMembers(groupNodes);
+    }
+
+    @Override
+    public void logout(final String logoutMessage) {
+        delegate.logout(logoutMessage);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.wrapper;
+
+import com.github.mavogel.ilias.model.ToolConfiguration;
+import org.apache.log4j.Logger;
+
+/**
+ * Configures the HTTP transport of the SOAP endpoint. The port generated by JAX-WS uses the
+ * {@link java.net.HttpURLConnection} of the JDK, which keeps idle connections per host alive and reuses them.
+ * The endpoint of the library does not expose its port, so the transport is tuned by the system properties
+ * the JDK reads on its first connection:
+ * <ul>
+ * <li><code>http.keepAlive</code> and <code>http.maxConnections</code>: the pool of persistent connections</li>
+ * <li><code>sun.net.http.errorstream.enableBuffering</code>: SOAP faults are sent with status 500, the buffered
+ * error stream lets their connections return to the pool as well</li>
+ * <li><code>sun.net.client.defaultConnectTimeout</code> and <code>sun.net.client.defaultReadTimeout</code>, the latter
+ * only if a read timeout is configured</li>
+ * </ul>
+ * Properties given on the command line with <code>-D</code> take precedence.
+ */
+public final class HttpTransport {
+
+    private static Logger LOG = Logger.getLogger(HttpTransport.class);
+
+    private HttpTransport() {
+        // utility class
+    }
+
+    /**
+     * Applies the transport settings. Has to be called before the endpoint is built.
+     *
+     * @param toolConfiguration the configuration containing the pool size and the timeouts
+     */
+    public static void configure(final ToolConfiguration toolConfiguration) {
+        setIfAbsent("http.keepAlive", "true");
+        setIfAbsent("http.maxConnections", String.valueOf(toolConfiguration.getHttpMaxConnections()));
+        setIfAbsent("sun.net.http.errorstream.enableBuffering", "true");
+        setIfAbsent("sun.net.client.defaultConnectTimeout", String.valueOf(toolConfiguration.getHttpConnectTimeout().toMillis()));
+        if (!toolConfiguration.getHttpReadTimeout().isZero()) {
+            setIfAbsent("sun.net.client.defaultReadTimeout", String.valueOf(toolConfiguration.getHttpReadTimeout().toMillis()));
+        }
+    }
+
+    private static void setIfAbsent(final String key, final String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+        LOG.debug(String.format("HTTP transport: %s=%s", key, System.getProperty(key)));
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.wrapper;
+
+import com.github.mavogel.ilias.lib.model.GroupUserModelFull;
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.lib.wrapper.DisplayStatus;
+import com.github.mavogel.ilias.lib.wrapper.IliasEndpoint;
+import com.github.mavogel.ilias.model.ToolConfiguration;
+import org.apache.log4j.Logger;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Protects the server from too many calls. Reading and mutating calls have separate bulkheads,
+ * each with an {@link AdaptiveLimit} on the concurrent calls, and all calls share a {@link TokenBucket}
+ * capping the calls per second.
+ */
+public class LimitingIliasEndpoint extends ForwardingIliasEndpoint {
+
+    private static Logger LOG = Logger.getLogger(LimitingIliasEndpoint.class);
+
+    private final AdaptiveLimit readLimit;
+    private final AdaptiveLimit writeLimit;
+    private final TokenBucket rateLimit;
+    private final CallLatencies latencies;
+
+    /**
+     * Creates the limiting endpoint.
+     *
+     * @param delegate          the endpoint to forward the calls to
+     * @param toolConfiguration the configuration containing the limits
+     * @param latencies         records the latencies of the successful calls
+     */
+    public LimitingIliasEndpoint(final IliasEndpoint delegate, final ToolConfiguration toolConfiguration,
+                                 final CallLatencies latencies) {
+        super(delegate);
+        this.readLimit = new AdaptiveLimit("read", toolConfiguration.getMaxConcurrentReads());
+        this.writeLimit = new AdaptiveLimit("write", toolConfiguration.getMaxConcurrentWrites());
+        this.rateLimit = new TokenBucket(toolConfiguration.getMaxRequestsPerSecond());
+        this.latencies = latencies;
+    }
+
+    @Override
+    public List<IliasNode> getCoursesForUser(final DisplayStatus status) throws Exception {
+        return limited(readLimit, EndpointCall.COURSES, () -> delegate.getCoursesForUser(status));
+    }
+
+    @Override
+    public List<IliasNode> getGroupsFromCourse(final IliasNode courseNode) throws Exception {
+        return limited(readLimit, EndpointCall.GROUPS, () -> delegate.getGroupsFromCourse(courseNode));
+    }
+
+    @Override
+    public List<IliasNode> getFilesFromGroups(final List<IliasNode> groupNodes) throws Exception {
+        return limited(readLimit, EndpointCall.FILES, () -> delegate.getFilesFromGroups(groupNodes));
+    }
+
+    @Override
+    public List<GroupUserModelFull> getUsersForGroups(final List<IliasNode> groupNodes) throws Exception {
+        return limited(readLimit, EndpointCall.MEMBERS, () -> delegate.getUsersForGroups(groupNodes));
+    }
+
+    @Override
+    public void deleteObjectNodes(final List<IliasNode> nodes) throws Exception {
+        limited(writeLimit, EndpointCall.DELETE_NODES, () -> {
+            delegate.deleteObjectNodes(nodes);
+            return null;
+        });
+    }
+
+    @Override
+    public void removeAllMembersFromGroups(final List<IliasNode> groupNodes) throws Exception {
+        limited(writeLimit, EndpointCall.REMOVE_MEMBERS, () -> {
+            delegate.removeAllMembersFromGroups(groupNodes);
+            return null;
+        });
+    }
+
+    @Override
+    public void setRegistrationDatesOnGroups(final List<IliasNode> groupNodes,
+                                             final LocalDateTime registrationStart,
+                                             final LocalDateTime registrationEnd) throws Exception {
+        limited(writeLimit, EndpointCall.SET_REGISTRATION_DATES, () -> {
+            delegate.setRegistrationDatesOnGroups(groupNodes, registrationStart, registrationEnd);
+            return null;
+        });
+    }
+
+    @Override
+    public void setMaxMembersOnGroups(final List<IliasNode> groupNodes, final int maxGroupMembers) throws Exception {
+        limited(writeLimit, EndpointCall.SET_MAX_MEMBERS, () -> {
+            delegate.setMaxMembersOnGroups(groupNodes, maxGroupMembers);
+            return null;
+        });
+    }
+
+    @Override
+    public void grantFileUploadPermissionForMembers(final List<IliasNode> groupNodes) throws Exception {
+        limited(writeLimit, EndpointCall.GRANT_FILE_UPLOAD, () -> {
+            delegate.grantFileUploadPermissionForMembers(groupNodes);
+            return null;
+        });
+    }
+
+    /**
+     * Performs the call once the rate and the limit allow it and feeds its latency back to the limit.
+     * The latency of a successful call is recorded as well.
+     */
+    private <T> T limited(final AdaptiveLimit limit, final EndpointCall endpointCall, final Callable<T> call) throws Exception {
+        rateLimit.acquire();
+        limit.acquire();
+        final long start = System.nanoTime();
+        boolean transportError = false;
+        try {
+            final T result = call.call();
+            latencies.record(endpointCall, System.nanoTime() - start);
+            return result;
+        } catch (Exception e) {
+            transportError = EndpointFaults.isTransportError(e);
+            throw e;
+        } finally {
+            limit.release(System.nanoTime() - start, transportError);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(limit.toString());
+            }
+        }
+    }
+}
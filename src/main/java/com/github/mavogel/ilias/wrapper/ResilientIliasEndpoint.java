@@ -0,0 +1,182 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.wrapper;
+
+import com.github.mavogel.ilias.lib.model.GroupUserModelFull;
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.lib.wrapper.DisplayStatus;
+import com.github.mavogel.ilias.lib.wrapper.IliasEndpoint;
+import com.github.mavogel.ilias.model.ToolConfiguration;
+import org.apache.log4j.Logger;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Repeats calls which failed with a transport error, see {@link EndpointFaults}, after a jittered
+ * exponential backoff. Faults the server answered with are not repeated, since they would fail again.
+ * Deleting nodes is not repeated either, because a delete which reached the server before the
+ * connection broke would fail on the second attempt. All calls pass a {@link CircuitBreaker}.
+ */
+public class ResilientIliasEndpoint extends ForwardingIliasEndpoint {
+
+    private static Logger LOG = Logger.getLogger(ResilientIliasEndpoint.class);
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final CircuitBreaker circuitBreaker;
+
+    /**
+     * Creates the resilient endpoint.
+     *
+     * @param delegate          the endpoint to forward the calls to
+     * @param toolConfiguration the configuration containing the retry and circuit breaker settings
+     */
+    public ResilientIliasEndpoint(final IliasEndpoint delegate, final ToolConfiguration toolConfiguration) {
+        this(delegate, toolConfiguration, new CircuitBreaker(toolConfiguration.getCircuitFailureThreshold(),
+                toolConfiguration.getCircuitOpenDuration()));
+    }
+
+    ResilientIliasEndpoint(final IliasEndpoint delegate, final ToolConfiguration toolConfiguration,
+                           final CircuitBreaker circuitBreaker) {
+        super(delegate);
+        this.maxAttempts = toolConfiguration.getRetryMaxAttempts();
+        this.initialBackoffMillis = toolConfiguration.getRetryBackoff().toMillis();
+        this.maxBackoffMillis = toolConfiguration.getRetryMaxBackoff().toMillis();
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public List<IliasNode> getCoursesForUser(final DisplayStatus status) throws Exception {
+        return call("getCoursesForUser", true, () -> delegate.getCoursesForUser(status));
+    }
+
+    @Override
+    public List<IliasNode> getGroupsFromCourse(final IliasNode courseNode) throws Exception {
+        return call("getGroupsFromCourse", true, () -> delegate.getGroupsFromCourse(courseNode));
+    }
+
+    @Override
+    public List<IliasNode> getFilesFromGroups(final List<IliasNode> groupNodes) throws Exception {
+        return call("getFilesFromGroups", true, () -> delegate.getFilesFromGroups(groupNodes));
+    }
+
+    @Override
+    public List<GroupUserModelFull> getUsersForGroups(final List<IliasNode> groupNodes) throws Exception {
+        return call("getUsersForGroups", true, () -> delegate.getUsersForGroups(groupNodes));
+    }
+
+    @Override
+    public void deleteObjectNodes(final List<IliasNode> nodes) throws Exception {
+        call("deleteObjectNodes", false, () -> {
+            delegate.deleteObjectNodes(nodes);
+            return null;
+        });
+    }
+
+    @Override
+    public void removeAllMembersFromGroups(final List<IliasNode> groupNodes) throws Exception {
+        call("removeAllMembersFromGroups", true, () -> {
+            delegate.removeAllMembersFromGroups(groupNodes);
+            return null;
+        });
+    }
+
+    @Override
+    public void setRegistrationDatesOnGroups(final List<IliasNode> groupNodes,
+                                             final LocalDateTime registrationStart,
+                                             final LocalDateTime registrationEnd) throws Exception {
+        call("setRegistrationDatesOnGroups", true, () -> {
+            delegate.setRegistrationDatesOnGroups(groupNodes, registrationStart, registrationEnd);
+            return null;
+        });
+    }
+
+    @Override
+    public void setMaxMembersOnGroups(final List<IliasNode> groupNodes, final int maxGroupMembers) throws Exception {
+        call("setMaxMembersOnGroups", true, () -> {
+            delegate.setMaxMembersOnGroups(groupNodes, maxGroupMembers);
+            return null;
+        });
+    }
+
+    @Override
+    public void grantFileUploadPermissionForMembers(final List<IliasNode> groupNodes) throws Exception {
+        call("grantFileUploadPermissionForMembers", true, () -> {
+            delegate.grantFileUploadPermissionForMembers(groupNodes);
+            return null;
+        });
+    }
+
+    /**
+     * Performs the call and repeats it on transport errors if it is idempotent.
+     *
+     * @param operation  the name of the operation for the log
+     * @param idempotent if the call can be repeated safely
+     * @param call       the call
+     * @param <T>        the type of the result
+     * @return the result
+     * @throws Exception the error of the last attempt or a {@link CircuitOpenException}
+     */
+    private <T> T call(final String operation, final boolean idempotent, final Callable<T> call) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            circuitBreaker.acquire();
+            try {
+                final T result = call.call();
+                circuitBreaker.onSuccess();
+                return result;
+            } catch (Exception e) {
+                if (!EndpointFaults.isTransportError(e)) {
+                    circuitBreaker.onSuccess();
+                    throw e;
+                }
+                circuitBreaker.onTransportError();
+                if (!idempotent || attempt >= maxAttempts) {
+                    throw e;
+                }
+                final long backoffMillis = backoffMillis(attempt);
+                LOG.debug(String.format("%s failed with '%s', attempt %d of %d in %d ms",
+                        operation, e.getMessage(), attempt + 1, maxAttempts, backoffMillis));
+                Thread.sleep(backoffMillis);
+            }
+        }
+    }
+
+    /**
+     * The exponential backoff with a random jitter of up to half of it, so concurrent calls
+     * failing together do not hit the server together again.
+     *
+     * @param attempt the failed attempt, starting with 1
+     * @return the backoff in milliseconds
+     */
+    long backoffMillis(final int attempt) {
+        final long exponential = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 30));
+        return exponential / 2 + ThreadLocalRandom.current().nextLong(exponential / 2 + 1);
+    }
+}
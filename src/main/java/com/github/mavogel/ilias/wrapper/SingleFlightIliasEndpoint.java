@@ -0,0 +1,134 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.wrapper;
+
+import com.github.mavogel.ilias.executor.GroupTaskExecutor;
+import com.github.mavogel.ilias.lib.model.GroupUserModelFull;
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.lib.wrapper.DisplayStatus;
+import com.github.mavogel.ilias.lib.wrapper.IliasEndpoint;
+import org.apache.log4j.Logger;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * Lets identical reading calls which are issued while one of them is still running share the call
+ * to the endpoint and its result. Calls issued after it finished are answered by the
+ * {@link CachingIliasEndpoint} in front of it.
+ */
+public class SingleFlightIliasEndpoint extends ForwardingIliasEndpoint {
+
+    private static Logger LOG = Logger.getLogger(SingleFlightIliasEndpoint.class);
+
+    private final ConcurrentMap<List<Object>, CompletableFuture<List<?>>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the endpoint.
+     *
+     * @param delegate the endpoint to forward the calls to
+     */
+    public SingleFlightIliasEndpoint(final IliasEndpoint delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public List<IliasNode> getCoursesForUser(final DisplayStatus status) throws Exception {
+        return coalesce(key(CachingIliasEndpoint.Operation.COURSES, status.name()),
+                () -> delegate.getCoursesForUser(status));
+    }
+
+    @Override
+    public List<IliasNode> getGroupsFromCourse(final IliasNode courseNode) throws Exception {
+        return coalesce(key(CachingIliasEndpoint.Operation.GROUPS, Collections.singletonList(courseNode.getRefId())),
+                () -> delegate.getGroupsFromCourse(courseNode));
+    }
+
+    @Override
+    public List<IliasNode> getFilesFromGroups(final List<IliasNode> groupNodes) throws Exception {
+        return coalesce(key(CachingIliasEndpoint.Operation.FILES, refIdsOf(groupNodes)),
+                () -> delegate.getFilesFromGroups(groupNodes));
+    }
+
+    @Override
+    public List<GroupUserModelFull> getUsersForGroups(final List<IliasNode> groupNodes) throws Exception {
+        return coalesce(key(CachingIliasEndpoint.Operation.MEMBERS, refIdsOf(groupNodes)),
+                () -> delegate.getUsersForGroups(groupNodes));
+    }
+
+    /**
+     * Performs the call, or waits for the identical one already running and returns its result.
+     *
+     * @param key  the operation with its arguments
+     * @param call the call to the endpoint
+     * @param <T>  the type of the elements
+     * @return the unmodifiable result, shared between the coalesced callers
+     * @throws Exception the error of the call, an {@link Error} of the call is passed to the waiting callers as well
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<T> coalesce(final List<Object> key, final Callable<List<T>> call) throws Exception {
+        final CompletableFuture<List<?>> ownCall = new CompletableFuture<>();
+        final CompletableFuture<List<?>> runningCall = inFlight.putIfAbsent(key, ownCall);
+        if (runningCall != null) {
+            LOG.debug("Joining the running call for " + key);
+            try {
+                return (List<T>) runningCall.get();
+            } catch (ExecutionException ee) {
+                if (ee.getCause() instanceof Error) {
+                    throw (Error) ee.getCause();
+                }
+                throw GroupTaskExecutor.causeOf(ee);
+            }
+        }
+
+        try {
+            final List<T> result = Collections.unmodifiableList(call.call());
+            ownCall.complete(result);
+            return result;
+        } catch (Exception | Error e) {
+            // the waiting callers would block forever otherwise
+            ownCall.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, ownCall);
+        }
+    }
+
+    private static List<Object> key(final CachingIliasEndpoint.Operation operation, final Object argument) {
+        return Arrays.asList(operation, argument);
+    }
+
+    private static List<Integer> refIdsOf(final List<IliasNode> nodes) {
+        return nodes.stream().map(IliasNode::getRefId).collect(Collectors.toList());
+    }
+}
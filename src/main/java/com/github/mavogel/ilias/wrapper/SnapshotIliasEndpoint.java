@@ -0,0 +1,202 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.wrapper;
+
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.lib.wrapper.DisplayStatus;
+import com.github.mavogel.ilias.lib.wrapper.IliasEndpoint;
+import com.github.mavogel.ilias.snapshot.CourseTreeSnapshot;
+import com.github.mavogel.ilias.snapshot.SnapshotStore;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Serves the courses and groups from a persisted {@link CourseTreeSnapshot} on the first request
+ * of a session, so the menus are shown immediately, and verifies them in the background.
+ * Each result fetched from the endpoint is recorded in the snapshot.
+ */
+public class SnapshotIliasEndpoint extends ForwardingIliasEndpoint {
+
+    private static Logger LOG = Logger.getLogger(SnapshotIliasEndpoint.class);
+
+    /**
+     * Gets notified if the background verification found changes on the server.
+     */
+    public interface Listener {
+
+        /**
+         * The courses of the user changed.
+         */
+        void onCoursesChanged();
+
+        /**
+         * The groups of the course changed.
+         *
+         * @param course the course
+         */
+        void onGroupsChanged(final IliasNode course);
+    }
+
+    private final SnapshotStore store;
+    private final Listener listener;
+    private final AtomicReference<CourseTreeSnapshot> snapshot;
+    private final AtomicBoolean coursesVerified;
+    private final Set<Integer> verifiedCourses;
+    private final ExecutorService refresher;
+
+    /**
+     * Creates the endpoint and loads the snapshot.
+     *
+     * @param delegate the endpoint to forward the calls to
+     * @param store    the store of the snapshot
+     * @param listener the listener for changes found in the background
+     */
+    public SnapshotIliasEndpoint(final IliasEndpoint delegate, final SnapshotStore store, final Listener listener) {
+        super(delegate);
+        this.store = store;
+        this.listener = listener;
+        this.snapshot = new AtomicReference<>(store.load().orElse(CourseTreeSnapshot.empty()));
+        this.coursesVerified = new AtomicBoolean();
+        this.verifiedCourses = ConcurrentHashMap.newKeySet();
+        this.refresher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ilias-snapshot-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        LOG.debug("Using snapshot '" + store.getSnapshotFile() + "' with "
+                + snapshot.get().getCourses().size() + " courses");
+    }
+
+    @Override
+    public List<IliasNode> getCoursesForUser(final DisplayStatus status) throws Exception {
+        if (status != DisplayStatus.ADMIN) {
+            return delegate.getCoursesForUser(status);
+        }
+        final List<IliasNode> snapshotCourses = snapshot.get().getCourses();
+        if (!coursesVerified.get() && !snapshotCourses.isEmpty()) {
+            refresher.submit(this::verifyCourses);
+            return snapshotCourses;
+        }
+        return fetchCourses().courses;
+    }
+
+    @Override
+    public List<IliasNode> getGroupsFromCourse(final IliasNode courseNode) throws Exception {
+        final Optional<List<IliasNode>> snapshotGroups = snapshot.get().getGroups(courseNode);
+        if (!verifiedCourses.contains(courseNode.getRefId()) && snapshotGroups.isPresent()) {
+            refresher.submit(() -> verifyGroups(courseNode));
+            return snapshotGroups.get();
+        }
+        return fetchGroups(courseNode).groups;
+    }
+
+    @Override
+    public void logout(final String logoutMessage) {
+        refresher.shutdownNow();
+        super.logout(logoutMessage);
+    }
+
+    private void verifyCourses() {
+        try {
+            if (fetchCourses().changed) {
+                LOG.info("Your courses changed on the server since the last start. Choose again for the current ones.");
+                listener.onCoursesChanged();
+            }
+        } catch (Exception e) {
+            LOG.debug("Could not verify the courses of the snapshot: " + e.getMessage());
+        }
+    }
+
+    private void verifyGroups(final IliasNode course) {
+        try {
+            if (fetchGroups(course).changed) {
+                LOG.info("The groups of '" + course.getTitle() + "' changed on the server since the last start.");
+                listener.onGroupsChanged(course);
+            }
+        } catch (Exception e) {
+            LOG.debug("Could not verify the groups of the snapshot: " + e.getMessage());
+        }
+    }
+
+    private FetchedCourses fetchCourses() throws Exception {
+        final List<IliasNode> courses = delegate.getCoursesForUser(DisplayStatus.ADMIN);
+        coursesVerified.set(true);
+        final boolean changed = !CourseTreeSnapshot.isSameNodes(snapshot.get().getCourses(), courses);
+        if (changed) {
+            persist(snapshot.updateAndGet(s -> s.withCourses(courses)));
+        }
+        return new FetchedCourses(courses, changed);
+    }
+
+    private FetchedGroups fetchGroups(final IliasNode course) throws Exception {
+        final List<IliasNode> groups = delegate.getGroupsFromCourse(course);
+        verifiedCourses.add(course.getRefId());
+        final boolean changed = !snapshot.get().getGroups(course)
+                .map(known -> CourseTreeSnapshot.isSameNodes(known, groups))
+                .orElse(false);
+        if (changed) {
+            persist(snapshot.updateAndGet(s -> s.withGroups(course, groups)));
+        }
+        return new FetchedGroups(groups, changed);
+    }
+
+    private void persist(final CourseTreeSnapshot changedSnapshot) {
+        try {
+            store.save(changedSnapshot);
+        } catch (IOException e) {
+            LOG.warn("Could not save the snapshot '" + store.getSnapshotFile() + "': " + e.getMessage());
+        }
+    }
+
+    private static final class FetchedCourses {
+        private final List<IliasNode> courses;
+        private final boolean changed;
+
+        private FetchedCourses(final List<IliasNode> courses, final boolean changed) {
+            this.courses = courses;
+            this.changed = changed;
+        }
+    }
+
+    private static final class FetchedGroups {
+        private final List<IliasNode> groups;
+        private final boolean changed;
+
+        private FetchedGroups(final List<IliasNode> groups, final boolean changed) {
+            this.groups = groups;
+            this.changed = changed;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.executor;
+
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.lib.wrapper.IliasEndpoint;
+import com.github.mavogel.ilias.wrapper.AsyncIliasEndpoint;
+import com.github.mavogel.ilias.wrapper.ForwardingIliasEndpoint;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class DiscoverAndDeletePipelineTest {
+
+    private GroupTaskExecutor executor;
+
+    @Before
+    public void setUp() throws Exception {
+        executor = new GroupTaskExecutor(4);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdown();
+    }
+
+    @Test
+    public void shouldDeleteFilesOfEachGroup() throws Exception {
+        // == prepare
+        final List<IliasNode> groups = createGroups(3);
+        final Map<Integer, List<IliasNode>> deleted = new ConcurrentHashMap<>();
+        final AsyncIliasEndpoint endpoint = new AsyncIliasEndpoint(new ForwardingIliasEndpoint(Mockito.mock(IliasEndpoint.class)) {
+            @Override
+            public List<IliasNode> getFilesFromGroups(final List<IliasNode> groupNodes) throws Exception {
+                final int refId = groupNodes.get(0).getRefId();
+                if (refId == 1) throw new IllegalStateException("no permission");
+                if (refId == 2) return Collections.emptyList();
+                return Arrays.asList(new IliasNode(100 + refId, IliasNode.Type.FILE, "File"));
+            }
+
+            @Override
+            public void deleteObjectNodes(final List<IliasNode> nodes) throws Exception {
+                deleted.put(nodes.get(0).getRefId(), nodes);
+            }
+        }, executor);
+
+        // == go
+        ActionResult result = new DiscoverAndDeletePipeline(2, 2).run("Test", groups, endpoint).get(5, TimeUnit.SECONDS);
+
+        // == verify
+        assertEquals(groups, result.getGroupResults().stream().map(GroupResult::getGroup).collect(Collectors.toList()));
+        assertEquals(Collections.singletonList(groups.get(1)), result.getFailedGroups());
+        assertEquals("no permission", result.getGroupResults().get(1).getError().get().getMessage());
+        assertEquals(Collections.singleton(100), deleted.keySet());
+    }
+
+    @Test
+    public void shouldNotDiscoverMoreGroupsThanQueueSizeAhead() throws Exception {
+        // == prepare
+        final List<IliasNode> groups = createGroups(20);
+        final AtomicInteger notDeleted = new AtomicInteger();
+        final AtomicInteger maxNotDeleted = new AtomicInteger();
+        final AsyncIliasEndpoint endpoint = new AsyncIliasEndpoint(new ForwardingIliasEndpoint(Mockito.mock(IliasEndpoint.class)) {
+            @Override
+            public List<IliasNode> getFilesFromGroups(final List<IliasNode> groupNodes) throws Exception {
+                maxNotDeleted.accumulateAndGet(notDeleted.incrementAndGet(), Math::max);
+                return Arrays.asList(new IliasNode(100 + groupNodes.get(0).getRefId(), IliasNode.Type.FILE, "File"));
+            }
+
+            @Override
+            public void deleteObjectNodes(final List<IliasNode> nodes) throws Exception {
+                Thread.sleep(10);
+                notDeleted.decrementAndGet();
+            }
+        }, executor);
+
+        // == go
+        ActionResult result = new DiscoverAndDeletePipeline(1, 3).run("Test", groups, endpoint).get(5, TimeUnit.SECONDS);
+
+        // == verify
+        assertTrue(result.isSuccess());
+        assertEquals(0, notDeleted.get());
+        assertTrue(maxNotDeleted.get() <= 3);
+    }
+
+    @Test
+    public void shouldFailGroupsIfExecutorWasShutDown() throws Exception {
+        // == prepare
+        final List<IliasNode> groups = createGroups(1000);
+        final AsyncIliasEndpoint endpoint = new AsyncIliasEndpoint(Mockito.mock(IliasEndpoint.class), executor);
+        executor.shutdown();
+
+        // == go
+        ActionResult result = new DiscoverAndDeletePipeline(2, 16).run("Test", groups, endpoint).get(5, TimeUnit.SECONDS);
+
+        // == verify
+        assertEquals(groups, result.getFailedGroups());
+    }
+
+    private static List<IliasNode> createGroups(final int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new IliasNode(i, IliasNode.Type.GROUP, "Group " + i))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.executor;
+
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class GroupTaskExecutorTest {
+
+    private GroupTaskExecutor executor;
+
+    @Before
+    public void setUp() throws Exception {
+        executor = new GroupTaskExecutor(3);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdown();
+    }
+
+    @Test
+    public void shouldAggregateResultsInOrderOfGroups() throws Exception {
+        // == prepare
+        final List<IliasNode> groups = createGroups(10);
+
+        // == go
+        ActionResult result = executor.execute("Test", groups, group -> {
+            if (group.getRefId() % 3 == 0) throw new Exception("failed " + group.getRefId());
+        });
+
+        // == verify
+        assertEquals(groups.size(), result.getGroupResults().size());
+        assertEquals(groups, result.getGroupResults().stream().map(GroupResult::getGroup).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(groups.get(0), groups.get(3), groups.get(6), groups.get(9)), result.getFailedGroups());
+        assertFalse(result.isSuccess());
+        assertEquals("failed 3", result.getGroupResults().get(3).getError().get().getMessage());
+    }
+
+    @Test
+    public void shouldReportResultOfEachGroup() throws Exception {
+        // == prepare
+        final List<IliasNode> groups = createGroups(4);
+        final List<GroupResult> reported = Collections.synchronizedList(new ArrayList<>());
+
+        // == go
+        ActionResult result = executor.reportingTo(reported::add).execute("Test", groups, group -> {
+            if (group.getRefId() == 2) throw new Exception("failed");
+        });
+
+        // == verify
+        assertEquals(4, reported.size());
+        assertEquals(Collections.singletonList(groups.get(2)), reported.stream()
+                .filter(groupResult -> !groupResult.isSuccess())
+                .map(GroupResult::getGroup)
+                .collect(Collectors.toList()));
+        assertEquals(Collections.singletonList(groups.get(2)), result.getFailedGroups());
+    }
+
+    @Test
+    public void shouldRunGroupsConcurrently() throws Exception {
+        // == prepare
+        final List<IliasNode> groups = createGroups(3);
+        final CountDownLatch allStarted = new CountDownLatch(groups.size());
+
+        // == go
+        ActionResult result = executor.execute("Test", groups, group -> {
+            allStarted.countDown();
+            if (!allStarted.await(5, TimeUnit.SECONDS)) throw new Exception("not run concurrently");
+        });
+
+        // == verify
+        assertTrue(result.isSuccess());
+    }
+
+    @Test
+    public void shouldHandleNoGroups() throws Exception {
+        // == go
+        ActionResult result = executor.execute("Test", Collections.emptyList(), group -> fail("no group expected"));
+
+        // == verify
+        assertTrue(result.isSuccess());
+        assertTrue(result.getGroupResults().isEmpty());
+    }
+
+    @Test
+    public void shouldNotExceedParallelism() throws Exception {
+        // == prepare
+        final List<IliasNode> groups = createGroups(12);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+
+        // == go
+        ActionResult result = executor.execute("Test", groups, group -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+        });
+
+        // == verify
+        assertTrue(result.isSuccess());
+        assertTrue(maxRunning.get() <= executor.getParallelism());
+    }
+
+    @Test
+    public void shouldAggregateComposedCalls() throws Exception {
+        // == prepare
+        final List<IliasNode> groups = createGroups(4);
+
+        // == go
+        ActionResult result = executor.executeAsync("Test", groups,
+                group -> executor.submit(group::getRefId)
+                        .thenCompose(refId -> executor.submit(() -> {
+                            if (refId == 2) throw new IllegalStateException("failed " + refId);
+                            return refId;
+                        })))
+                .get(5, TimeUnit.SECONDS);
+
+        // == verify
+        assertEquals(Collections.singletonList(groups.get(2)), result.getFailedGroups());
+        assertEquals("failed 2", result.getGroupResults().get(2).getError().get().getMessage());
+    }
+
+    private static List<IliasNode> createGroups(final int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new IliasNode(i, IliasNode.Type.GROUP, "Group " + i))
+                .collect(Collectors.toList());
+    }
+}
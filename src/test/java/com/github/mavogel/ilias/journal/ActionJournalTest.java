@@ -0,0 +1,171 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.journal;
+
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ActionJournalTest {
+
+    private final IliasNode course = new IliasNode(1, IliasNode.Type.COURSE, "My Course");
+    private final List<IliasNode> groups = Arrays.asList(
+            new IliasNode(11, IliasNode.Type.GROUP, "Group 1"),
+            new IliasNode(12, IliasNode.Type.GROUP, "Group\t2"),
+            new IliasNode(13, IliasNode.Type.GROUP, "Group 3"));
+
+    @Test
+    public void shouldOfferGroupsNotDoneAfterCrash() throws Exception {
+        // == prepare
+        Path file = Files.createTempDirectory("journal").resolve("actions.journal");
+        ActionJournal journal = new ActionJournal(file, Duration.ofSeconds(10));
+
+        // == go
+        String runId = journal.begin();
+        journal.planned(runId, "RemoveUsers", course, groups);
+        journal.planned(runId, "SetMaxMembers", course, groups);
+        journal.done(runId, "RemoveUsers", groups.get(0));
+        journal.done(runId, "RemoveUsers", groups.get(1));
+        journal.sync();
+        // releases the lock like a crash, without ending the run
+        journal.close();
+        List<UnfinishedRun> unfinishedRuns = new ActionJournal(file, Duration.ofSeconds(10)).getUnfinishedRuns();
+
+        // == verify
+        assertEquals(1, unfinishedRuns.size());
+        UnfinishedRun run = unfinishedRuns.get(0);
+        assertEquals(runId, run.getRunId());
+        assertEquals(Arrays.asList("RemoveUsers", "SetMaxMembers"), run.getActions());
+        assertEquals(Collections.singletonList(13), refIdsOf(run.getUnfinishedGroups("RemoveUsers")));
+        assertEquals(Arrays.asList(11, 12, 13), refIdsOf(run.getUnfinishedGroups("SetMaxMembers")));
+        assertEquals("Group\t2", run.getUnfinishedGroups("SetMaxMembers").get(1).getTitle());
+        assertEquals(1, run.getCourseOf(groups.get(2)).getRefId());
+        assertEquals("My Course", run.getCourseOf(groups.get(2)).getTitle());
+    }
+
+    @Test
+    public void shouldKeepParametersOfUnfinishedRun() throws Exception {
+        // == prepare
+        Path file = Files.createTempDirectory("journal").resolve("actions.journal");
+        ActionJournal journal = new ActionJournal(file, Duration.ofSeconds(10));
+        Map<String, String> parameters = new LinkedHashMap<>();
+        parameters.put("registration.start", "2016-10-01T08:00");
+        parameters.put("registration.end", "2016-10-14T23:59");
+
+        // == go
+        String runId = journal.begin();
+        journal.parameters(runId, "SetRegistrationPeriod", parameters);
+        journal.planned(runId, "SetRegistrationPeriod", course, groups);
+        journal.planned(runId, "RemoveUsers", course, groups);
+        journal.close();
+        // the compaction on opening keeps the parameters of the unfinished run
+        new ActionJournal(file, Duration.ofSeconds(10)).close();
+        UnfinishedRun run = new ActionJournal(file, Duration.ofSeconds(10)).getUnfinishedRuns().get(0);
+
+        // == verify
+        assertEquals(parameters, run.getParameters("SetRegistrationPeriod"));
+        assertTrue(run.getParameters("RemoveUsers").isEmpty());
+    }
+
+    @Test
+    public void shouldRemoveEndedRunsOnOpening() throws Exception {
+        // == prepare
+        Path file = Files.createTempDirectory("journal").resolve("actions.journal");
+        ActionJournal journal = new ActionJournal(file, Duration.ofSeconds(10));
+        String runId = journal.begin();
+        journal.planned(runId, "RemoveUsers", course, groups);
+        journal.end(runId);
+        journal.close();
+
+        // == go
+        ActionJournal reopened = new ActionJournal(file, Duration.ofSeconds(10));
+
+        // == verify
+        assertTrue(reopened.getUnfinishedRuns().isEmpty());
+        assertEquals(0, Files.size(file));
+    }
+
+    @Test
+    public void shouldSkipLineTornByCrash() throws Exception {
+        // == prepare
+        Path file = Files.createTempDirectory("journal").resolve("actions.journal");
+        Files.write(file, ("BEGIN\trun\t1475280000000\n"
+                + "PLAN\trun\tRemoveUsers\t1\tMy+Course\t123\tGroup+1\n"
+                + "DONE\trun\tRemoveUsers\t12").getBytes(StandardCharsets.UTF_8));
+
+        // == go
+        ActionJournal journal = new ActionJournal(file, Duration.ofSeconds(10));
+        journal.done("run", "RemoveUsers", new IliasNode(123, IliasNode.Type.GROUP, "Group 1"));
+        journal.close();
+
+        // == verify
+        assertEquals(1, journal.getUnfinishedRuns().size());
+        UnfinishedRun run = journal.getUnfinishedRuns().get(0);
+        assertEquals(Collections.singletonList(123), refIdsOf(run.getUnfinishedGroups("RemoveUsers")));
+        assertEquals("Group 1", run.getUnfinishedGroups("RemoveUsers").get(0).getTitle());
+        // the entry appended after the torn line is not glued to it
+        assertTrue(new ActionJournal(file, Duration.ofSeconds(10)).getUnfinishedRuns().isEmpty());
+
+        // == prepare: the crash tore the only line
+        Path tornOnly = Files.createTempDirectory("journal").resolve("actions.journal");
+        Files.write(tornOnly, "BEGIN\trun\t14752".getBytes(StandardCharsets.UTF_8));
+
+        // == go
+        ActionJournal reopened = new ActionJournal(tornOnly, Duration.ofSeconds(10));
+
+        // == verify
+        assertTrue(reopened.getUnfinishedRuns().isEmpty());
+        assertEquals(0, Files.size(tornOnly));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldNotOpenJournalWhichIsOpenAlready() throws Exception {
+        // == prepare
+        Path file = Files.createTempDirectory("journal").resolve("actions.journal");
+        new ActionJournal(file, Duration.ofSeconds(10));
+
+        // == go
+        new ActionJournal(file, Duration.ofSeconds(10));
+    }
+
+    private static List<Integer> refIdsOf(final List<IliasNode> nodes) {
+        return nodes.stream().map(IliasNode::getRefId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.printer;
+
+import com.github.mavogel.ilias.lib.model.GroupUserModelFull;
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.lib.model.IliasUser;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DefaultRenderersTest {
+
+    @Test
+    public void shouldRenderHtmlLikeTheTemplate() throws Exception {
+        assertRendersLikeTemplate(VelocityOutputPrinter.OutputType.HTML);
+    }
+
+    @Test
+    public void shouldRenderLatexLikeTheTemplate() throws Exception {
+        assertRendersLikeTemplate(VelocityOutputPrinter.OutputType.LATEX);
+    }
+
+    private void assertRendersLikeTemplate(final VelocityOutputPrinter.OutputType outputType) throws Exception {
+        // == prepare
+        final StringWriter interpreted = new StringWriter();
+        final StringWriter compiled = new StringWriter();
+
+        // == go
+        VelocityOutputPrinter.interpretedDefault(outputType).render(createContext(), interpreted);
+        DefaultRenderers.of(outputType).render(createContext(), compiled);
+
+        // == verify
+        assertTrue(compiled.toString().contains("Doe John"));
+        assertEquals(interpreted.toString(), compiled.toString());
+    }
+
+    private static Map<String, Object> createContext() {
+        final Map<String, Object> contextMap = new HashMap<>();
+        contextMap.put("title", "Course 1");
+        contextMap.put("columnsOrder", "| c | p{2.5cm} |");
+        contextMap.put("columnsCount", Arrays.asList("1", "2"));
+        contextMap.put("membersPerGroup", Arrays.asList(
+                new GroupUserModelFull(new IliasNode(11, IliasNode.Type.GROUP, "Group 1"),
+                        Arrays.asList(new IliasUser("John", "Doe", "john@example.org"), new IliasUser("Jane", "Roe", null))),
+                new GroupUserModelFull(new IliasNode(12, IliasNode.Type.GROUP, "Group 2"), Collections.emptyList())));
+        return contextMap;
+    }
+}
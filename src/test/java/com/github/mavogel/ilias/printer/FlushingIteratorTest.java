@@ -0,0 +1,71 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.printer;
+
+import org.junit.Test;
+
+import java.io.BufferedWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class FlushingIteratorTest {
+
+    @Test
+    public void shouldWriteOutSectionBeforeLoadingNextElement() throws Exception {
+        // == prepare
+        final StringWriter file = new StringWriter();
+        final BufferedWriter writer = new BufferedWriter(file);
+        final Iterator<String> groups = Arrays.asList("Group 1", "Group 2").iterator();
+        final FlushingIterator<String> iterator = new FlushingIterator<>(new Iterator<String>() {
+            @Override
+            public boolean hasNext() {
+                return groups.hasNext();
+            }
+
+            @Override
+            public String next() {
+                final String group = groups.next();
+                // == verify the section of the previous group is written already
+                assertEquals(group.equals("Group 1") ? "" : "[Group 1]", file.toString());
+                return group;
+            }
+        });
+        iterator.bindTo(writer);
+
+        // == go
+        while (iterator.hasNext()) {
+            writer.write("[" + iterator.next() + "]");
+        }
+
+        // == verify
+        assertEquals("[Group 1][Group 2]", file.toString());
+        assertFalse(iterator.hasNext());
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.printer;
+
+import com.github.mavogel.ilias.lib.model.GroupUserModelFull;
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.lib.model.IliasUser;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class MembersExporterTest {
+
+    private final List<GroupUserModelFull> membersPerGroup = Arrays.asList(
+            new GroupUserModelFull(new IliasNode(11, IliasNode.Type.GROUP, "Group 1, Monday"),
+                    Arrays.asList(new IliasUser("Anna", "O\"Neil", "anna@example.org"),
+                            new IliasUser("Bob", "Smith", null))),
+            new GroupUserModelFull(new IliasNode(12, IliasNode.Type.GROUP, "Group 2"),
+                    Collections.emptyList()));
+
+    @Test
+    public void shouldWriteCsv() throws Exception {
+        // == prepare
+        final StringWriter writer = new StringWriter();
+
+        // == go
+        MembersExporter.writeCsv(membersPerGroup.iterator(), writer);
+
+        // == verify
+        assertEquals("group_ref_id,group_title,last_name,first_name,email\r\n"
+                + "11,\"Group 1, Monday\",\"O\"\"Neil\",Anna,anna@example.org\r\n"
+                + "11,\"Group 1, Monday\",Smith,Bob,\r\n", writer.toString());
+    }
+
+    @Test
+    public void shouldWriteJson() throws Exception {
+        // == prepare
+        final StringWriter writer = new StringWriter();
+
+        // == go
+        MembersExporter.writeJson("Course\n\\1", membersPerGroup.iterator(), writer);
+
+        // == verify
+        assertEquals("{\"title\":\"Course\\n\\\\1\",\"groups\":["
+                + "{\"refId\":11,\"title\":\"Group 1, Monday\",\"members\":["
+                + "{\"lastName\":\"O\\\"Neil\",\"firstName\":\"Anna\",\"email\":\"anna@example.org\"},"
+                + "{\"lastName\":\"Smith\",\"firstName\":\"Bob\",\"email\":null}]},"
+                + "{\"refId\":12,\"title\":\"Group 2\",\"members\":[]}]}", writer.toString());
+    }
+
+    @Test
+    public void shouldEscapeControlCharactersInJson() throws Exception {
+        // == prepare
+        final StringWriter writer = new StringWriter();
+
+        // == go
+        MembersExporter.writeJsonString("a\u0001b\tc", writer);
+
+        // == verify
+        assertEquals("\"a\\u0001b\\tc\"", writer.toString());
+    }
+}
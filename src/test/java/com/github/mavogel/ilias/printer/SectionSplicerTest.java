@@ -0,0 +1,136 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.printer;
+
+import com.github.mavogel.ilias.lib.model.GroupUserModelFull;
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.lib.model.IliasUser;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SectionSplicerTest {
+
+    private Path directory;
+    private final IliasNode group1 = new IliasNode(11, IliasNode.Type.GROUP, "Group 1");
+    private final IliasNode group2 = new IliasNode(12, IliasNode.Type.GROUP, "Group 2");
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("sections");
+    }
+
+    @Test
+    public void shouldSpliceUnchangedSectionsFromPreviousOutput() throws Exception {
+        // == prepare
+        render("2017-01-01-010000_members.html", "v1", Arrays.asList(
+                new GroupUserModelFull(group1, Arrays.asList(new IliasUser("f1", "n1", "m1"), new IliasUser("f2", "n2", "m2"))),
+                new GroupUserModelFull(group2, Collections.singletonList(new IliasUser("f3", "n3", "m3")))));
+
+        // == go
+        final List<GroupUserModelFull> rendered = new ArrayList<>();
+        final String output = render("2017-01-02-010000_members.html", "v1", Arrays.asList(
+                new GroupUserModelFull(group1, Arrays.asList(new IliasUser("f2", "n2", "m2"), new IliasUser("f1", "n1", "m1"))),
+                new GroupUserModelFull(group2, Collections.singletonList(new IliasUser("f4", "n4", "m4")))), rendered);
+
+        // == verify
+        assertEquals("<h>[Group 1:n1,n2,][Group 2:n4,]</h>", output);
+        assertTrue("unchanged group is passed without members", rendered.get(0).getGroupMembers().isEmpty());
+        assertEquals(1, rendered.get(1).getGroupMembers().size());
+    }
+
+    @Test
+    public void shouldNotReuseSectionsOfOtherTemplateVersion() throws Exception {
+        // == prepare
+        final List<GroupUserModelFull> groups = Collections.singletonList(
+                new GroupUserModelFull(group1, Collections.singletonList(new IliasUser("f1", "n1", "m1"))));
+        render("2017-01-01-010000_members.html", "v1", groups);
+
+        // == go
+        final List<GroupUserModelFull> rendered = new ArrayList<>();
+        final String output = render("2017-01-02-010000_members.html", "v2", groups, rendered);
+
+        // == verify
+        assertEquals("<h>[Group 1:n1,]</h>", output);
+        assertEquals(1, rendered.get(0).getGroupMembers().size());
+    }
+
+    @Test
+    public void shouldHashIndependentOfMemberOrder() throws Exception {
+        assertEquals(
+                SectionSplicer.hashOf(new GroupUserModelFull(group1, Arrays.asList(new IliasUser("a", "b", "c"), new IliasUser("d", "e", "f")))),
+                SectionSplicer.hashOf(new GroupUserModelFull(group1, Arrays.asList(new IliasUser("d", "e", "f"), new IliasUser("a", "b", "c")))));
+        assertFalse(SectionSplicer.hashOf(new GroupUserModelFull(group1, Collections.singletonList(new IliasUser("a", "b", "c"))))
+                .equals(SectionSplicer.hashOf(new GroupUserModelFull(group1, Collections.singletonList(new IliasUser("a", "b", "x"))))));
+    }
+
+    private String render(final String fileName, final String templateVersion, final List<GroupUserModelFull> groups) throws IOException {
+        return render(fileName, templateVersion, groups, new ArrayList<>());
+    }
+
+    /**
+     * Renders like a template iterating over the groups.
+     */
+    private String render(final String fileName, final String templateVersion, final List<GroupUserModelFull> groups,
+                          final List<GroupUserModelFull> rendered) throws IOException {
+        final Path outputFile = directory.resolve(fileName);
+        final SectionSplicer splicer = new SectionSplicer(groups.iterator(), templateVersion);
+        try (Writer writer = splicer.attach(Files.newBufferedWriter(outputFile, StandardCharsets.UTF_8), outputFile)) {
+            writer.write("<h>");
+            while (splicer.hasNext()) {
+                final GroupUserModelFull group = splicer.next();
+                rendered.add(group);
+                writer.write("[" + group.getGroupNode().getTitle() + ":");
+                group.getGroupMembers().stream().map(IliasUser::getLastName).sorted()
+                        .forEach(name -> write(writer, name + ","));
+                writer.write("]");
+            }
+            writer.write("</h>");
+            writer.flush();
+            splicer.complete();
+        }
+        return new String(Files.readAllBytes(outputFile), StandardCharsets.UTF_8);
+    }
+
+    private static void write(final Writer writer, final String value) {
+        try {
+            writer.write(value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.printer;
+
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class ShardedOutputTest {
+
+    @Test
+    public void shouldWriteEachGroupIntoItsOwnFileWithIndex() throws Exception {
+        // == prepare
+        final Path directory = Files.createTempDirectory("sharded");
+        final ShardedOutput output = new ShardedOutput((contextMap, writer) -> writer.write(String.valueOf(contextMap.get("title"))),
+                VelocityOutputPrinter.OutputType.HTML, directory);
+
+        // == go
+        final List<CompletableFuture<Void>> writes = IntStream.range(0, 8)
+                .mapToObj(i -> CompletableFuture.runAsync(() -> {
+                    try {
+                        output.write(new IliasNode(10 + i, IliasNode.Type.GROUP, "Group " + (8 - i)),
+                                Collections.singletonMap("title", "content " + i));
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }))
+                .collect(Collectors.toList());
+        CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[writes.size()])).join();
+        output.complete("Course <1>");
+
+        // == verify
+        final List<String> files = Files.list(directory).map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+        assertEquals(9, files.size());
+        assertTrue(files.contains(ShardedOutput.INDEX_FILE));
+        assertEquals("content 0", new String(Files.readAllBytes(directory.resolve("10_Group-8.html")), StandardCharsets.UTF_8));
+        final String index = new String(Files.readAllBytes(directory.resolve(ShardedOutput.INDEX_FILE)), StandardCharsets.UTF_8);
+        assertTrue(index.contains("<h1>Course &lt;1&gt;</h1>"));
+        assertTrue(index.indexOf("href=\"17_Group-1.html\"") < index.indexOf("href=\"10_Group-8.html\""));
+    }
+
+    @Test
+    public void shouldSanitizeFileNames() throws Exception {
+        assertEquals("Gruppe-1-Mo-10-12-Uhr", ShardedOutput.sanitize("Gruppe 1: Mo/10-12 Uhr"));
+        assertEquals("etc-passwd", ShardedOutput.sanitize("../etc/passwd"));
+    }
+}
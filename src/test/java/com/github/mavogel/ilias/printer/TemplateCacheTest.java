@@ -0,0 +1,72 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.printer;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class TemplateCacheTest {
+
+    private final AtomicInteger parses = new AtomicInteger();
+    private final Map<String, Long> versions = new HashMap<>();
+    private final TemplateCache<String> cache = new TemplateCache<>(
+            name -> name + "#" + parses.incrementAndGet(), name -> versions.getOrDefault(name, 0L));
+
+    @Test
+    public void shouldParseTemplateOnlyOnce() throws Exception {
+        // == go
+        final String first = cache.get("members.html.vm");
+        final String second = cache.get("members.html.vm");
+
+        // == verify
+        assertSame(first, second);
+        assertEquals(1, parses.get());
+    }
+
+    @Test
+    public void shouldParseAgainIfVersionChanged() throws Exception {
+        // == prepare
+        versions.put("members.html.vm", 1L);
+        cache.get("members.html.vm");
+        cache.get("members.tex.vm");
+
+        // == go
+        versions.put("members.html.vm", 2L);
+        final String reparsed = cache.get("members.html.vm");
+        cache.get("members.tex.vm");
+
+        // == verify
+        assertEquals("members.html.vm#3", reparsed);
+        assertEquals(3, parses.get());
+        assertEquals(2, cache.size());
+    }
+}
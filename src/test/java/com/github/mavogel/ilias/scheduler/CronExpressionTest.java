@@ -0,0 +1,107 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.scheduler;
+
+import org.junit.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.Assert.assertEquals;
+
+public class CronExpressionTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Berlin");
+
+    @Test
+    public void shouldFindNextMatchingMinuteOnTheSameDay() throws Exception {
+        // == prepare
+        CronExpression cron = new CronExpression("*/15 8-10 * * *");
+
+        // == go / verify
+        assertEquals(at(2016, 10, 3, 8, 15), cron.next(at(2016, 10, 3, 8, 0)));
+        assertEquals(at(2016, 10, 3, 8, 0), cron.next(at(2016, 10, 3, 7, 12)));
+        assertEquals(at(2016, 10, 4, 8, 0), cron.next(at(2016, 10, 3, 10, 45)));
+    }
+
+    @Test
+    public void shouldMatchNamedMonthsAndDaysOfWeek() throws Exception {
+        // == prepare
+        CronExpression cron = new CronExpression("30 2 * oct SUN");
+
+        // == go / verify: the 2nd of October 2016 is a Sunday
+        assertEquals(at(2016, 10, 2, 2, 30), cron.next(at(2016, 9, 15, 12, 0)));
+        assertEquals(at(2016, 10, 9, 2, 30), cron.next(at(2016, 10, 2, 2, 30)));
+        assertEquals(at(2017, 10, 1, 2, 30), cron.next(at(2016, 10, 30, 3, 0)));
+    }
+
+    @Test
+    public void shouldMatchEitherDayIfBothAreRestricted() throws Exception {
+        // == prepare: the 1st or each Monday
+        CronExpression cron = new CronExpression("0 0 1 * 1");
+
+        // == go / verify: the 3rd of October 2016 is a Monday
+        assertEquals(at(2016, 10, 1, 0, 0), cron.next(at(2016, 9, 30, 12, 0)));
+        assertEquals(at(2016, 10, 3, 0, 0), cron.next(at(2016, 10, 1, 0, 0)));
+    }
+
+    @Test
+    public void shouldTreatSevenAsSunday() throws Exception {
+        // == prepare
+        CronExpression cron = new CronExpression("0 12 * * 7");
+
+        // == go / verify
+        assertEquals(at(2016, 10, 2, 12, 0), cron.next(at(2016, 10, 1, 0, 0)));
+    }
+
+    @Test
+    public void shouldFindLeapDay() throws Exception {
+        // == prepare
+        CronExpression cron = new CronExpression("0 0 29 2 *");
+
+        // == go / verify
+        assertEquals(at(2020, 2, 29, 0, 0), cron.next(at(2016, 3, 1, 0, 0)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailOnMissingField() throws Exception {
+        new CronExpression("0 2 * *");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailOnValueOutOfRange() throws Exception {
+        new CronExpression("60 2 * * *");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailOnDayWhichNeverExists() throws Exception {
+        new CronExpression("0 0 30 2 *").next(at(2016, 1, 1, 0, 0));
+    }
+
+    private static ZonedDateTime at(final int year, final int month, final int day, final int hour, final int minute) {
+        return ZonedDateTime.of(year, month, day, hour, minute, 0, 0, ZONE);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.scheduler;
+
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class JobStateStoreTest {
+
+    @Test
+    public void shouldRestoreStateAfterRestart() throws Exception {
+        // == prepare
+        Path stateFile = Files.createTempDirectory("scheduler").resolve("scheduler.state");
+        Instant fireTime = Instant.ofEpochMilli(1475280000000L);
+        Instant finishedAt = fireTime.plusSeconds(42);
+
+        // == go
+        JobStateStore store = new JobStateStore(stateFile);
+        store.started("cleanup", fireTime);
+        store.finished("cleanup", finishedAt, 1);
+        JobStateStore restarted = new JobStateStore(stateFile);
+
+        // == verify
+        assertEquals(Optional.of(fireTime), restarted.getLastFire("cleanup"));
+        assertEquals(Optional.of(finishedAt), restarted.getLastFinish("cleanup"));
+        assertEquals(OptionalInt.of(1), restarted.getLastExitCode("cleanup"));
+        assertEquals(0, restarted.getRunning("cleanup"));
+        assertFalse(restarted.getLastFire("registration").isPresent());
+    }
+
+    @Test
+    public void shouldKeepInterruptedRunsUntilReset() throws Exception {
+        // == prepare
+        Path stateFile = Files.createTempDirectory("scheduler").resolve("scheduler.state");
+        new JobStateStore(stateFile).started("cleanup", Instant.now());
+
+        // == go
+        JobStateStore restarted = new JobStateStore(stateFile);
+        int interrupted = restarted.getRunning("cleanup");
+        restarted.resetRunning("cleanup");
+
+        // == verify
+        assertEquals(1, interrupted);
+        assertEquals(0, new JobStateStore(stateFile).getRunning("cleanup"));
+        assertFalse(restarted.getLastExitCode("cleanup").isPresent());
+    }
+
+    @Test
+    public void shouldIgnoreInvalidState() throws Exception {
+        // == prepare
+        Path stateFile = Files.createTempDirectory("scheduler").resolve("scheduler.state");
+        Files.write(stateFile, "cleanup.lastFire=yesterday\n".getBytes("UTF-8"));
+
+        // == go / verify
+        assertFalse(new JobStateStore(stateFile).getLastFire("cleanup").isPresent());
+    }
+}
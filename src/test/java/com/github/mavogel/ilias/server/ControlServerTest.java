@@ -0,0 +1,60 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.server;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ControlServerTest {
+
+    @Test
+    public void shouldAllowAddressesAndLocalhost() throws Exception {
+        // == go / verify
+        assertTrue(ControlServer.isAllowedHost("127.0.0.1:8080", "127.0.0.1"));
+        assertTrue(ControlServer.isAllowedHost("192.168.1.20:8080", "0.0.0.0"));
+        assertTrue(ControlServer.isAllowedHost("[::1]:8080", "127.0.0.1"));
+        assertTrue(ControlServer.isAllowedHost("localhost:8080", "127.0.0.1"));
+        assertTrue(ControlServer.isAllowedHost("LOCALHOST", "127.0.0.1"));
+    }
+
+    @Test
+    public void shouldAllowConfiguredAddress() throws Exception {
+        // == go / verify
+        assertTrue(ControlServer.isAllowedHost("tools.example.com:8080", "tools.example.com"));
+    }
+
+    @Test
+    public void shouldRefuseForeignOrMissingHost() throws Exception {
+        // == go / verify
+        assertFalse(ControlServer.isAllowedHost("attacker.example.com:8080", "127.0.0.1"));
+        assertFalse(ControlServer.isAllowedHost("127.0.0.1.attacker.example.com", "127.0.0.1"));
+        assertFalse(ControlServer.isAllowedHost("localhost.attacker.example.com:8080", "127.0.0.1"));
+        assertFalse(ControlServer.isAllowedHost("", "127.0.0.1"));
+        assertFalse(ControlServer.isAllowedHost(null, "127.0.0.1"));
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.server;
+
+import com.github.mavogel.ilias.executor.ActionResult;
+import com.github.mavogel.ilias.executor.GroupResult;
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.lib.model.LoginConfiguration;
+import com.github.mavogel.ilias.model.BatchJob;
+import com.github.mavogel.ilias.model.ToolConfiguration;
+import com.github.mavogel.ilias.state.BatchRun;
+import com.github.mavogel.ilias.state.DryRunPlan;
+import com.github.mavogel.ilias.state.states.action.GrantFileUploadToGroupMembersAction;
+import com.github.mavogel.ilias.wrapper.CallLatencies;
+import org.apache.commons.configuration2.MapConfiguration;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+
+public class JsonResponsesTest {
+
+    @Test
+    public void shouldRenderNodes() throws Exception {
+        // == go
+        String json = JsonResponses.nodes(Arrays.asList(
+                new IliasNode(1, IliasNode.Type.COURSE, "Software \"Engineering\""),
+                new IliasNode(2, IliasNode.Type.COURSE, null)));
+
+        // == verify
+        assertEquals("[{\"refId\":1,\"title\":\"Software \\\"Engineering\\\"\"},{\"refId\":2,\"title\":null}]", json);
+    }
+
+    @Test
+    public void shouldRenderError() throws Exception {
+        assertEquals("{\"error\":\"Course 1 is unknown\"}", JsonResponses.error("Course 1 is unknown"));
+    }
+
+    @Test
+    public void shouldRenderSucceededAndFailedGroupsOfRun() throws Exception {
+        // == prepare
+        BatchRun batchRun = createBatchRun();
+        IliasNode course = new IliasNode(1, IliasNode.Type.COURSE, "Course");
+        batchRun.record(course, new ActionResult("RemoveUsers", Arrays.asList(
+                GroupResult.success(new IliasNode(11, IliasNode.Type.GROUP, "Group 1")),
+                GroupResult.failure(new IliasNode(12, IliasNode.Type.GROUP, "Group 2"), new Exception("timeout")))));
+        batchRun.record(course, ActionResult.skipped("PrintGroupMembers"));
+
+        // == go
+        String json = JsonResponses.batchRun(batchRun);
+
+        // == verify
+        assertEquals("{\"exitCode\":1,\"courses\":[{\"course\":\"Course (refId 1)\",\"actions\":["
+                + "{\"action\":\"RemoveUsers\",\"skipped\":false,\"succeeded\":[{\"refId\":11,\"title\":\"Group 1\"}],"
+                + "\"failed\":[{\"refId\":12,\"title\":\"Group 2\",\"error\":\"timeout\"}]},"
+                + "{\"action\":\"PrintGroupMembers\",\"skipped\":true,\"succeeded\":[],\"failed\":[]}]}],\"errors\":[]}", json);
+    }
+
+    @Test
+    public void shouldRenderErrorsOfRun() throws Exception {
+        // == prepare
+        BatchRun batchRun = createBatchRun();
+        batchRun.fail("Course '1' was not found");
+
+        // == go
+        String json = JsonResponses.batchRun(batchRun);
+
+        // == verify
+        assertEquals("{\"exitCode\":2,\"courses\":[],\"errors\":[\"Course '1' was not found\"]}", json);
+    }
+
+    @Test
+    public void shouldRenderPlanOfDryRun() throws Exception {
+        // == prepare
+        BatchRun batchRun = createBatchRun();
+        LoginConfiguration loginConfiguration = LoginConfiguration.asLDAPLogin("myEndpoint", "client_id", "user", "pwd", 5);
+        batchRun.plan(new DryRunPlan(ToolConfiguration.withDefaults(loginConfiguration), new CallLatencies(), Optional.empty())
+                .add(new GrantFileUploadToGroupMembersAction(),
+                        Collections.singletonList(new IliasNode(11, IliasNode.Type.GROUP, "Group 1"))));
+
+        // == go
+        String json = JsonResponses.batchRun(batchRun);
+
+        // == verify
+        assertEquals("{\"exitCode\":0,\"courses\":[],\"errors\":[],\"plan\":[\"GrantFileUploadToGroupMembers on 1 groups\","
+                + "\"    grantFileUploadPermissionForMembers: 1 endpoint calls\","
+                + "\"In total 0 reading and 1 mutating endpoint calls, estimated duration unknown until a call was measured\"]}", json);
+    }
+
+    private static BatchRun createBatchRun() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("courses", "1");
+        properties.put("actions", "RemoveUsers");
+        return new BatchRun(new BatchJob(new MapConfiguration(properties)));
+    }
+}
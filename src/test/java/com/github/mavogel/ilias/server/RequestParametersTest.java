@@ -0,0 +1,77 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.server;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RequestParametersTest {
+
+    @Test
+    public void shouldParseQueryAndForm() throws Exception {
+        // == go
+        Map<String, String> parameters = RequestParameters.parse("courses=1234&groups=Gruppe+%5B0-9%5D%2B",
+                "maxMembers=20&registration.start=2016-10-01T08%3A00");
+
+        // == verify
+        assertEquals(Arrays.asList("courses", "groups", "maxMembers", "registration.start"),
+                Arrays.asList(parameters.keySet().toArray()));
+        assertEquals("1234", parameters.get("courses"));
+        assertEquals("Gruppe [0-9]+", parameters.get("groups"));
+        assertEquals("20", parameters.get("maxMembers"));
+        assertEquals("2016-10-01T08:00", parameters.get("registration.start"));
+    }
+
+    @Test
+    public void shouldJoinRepeatedParameters() throws Exception {
+        // == go
+        Map<String, String> parameters = RequestParameters.parse("courses=1&courses=Software%20Engineering", "courses=3");
+
+        // == verify
+        assertEquals("1,Software Engineering,3", parameters.get("courses"));
+    }
+
+    @Test
+    public void shouldAcceptMissingQueryAndEmptyValues() throws Exception {
+        // == go
+        Map<String, String> parameters = RequestParameters.parse(null, "template.HTML&&groups=");
+
+        // == verify
+        assertEquals("", parameters.get("template.HTML"));
+        assertEquals("", parameters.get("groups"));
+        assertEquals(2, parameters.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailOnInvalidEncoding() throws Exception {
+        RequestParameters.parse("groups=%zz", null);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.snapshot;
+
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.lib.model.LoginConfiguration;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+public class SnapshotStoreTest {
+
+    private final LoginConfiguration loginConfiguration = LoginConfiguration.asStandardLogin(
+            "https://ilias.example.com", "client", "user", "secret", 3);
+
+    @Test
+    public void shouldRestoreSavedSnapshot() throws Exception {
+        // == prepare
+        SnapshotStore store = new SnapshotStore(Files.createTempDirectory("snapshot"), loginConfiguration);
+        IliasNode course = new IliasNode(1, IliasNode.Type.COURSE, "Course");
+        List<IliasNode> groups = Arrays.asList(
+                new IliasNode(11, IliasNode.Type.GROUP, "Gruppe Ä"),
+                new IliasNode(12, IliasNode.Type.GROUP, "Group 2"));
+        CourseTreeSnapshot snapshot = CourseTreeSnapshot.empty()
+                .withCourses(Arrays.asList(course, new IliasNode(2, IliasNode.Type.COURSE, "Other")))
+                .withGroups(course, groups);
+
+        // == go
+        store.save(snapshot);
+        Optional<CourseTreeSnapshot> loaded = store.load();
+
+        // == verify
+        assertTrue(loaded.isPresent());
+        assertTrue(CourseTreeSnapshot.isSameNodes(snapshot.getCourses(), loaded.get().getCourses()));
+        assertTrue(CourseTreeSnapshot.isSameNodes(groups, loaded.get().getGroups(course).get()));
+        assertFalse(loaded.get().getGroups(new IliasNode(2, IliasNode.Type.COURSE, "Other")).isPresent());
+    }
+
+    @Test
+    public void shouldReturnEmptyIfNoSnapshotExists() throws Exception {
+        // == prepare
+        SnapshotStore store = new SnapshotStore(Files.createTempDirectory("snapshot"), loginConfiguration);
+
+        // == go / verify
+        assertFalse(store.load().isPresent());
+    }
+
+    @Test
+    public void shouldIgnoreCorruptSnapshot() throws Exception {
+        // == prepare
+        Path directory = Files.createTempDirectory("snapshot");
+        SnapshotStore store = new SnapshotStore(directory, loginConfiguration);
+        Files.write(store.getSnapshotFile(), new byte[]{1, 2, 3});
+
+        // == go / verify
+        assertFalse(store.load().isPresent());
+    }
+
+    @Test
+    public void shouldIgnoreSnapshotWithNegativeStringLength() throws Exception {
+        // == prepare
+        SnapshotStore store = new SnapshotStore(Files.createTempDirectory("snapshot"), loginConfiguration);
+        Files.write(store.getSnapshotFile(), snapshotWithCourseTypeLength(-2));
+
+        // == go / verify
+        assertFalse(store.load().isPresent());
+    }
+
+    @Test
+    public void shouldIgnoreSnapshotWithStringLengthBeyondTheFile() throws Exception {
+        // == prepare
+        SnapshotStore store = new SnapshotStore(Files.createTempDirectory("snapshot"), loginConfiguration);
+        Files.write(store.getSnapshotFile(), snapshotWithCourseTypeLength(Integer.MAX_VALUE));
+
+        // == go / verify
+        assertFalse(store.load().isPresent());
+    }
+
+    @Test
+    public void shouldKeepNotDiscoveredGroupsApartFromEmptyGroups() throws Exception {
+        // == prepare
+        SnapshotStore store = new SnapshotStore(Files.createTempDirectory("snapshot"), loginConfiguration);
+        IliasNode withoutGroups = new IliasNode(1, IliasNode.Type.COURSE, "Empty");
+        IliasNode notDiscovered = new IliasNode(2, IliasNode.Type.COURSE, "Unknown");
+        store.save(CourseTreeSnapshot.empty()
+                .withCourses(Arrays.asList(withoutGroups, notDiscovered))
+                .withGroups(withoutGroups, Collections.emptyList()));
+
+        // == go
+        CourseTreeSnapshot loaded = store.load().get();
+
+        // == verify
+        assertEquals(Optional.of(Collections.emptyList()), loaded.getGroups(withoutGroups));
+        assertFalse(loaded.getGroups(notDiscovered).isPresent());
+    }
+
+    private static byte[] snapshotWithCourseTypeLength(final int length) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0x494C5354);
+        out.writeShort(1);
+        out.writeLong(0L);
+        out.writeInt(1);
+        out.writeInt(1);
+        out.writeInt(length);
+        out.write(new byte[16]);
+        out.flush();
+        return bytes.toByteArray();
+    }
+}
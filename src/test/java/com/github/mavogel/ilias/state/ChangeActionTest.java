@@ -0,0 +1,59 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.state;
+
+import com.github.mavogel.ilias.state.states.action.GrantFileUploadToGroupMembersAction;
+import com.github.mavogel.ilias.state.states.action.RemoveUsersAction;
+import com.github.mavogel.ilias.state.states.action.SetMaxMembersAction;
+import com.github.mavogel.ilias.state.states.action.SetRegistrationPeriodAction;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChangeActionTest {
+
+    @Test
+    public void shouldNotOverlapSettingsActions() {
+        // == prepare
+        ChangeAction setMaxMembers = new SetMaxMembersAction();
+        ChangeAction setRegistrationPeriod = new SetRegistrationPeriodAction();
+
+        // == go / verify
+        assertTrue(setMaxMembers.conflictsWith(setRegistrationPeriod));
+        assertTrue(setRegistrationPeriod.conflictsWith(setMaxMembers));
+    }
+
+    @Test
+    public void shouldOverlapSettingsActionWithActionsOnOtherResources() {
+        // == prepare
+        ChangeAction setMaxMembers = new SetMaxMembersAction();
+
+        // == go / verify
+        assertFalse(setMaxMembers.conflictsWith(new RemoveUsersAction()));
+        assertFalse(setMaxMembers.conflictsWith(new GrantFileUploadToGroupMembersAction()));
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.state;
+
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.lib.model.LoginConfiguration;
+import com.github.mavogel.ilias.model.ToolConfiguration;
+import com.github.mavogel.ilias.state.states.action.PrintGroupMembersAction;
+import com.github.mavogel.ilias.state.states.action.RemoveUsersAction;
+import com.github.mavogel.ilias.state.states.action.SetMaxMembersAction;
+import com.github.mavogel.ilias.wrapper.CallLatencies;
+import com.github.mavogel.ilias.wrapper.EndpointCall;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class DryRunPlanTest {
+
+    private final List<IliasNode> groups = Arrays.asList(
+            new IliasNode(11, IliasNode.Type.GROUP, "Group 1"),
+            new IliasNode(12, IliasNode.Type.GROUP, "Group 2"),
+            new IliasNode(13, IliasNode.Type.GROUP, "Group 3"),
+            new IliasNode(14, IliasNode.Type.GROUP, "Group 4"));
+
+    private ToolConfiguration toolConfiguration;
+    private CallLatencies latencies;
+
+    @Before
+    public void setUp() throws Exception {
+        LoginConfiguration loginConfiguration = LoginConfiguration.asLDAPLogin("myEndpoint", "client_id", "user", "pwd", 5);
+        toolConfiguration = ToolConfiguration.withDefaults(loginConfiguration);
+        latencies = new CallLatencies();
+    }
+
+    @Test
+    public void shouldPredictCallsOfEachActionOnEachGroup() throws Exception {
+        // == go
+        DryRunPlan plan = new DryRunPlan(toolConfiguration, latencies, Optional.empty())
+                .add(new RemoveUsersAction(), groups)
+                .add(new SetMaxMembersAction(), groups)
+                .add(new PrintGroupMembersAction(), groups);
+
+        // == verify
+        Map<EndpointCall, Integer> expectedCalls = new EnumMap<>(EndpointCall.class);
+        expectedCalls.put(EndpointCall.MEMBERS, 4);
+        expectedCalls.put(EndpointCall.REMOVE_MEMBERS, 4);
+        expectedCalls.put(EndpointCall.SET_MAX_MEMBERS, 4);
+        assertEquals(expectedCalls, plan.getCalls());
+        assertEquals("RemoveUsers on 4 groups: members not cached", plan.describe().get(0));
+        assertEquals("    removeAllMembersFromGroups: 4 endpoint calls", plan.describe().get(1));
+    }
+
+    @Test
+    public void shouldEstimateDurationFromLatenciesAndConcurrency() throws Exception {
+        // == prepare
+        latencies.record(EndpointCall.REMOVE_MEMBERS, 2_000_000_000L);
+
+        // == go
+        DryRunPlan plan = new DryRunPlan(toolConfiguration, latencies, Optional.empty())
+                .add(new RemoveUsersAction(), groups)
+                .add(new SetMaxMembersAction(), groups);
+
+        // == verify
+        // 8 mutating calls of 2 s each, 4 at the same time
+        assertEquals(Optional.of(Duration.ofSeconds(4)), plan.estimateDuration());
+    }
+
+    @Test
+    public void shouldEstimateDurationFromCallsPerSecond() throws Exception {
+        // == prepare
+        latencies.record(EndpointCall.REMOVE_MEMBERS, 1_000_000L);
+
+        // == go
+        DryRunPlan plan = new DryRunPlan(toolConfiguration, latencies, Optional.empty())
+                .add(new RemoveUsersAction(), groups)
+                .add(new SetMaxMembersAction(), groups);
+
+        // == verify
+        // 8 calls with at most 20 per second
+        assertEquals(Optional.of(Duration.ofMillis(400)), plan.estimateDuration());
+    }
+
+    @Test
+    public void shouldNotEstimateDurationWithoutMeasuredLatencies() throws Exception {
+        // == go
+        DryRunPlan plan = new DryRunPlan(toolConfiguration, latencies, Optional.empty())
+                .add(new RemoveUsersAction(), groups);
+
+        // == verify
+        assertFalse(plan.estimateDuration().isPresent());
+        assertEquals("In total 0 reading and 4 mutating endpoint calls, estimated duration unknown until a call was measured",
+                plan.describe().get(2));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.state;
+
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.lib.model.LoginConfiguration;
+import com.github.mavogel.ilias.lib.wrapper.AbstractIliasEndpoint;
+import com.github.mavogel.ilias.lib.wrapper.DisplayStatus;
+import com.github.mavogel.ilias.model.ToolConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class SharedSessionTest {
+
+    private ToolStateMachine owner;
+    private AbstractIliasEndpoint endpoint;
+    private SharedSession session;
+
+    @Before
+    public void setUp() throws Exception {
+        owner = ToolStateMachine.forSharedSession(ToolConfiguration.withDefaults(LoginConfiguration.asStandardLogin(
+                "https://ilias.example.com", "client", "user", "secret", 3)));
+        endpoint = Mockito.mock(AbstractIliasEndpoint.class);
+        owner.setEndpoint(endpoint);
+        session = new SharedSession(owner);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        owner.stop();
+    }
+
+    @Test
+    public void shouldKeepSessionIfCallSucceedsOnSecondAttempt() throws Exception {
+        // == train
+        Mockito.when(endpoint.getCoursesForUser(DisplayStatus.ADMIN))
+                .thenThrow(new IllegalStateException("hiccup"))
+                .thenReturn(Collections.<IliasNode>emptyList());
+
+        // == go
+        session.keepAlive();
+
+        // == verify
+        Mockito.verify(endpoint, Mockito.times(2)).getCoursesForUser(DisplayStatus.ADMIN);
+        Mockito.verify(endpoint, Mockito.never()).logout(Mockito.anyString());
+        assertNotNull(owner.getEndpoint());
+    }
+
+    @Test
+    public void shouldLogoutAndDropExpiredSession() throws Exception {
+        // == train
+        Mockito.when(endpoint.getCoursesForUser(DisplayStatus.ADMIN)).thenThrow(new IllegalStateException("expired"));
+        Mockito.doThrow(new IllegalStateException("expired")).when(endpoint).logout(Mockito.anyString());
+
+        // == go
+        session.keepAlive();
+
+        // == verify
+        Mockito.verify(endpoint, Mockito.times(2)).getCoursesForUser(DisplayStatus.ADMIN);
+        Mockito.verify(endpoint, Mockito.times(1)).logout(Mockito.anyString());
+        assertNull(owner.getEndpoint());
+    }
+
+    @Test
+    public void shouldNotCallIfNotLoggedIn() throws Exception {
+        // == prepare
+        owner.setEndpoint(null);
+
+        // == go
+        session.keepAlive();
+
+        // == verify
+        Mockito.verifyZeroInteractions(endpoint);
+    }
+}
@@ -29,8 +29,12 @@ import com.github.mavogel.ilias.lib.model.*;
 import com.github.mavogel.ilias.lib.wrapper.AbstractIliasEndpoint;
 import com.github.mavogel.ilias.lib.wrapper.DisplayStatus;
 import com.github.mavogel.ilias.lib.wrapper.soap.SoapEndpoint;
+import com.github.mavogel.ilias.executor.ActionResult;
+import com.github.mavogel.ilias.model.BatchJob;
 import com.github.mavogel.ilias.model.RegistrationPeriod;
+import com.github.mavogel.ilias.printer.MembersExporter;
 import com.github.mavogel.ilias.printer.VelocityOutputPrinter;
+import com.github.mavogel.ilias.utils.ConfigurationsUtils;
 import com.github.mavogel.ilias.utils.IOUtils;
 import org.junit.Before;
 import org.junit.Test;
@@ -43,7 +47,12 @@ import org.powermock.modules.junit4.PowerMockRunner;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Created by mavogel on 6/21/17.
@@ -52,9 +61,14 @@ import java.util.List;
  */
 @RunWith(PowerMockRunner.class)
 @PrepareForTest({ToolStateMachine.class, WorkflowTest.class, IOUtils.class,
-        AbstractIliasEndpoint.class, SoapEndpoint.class, EndpointBuilder.class, VelocityOutputPrinter.class})
+        AbstractIliasEndpoint.class, SoapEndpoint.class, EndpointBuilder.class, VelocityOutputPrinter.class,
+        MembersExporter.class})
 public class WorkflowTest {
 
+    private static final String FILE_SEP = System.getProperty("file.separator");
+    private static final String TEST_RES_DIR = System.getProperty("user.dir") + FILE_SEP + "src" + FILE_SEP + "test"
+            + FILE_SEP + "resources" + FILE_SEP;
+
     private LoginConfiguration loginConfiguration;
     private AbstractIliasEndpoint endpointMock;
     private UserDataIds userDateIds;
@@ -90,14 +104,18 @@ public class WorkflowTest {
 
         // == train
         PowerMockito.when(endpointMock.getCoursesForUser(DisplayStatus.ADMIN)).thenReturn(courses);
-        PowerMockito.when(IOUtils.readAndParseSingleChoiceFromUser(Mockito.anyList())).thenReturn(0, 2);
+        // 0: choose course; 2: quit
+        PowerMockito.when(IOUtils.readAndParseChoicesFromUser(Mockito.anyList())).thenReturn(Arrays.asList(0));
+        PowerMockito.when(IOUtils.readAndParseSingleChoiceFromUser(Mockito.anyList())).thenReturn(2);
 
         // == go
         createToolStateMachine().start();
 
         // == verify
         Mockito.verify(endpointMock, Mockito.times(1)).getCoursesForUser(DisplayStatus.ADMIN);
-        PowerMockito.verifyStatic(Mockito.times(2));
+        PowerMockito.verifyStatic(Mockito.times(1));
+        IOUtils.readAndParseChoicesFromUser(Mockito.anyList());
+        PowerMockito.verifyStatic(Mockito.times(1));
         IOUtils.readAndParseSingleChoiceFromUser(Mockito.anyList());
     }
 
@@ -113,28 +131,74 @@ public class WorkflowTest {
         // == train
         PowerMockito.when(endpointMock.getCoursesForUser(DisplayStatus.ADMIN)).thenReturn(courses);
         PowerMockito.when(endpointMock.getGroupsFromCourse(courses.get(0))).thenReturn(groups);
-        // 0: choose course; 1: actionsOnGroups; 1 quit
-        PowerMockito.when(IOUtils.readAndParseSingleChoiceFromUser(Mockito.anyList())).thenReturn(0, 1, 1);
+        // 1: actionsOnGroups; 1 quit
+        PowerMockito.when(IOUtils.readAndParseSingleChoiceFromUser(Mockito.anyList())).thenReturn(1, 1);
 
         PowerMockito.when(IOUtils.readAndParseChoicesFromUser(Mockito.anyList()))
+                // 0: choose course;
+                .thenReturn(Arrays.asList(0))
                 // 0,1,2: choosen groups;
                 .thenReturn(Arrays.asList(0, 1, 2))
                 // 1: remove users action
                 .thenReturn(Arrays.asList(1));
 
         PowerMockito.when(IOUtils.readAndParseUserConfirmation()).thenReturn(true);
-        PowerMockito.doNothing().when(endpointMock, "removeAllMembersFromGroups", groups);
 
         // == go
         createToolStateMachine().start();
 
         // == verify
         Mockito.verify(endpointMock, Mockito.times(1)).getCoursesForUser(DisplayStatus.ADMIN);
+        PowerMockito.verifyStatic(Mockito.times(2));
+        IOUtils.readAndParseSingleChoiceFromUser(Mockito.anyList());
+        PowerMockito.verifyStatic(Mockito.times(3));
+        IOUtils.readAndParseChoicesFromUser(Mockito.anyList());
+        for (IliasNode group : groups) {
+            Mockito.verify(endpointMock, Mockito.times(1)).removeAllMembersFromGroups(Collections.singletonList(group));
+        }
+    }
+
+    @Test
+    public void shouldFind3GroupsInOneCourseAndRemoveUsersAndRepeatGrantFileUploadWithoutFindingThemAgain() throws Exception {
+        // == prepare
+        final List<IliasNode> courses = Arrays.asList(new IliasNode(1, IliasNode.Type.COURSE, "My Course"));
+        final List<IliasNode> groups = Arrays.asList(
+                new IliasNode(11, IliasNode.Type.GROUP, "Group 1"),
+                new IliasNode(12, IliasNode.Type.GROUP, "Group 2"),
+                new IliasNode(13, IliasNode.Type.GROUP, "Group 3"));
+
+        // == train
+        PowerMockito.when(endpointMock.getCoursesForUser(DisplayStatus.ADMIN)).thenReturn(courses);
+        PowerMockito.when(endpointMock.getGroupsFromCourse(courses.get(0))).thenReturn(groups);
+        // 1: actionsOnGroups; 3: repeatActions; 1 quit
+        PowerMockito.when(IOUtils.readAndParseSingleChoiceFromUser(Mockito.anyList())).thenReturn(1, 3, 1);
+
+        PowerMockito.when(IOUtils.readAndParseChoicesFromUser(Mockito.anyList()))
+                // 0: choose course;
+                .thenReturn(Arrays.asList(0))
+                // 0,1,2: choosen groups;
+                .thenReturn(Arrays.asList(0, 1, 2))
+                // 1: remove users action
+                .thenReturn(Arrays.asList(1))
+                // 4: grant file upload action on the same groups
+                .thenReturn(Arrays.asList(4));
+
+        PowerMockito.when(IOUtils.readAndParseUserConfirmation()).thenReturn(true);
+
+        // == go
+        createToolStateMachine().start();
+
+        // == verify
+        Mockito.verify(endpointMock, Mockito.times(1)).getCoursesForUser(DisplayStatus.ADMIN);
+        Mockito.verify(endpointMock, Mockito.times(1)).getGroupsFromCourse(courses.get(0));
         PowerMockito.verifyStatic(Mockito.times(3));
         IOUtils.readAndParseSingleChoiceFromUser(Mockito.anyList());
-        PowerMockito.verifyStatic(Mockito.times(2));
+        PowerMockito.verifyStatic(Mockito.times(4));
         IOUtils.readAndParseChoicesFromUser(Mockito.anyList());
-        Mockito.verify(endpointMock, Mockito.times(1)).removeAllMembersFromGroups(groups);
+        for (IliasNode group : groups) {
+            Mockito.verify(endpointMock, Mockito.times(1)).removeAllMembersFromGroups(Collections.singletonList(group));
+            Mockito.verify(endpointMock, Mockito.times(1)).grantFileUploadPermissionForMembers(Collections.singletonList(group));
+        }
     }
 
     @Test
@@ -153,18 +217,19 @@ public class WorkflowTest {
         // == train
         PowerMockito.when(endpointMock.getCoursesForUser(DisplayStatus.ADMIN)).thenReturn(courses);
         PowerMockito.when(endpointMock.getGroupsFromCourse(courses.get(0))).thenReturn(groups);
-        // 0: choose course; 1: actionsOnGroups; 1 quit
-        PowerMockito.when(IOUtils.readAndParseSingleChoiceFromUser(Mockito.anyList())).thenReturn(0, 1, 1);
+        // 1: actionsOnGroups; 1 quit
+        PowerMockito.when(IOUtils.readAndParseSingleChoiceFromUser(Mockito.anyList())).thenReturn(1, 1);
 
         PowerMockito.when(IOUtils.readAndParseChoicesFromUser(Mockito.anyList()))
+                // 0: choose course;
+                .thenReturn(Arrays.asList(0))
                 // 0,1,2,3: choosen groups;
                 .thenReturn(Arrays.asList(0, 1, 2, 3))
                 // 0: remove uploaded material; 1: remove users action
                 .thenReturn(Arrays.asList(0, 1));
 
         PowerMockito.when(IOUtils.readAndParseUserConfirmation()).thenReturn(true);
-        PowerMockito.doNothing().when(endpointMock, "removeAllMembersFromGroups", groups);
-        PowerMockito.when(endpointMock.getFilesFromGroups(groups)).thenReturn(files);
+        PowerMockito.when(endpointMock.getFilesFromGroups(Collections.singletonList(groups.get(0)))).thenReturn(files);
         PowerMockito.doNothing().when(endpointMock, "deleteObjectNodes", files);
 
         // == go
@@ -173,14 +238,16 @@ public class WorkflowTest {
         // == verify
         Mockito.verify(endpointMock, Mockito.times(1)).getCoursesForUser(DisplayStatus.ADMIN);
 
-        PowerMockito.verifyStatic(Mockito.times(3));
+        PowerMockito.verifyStatic(Mockito.times(2));
         IOUtils.readAndParseSingleChoiceFromUser(Mockito.anyList());
 
-        PowerMockito.verifyStatic(Mockito.times(2));
+        PowerMockito.verifyStatic(Mockito.times(3));
         IOUtils.readAndParseChoicesFromUser(Mockito.anyList());
 
-        Mockito.verify(endpointMock, Mockito.times(1)).removeAllMembersFromGroups(groups);
-        Mockito.verify(endpointMock, Mockito.times(1)).getFilesFromGroups(groups);
+        for (IliasNode group : groups) {
+            Mockito.verify(endpointMock, Mockito.times(1)).removeAllMembersFromGroups(Collections.singletonList(group));
+            Mockito.verify(endpointMock, Mockito.times(1)).getFilesFromGroups(Collections.singletonList(group));
+        }
         Mockito.verify(endpointMock, Mockito.times(1)).deleteObjectNodes(files);
     }
 
@@ -199,10 +266,12 @@ public class WorkflowTest {
         // == train
         PowerMockito.when(endpointMock.getCoursesForUser(DisplayStatus.ADMIN)).thenReturn(courses);
         PowerMockito.when(endpointMock.getGroupsFromCourse(courses.get(0))).thenReturn(groups);
-        // 0: choose course; 1: actionsOnGroups; 1 quit
-        PowerMockito.when(IOUtils.readAndParseSingleChoiceFromUser(Mockito.anyList())).thenReturn(0, 1, 1);
+        // 1: actionsOnGroups; 1 quit
+        PowerMockito.when(IOUtils.readAndParseSingleChoiceFromUser(Mockito.anyList())).thenReturn(1, 1);
 
         PowerMockito.when(IOUtils.readAndParseChoicesFromUser(Mockito.anyList()))
+                // 0: choose course;
+                .thenReturn(Arrays.asList(0))
                 // 0,1,2,3: choosen groups;
                 .thenReturn(Arrays.asList(0, 1, 2, 3))
                 // 2: remove set reg period; 3: set max users; 4: grant file upload permission
@@ -211,10 +280,6 @@ public class WorkflowTest {
         PowerMockito.when(IOUtils.readAndParseUserConfirmation()).thenReturn(true);
         PowerMockito.when(IOUtils.readAndParseRegistrationDates()).thenReturn(registrationPeriod);
         PowerMockito.when(IOUtils.readAndParsePositiveInteger()).thenReturn(6);
-        PowerMockito.doNothing().when(endpointMock, "setRegistrationDatesOnGroups",
-                groups, registrationPeriod.getRegistrationStart(), registrationPeriod.getRegistrationEnd());
-        PowerMockito.doNothing().when(endpointMock, "setMaxMembersOnGroups", groups, 6);
-        PowerMockito.doNothing().when(endpointMock, "grantFileUploadPermissionForMembers", groups);
 
         // == go
         createToolStateMachine().start();
@@ -222,10 +287,10 @@ public class WorkflowTest {
         // == verify
         Mockito.verify(endpointMock, Mockito.times(1)).getCoursesForUser(DisplayStatus.ADMIN);
 
-        PowerMockito.verifyStatic(Mockito.times(3));
+        PowerMockito.verifyStatic(Mockito.times(2));
         IOUtils.readAndParseSingleChoiceFromUser(Mockito.anyList());
 
-        PowerMockito.verifyStatic(Mockito.times(2));
+        PowerMockito.verifyStatic(Mockito.times(3));
         IOUtils.readAndParseChoicesFromUser(Mockito.anyList());
 
         PowerMockito.verifyStatic(Mockito.times(1));
@@ -234,10 +299,12 @@ public class WorkflowTest {
         PowerMockito.verifyStatic(Mockito.times(1));
         IOUtils.readAndParsePositiveInteger();
 
-        Mockito.verify(endpointMock, Mockito.times(1)).setRegistrationDatesOnGroups(
-                groups, registrationPeriod.getRegistrationStart(), registrationPeriod.getRegistrationEnd());
-        Mockito.verify(endpointMock, Mockito.times(1)).setMaxMembersOnGroups(groups, 6);
-        Mockito.verify(endpointMock, Mockito.times(1)).grantFileUploadPermissionForMembers(groups);
+        for (IliasNode group : groups) {
+            Mockito.verify(endpointMock, Mockito.times(1)).setRegistrationDatesOnGroups(Collections.singletonList(group),
+                    registrationPeriod.getRegistrationStart(), registrationPeriod.getRegistrationEnd());
+            Mockito.verify(endpointMock, Mockito.times(1)).setMaxMembersOnGroups(Collections.singletonList(group), 6);
+            Mockito.verify(endpointMock, Mockito.times(1)).grantFileUploadPermissionForMembers(Collections.singletonList(group));
+        }
     }
 
     @Test
@@ -268,11 +335,16 @@ public class WorkflowTest {
         // == train
         PowerMockito.when(endpointMock.getCoursesForUser(DisplayStatus.ADMIN)).thenReturn(courses);
         PowerMockito.when(endpointMock.getGroupsFromCourse(courses.get(0))).thenReturn(groups);
-        PowerMockito.when(endpointMock.getUsersForGroups(groups)).thenReturn(users);
-        // 0: choose course; 1: actionsOnGroups; 1 quit
-        PowerMockito.when(IOUtils.readAndParseSingleChoiceFromUser(Mockito.anyList())).thenReturn(0, 1, 1);
+        for (int i = 0; i < groups.size(); i++) {
+            PowerMockito.when(endpointMock.getUsersForGroups(Collections.singletonList(groups.get(i))))
+                    .thenReturn(Collections.singletonList(users.get(i)));
+        }
+        // 1: actionsOnGroups; 1 quit
+        PowerMockito.when(IOUtils.readAndParseSingleChoiceFromUser(Mockito.anyList())).thenReturn(1, 1);
 
         PowerMockito.when(IOUtils.readAndParseChoicesFromUser(Mockito.anyList()))
+                // 0: choose course;
+                .thenReturn(Arrays.asList(0))
                 // 0,1,2,3: choosen groups;
                 .thenReturn(Arrays.asList(0, 1, 2, 3))
                 // 5: print group members
@@ -293,10 +365,10 @@ public class WorkflowTest {
         // == verify
         Mockito.verify(endpointMock, Mockito.times(1)).getCoursesForUser(DisplayStatus.ADMIN);
 
-        PowerMockito.verifyStatic(Mockito.times(3));
+        PowerMockito.verifyStatic(Mockito.times(2));
         IOUtils.readAndParseSingleChoiceFromUser(Mockito.anyList());
 
-        PowerMockito.verifyStatic(Mockito.times(3));
+        PowerMockito.verifyStatic(Mockito.times(4));
         IOUtils.readAndParseChoicesFromUser(Mockito.anyList());
 
         PowerMockito.verifyStatic(Mockito.times(2));
@@ -306,6 +378,84 @@ public class WorkflowTest {
         VelocityOutputPrinter.print(Mockito.any(VelocityOutputPrinter.OutputType.class), Mockito.anyString(), Mockito.anyMap());
     }
 
+    @Test
+    public void shouldRunJobWithoutAnyPromptAndSucceed() throws Exception {
+        // == prepare
+        final IliasNode courseById = new IliasNode(1234, IliasNode.Type.COURSE, "Algorithms");
+        final IliasNode courseByTitle = new IliasNode(5678, IliasNode.Type.COURSE, "Software Engineering");
+        final IliasNode otherCourse = new IliasNode(9999, IliasNode.Type.COURSE, "Databases");
+        final List<IliasNode> groupsById = Arrays.asList(
+                new IliasNode(11, IliasNode.Type.GROUP, "Gruppe 1"),
+                new IliasNode(12, IliasNode.Type.GROUP, "Gruppe 2"),
+                new IliasNode(13, IliasNode.Type.GROUP, "Tutoren"));
+        final List<IliasNode> groupsByTitle = Collections.singletonList(new IliasNode(21, IliasNode.Type.GROUP, "Gruppe 1"));
+
+        // == train
+        PowerMockito.when(endpointMock.getCoursesForUser(DisplayStatus.ADMIN))
+                .thenReturn(Arrays.asList(courseById, courseByTitle, otherCourse));
+        PowerMockito.when(endpointMock.getGroupsFromCourse(courseById)).thenReturn(groupsById);
+        PowerMockito.when(endpointMock.getGroupsFromCourse(courseByTitle)).thenReturn(groupsByTitle);
+        trainMembersOf(groupsById);
+        trainMembersOf(groupsByTitle);
+        mockOutputs();
+
+        // == go
+        final BatchRun batchRun = runJob();
+
+        // == verify
+        Mockito.verify(endpointMock, Mockito.never()).getGroupsFromCourse(otherCourse);
+        for (IliasNode group : Arrays.asList(groupsById.get(0), groupsById.get(1), groupsByTitle.get(0))) {
+            Mockito.verify(endpointMock, Mockito.times(1)).setMaxMembersOnGroups(Collections.singletonList(group), 20);
+        }
+        Mockito.verify(endpointMock, Mockito.never()).setMaxMembersOnGroups(Collections.singletonList(groupsById.get(2)), 20);
+        verifyNoPrompt();
+        PowerMockito.verifyStatic(Mockito.times(2));
+        VelocityOutputPrinter.print(Mockito.eq(VelocityOutputPrinter.OutputType.HTML), Mockito.eq(""), Mockito.anyMap());
+        PowerMockito.verifyStatic(Mockito.times(2));
+        MembersExporter.export(Mockito.eq(VelocityOutputPrinter.OutputType.CSV), Mockito.anyString(), Mockito.any(Iterator.class));
+
+        assertTrue(batchRun.getErrors().isEmpty());
+        assertEquals(Arrays.asList("Algorithms (refId 1234)", "Software Engineering (refId 5678)"),
+                Arrays.asList(batchRun.getResultsByCourse().keySet().toArray()));
+        for (List<ActionResult> results : batchRun.getResultsByCourse().values()) {
+            assertEquals(Arrays.asList("SetMaxMembers", "PrintGroupMembers"),
+                    results.stream().map(ActionResult::getActionName).collect(Collectors.toList()));
+            assertTrue(results.stream().allMatch(ActionResult::isSuccess));
+        }
+        assertEquals(2, batchRun.getResultsByCourse().get("Algorithms (refId 1234)").get(0).getGroupResults().size());
+        assertEquals(BatchRun.EXIT_SUCCESS, batchRun.getExitCode());
+    }
+
+    @Test
+    public void shouldRunJobOnFoundCourseAndFailForMissingCourse() throws Exception {
+        // == prepare
+        final IliasNode courseById = new IliasNode(1234, IliasNode.Type.COURSE, "Algorithms");
+        final List<IliasNode> groups = Arrays.asList(
+                new IliasNode(11, IliasNode.Type.GROUP, "Gruppe 1"),
+                new IliasNode(12, IliasNode.Type.GROUP, "Gruppe 2"));
+
+        // == train
+        PowerMockito.when(endpointMock.getCoursesForUser(DisplayStatus.ADMIN)).thenReturn(Collections.singletonList(courseById));
+        PowerMockito.when(endpointMock.getGroupsFromCourse(courseById)).thenReturn(groups);
+        trainMembersOf(groups);
+        mockOutputs();
+
+        // == go
+        final BatchRun batchRun = runJob();
+
+        // == verify
+        for (IliasNode group : groups) {
+            Mockito.verify(endpointMock, Mockito.times(1)).setMaxMembersOnGroups(Collections.singletonList(group), 20);
+        }
+        verifyNoPrompt();
+
+        assertEquals(Collections.singletonList("Found no course 'Software Engineering' you're admin of"), batchRun.getErrors());
+        assertEquals(Collections.singletonList("Algorithms (refId 1234)"),
+                Arrays.asList(batchRun.getResultsByCourse().keySet().toArray()));
+        assertTrue(batchRun.getResultsByCourse().get("Algorithms (refId 1234)").stream().allMatch(ActionResult::isSuccess));
+        assertEquals(BatchRun.EXIT_ERROR, batchRun.getExitCode());
+    }
+
     ////////////////
     // HELPERS
     ////////////////
@@ -327,4 +477,45 @@ public class WorkflowTest {
         return new ToolStateMachine(loginConfiguration);
     }
 
+    /**
+     * Runs testJob.properties with testConfig.properties like <code>--job</code> does.
+     */
+    private BatchRun runJob() throws Exception {
+        final BatchJob batchJob = ConfigurationsUtils.createBatchJob(TEST_RES_DIR + "testJob.properties");
+        final ToolStateMachine stateMachine = new ToolStateMachine(
+                ConfigurationsUtils.createToolConfiguration(TEST_RES_DIR + "testConfig.properties"), batchJob);
+        PowerMockito.when(EndpointBuilder.build(Mockito.any(EndpointBuilder.Type.class), Mockito.any(LoginConfiguration.class)))
+                .thenReturn(endpointMock);
+
+        stateMachine.start();
+
+        final BatchRun batchRun = stateMachine.getBatchRun().get();
+        batchRun.logSummary();
+        return batchRun;
+    }
+
+    private void trainMembersOf(final List<IliasNode> groups) throws Exception {
+        for (IliasNode group : groups) {
+            PowerMockito.when(endpointMock.getUsersForGroups(Collections.singletonList(group))).thenReturn(
+                    Collections.singletonList(new GroupUserModelFull(group,
+                            Collections.singletonList(new IliasUser("Max", "Mustermann", "max@example.com")))));
+        }
+    }
+
+    private void mockOutputs() {
+        PowerMockito.mockStatic(VelocityOutputPrinter.class);
+        PowerMockito.mockStatic(MembersExporter.class);
+    }
+
+    private void verifyNoPrompt() {
+        PowerMockito.verifyStatic(Mockito.never());
+        IOUtils.readAndParseUserConfirmation();
+        PowerMockito.verifyStatic(Mockito.never());
+        IOUtils.readAndParseChoicesFromUser(Mockito.anyList());
+        PowerMockito.verifyStatic(Mockito.never());
+        IOUtils.readAndParseSingleChoiceFromUser(Mockito.anyList());
+        PowerMockito.verifyStatic(Mockito.never());
+        IOUtils.readLine();
+    }
+
 }
@@ -0,0 +1,181 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.state.states.action;
+
+import com.github.mavogel.ilias.lib.model.GroupUserModelFull;
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.lib.model.IliasUser;
+import com.github.mavogel.ilias.lib.wrapper.IliasEndpoint;
+import com.github.mavogel.ilias.model.ActionParameters;
+import com.github.mavogel.ilias.printer.VelocityOutputPrinter;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+
+public class PrintGroupMembersActionTest {
+
+    private final IliasNode group1 = new IliasNode(11, IliasNode.Type.GROUP, "Group 1");
+    private final IliasNode group2 = new IliasNode(12, IliasNode.Type.GROUP, "Group 2");
+    private final IliasNode group3 = new IliasNode(13, IliasNode.Type.GROUP, "Group 3");
+
+    @Test
+    public void shouldFetchMembersOfEachGroupOnceForAllRenders() throws Exception {
+        // == prepare
+        final IliasEndpoint endpoint = Mockito.mock(IliasEndpoint.class);
+        final Map<Integer, Exception> failures = new ConcurrentHashMap<>();
+        final PrintGroupMembersAction.SharedMembers members = new PrintGroupMembersAction.SharedMembers(endpoint,
+                Arrays.asList(group1, group2, group3), failures);
+
+        // == train
+        Mockito.when(endpoint.getUsersForGroups(Collections.singletonList(group1))).thenReturn(Collections.singletonList(
+                new GroupUserModelFull(group1, Collections.singletonList(new IliasUser("f1", "n1", "mail1")))));
+        Mockito.when(endpoint.getUsersForGroups(Collections.singletonList(group2))).thenThrow(new IllegalStateException("no permission"));
+        Mockito.when(endpoint.getUsersForGroups(Collections.singletonList(group3))).thenReturn(Collections.singletonList(
+                new GroupUserModelFull(group3, Collections.singletonList(new IliasUser("f3", "n3", "mail3")))));
+
+        // == go
+        final Iterator<GroupUserModelFull> html = members.open().iterator();
+        final Iterator<GroupUserModelFull> latex = members.open().iterator();
+        final List<Integer> htmlGroups = new ArrayList<>();
+        final List<Integer> latexGroups = new ArrayList<>();
+        html.forEachRemaining(group -> htmlGroups.add(group.getGroupNode().getRefId()));
+        latex.forEachRemaining(group -> latexGroups.add(group.getGroupNode().getRefId()));
+
+        // == verify
+        assertEquals(Arrays.asList(11, 13), htmlGroups);
+        assertEquals(Arrays.asList(11, 13), latexGroups);
+        assertEquals(Collections.singleton(12), failures.keySet());
+        Mockito.verify(endpoint, Mockito.times(3)).getUsersForGroups(Mockito.anyList());
+        assertEquals(0, members.keptGroups());
+    }
+
+    @Test
+    public void shouldKeepMembersOnlyForLiveRenders() throws Exception {
+        // == prepare
+        final IliasEndpoint endpoint = Mockito.mock(IliasEndpoint.class);
+        final PrintGroupMembersAction.SharedMembers members = new PrintGroupMembersAction.SharedMembers(endpoint,
+                Arrays.asList(group1, group2, group3), new ConcurrentHashMap<>());
+        final PrintGroupMembersAction.SharedMembers.Cursor html = members.open();
+        final PrintGroupMembersAction.SharedMembers.Cursor latex = members.open();
+        final PrintGroupMembersAction.SharedMembers.Cursor failing = members.open();
+
+        // == train
+        Mockito.when(endpoint.getUsersForGroups(Mockito.anyList())).thenAnswer(invocation -> Collections.singletonList(
+                new GroupUserModelFull(((List<IliasNode>) invocation.getArguments()[0]).get(0), Collections.emptyList())));
+
+        // == go
+        final Iterator<GroupUserModelFull> htmlGroups = html.iterator();
+        htmlGroups.next();
+        htmlGroups.next();
+        final Iterator<GroupUserModelFull> latexGroups = latex.iterator();
+        latexGroups.next();
+        final int keptWhileFailingRenderIsLive = members.keptGroups();
+        failing.close();
+        final int keptAfterFailingRenderClosed = members.keptGroups();
+        latex.close();
+
+        // == verify
+        assertEquals(2, keptWhileFailingRenderIsLive);
+        assertEquals(1, keptAfterFailingRenderClosed);
+        assertEquals(0, members.keptGroups());
+        Mockito.verify(endpoint, Mockito.times(2)).getUsersForGroups(Mockito.anyList());
+    }
+
+    @Test
+    public void shouldFetchAgainIfRenderIteratesTwice() throws Exception {
+        // == prepare
+        final IliasEndpoint endpoint = Mockito.mock(IliasEndpoint.class);
+        final PrintGroupMembersAction.SharedMembers members = new PrintGroupMembersAction.SharedMembers(endpoint,
+                Arrays.asList(group1, group2), new ConcurrentHashMap<>());
+        final PrintGroupMembersAction.SharedMembers.Cursor html = members.open();
+        final PrintGroupMembersAction.SharedMembers.Cursor latex = members.open();
+
+        // == train
+        Mockito.when(endpoint.getUsersForGroups(Mockito.anyList())).thenAnswer(invocation -> Collections.singletonList(
+                new GroupUserModelFull(((List<IliasNode>) invocation.getArguments()[0]).get(0), Collections.emptyList())));
+
+        // == go
+        html.iterator().next();
+        final List<Integer> again = new ArrayList<>();
+        html.iterator().forEachRemaining(group -> again.add(group.getGroupNode().getRefId()));
+        final int keptForOtherRender = members.keptGroups();
+        latex.iterator().forEachRemaining(group -> { });
+
+        // == verify
+        assertEquals(Arrays.asList(11, 12), again);
+        assertEquals(1, keptForOtherRender);
+        assertEquals(0, members.keptGroups());
+        Mockito.verify(endpoint, Mockito.times(2)).getUsersForGroups(Collections.singletonList(group1));
+        Mockito.verify(endpoint, Mockito.times(2)).getUsersForGroups(Collections.singletonList(group2));
+    }
+
+    @Test
+    public void shouldPrepareWithDefaultAndLoadableTemplates() throws Exception {
+        // == prepare
+        // the custom templates are loaded relative to the working directory
+        final Path template = Files.createTempFile(Paths.get(""), "members", ".html.vm");
+        template.toFile().deleteOnExit();
+        Files.write(template, "#foreach($group in $membersPerGroup)$group#end".getBytes("UTF-8"));
+        final Map<VelocityOutputPrinter.OutputType, String> templatePaths = new LinkedHashMap<>();
+        templatePaths.put(VelocityOutputPrinter.OutputType.HTML, template.getFileName().toString());
+        templatePaths.put(VelocityOutputPrinter.OutputType.LATEX, "");
+        templatePaths.put(VelocityOutputPrinter.OutputType.CSV, "");
+        final ActionParameters parameters = Mockito.mock(ActionParameters.class);
+
+        // == train
+        Mockito.when(parameters.getTemplatePaths()).thenReturn(templatePaths);
+
+        // == go / verify
+        new PrintGroupMembersAction().prepare(new HashMap<>(), Collections.singletonList(group1), parameters);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotPrepareWithTemplateWhichCannotBeLoaded() throws Exception {
+        // == prepare
+        final ActionParameters parameters = Mockito.mock(ActionParameters.class);
+
+        // == train
+        Mockito.when(parameters.getTemplatePaths()).thenReturn(Collections.singletonMap(
+                VelocityOutputPrinter.OutputType.HTML, "missing/members.html.vm"));
+
+        // == go
+        new PrintGroupMembersAction().prepare(new HashMap<>(), Collections.singletonList(group1), parameters);
+    }
+}
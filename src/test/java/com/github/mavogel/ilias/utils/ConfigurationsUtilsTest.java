@@ -25,7 +25,13 @@
  */
 package com.github.mavogel.ilias.utils;
 
+import com.github.mavogel.ilias.lib.model.IliasNode;
 import com.github.mavogel.ilias.lib.model.LoginConfiguration;
+import com.github.mavogel.ilias.model.BatchJob;
+import com.github.mavogel.ilias.model.Schedule;
+import com.github.mavogel.ilias.model.ScheduledJob;
+import com.github.mavogel.ilias.model.ToolConfiguration;
+import com.github.mavogel.ilias.printer.VelocityOutputPrinter;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
@@ -34,8 +40,13 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 import java.io.Console;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -142,6 +153,31 @@ public class ConfigurationsUtilsTest {
         assertEquals(5, validLoginConfiguration.getMaxFolderDepth());
     }
 
+    @Test
+    public void shouldReadToolConfiguration() throws Exception {
+        // == prepare
+        String testFile = TEST_RES_DIR + "testConfig.properties";
+
+        // == go
+        ToolConfiguration toolConfiguration = ConfigurationsUtils.createToolConfiguration(testFile);
+
+        // == verify
+        assertEquals("user", toolConfiguration.getLoginConfiguration().getUsername());
+        assertEquals(8, toolConfiguration.getParallelism());
+    }
+
+    @Test
+    public void shouldUseDefaultsForToolConfiguration() throws Exception {
+        // == prepare
+        String testFile = TEST_RES_DIR + "testConfigStdLogin.properties";
+
+        // == go
+        ToolConfiguration toolConfiguration = ConfigurationsUtils.createToolConfiguration(testFile);
+
+        // == verify
+        assertEquals(Defaults.PARALLELISM, toolConfiguration.getParallelism());
+    }
+
     @Test(expected = RuntimeException.class)
     public void shouldFailDueToUnknownMode() throws Exception {
         // == prepare
@@ -171,4 +207,91 @@ public class ConfigurationsUtilsTest {
             throw e;
         }
     }
+
+    @Test
+    public void shouldReadBatchJob() throws Exception {
+        // == prepare
+        String testFile = TEST_RES_DIR + "testJob.properties";
+
+        // == go
+        BatchJob batchJob = ConfigurationsUtils.createBatchJob(testFile);
+
+        // == verify
+        assertEquals(Arrays.asList("1234", "Software Engineering"), batchJob.getCourses());
+        assertTrue(BatchJob.isCourse(new IliasNode(1234, IliasNode.Type.COURSE, "Other"), "1234"));
+        assertTrue(BatchJob.isCourse(new IliasNode(1, IliasNode.Type.COURSE, "Software Engineering"), "software engineering"));
+        assertTrue(batchJob.isGroupSelected(new IliasNode(2, IliasNode.Type.GROUP, "Gruppe 12")));
+        assertFalse(batchJob.isGroupSelected(new IliasNode(3, IliasNode.Type.GROUP, "Tutoren")));
+        assertEquals(Arrays.asList("SetMaxMembers", "PrintGroupMembers"), batchJob.getActions());
+        assertEquals(20, batchJob.getActionParameters().getMaxMembers());
+        assertEquals(Arrays.asList(VelocityOutputPrinter.OutputType.HTML, VelocityOutputPrinter.OutputType.CSV),
+                Arrays.asList(batchJob.getActionParameters().getTemplatePaths().keySet().toArray()));
+        assertEquals("", batchJob.getActionParameters().getTemplatePaths().get(VelocityOutputPrinter.OutputType.HTML));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailOnMissingParameterOfBatchJob() throws Exception {
+        // == prepare
+        BatchJob batchJob = ConfigurationsUtils.createBatchJob(TEST_RES_DIR + "testJob.properties");
+
+        // == go
+        batchJob.getActionParameters().getRegistrationPeriod();
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldFailDueToUnknownOutputTypeOfBatchJob() throws Exception {
+        // == prepare
+        String testFile = TEST_RES_DIR + "testJobUnknownOutputType.properties";
+
+        try {
+            // == go
+            ConfigurationsUtils.createBatchJob(testFile);
+        } catch (Exception e) {
+            // verify
+            assertTrue(e.getMessage().contains("Output type 'PDF' is unknown"));
+            throw e;
+        }
+    }
+
+    @Test
+    public void shouldReadSchedule() throws Exception {
+        // == prepare
+        String testFile = TEST_RES_DIR + "testSchedule.properties";
+
+        // == go
+        Schedule schedule = ConfigurationsUtils.createSchedule(testFile);
+
+        // == verify
+        assertEquals(2, schedule.getJobs().size());
+        assertEquals(Paths.get("/tmp/ilias-client-test/scheduler.state"), schedule.getStateFile());
+        assertEquals(Duration.ofMinutes(5), schedule.getKeepAliveInterval());
+
+        ScheduledJob cleanup = schedule.getJobs().get(0);
+        assertEquals("cleanup", cleanup.getName());
+        assertEquals("0 2 * * SUN", cleanup.getCron().toString());
+        assertEquals(1, cleanup.getMaxConcurrentRuns());
+        assertEquals(Arrays.asList("RemoveUploadedMaterials", "RemoveUsers"), cleanup.getBatchJob().getActions());
+
+        ScheduledJob registration = schedule.getJobs().get(1);
+        assertEquals(2, registration.getMaxConcurrentRuns());
+        assertEquals(Arrays.asList("Software Engineering"), registration.getBatchJob().getCourses());
+        assertTrue(registration.getBatchJob().isGroupSelected(new IliasNode(2, IliasNode.Type.GROUP, "Gruppe 12")));
+        assertEquals(LocalDateTime.of(2016, 10, 1, 8, 0),
+                registration.getBatchJob().getActionParameters().getRegistrationPeriod().getRegistrationStart());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldFailDueToMissingCronOfScheduledJob() throws Exception {
+        // == prepare
+        String testFile = TEST_RES_DIR + "testScheduleWoutCron.properties";
+
+        try {
+            // == go
+            ConfigurationsUtils.createSchedule(testFile);
+        } catch (Exception e) {
+            // verify
+            assertTrue(e.getMessage().contains("Job 'cleanup': cron is required"));
+            throw e;
+        }
+    }
 }
@@ -36,6 +36,7 @@ import java.time.LocalDateTime;
 import java.time.Month;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Scanner;
 
@@ -215,6 +216,35 @@ public class IOUtilsTest {
         assertEquals(Arrays.asList(1), madeChoices);
     }
 
+    @Test
+    public void shouldSetLargeRangeWithoutExpandingIt() throws Exception {
+        // == go
+        BitSet chosen = IOUtils.parseChoices("0-4999, 7, 6000 ,", 10000);
+
+        // == verify
+        assertEquals(5001, chosen.cardinality());
+        assertEquals(4999, chosen.previousSetBit(5999));
+        assertTrue(chosen.get(6000));
+    }
+
+    @Test
+    public void shouldReportInvalidCharactersBeforeIncorrectIndexes() throws Exception {
+        // == go
+        try {
+            IOUtils.parseChoices("99, 5-3, x", 12);
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException iae) {
+            // == verify
+            assertEquals("Contains invalid indexes and/or ranges or an invalid wildcard!", iae.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectIndexExceedingAnInteger() throws Exception {
+        // == go
+        IOUtils.parseChoices("1, 99999999999", 12);
+    }
+
     @Test
     public void shouldParseValidRegistrationPeriod() throws Exception {
         // == train
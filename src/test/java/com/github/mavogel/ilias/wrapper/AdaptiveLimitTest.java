@@ -0,0 +1,103 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.wrapper;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Test
+    public void shouldStartAtHalfOfMaximum() throws Exception {
+        // == go / verify
+        assertEquals(4, new AdaptiveLimit("test", 8).currentLimit());
+        assertEquals(1, new AdaptiveLimit("test", 1).currentLimit());
+    }
+
+    @Test
+    public void shouldGrowWhileLimitIsUsedAndCallsAreFast() throws Exception {
+        // == prepare
+        AdaptiveLimit limit = new AdaptiveLimit("test", 8);
+
+        // == go
+        for (int round = 0; round < 40; round++) {
+            useCompletely(limit, FAST);
+        }
+
+        // == verify
+        assertEquals(8, limit.currentLimit());
+    }
+
+    @Test
+    public void shouldShrinkOnSlowCalls() throws Exception {
+        // == prepare
+        AdaptiveLimit limit = new AdaptiveLimit("test", 8);
+        useCompletely(limit, FAST);
+
+        // == go
+        for (int call = 0; call < 5; call++) {
+            limit.acquire();
+            limit.release(SLOW, false);
+        }
+
+        // == verify
+        assertTrue(limit.currentLimit() < 4);
+    }
+
+    @Test
+    public void shouldHalveOnTransportErrors() throws Exception {
+        // == prepare
+        AdaptiveLimit limit = new AdaptiveLimit("test", 8);
+
+        // == go
+        limit.acquire();
+        limit.release(FAST, true);
+        limit.acquire();
+        limit.release(FAST, true);
+        limit.acquire();
+        limit.release(FAST, true);
+
+        // == verify
+        assertEquals(1, limit.currentLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    private static void useCompletely(final AdaptiveLimit limit, final long latencyNanos) throws Exception {
+        final int calls = limit.currentLimit();
+        for (int i = 0; i < calls; i++) {
+            limit.acquire();
+        }
+        for (int i = 0; i < calls; i++) {
+            limit.release(latencyNanos, false);
+        }
+    }
+}
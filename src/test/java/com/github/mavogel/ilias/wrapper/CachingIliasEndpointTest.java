@@ -0,0 +1,146 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.wrapper;
+
+import com.github.mavogel.ilias.lib.model.GroupUserModelFull;
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.lib.model.IliasUser;
+import com.github.mavogel.ilias.lib.model.LoginConfiguration;
+import com.github.mavogel.ilias.lib.wrapper.DisplayStatus;
+import com.github.mavogel.ilias.lib.wrapper.IliasEndpoint;
+import com.github.mavogel.ilias.model.ToolConfiguration;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class CachingIliasEndpointTest {
+
+    private final IliasNode course = new IliasNode(1, IliasNode.Type.COURSE, "My Course");
+    private final IliasNode group1 = new IliasNode(11, IliasNode.Type.GROUP, "Group 1");
+    private final IliasNode group2 = new IliasNode(12, IliasNode.Type.GROUP, "Group 2");
+    private final IliasNode file = new IliasNode(21, IliasNode.Type.FILE, "File 1");
+
+    private IliasEndpoint delegate;
+    private CachingIliasEndpoint endpoint;
+
+    @Before
+    public void setUp() throws Exception {
+        delegate = Mockito.mock(IliasEndpoint.class);
+        LoginConfiguration loginConfiguration = LoginConfiguration.asLDAPLogin("myEndpoint", "client_id", "user", "pwd", 5);
+        endpoint = new CachingIliasEndpoint(delegate, ToolConfiguration.withDefaults(loginConfiguration));
+    }
+
+    @Test
+    public void shouldFetchGroupsOfCourseOnlyOnce() throws Exception {
+        // == train
+        Mockito.when(delegate.getGroupsFromCourse(course)).thenReturn(Arrays.asList(group1, group2));
+
+        // == go
+        endpoint.getGroupsFromCourse(course);
+        List<IliasNode> groups = endpoint.getGroupsFromCourse(course);
+
+        // == verify
+        assertEquals(Arrays.asList(group1, group2), groups);
+        Mockito.verify(delegate, Mockito.times(1)).getGroupsFromCourse(course);
+    }
+
+    @Test
+    public void shouldNotCacheEmptyCourses() throws Exception {
+        // == train
+        Mockito.when(delegate.getCoursesForUser(DisplayStatus.ADMIN)).thenReturn(Collections.emptyList());
+
+        // == go
+        endpoint.getCoursesForUser(DisplayStatus.ADMIN);
+        endpoint.getCoursesForUser(DisplayStatus.ADMIN);
+
+        // == verify
+        Mockito.verify(delegate, Mockito.times(2)).getCoursesForUser(DisplayStatus.ADMIN);
+    }
+
+    @Test
+    public void shouldInvalidateFilesOfGroupOnDeletion() throws Exception {
+        // == prepare
+        final List<IliasNode> files = Collections.singletonList(file);
+
+        // == train
+        Mockito.when(delegate.getFilesFromGroups(Collections.singletonList(group1))).thenReturn(files);
+        Mockito.when(delegate.getFilesFromGroups(Collections.singletonList(group2))).thenReturn(Collections.emptyList());
+
+        // == go
+        endpoint.getFilesFromGroups(Collections.singletonList(group1));
+        endpoint.getFilesFromGroups(Collections.singletonList(group2));
+        endpoint.deleteObjectNodes(files);
+        endpoint.getFilesFromGroups(Collections.singletonList(group1));
+        endpoint.getFilesFromGroups(Collections.singletonList(group2));
+
+        // == verify
+        Mockito.verify(delegate, Mockito.times(2)).getFilesFromGroups(Collections.singletonList(group1));
+        Mockito.verify(delegate, Mockito.times(1)).getFilesFromGroups(Collections.singletonList(group2));
+    }
+
+    @Test
+    public void shouldReadFilesAgainAfterInvalidatingTheirGroups() throws Exception {
+        // == train
+        Mockito.when(delegate.getFilesFromGroups(Collections.singletonList(group1))).thenReturn(Collections.emptyList());
+        Mockito.when(delegate.getFilesFromGroups(Collections.singletonList(group2))).thenReturn(Collections.emptyList());
+
+        // == go
+        endpoint.getFilesFromGroups(Collections.singletonList(group1));
+        endpoint.getFilesFromGroups(Collections.singletonList(group2));
+        endpoint.invalidate(CachingIliasEndpoint.Operation.FILES, Collections.singletonList(group1));
+        endpoint.getFilesFromGroups(Collections.singletonList(group1));
+        endpoint.getFilesFromGroups(Collections.singletonList(group2));
+
+        // == verify
+        Mockito.verify(delegate, Mockito.times(2)).getFilesFromGroups(Collections.singletonList(group1));
+        Mockito.verify(delegate, Mockito.times(1)).getFilesFromGroups(Collections.singletonList(group2));
+    }
+
+    @Test
+    public void shouldInvalidateMembersOfGroupOnRemoval() throws Exception {
+        // == train
+        Mockito.when(delegate.getUsersForGroups(Collections.singletonList(group1))).thenReturn(Collections.singletonList(
+                new GroupUserModelFull(group1, Collections.singletonList(new IliasUser("f1", "n1", "mail1")))));
+        Mockito.when(delegate.getGroupsFromCourse(course)).thenReturn(Arrays.asList(group1, group2));
+
+        // == go
+        endpoint.getGroupsFromCourse(course);
+        endpoint.getUsersForGroups(Collections.singletonList(group1));
+        endpoint.removeAllMembersFromGroups(Collections.singletonList(group1));
+        endpoint.getUsersForGroups(Collections.singletonList(group1));
+        endpoint.getGroupsFromCourse(course);
+
+        // == verify
+        Mockito.verify(delegate, Mockito.times(2)).getUsersForGroups(Collections.singletonList(group1));
+        Mockito.verify(delegate, Mockito.times(1)).getGroupsFromCourse(course);
+    }
+}
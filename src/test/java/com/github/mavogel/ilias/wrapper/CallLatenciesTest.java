@@ -0,0 +1,80 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.wrapper;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class CallLatenciesTest {
+
+    @Test
+    public void shouldAverageLatenciesOfCall() throws Exception {
+        // == prepare
+        CallLatencies latencies = new CallLatencies();
+
+        // == go
+        latencies.record(EndpointCall.MEMBERS, 100_000_000L);
+        latencies.record(EndpointCall.MEMBERS, 200_000_000L);
+
+        // == verify
+        assertEquals(Optional.of(Duration.ofMillis(120)), latencies.get(EndpointCall.MEMBERS));
+    }
+
+    @Test
+    public void shouldEstimateUnmeasuredCallFromCallsOfSameKind() throws Exception {
+        // == prepare
+        CallLatencies latencies = new CallLatencies();
+
+        // == go
+        latencies.record(EndpointCall.MEMBERS, 100_000_000L);
+        latencies.record(EndpointCall.REMOVE_MEMBERS, 300_000_000L);
+        latencies.record(EndpointCall.GRANT_FILE_UPLOAD, 500_000_000L);
+
+        // == verify
+        assertFalse(latencies.get(EndpointCall.SET_MAX_MEMBERS).isPresent());
+        assertEquals(Optional.of(Duration.ofMillis(400)), latencies.estimate(EndpointCall.SET_MAX_MEMBERS));
+        assertEquals(Optional.of(Duration.ofMillis(100)), latencies.estimate(EndpointCall.FILES));
+    }
+
+    @Test
+    public void shouldEstimateFromAllCallsIfNoneOfSameKindWasMeasured() throws Exception {
+        // == prepare
+        CallLatencies latencies = new CallLatencies();
+
+        // == go
+        latencies.record(EndpointCall.COURSES, 100_000_000L);
+        latencies.record(EndpointCall.GROUPS, 300_000_000L);
+
+        // == verify
+        assertEquals(Optional.of(Duration.ofMillis(200)), latencies.estimate(EndpointCall.DELETE_NODES));
+        assertFalse(new CallLatencies().estimate(EndpointCall.DELETE_NODES).isPresent());
+    }
+}
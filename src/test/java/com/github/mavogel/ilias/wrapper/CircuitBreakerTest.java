@@ -0,0 +1,100 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.wrapper;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    public void shouldOpenAfterConsecutiveTransportErrors() throws Exception {
+        // == prepare
+        CircuitBreaker breaker = new CircuitBreaker(3, Duration.ofSeconds(30), now::get);
+
+        // == go
+        breaker.onTransportError();
+        breaker.onTransportError();
+        breaker.onSuccess();
+        breaker.onTransportError();
+        breaker.onTransportError();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onTransportError();
+
+        // == verify
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        try {
+            breaker.acquire();
+            fail("circuit should be open");
+        } catch (CircuitOpenException coe) {
+            // expected
+        }
+    }
+
+    @Test
+    public void shouldLetOneTrialCallThroughAfterOpenDuration() throws Exception {
+        // == prepare
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofSeconds(30), now::get);
+        breaker.onTransportError();
+
+        // == go
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+        breaker.acquire();
+
+        // == verify
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        try {
+            breaker.acquire();
+            fail("only one trial call expected");
+        } catch (CircuitOpenException coe) {
+            // expected
+        }
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.acquire();
+    }
+
+    @Test
+    public void shouldOpenAgainIfTrialCallFails() throws Exception {
+        // == prepare
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofSeconds(30), now::get);
+        breaker.onTransportError();
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+        breaker.acquire();
+
+        // == go
+        breaker.onTransportError();
+
+        // == verify
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+}
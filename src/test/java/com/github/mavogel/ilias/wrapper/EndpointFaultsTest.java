@@ -0,0 +1,62 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.wrapper;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+
+import static org.junit.Assert.*;
+
+public class EndpointFaultsTest {
+
+    @Test
+    public void shouldClassifyTransportErrors() throws Exception {
+        assertTrue(EndpointFaults.isTransportError(new SocketTimeoutException("read timed out")));
+        assertTrue(EndpointFaults.isTransportError(new RuntimeException(new ConnectException("refused"))));
+        assertTrue(EndpointFaults.isTransportError(new TestSoapFault(new IOException("broken pipe"))));
+        assertFalse(EndpointFaults.isServerFault(new TestSoapFault(new IOException("broken pipe"))));
+    }
+
+    @Test
+    public void shouldClassifyServerFaults() throws Exception {
+        assertTrue(EndpointFaults.isServerFault(new TestSoapFault(null)));
+        assertFalse(EndpointFaults.isTransportError(new TestSoapFault(null)));
+        assertFalse(EndpointFaults.isServerFault(new IllegalStateException("bug")));
+        assertFalse(EndpointFaults.isTransportError(new IllegalStateException("bug")));
+    }
+
+    /**
+     * A fault which is an {@link IOException}, like the <code>AxisFault</code>.
+     */
+    static class TestSoapFault extends IOException {
+        TestSoapFault(final Throwable cause) {
+            super("fault", cause);
+        }
+    }
+}
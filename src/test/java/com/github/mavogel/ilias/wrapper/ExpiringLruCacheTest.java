@@ -0,0 +1,101 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.wrapper;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class ExpiringLruCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    public void shouldExpireEntriesAfterTheirTimeToLive() throws Exception {
+        // == prepare
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(10, now::get);
+        cache.put("short", "a", Duration.ofSeconds(1));
+        cache.put("long", "b", Duration.ofSeconds(10));
+
+        // == go
+        now.addAndGet(Duration.ofSeconds(2).toNanos());
+
+        // == verify
+        assertEquals(Optional.empty(), cache.get("short"));
+        assertEquals(Optional.of("b"), cache.get("long"));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedEntry() throws Exception {
+        // == prepare
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(2, now::get);
+        cache.put("1", "a", Duration.ofSeconds(10));
+        cache.put("2", "b", Duration.ofSeconds(10));
+
+        // == go
+        cache.get("1");
+        cache.put("3", "c", Duration.ofSeconds(10));
+
+        // == verify
+        assertEquals(2, cache.size());
+        assertEquals(Optional.of("a"), cache.get("1"));
+        assertEquals(Optional.empty(), cache.get("2"));
+        assertEquals(Optional.of("c"), cache.get("3"));
+    }
+
+    @Test
+    public void shouldNotStoreWithoutTimeToLive() throws Exception {
+        // == prepare
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(2, now::get);
+
+        // == go
+        cache.put("1", "a", Duration.ZERO);
+
+        // == verify
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void shouldInvalidateMatchingEntries() throws Exception {
+        // == prepare
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(10, now::get);
+        cache.put("1", "a", Duration.ofSeconds(10));
+        cache.put("2", "b", Duration.ofSeconds(10));
+        cache.put("3", "a", Duration.ofSeconds(10));
+
+        // == go
+        int removed = cache.invalidateIf((key, value) -> value.equals("a"));
+
+        // == verify
+        assertEquals(2, removed);
+        assertEquals(Optional.of("b"), cache.get("2"));
+        assertEquals(1, cache.size());
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.wrapper;
+
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.lib.model.LoginConfiguration;
+import com.github.mavogel.ilias.lib.wrapper.IliasEndpoint;
+import com.github.mavogel.ilias.model.ToolConfiguration;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class ResilientIliasEndpointTest {
+
+    private final IliasNode group = new IliasNode(11, IliasNode.Type.GROUP, "Group 1");
+    private final IliasNode file = new IliasNode(21, IliasNode.Type.FILE, "File 1");
+
+    private IliasEndpoint delegate;
+    private CircuitBreaker circuitBreaker;
+    private ResilientIliasEndpoint endpoint;
+
+    @Before
+    public void setUp() throws Exception {
+        delegate = Mockito.mock(IliasEndpoint.class);
+        LoginConfiguration loginConfiguration = LoginConfiguration.asLDAPLogin("myEndpoint", "client_id", "user", "pwd", 5);
+        circuitBreaker = new CircuitBreaker(5, Duration.ofSeconds(30));
+        endpoint = new ResilientIliasEndpoint(delegate, ToolConfiguration.withDefaults(loginConfiguration), circuitBreaker);
+    }
+
+    @Test
+    public void shouldRetryTransportErrors() throws Exception {
+        // == train
+        Mockito.when(delegate.getFilesFromGroups(Collections.singletonList(group)))
+                .thenThrow(new SocketTimeoutException("read timed out"))
+                .thenReturn(Collections.singletonList(file));
+
+        // == go
+        List<IliasNode> files = endpoint.getFilesFromGroups(Collections.singletonList(group));
+
+        // == verify
+        assertEquals(Collections.singletonList(file), files);
+        Mockito.verify(delegate, Mockito.times(2)).getFilesFromGroups(Collections.singletonList(group));
+    }
+
+    @Test
+    public void shouldNotRetryServerFaults() throws Exception {
+        // == train
+        Mockito.doThrow(new EndpointFaultsTest.TestSoapFault(null))
+                .when(delegate).setMaxMembersOnGroups(Collections.singletonList(group), 5);
+
+        // == go
+        try {
+            endpoint.setMaxMembersOnGroups(Collections.singletonList(group), 5);
+            fail("fault expected");
+        } catch (EndpointFaultsTest.TestSoapFault fault) {
+            // expected
+        }
+
+        // == verify
+        Mockito.verify(delegate, Mockito.times(1)).setMaxMembersOnGroups(Collections.singletonList(group), 5);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void shouldNotRetryDeletes() throws Exception {
+        // == train
+        Mockito.doThrow(new SocketTimeoutException("read timed out"))
+                .when(delegate).deleteObjectNodes(Collections.singletonList(file));
+
+        // == go
+        try {
+            endpoint.deleteObjectNodes(Collections.singletonList(file));
+            fail("timeout expected");
+        } catch (SocketTimeoutException ste) {
+            // expected
+        }
+
+        // == verify
+        Mockito.verify(delegate, Mockito.times(1)).deleteObjectNodes(Collections.singletonList(file));
+    }
+
+    @Test
+    public void shouldFailFastWhileCircuitIsOpen() throws Exception {
+        // == prepare
+        for (int i = 0; i < 5; i++) {
+            circuitBreaker.onTransportError();
+        }
+
+        // == go
+        try {
+            endpoint.removeAllMembersFromGroups(Collections.singletonList(group));
+            fail("open circuit expected");
+        } catch (CircuitOpenException coe) {
+            // expected
+        }
+
+        // == verify
+        Mockito.verify(delegate, Mockito.never()).removeAllMembersFromGroups(Mockito.anyList());
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.wrapper;
+
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.lib.wrapper.IliasEndpoint;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class SingleFlightIliasEndpointTest {
+
+    private final IliasNode group = new IliasNode(11, IliasNode.Type.GROUP, "Group 1");
+    private final IliasNode file = new IliasNode(21, IliasNode.Type.FILE, "File 1");
+
+    private IliasEndpoint delegate;
+    private SingleFlightIliasEndpoint endpoint;
+    private ExecutorService callers;
+
+    @Before
+    public void setUp() throws Exception {
+        delegate = Mockito.mock(IliasEndpoint.class);
+        endpoint = new SingleFlightIliasEndpoint(delegate);
+        callers = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        callers.shutdownNow();
+    }
+
+    @Test
+    public void shouldShareRunningIdenticalCall() throws Exception {
+        // == prepare
+        final CountDownLatch firstCallStarted = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(delegate.getFilesFromGroups(Collections.singletonList(group))).thenAnswer(invocation -> {
+            firstCallStarted.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Collections.singletonList(file);
+        });
+
+        // == go
+        Future<List<IliasNode>> first = callers.submit(() -> endpoint.getFilesFromGroups(Collections.singletonList(group)));
+        firstCallStarted.await(5, TimeUnit.SECONDS);
+        Future<List<IliasNode>> second = callers.submit(() -> endpoint.getFilesFromGroups(Collections.singletonList(group)));
+        Thread.sleep(100);
+        release.countDown();
+
+        // == verify
+        assertEquals(Collections.singletonList(file), first.get(5, TimeUnit.SECONDS));
+        assertSame(first.get(), second.get(5, TimeUnit.SECONDS));
+        Mockito.verify(delegate, Mockito.times(1)).getFilesFromGroups(Collections.singletonList(group));
+    }
+
+    @Test
+    public void shouldCallAgainAfterRunningCallFinished() throws Exception {
+        // == train
+        Mockito.when(delegate.getFilesFromGroups(Collections.singletonList(group))).thenReturn(Collections.singletonList(file));
+
+        // == go
+        endpoint.getFilesFromGroups(Collections.singletonList(group));
+        endpoint.getFilesFromGroups(Collections.singletonList(group));
+
+        // == verify
+        Mockito.verify(delegate, Mockito.times(2)).getFilesFromGroups(Collections.singletonList(group));
+    }
+
+    @Test
+    public void shouldShareErrorOfRunningCall() throws Exception {
+        // == prepare
+        final CountDownLatch firstCallStarted = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(delegate.getUsersForGroups(Collections.singletonList(group))).thenAnswer(invocation -> {
+            firstCallStarted.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            throw new IllegalStateException("server down");
+        });
+
+        // == go
+        Future<?> first = callers.submit(() -> endpoint.getUsersForGroups(Collections.singletonList(group)));
+        firstCallStarted.await(5, TimeUnit.SECONDS);
+        Future<?> second = callers.submit(() -> endpoint.getUsersForGroups(Collections.singletonList(group)));
+        Thread.sleep(100);
+        release.countDown();
+
+        // == verify
+        for (Future<?> call : new Future<?>[]{first, second}) {
+            try {
+                call.get(5, TimeUnit.SECONDS);
+                fail("exception expected");
+            } catch (ExecutionException ee) {
+                assertEquals("server down", ee.getCause().getMessage());
+            }
+        }
+        Mockito.verify(delegate, Mockito.times(1)).getUsersForGroups(Collections.singletonList(group));
+    }
+
+    @Test
+    public void shouldReleaseWaitingCallerIfRunningCallThrowsError() throws Exception {
+        // == prepare
+        final CountDownLatch firstCallStarted = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(delegate.getFilesFromGroups(Collections.singletonList(group))).thenAnswer(invocation -> {
+            firstCallStarted.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            throw new AssertionError("broken mock");
+        });
+
+        // == go
+        Future<?> first = callers.submit(() -> endpoint.getFilesFromGroups(Collections.singletonList(group)));
+        firstCallStarted.await(5, TimeUnit.SECONDS);
+        Future<?> second = callers.submit(() -> endpoint.getFilesFromGroups(Collections.singletonList(group)));
+        Thread.sleep(100);
+        release.countDown();
+
+        // == verify
+        for (Future<?> call : new Future<?>[]{first, second}) {
+            try {
+                call.get(5, TimeUnit.SECONDS);
+                fail("error expected");
+            } catch (ExecutionException ee) {
+                assertEquals("broken mock", ee.getCause().getMessage());
+            }
+        }
+        Mockito.verify(delegate, Mockito.times(1)).getFilesFromGroups(Collections.singletonList(group));
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ *  The MIT License (MIT)
+ *
+ *  Copyright (c) 2016 Manuel Vogel
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ *
+ *  https://opensource.org/licenses/MIT
+ */
+package com.github.mavogel.ilias.wrapper;
+
+import com.github.mavogel.ilias.lib.model.IliasNode;
+import com.github.mavogel.ilias.lib.model.LoginConfiguration;
+import com.github.mavogel.ilias.lib.wrapper.DisplayStatus;
+import com.github.mavogel.ilias.lib.wrapper.IliasEndpoint;
+import com.github.mavogel.ilias.snapshot.CourseTreeSnapshot;
+import com.github.mavogel.ilias.snapshot.SnapshotStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SnapshotIliasEndpointTest {
+
+    private final IliasNode course = new IliasNode(1, IliasNode.Type.COURSE, "Course");
+    private final IliasNode otherCourse = new IliasNode(2, IliasNode.Type.COURSE, "Other");
+    private final List<IliasNode> groups = Arrays.asList(
+            new IliasNode(11, IliasNode.Type.GROUP, "Group 1"),
+            new IliasNode(12, IliasNode.Type.GROUP, "Group 2"));
+
+    private IliasEndpoint delegate;
+    private SnapshotIliasEndpoint.Listener listener;
+    private SnapshotStore store;
+    private SnapshotIliasEndpoint endpoint;
+
+    @Before
+    public void setUp() throws Exception {
+        delegate = Mockito.mock(IliasEndpoint.class);
+        listener = Mockito.mock(SnapshotIliasEndpoint.Listener.class);
+        store = new SnapshotStore(Files.createTempDirectory("snapshot"), LoginConfiguration.asStandardLogin(
+                "https://ilias.example.com", "client", "user", "secret", 3));
+        store.save(CourseTreeSnapshot.empty()
+                .withCourses(Collections.singletonList(course))
+                .withGroups(course, groups));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (endpoint != null) {
+            endpoint.logout("");
+        }
+    }
+
+    @Test
+    public void shouldServeCoursesFromSnapshotAndVerifyThemInBackground() throws Exception {
+        // == train
+        Mockito.when(delegate.getCoursesForUser(DisplayStatus.ADMIN)).thenReturn(Collections.singletonList(course));
+        endpoint = new SnapshotIliasEndpoint(delegate, store, listener);
+
+        // == go
+        List<IliasNode> courses = endpoint.getCoursesForUser(DisplayStatus.ADMIN);
+
+        // == verify
+        assertTrue(CourseTreeSnapshot.isSameNodes(Collections.singletonList(course), courses));
+        Mockito.verify(delegate, Mockito.timeout(5000)).getCoursesForUser(DisplayStatus.ADMIN);
+        Thread.sleep(100);
+        Mockito.verifyZeroInteractions(listener);
+    }
+
+    @Test
+    public void shouldNotifyAndRecordChangedCourses() throws Exception {
+        // == train
+        List<IliasNode> current = Arrays.asList(course, otherCourse);
+        Mockito.when(delegate.getCoursesForUser(DisplayStatus.ADMIN)).thenReturn(current);
+        endpoint = new SnapshotIliasEndpoint(delegate, store, listener);
+
+        // == go
+        List<IliasNode> fromSnapshot = endpoint.getCoursesForUser(DisplayStatus.ADMIN);
+
+        // == verify
+        assertEquals(1, fromSnapshot.size());
+        Mockito.verify(listener, Mockito.timeout(5000)).onCoursesChanged();
+        assertTrue(CourseTreeSnapshot.isSameNodes(current, store.load().get().getCourses()));
+        assertEquals(current, endpoint.getCoursesForUser(DisplayStatus.ADMIN));
+        Mockito.verify(delegate, Mockito.times(2)).getCoursesForUser(DisplayStatus.ADMIN);
+    }
+
+    @Test
+    public void shouldServeGroupsFromSnapshotAndVerifyThemInBackground() throws Exception {
+        // == train
+        Mockito.when(delegate.getGroupsFromCourse(course)).thenReturn(groups);
+        endpoint = new SnapshotIliasEndpoint(delegate, store, listener);
+
+        // == go
+        List<IliasNode> fromSnapshot = endpoint.getGroupsFromCourse(course);
+
+        // == verify
+        assertTrue(CourseTreeSnapshot.isSameNodes(groups, fromSnapshot));
+        Mockito.verify(delegate, Mockito.timeout(5000)).getGroupsFromCourse(course);
+        Thread.sleep(100);
+        Mockito.verifyZeroInteractions(listener);
+    }
+
+    @Test
+    public void shouldNotifyAndRecordChangedGroupsOfTheCourse() throws Exception {
+        // == train
+        List<IliasNode> current = Collections.singletonList(groups.get(0));
+        Mockito.when(delegate.getGroupsFromCourse(course)).thenReturn(current);
+        endpoint = new SnapshotIliasEndpoint(delegate, store, listener);
+
+        // == go
+        List<IliasNode> fromSnapshot = endpoint.getGroupsFromCourse(course);
+
+        // == verify
+        assertEquals(2, fromSnapshot.size());
+        Mockito.verify(listener, Mockito.timeout(5000)).onGroupsChanged(course);
+        Mockito.verify(listener, Mockito.never()).onCoursesChanged();
+        assertTrue(CourseTreeSnapshot.isSameNodes(current, store.load().get().getGroups(course).get()));
+        assertEquals(current, endpoint.getGroupsFromCourse(course));
+        Mockito.verify(delegate, Mockito.times(2)).getGroupsFromCourse(course);
+    }
+
+    @Test
+    public void shouldFetchAndRecordGroupsMissingInSnapshot() throws Exception {
+        // == prepare
+        store.save(store.load().get().withCourses(Arrays.asList(course, otherCourse)));
+
+        // == train
+        Mockito.when(delegate.getGroupsFromCourse(otherCourse)).thenReturn(groups);
+        endpoint = new SnapshotIliasEndpoint(delegate, store, listener);
+
+        // == go
+        List<IliasNode> fetched = endpoint.getGroupsFromCourse(otherCourse);
+
+        // == verify
+        assertEquals(groups, fetched);
+        Mockito.verify(delegate, Mockito.times(1)).getGroupsFromCourse(otherCourse);
+        Mockito.verifyZeroInteractions(listener);
+        assertTrue(CourseTreeSnapshot.isSameNodes(groups, store.load().get().getGroups(otherCourse).get()));
+    }
+
+    @Test
+    public void shouldKeepSnapshotIfVerificationFails() throws Exception {
+        // == train
+        Mockito.when(delegate.getGroupsFromCourse(course)).thenThrow(new IllegalStateException("server down"));
+        endpoint = new SnapshotIliasEndpoint(delegate, store, listener);
+
+        // == go
+        endpoint.getGroupsFromCourse(course);
+
+        // == verify
+        Mockito.verify(delegate, Mockito.timeout(5000)).getGroupsFromCourse(course);
+        Thread.sleep(100);
+        Mockito.verifyZeroInteractions(listener);
+        assertTrue(CourseTreeSnapshot.isSameNodes(groups, store.load().get().getGroups(course).get()));
+        assertFalse(store.load().get().getGroups(otherCourse).isPresent());
+    }
+}